@@ -0,0 +1,61 @@
+package benchmark;
+
+import lexer.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import program.ProgramAST;
+import program.ProgramCache;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of {@link ProgramCache#load(byte[])}, which replaces the tokenizer, the parser and the semantics check
+ * for a cached program.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xss64m")
+public class CacheBenchmark {
+    @Param({"simple", "linkedList", "map", "recursion-1000", "loop-100000", "struct-100"})
+    public String script;
+
+    private Path directory;
+
+    private ProgramCache cache;
+
+    private byte[] source;
+
+    @Setup(Level.Trial)
+    public void store() throws Exception {
+        char[] chars = Scripts.load(this.script);
+        this.source = new String(chars).getBytes(Charset.defaultCharset());
+        ProgramAST program = new Parser().parse(new Tokenizer(chars).run());
+        program.semanticsCheck();
+        this.directory = Files.createTempDirectory("bicycle-cache");
+        this.cache = new ProgramCache(this.directory);
+        this.cache.store(this.source, program);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public ProgramAST load() throws Exception {
+        return this.cache.load(this.source);
+    }
+}
@@ -0,0 +1,43 @@
+package benchmark;
+
+import lexer.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import program.CompiledProgram;
+import program.ExecutionContext;
+import program.Output;
+import program.ProgramAST;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link CompiledProgram#execute(ExecutionContext)}, the output of the program is discarded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xss64m")
+public class ExecutionBenchmark {
+    @Param({"simple", "linkedList", "map", "recursion-1000", "loop-100000", "struct-100", "array-100000", "collection-100000", "concat-100000", "parfor-100000", "spawn-10000", "channel-100000"})
+    public String script;
+
+    private CompiledProgram program;
+
+    private Output output;
+
+    @Setup
+    public void setup() throws Exception {
+        ProgramAST program = new Parser().parse(new Tokenizer(Scripts.load(this.script)).run());
+        program.semanticsCheck();
+        this.program = new CompiledProgram(program);
+        this.output = new Output(OutputStream.nullOutputStream(), Output.DEFAULT_SIZE, false);
+    }
+
+    @Benchmark
+    public void execute() throws Exception {
+        this.program.execute(new ExecutionContext(this.output));
+    }
+}
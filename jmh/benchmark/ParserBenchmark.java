@@ -0,0 +1,36 @@
+package benchmark;
+
+import lexer.Token;
+import lexer.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import program.ProgramAST;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link Parser#parse(List)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xss64m")
+public class ParserBenchmark {
+    @Param({"simple", "linkedList", "map", "recursion-1000", "loop-100000", "struct-100"})
+    public String script;
+
+    private List<Token> tokens;
+
+    @Setup
+    public void setup() throws Exception {
+        this.tokens = new Tokenizer(Scripts.load(this.script)).run();
+    }
+
+    @Benchmark
+    public ProgramAST parse() throws Exception {
+        return new Parser().parse(this.tokens);
+    }
+}
@@ -0,0 +1,230 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Programs the benchmarks are run on.
+ * A script is either an example program, e.g. "map", or a generated program and its size, e.g. "loop-100000":
+ * "recursion-N" recurses N calls deep, "loop-N" runs N iterations, "struct-N" uses a struct with N fields
+ * "chain-N" declares N variables, each initialized from the previous one, and "array-N" fills and sums arrays of N
+ * elements, "collection-N" fills and sums a map and a list of N elements, "concat-N" builds a string of N
+ * appends, "parfor-N" sums N iterations of a parallel loop, "spawn-N" spawns and joins N tasks and "channel-N" passes
+ * N values through a pipeline of tasks.
+ */
+final class Scripts {
+    private Scripts() {
+    }
+
+    /**
+     * @param script name of the script.
+     * @return source of the program.
+     * @throws IOException if the example cannot be read.
+     */
+    static char[] load(String script) throws IOException {
+        int dash = script.indexOf('-');
+        if (dash < 0) {
+            return example(script).toCharArray();
+        }
+        int size = Integer.parseInt(script.substring(dash + 1));
+        String source = switch (script.substring(0, dash)) {
+            case "recursion" -> recursion(size);
+            case "loop" -> loop(size);
+            case "struct" -> struct(size);
+            case "chain" -> chain(size);
+            case "array" -> array(size);
+            case "collection" -> collection(size);
+            case "concat" -> concat(size);
+            case "parfor" -> parfor(size);
+            case "spawn" -> spawn(size);
+            case "channel" -> channel(size);
+            default -> throw new IllegalArgumentException("Unknown script '" + script + "'");
+        };
+        return source.toCharArray();
+    }
+
+    private static String example(String name) throws IOException {
+        try (InputStream in = Scripts.class.getResourceAsStream("/examples/" + name + ".bcl")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown script '" + name + "'");
+            }
+            // The tokenizer decodes files with the default charset as well.
+            return new String(in.readAllBytes(), Charset.defaultCharset());
+        }
+    }
+
+    private static String recursion(int depth) {
+        return "int depth(int n) {\n"
+                + "    if (n == 0) {\n"
+                + "        return 0;\n"
+                + "    }\n"
+                + "    return depth(n - 1) + 1;\n"
+                + "}\n"
+                + "\n"
+                + "void main() {\n"
+                + "    printf(depth(" + depth + "));\n"
+                + "}\n";
+    }
+
+    private static String loop(int iterations) {
+        return "void main() {\n"
+                + "    int sum = 0;\n"
+                + "    double avg = 0.0;\n"
+                + "    for (int i = 0; i < " + iterations + "; i = i + 1) {\n"
+                + "        if (i % 3 == 0) {\n"
+                + "            sum = sum + i * 2;\n"
+                + "        } else {\n"
+                + "            sum = sum - i / 2;\n"
+                + "        }\n"
+                + "        avg = avg + sum / 2.0;\n"
+                + "    }\n"
+                + "    printf(sum);\n"
+                + "    printf(avg);\n"
+                + "}\n";
+    }
+
+    private static String struct(int fields) {
+        StringBuilder source = new StringBuilder("struct Large {\n");
+        for (int i = 0; i < fields; i++) {
+            source.append("    int f").append(i).append(" = ").append(i).append(";\n");
+        }
+        source.append("}\n")
+                .append("\n")
+                .append("void main() {\n")
+                .append("    int sum = 0;\n")
+                .append("    for (int i = 0; i < 1000; i = i + 1) {\n")
+                .append("        Large s = new Large();\n");
+        for (int i = 0; i < fields; i++) {
+            source.append("        s.f").append(i).append(" = s.f").append(i).append(" + i;\n");
+        }
+        source.append("        sum = sum + s.f").append(fields - 1).append(";\n")
+                .append("    }\n")
+                .append("    printf(sum);\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    private static String array(int length) {
+        return "void main() {\n"
+                + "    int[] values = new int[" + length + "];\n"
+                + "    double[] halves = new double[values.length];\n"
+                + "    for (int i = 0; i < values.length; i = i + 1) {\n"
+                + "        values[i] = i % 100;\n"
+                + "        halves[i] = values[i] / 2.0;\n"
+                + "    }\n"
+                + "    int sum = 0;\n"
+                + "    double total = 0.0;\n"
+                + "    for (int i = 0; i < values.length; i = i + 1) {\n"
+                + "        sum = sum + values[i];\n"
+                + "        total = total + halves[i];\n"
+                + "    }\n"
+                + "    printf(sum);\n"
+                + "    printf(total);\n"
+                + "}\n";
+    }
+
+    private static String collection(int size) {
+        return "void main() {\n"
+                + "    map<int, int> squares = new map<int, int>();\n"
+                + "    list<int> values = new list<int>();\n"
+                + "    for (int i = 0; i < " + size + "; i = i + 1) {\n"
+                + "        int value = i % 100;\n"
+                + "        squares.put(i, value * value);\n"
+                + "        values.add(value);\n"
+                + "    }\n"
+                + "    int sum = 0;\n"
+                + "    for (int i = 0; i < values.size(); i = i + 1) {\n"
+                + "        sum = sum + squares.get(i) + values.get(i);\n"
+                + "    }\n"
+                + "    printf(sum);\n"
+                + "}\n";
+    }
+
+    private static String concat(int appends) {
+        return "void main() {\n"
+                + "    string report = \"\";\n"
+                + "    for (int i = 0; i < " + appends + "; i = i + 1) {\n"
+                + "        report = report + i + \",\";\n"
+                + "    }\n"
+                + "    if (report == \"\") {\n"
+                + "        printf(\"empty\");\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    private static String parfor(int iterations) {
+        return "void main() {\n"
+                + "    int sum = 0;\n"
+                + "    parfor (int i = 0; i < " + iterations + "; i = i + 1) reduce (sum) {\n"
+                + "        int score = 0;\n"
+                + "        for (int k = 0; k < i % 100; k = k + 1) {\n"
+                + "            score = score + k;\n"
+                + "        }\n"
+                + "        sum = sum + score;\n"
+                + "    }\n"
+                + "    printf(sum);\n"
+                + "}\n";
+    }
+
+    private static String spawn(int tasks) {
+        return "int score(int n) {\n"
+                + "    int score = 0;\n"
+                + "    for (int k = 0; k < n; k = k + 1) {\n"
+                + "        score = score + k;\n"
+                + "    }\n"
+                + "    return score;\n"
+                + "}\n"
+                + "\n"
+                + "void main() {\n"
+                + "    task<int>[] tasks = new task<int>[" + tasks + "];\n"
+                + "    for (int i = 0; i < tasks.length; i = i + 1) {\n"
+                + "        tasks[i] = spawn score(i % 100);\n"
+                + "    }\n"
+                + "    int sum = 0;\n"
+                + "    for (int i = 0; i < tasks.length; i = i + 1) {\n"
+                + "        sum = sum + join(tasks[i]);\n"
+                + "    }\n"
+                + "    printf(sum);\n"
+                + "}\n";
+    }
+
+    private static String channel(int values) {
+        return "void produce(chan<int> out) {\n"
+                + "    for (int i = 0; i < " + values + "; i = i + 1) {\n"
+                + "        out.send(i % 100);\n"
+                + "    }\n"
+                + "    out.close();\n"
+                + "}\n"
+                + "\n"
+                + "void square(chan<int> in, chan<int> out) {\n"
+                + "    for (int v : in) {\n"
+                + "        out.send(v * v);\n"
+                + "    }\n"
+                + "    out.close();\n"
+                + "}\n"
+                + "\n"
+                + "void main() {\n"
+                + "    chan<int> numbers = new chan<int>();\n"
+                + "    chan<int> squares = new chan<int>();\n"
+                + "    spawn produce(numbers);\n"
+                + "    spawn square(numbers, squares);\n"
+                + "    int sum = 0;\n"
+                + "    for (int v : squares) {\n"
+                + "        sum = sum + v;\n"
+                + "    }\n"
+                + "    printf(sum);\n"
+                + "}\n";
+    }
+
+    private static String chain(int variables) {
+        StringBuilder source = new StringBuilder("void main() {\n")
+                .append("    int v0 = 1;\n");
+        for (int i = 1; i < variables; i++) {
+            source.append("    int v").append(i).append(" = v").append(i - 1).append(" + v").append(i - 1).append(";\n");
+        }
+        source.append("    printf(v").append(variables - 1).append(");\n")
+                .append("}\n");
+        return source.toString();
+    }
+}
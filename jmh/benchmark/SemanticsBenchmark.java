@@ -0,0 +1,45 @@
+package benchmark;
+
+import lexer.Token;
+import lexer.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import program.ProgramAST;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link ProgramAST#semanticsCheck()}.
+ * The check annotates the AST, so every invocation checks a freshly parsed program.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xss64m")
+public class SemanticsBenchmark {
+    @Param({"simple", "linkedList", "map", "recursion-1000", "loop-100000", "struct-100", "chain-30"})
+    public String script;
+
+    private List<Token> tokens;
+
+    private ProgramAST program;
+
+    @Setup(Level.Trial)
+    public void tokenize() throws Exception {
+        this.tokens = new Tokenizer(Scripts.load(this.script)).run();
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() throws Exception {
+        this.program = new Parser().parse(this.tokens);
+    }
+
+    @Benchmark
+    public ProgramAST semanticsCheck() throws Exception {
+        this.program.semanticsCheck();
+        return this.program;
+    }
+}
@@ -0,0 +1,34 @@
+package benchmark;
+
+import lexer.Token;
+import lexer.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link Tokenizer#run()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xss64m")
+public class TokenizerBenchmark {
+    @Param({"simple", "linkedList", "map", "recursion-1000", "loop-100000", "struct-100"})
+    public String script;
+
+    private char[] source;
+
+    @Setup
+    public void setup() throws Exception {
+        this.source = Scripts.load(this.script);
+    }
+
+    @Benchmark
+    public List<Token> tokenize() throws Exception {
+        return new Tokenizer(this.source).run();
+    }
+}
@@ -0,0 +1,369 @@
+import program.ExecutionContext;
+import program.Output;
+import program.ProgramAST;
+import program.ProgramCache;
+import program.ThreadSupport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import jdk.net.ExtendedSocketOptions;
+
+/**
+ * Runs programs in a warm JVM for the clients connected to a Unix domain socket, so a short program does not wait for
+ * the JVM to start and its code to be compiled. A client sends its working directory and the arguments of
+ * {@link Main#main(String[])}, the daemon runs the program and streams the printed values back. The daemon does not
+ * write files for the clients, it refuses '--output' and '--cache', the client writes '--output' itself.
+ * <p>
+ * Every request runs on a virtual thread, or on a platform thread on the Java versions without virtual threads,
+ * with its own execution state. The checked programs stay in memory, so a program which did not change is not even
+ * read from the cache again. The '--vm' and '--jit' modes compile the program for every request, since the JIT keeps
+ * the global variables in static fields.
+ * <p>
+ * The daemon answers with frames: a tag byte followed by an int, which is the length of the bytes that follow for
+ * {@link #OUTPUT} and {@link #ERROR}, and the exit status for {@link #EXIT}, the last frame.
+ * <p>
+ * A request is cancelled when its client disconnects, and it is stopped by the time limit of the daemon, see
+ * {@link ExecutionContext}.
+ * <p>
+ * Only the user running the daemon can run programs on it: the directory of the socket is created accessible by the
+ * user only, the socket can only be opened by the user, and the daemon refuses the clients of other users.
+ */
+public class Daemon {
+    private static final byte OUTPUT = 0, ERROR = 1, EXIT = 2;
+
+    /**
+     * Number of checked programs kept in memory, the least recently run ones are dropped first.
+     */
+    private static final int MAX_PROGRAMS = 256;
+
+    /**
+     * Time limit of a request unless another one is given.
+     */
+    public static final Duration DEFAULT_TIME_LIMIT = Duration.ofMinutes(1);
+
+    private static final ExecutorService EXECUTOR = ThreadSupport.newExecutor("request");
+
+    private final Path socket;
+
+    /**
+     * Maximal duration of a request, null if it is unlimited.
+     */
+    private final Duration timeLimit;
+
+    /**
+     * User running the daemon, the owner of the socket.
+     */
+    private UserPrincipal owner;
+
+    private final Map<ByteBuffer, ProgramAST> programs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ByteBuffer, ProgramAST> eldest) {
+                    return size() > MAX_PROGRAMS;
+                }
+            });
+
+    /**
+     * @param socket    socket the daemon listens on.
+     * @param timeLimit maximal duration of a request, null if it is unlimited.
+     */
+    public Daemon(Path socket, Duration timeLimit) {
+        this.socket = socket;
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * @return socket in the directory of the cache, see {@link ProgramCache#defaultDirectory()}.
+     */
+    public static Path defaultSocket() {
+        return ProgramCache.defaultDirectory().resolve("daemon.sock");
+    }
+
+    /**
+     * Accepts the requests until the JVM exits, the socket file is deleted on exit.
+     *
+     * @throws IOException if the socket cannot be bound, e.g. another daemon is running on it.
+     */
+    public void serve() throws IOException {
+        Path directory = this.socket.getParent();
+        if (directory != null && !Files.isDirectory(directory)) {
+            if (isPosix()) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+        if (Files.exists(this.socket)) {
+            if (isRunning(this.socket)) {
+                throw new IOException("A daemon is already running on " + this.socket);
+            }
+            // The socket of a stopped daemon.
+            Files.delete(this.socket);
+        }
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(this.socket));
+            if (isPosix()) {
+                Files.setPosixFilePermissions(this.socket, PosixFilePermissions.fromString("rw-------"));
+            }
+            this.owner = Files.getOwner(this.socket);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(this.socket);
+                } catch (IOException e) {
+                    // The next daemon deletes it.
+                }
+            }));
+            while (true) {
+                SocketChannel channel = server.accept();
+                EXECUTOR.execute(() -> handle(channel));
+            }
+        }
+    }
+
+    private boolean isPosix() {
+        return this.socket.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * @return whether the client runs as the user running the daemon, true if the system does not tell the user of
+     * the client, the permissions of the socket then keep the other users out.
+     */
+    private boolean isOwner(SocketChannel channel) throws IOException {
+        if (!channel.supportedOptions().contains(ExtendedSocketOptions.SO_PEERCRED)) {
+            return true;
+        }
+        return this.owner.equals(channel.getOption(ExtendedSocketOptions.SO_PEERCRED).user());
+    }
+
+    private static boolean isRunning(Path socket) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            Path directory = Path.of(in.readUTF());
+            String[] args = new String[in.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readUTF();
+            }
+            Request request = new Request(this.timeLimit);
+            EXECUTOR.execute(() -> watch(channel, request));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            PrintStream errorStream = new PrintStream(errors, true);
+            boolean completed = false;
+            String refused = refusedOption(args);
+            if (!isOwner(channel)) {
+                // A client of another user, which could open the socket before its permissions were set.
+                errorStream.println("The daemon only runs the programs of its user");
+            } else if (refused != null) {
+                errorStream.println("Option '" + refused + "' is not allowed on the daemon");
+            } else {
+                try {
+                    completed = Main.run(args, directory, new FrameOutputStream(out, request), errorStream, false, this.programs, request::start);
+                } catch (Throwable e) {
+                    // E.g. StackOverflowError or OutOfMemoryError of the program, the client still gets the exit status.
+                    e.printStackTrace(errorStream);
+                }
+            }
+            if (errors.size() > 0) {
+                out.writeByte(ERROR);
+                out.writeInt(errors.size());
+                errors.writeTo(out);
+            }
+            out.writeByte(EXIT);
+            out.writeInt(completed ? 0 : 1);
+            out.flush();
+        } catch (IOException e) {
+            // The client disconnected.
+        }
+    }
+
+    /**
+     * Cancels the request when the client disconnects, the client sends nothing after the request.
+     * Returns once the channel is closed, at the latest when the request completes.
+     */
+    private static void watch(SocketChannel channel, Request request) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            while (channel.read(buffer.clear()) >= 0) {
+                // Ignores the bytes the client sends.
+            }
+        } catch (IOException e) {
+            // The channel is closed.
+        }
+        request.disconnect();
+    }
+
+    /**
+     * @return the first option which would make the daemon write a file the client chose, null if there is none.
+     */
+    private static String refusedOption(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--output") || arg.equals("--cache")) {
+                return arg;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs a program on the daemon and copies the printed values to the standard output, and the errors to the
+     * standard error.
+     *
+     * @param socket socket of the daemon.
+     * @param args   the arguments of the program, see {@link Main#main(String[])}, every line is written out at once
+     *               if the standard output is a terminal. The printed values are written to the '--output' file by the
+     *               client, '--cache' is refused by the daemon.
+     * @return exit status of the program.
+     * @throws IOException if the daemon is not running or disconnects.
+     */
+    public static int request(Path socket, String[] args) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeUTF(Path.of("").toAbsolutePath().toString());
+            List<String> options = new ArrayList<>();
+            Path outputFile = null;
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--output") && i + 1 < args.length) {
+                    outputFile = Path.of(args[++i]);
+                } else {
+                    options.add(args[i]);
+                }
+            }
+            if (outputFile == null && System.console() != null) {
+                options.add("--flush-lines");
+            }
+            out.writeInt(options.size());
+            for (String option : options) {
+                out.writeUTF(option);
+            }
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            try (OutputStream output = outputFile != null ? new BufferedOutputStream(Files.newOutputStream(outputFile)) : null) {
+                while (true) {
+                    byte tag;
+                    try {
+                        tag = in.readByte();
+                    } catch (EOFException e) {
+                        throw new IOException("The daemon disconnected before the program completed", e);
+                    }
+                    int value = in.readInt();
+                    if (tag == EXIT) {
+                        return value;
+                    }
+                    OutputStream stream = tag == ERROR ? System.err : output != null ? output : System.out;
+                    stream.write(in.readNBytes(value));
+                    stream.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Execution of a request, it is cancelled when the client disconnects, also before the execution starts.
+     */
+    private static final class Request {
+        private final Duration timeLimit;
+
+        private volatile ExecutionContext context;
+
+        private volatile boolean disconnected;
+
+        Request(Duration timeLimit) {
+            this.timeLimit = timeLimit;
+        }
+
+        ExecutionContext start(Output output) {
+            ExecutionContext context = new ExecutionContext(output, this.timeLimit);
+            this.context = context;
+            if (this.disconnected) {
+                context.cancel();
+            }
+            return context;
+        }
+
+        void disconnect() {
+            this.disconnected = true;
+            ExecutionContext context = this.context;
+            if (context != null) {
+                context.cancel();
+            }
+        }
+    }
+
+    /**
+     * Writes every write as a frame of the output, the frames are sent when the output is flushed.
+     * The request is cancelled if the client can not be written to.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+
+        private final Request request;
+
+        FrameOutputStream(DataOutputStream out, Request request) {
+            this.out = out;
+            this.request = request;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                try {
+                    this.out.writeByte(OUTPUT);
+                    this.out.writeInt(len);
+                    this.out.write(b, off, len);
+                } catch (IOException e) {
+                    this.request.disconnect();
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                this.out.flush();
+            } catch (IOException e) {
+                this.request.disconnect();
+                throw e;
+            }
+        }
+    }
+}
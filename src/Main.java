@@ -1,26 +1,195 @@
-import lexer.Token;
+import compiler.Compiler;
+import compiler.Module;
+import jit.JitCompiler;
+import jit.JitProgram;
 import lexer.Tokenizer;
 import parser.Parser;
+import program.CompiledProgram;
+import program.ExecutionContext;
+import program.Output;
 import program.ProgramAST;
+import program.ProgramCache;
+import program.UnsupportedFeatureException;
+import vm.VirtualMachine;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 public class Main {
 
+    /**
+     * Runs a program.
+     *
+     * @param args [--vm | --jit] [--output file] [--flush-lines] [--cache dir | --no-cache] [--time-limit seconds] [file],
+     *             where '--vm' executes the program on the bytecode virtual machine and '--jit' compiles the program
+     *             into JVM bytecode instead of walking the AST. Programs which cannot be compiled by '--vm' or '--jit', e.g. programs with
+     *             'parfor' loops or tasks, are executed by walking the AST.
+     *             '--output' writes the printed values to the file instead of the standard output and
+     *             '--flush-lines' writes out every printed line at once, which is the default for a terminal.
+     *             Checked programs are cached in '--cache' directory, {@link ProgramCache#defaultDirectory()} by default,
+     *             and '--no-cache' always checks the program again.
+     *             '--time-limit seconds' stops the program after the time limit, 0 is unlimited, a '--client' run
+     *             is limited by the daemon.
+     *             '--daemon [--socket file]' starts a {@link Daemon} instead, the time limit applies to every request,
+     *             {@link Daemon#DEFAULT_TIME_LIMIT} by default, and '--client [--socket file]' runs the program with
+     *             the other arguments on the daemon, see {@link Daemon#request(Path, String[])}.
+     */
     public static void main(String[] args) {
-        File file = new File("examples/simple.bcl");
-//        File file = new File("examples/linkedList.bcl");
-//        File file = new File("examples/map.bcl");
-        Tokenizer lexer = new Tokenizer(file);
-        Parser parser = new Parser();
-        try {
-            List<Token> tokens = lexer.run();
-            ProgramAST program = parser.parse(tokens);
-            program.semanticsCheck();
-            program.execute();
+        List<String> options = new ArrayList<>();
+        Path socket = Daemon.defaultSocket();
+        Duration timeLimit = null;
+        boolean limited = false;
+        boolean daemon = false, client = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--daemon")) {
+                daemon = true;
+            } else if (arg.equals("--client")) {
+                client = true;
+            } else if (arg.equals("--socket") && i + 1 < args.length) {
+                socket = Path.of(args[++i]);
+            } else if (arg.equals("--time-limit") && i + 1 < args.length) {
+                long seconds = Long.parseLong(args[++i]);
+                timeLimit = seconds > 0 ? Duration.ofSeconds(seconds) : null;
+                limited = true;
+            } else {
+                options.add(arg);
+            }
+        }
+        if (daemon) {
+            try {
+                new Daemon(socket, limited ? timeLimit : Daemon.DEFAULT_TIME_LIMIT).serve();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else if (client) {
+            int status;
+            try {
+                status = Daemon.request(socket, options.toArray(new String[0]));
+            } catch (IOException e) {
+                e.printStackTrace();
+                status = 1;
+            }
+            System.exit(status);
+        } else {
+            Duration limit = timeLimit;
+            run(options.toArray(new String[0]), Path.of(""), System.out, System.err, System.console() != null, null,
+                    output -> new ExecutionContext(output, limit));
+        }
+    }
+
+    /**
+     * Runs a program, see {@link #main(String[])}.
+     *
+     * @param args       the arguments, the files are relative to the directory.
+     * @param directory  working directory of the run.
+     * @param standard   destination of the printed values unless '--output' is given.
+     * @param errors     destination of the errors.
+     * @param flushLines whether every printed line is written out at once by default.
+     * @param programs   checked programs by their source, they are executed without loading them again. Null if the
+     *                   programs are not kept in memory.
+     * @param contexts   creates the state of the execution from its output, e.g. with a time limit.
+     * @return whether the program completed without errors.
+     */
+    static boolean run(String[] args, Path directory, OutputStream standard, PrintStream errors, boolean flushLines,
+                       Map<ByteBuffer, ProgramAST> programs, Function<Output, ExecutionContext> contexts) {
+        Path file = directory.resolve("examples/simple.bcl");
+        Path outputFile = null;
+        Path cacheDirectory = ProgramCache.defaultDirectory();
+        boolean vm = false, jit = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--vm")) {
+                vm = true;
+            } else if (arg.equals("--jit")) {
+                jit = true;
+            } else if (arg.equals("--output") && i + 1 < args.length) {
+                outputFile = directory.resolve(args[++i]);
+            } else if (arg.equals("--flush-lines")) {
+                flushLines = true;
+            } else if (arg.equals("--cache") && i + 1 < args.length) {
+                cacheDirectory = directory.resolve(args[++i]);
+            } else if (arg.equals("--no-cache")) {
+                cacheDirectory = null;
+            } else {
+                file = directory.resolve(arg);
+            }
+        }
+        try (Output output = outputFile != null
+                ? Output.open(outputFile, Output.DEFAULT_SIZE, flushLines)
+                : new Output(standard, Output.DEFAULT_SIZE, flushLines)) {
+            byte[] source = Files.readAllBytes(file);
+            ProgramAST program = programs != null ? programs.get(ByteBuffer.wrap(source)) : null;
+            if (program == null) {
+                program = load(source, cacheDirectory);
+                if (programs != null) {
+                    programs.put(ByteBuffer.wrap(source), program);
+                }
+            }
+            JitProgram compiled = null;
+            if (jit) {
+                try {
+                    compiled = new JitCompiler().compile(program);
+                } catch (UnsupportedFeatureException e) {
+                    // Fall back to the interpreter.
+                }
+            }
+            Module module = null;
+            if (vm && compiled == null) {
+                try {
+                    module = new Compiler().compile(program);
+                } catch (UnsupportedFeatureException e) {
+                    // Fall back to the interpreter.
+                }
+            }
+            ExecutionContext context = contexts.apply(output);
+            if (compiled != null) {
+                compiled.run(context);
+            } else if (module != null) {
+                new VirtualMachine().run(module, context);
+            } else {
+                new CompiledProgram(program).execute(context);
+            }
+            return true;
         } catch (Exception e) {
-            e.printStackTrace();
+            e.printStackTrace(errors);
+            return false;
+        }
+    }
+
+    /**
+     * @return the checked program, loaded from the cache in the directory if it is cached there.
+     */
+    private static ProgramAST load(byte[] source, Path cacheDirectory) throws Exception {
+        ProgramCache cache = cacheDirectory != null ? new ProgramCache(cacheDirectory) : null;
+        ProgramAST program = null;
+        if (cache != null) {
+            try {
+                program = cache.load(source);
+            } catch (IOException e) {
+                cache = null;
+            }
+        }
+        if (program == null) {
+            program = new Parser().parse(new Tokenizer(ByteBuffer.wrap(source)).run());
+            program.semanticsCheck();
+            if (cache != null) {
+                try {
+                    cache.store(source, program);
+                } catch (IOException e) {
+                    // The program is executed without caching it.
+                }
+            }
         }
+        return program;
     }
 }
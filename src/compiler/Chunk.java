@@ -0,0 +1,78 @@
+package compiler;
+
+/**
+ * Compiled code of a single function (or of a struct initializer, or of the global declarations).
+ */
+public class Chunk {
+    /**
+     * Name of the compiled declaration.
+     */
+    private final String name;
+
+    /**
+     * Instructions followed by their operands, see {@link Opcode}.
+     */
+    private final int[] code;
+
+    /**
+     * Constants referred by the instructions.
+     */
+    private final Object[] constants;
+
+    /**
+     * Number of local variable slots.
+     */
+    private final int frameSize;
+
+    /**
+     * Maximum depth of the operand stack.
+     */
+    private final int maxStack;
+
+    public Chunk(String name, int[] code, Object[] constants, int frameSize, int maxStack) {
+        this.name = name;
+        this.code = code;
+        this.constants = constants;
+        this.frameSize = frameSize;
+        this.maxStack = maxStack;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int[] getCode() {
+        return code;
+    }
+
+    public Object[] getConstants() {
+        return constants;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public int getMaxStack() {
+        return maxStack;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder(this.name);
+        str.append(":\n");
+        for (int pc = 0; pc < this.code.length; ) {
+            int opcode = this.code[pc];
+            str.append(pc);
+            str.append("\t");
+            str.append(Opcode.getName(opcode));
+            pc++;
+            for (int i = 0; i < Opcode.getOperandCount(opcode); i++) {
+                str.append(" ");
+                str.append(this.code[pc++]);
+            }
+            str.append("\n");
+        }
+        return str.toString();
+    }
+}
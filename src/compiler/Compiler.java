@@ -0,0 +1,463 @@
+package compiler;
+
+import lexer.Token;
+import program.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiler which lowers the checked program AST into bytecode.
+ */
+public class Compiler {
+    /**
+     * Compiled chunks, null until the declaration is compiled.
+     */
+    private List<Chunk> chunks;
+
+    /**
+     * Chunk indexes of the functions. It is a map of the function name to the index.
+     */
+    private Map<String, Integer> functions;
+
+    /**
+     * Chunk indexes of the struct initializers. It is a map of the struct name to the index.
+     */
+    private Map<String, Integer> structs;
+
+    /**
+     * Code of the chunk being compiled.
+     */
+    private int[] code;
+
+    /**
+     * Number of used elements of the code array.
+     */
+    private int size;
+
+    /**
+     * Constants of the chunk being compiled.
+     */
+    private List<Object> constants;
+
+    /**
+     * Current and maximum depth of the operand stack of the chunk being compiled.
+     */
+    private int stack, maxStack;
+
+    /**
+     * Number of local variable slots of the chunk being compiled.
+     */
+    private int slots;
+
+    /**
+     * Whether the chunk being compiled runs the global declarations.
+     */
+    private boolean global;
+
+    /**
+     * Addresses to patch with the end of the loop, for every loop being compiled.
+     */
+    private LinkedList<List<Integer>> breaks;
+
+    /**
+     * Compiles the program. The program must pass the semantics check first.
+     *
+     * @param program the program AST.
+     * @return the compiled program.
+     * @throws Exception for the unsupported code.
+     */
+    public Module compile(ProgramAST program) throws Exception {
+        this.chunks = new ArrayList<>();
+        this.functions = new HashMap<>();
+        this.structs = new HashMap<>();
+
+        // Reserve the indexes first, so any declaration can be referred before it is compiled.
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof StructAST struct) {
+                this.structs.put(struct.getLabel(), this.chunks.size());
+                this.chunks.add(null);
+            } else if (declaration instanceof FunctionAST func) {
+                this.functions.put(func.getLabel(), this.chunks.size());
+                this.chunks.add(null);
+            }
+        }
+
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof StructAST struct) {
+                this.chunks.set(this.structs.get(struct.getLabel()), compileStruct(struct));
+            } else if (declaration instanceof FunctionAST func) {
+                this.chunks.set(this.functions.get(func.getLabel()), compileFunction(func));
+            }
+        }
+
+        boolean mainExists = false;
+        begin(0, true);
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof VarListAST vs) {
+                compileVarList(vs);
+            } else if (declaration instanceof FunctionAST func && func.getLabel().equals("main")) {
+                mainExists = true;
+                emit(Opcode.CALL, 1, this.functions.get(func.getLabel()), 0);
+                emit(Opcode.POP, -1);
+            }
+        }
+        emit(Opcode.NULL, 1);
+        emit(Opcode.RETURN, -1);
+        Chunk entry = end("<global>");
+
+        return new Module(this.chunks.toArray(new Chunk[0]), entry, program.getFrameSize(), mainExists);
+    }
+
+    private Chunk compileStruct(StructAST struct) throws Exception {
+        begin(struct.getFrameSize(), false);
+        for (VarListAST vs : struct.getFields()) {
+            compileVarList(vs);
+        }
+        emit(Opcode.NEW_STRUCT, 1, constant(struct), struct.getFieldCount());
+        emit(Opcode.RETURN, -1);
+        return end(struct.getLabel());
+    }
+
+    private Chunk compileFunction(FunctionAST func) throws Exception {
+        begin(func.getFrameSize(), false);
+        // Parameters which received null fall back to their default values.
+        for (VariableAST param : func.getParams()) {
+            if (param.getValue() != null) {
+                emit(Opcode.LOAD, 1, param.getSlot());
+                int skip = emitJump(Opcode.JUMP_IF_NOT_NULL, -1);
+                compileExpression(param.getValue());
+                emit(Opcode.STORE, -1, param.getSlot());
+                patch(skip);
+            }
+        }
+        compileStatements(func.getStatements());
+        emit(Opcode.NULL, 1);
+        emit(Opcode.RETURN, -1);
+        return end(func.getLabel());
+    }
+
+    private void compileStatements(List<StatementAST> statements) throws Exception {
+        for (StatementAST statement : statements) {
+            if (statement instanceof IfChainAST chain) {
+                compileIfChain(chain);
+            } else {
+                compileStatement(statement);
+            }
+        }
+    }
+
+    /**
+     * Compiles the branches in order, every condition is evaluated at most once
+     * and the executed branch jumps to the end of the chain.
+     */
+    private void compileIfChain(IfChainAST chain) throws Exception {
+        List<Integer> ends = new ArrayList<>();
+        List<IfStatementAST> branches = chain.getBranches();
+        for (int i = 0; i < branches.size(); i++) {
+            IfStatementAST branch = branches.get(i);
+            int skipBody = -1;
+            if (branch.getCondition() != null) {
+                skipBody = compileCondition(branch.getCondition());
+            }
+            compileStatements(branch.getStatements());
+            if (i < branches.size() - 1) {
+                ends.add(emitJump(Opcode.JUMP, 0));
+            }
+            if (skipBody >= 0) {
+                patch(skipBody);
+            }
+        }
+        for (int end : ends) {
+            patch(end);
+        }
+    }
+
+    private void compileStatement(StatementAST statement) throws Exception {
+        if (statement instanceof VarListAST vs) {
+            compileVarList(vs);
+        } else if (statement instanceof AssignmentAST assignment) {
+            compileAssignment(assignment);
+        } else if (statement instanceof CallFuncAST call) {
+            compileCall(call);
+            emit(Opcode.POP, -1);
+        } else if (statement instanceof PrintfAST printf) {
+            if (printf.getExpression() != null) {
+                compileExpression(printf.getExpression());
+                emit(Opcode.PRINT, -1);
+            } else {
+                emit(Opcode.PRINT_EMPTY, 0);
+            }
+        } else if (statement instanceof ReturnAST ret) {
+            ExpressionAST expr = ret.getExpression();
+            CallFuncAST call = ret.getTailCall();
+            if (call != null) {
+                // The returned call replaces the current call, so the call stack does not grow.
+                for (ExpressionAST arg : call.getArgs()) {
+                    compileExpression(arg);
+                }
+                int count = call.getArgs().size();
+                emit(Opcode.TAIL_CALL, -count, this.functions.get(call.getLabel()), count);
+            } else {
+                if (expr != null) {
+                    compileExpression(expr);
+                } else {
+                    emit(Opcode.NULL, 1);
+                }
+                emit(Opcode.RETURN, -1);
+            }
+        } else if (statement instanceof BreakAST) {
+            this.breaks.getFirst().add(emitJump(Opcode.JUMP, 0));
+        } else if (statement instanceof ParallelForAST) {
+            throw new UnsupportedFeatureException("Error at line " + statement.getLine() + ", column " + statement.getColumn() + ": '" + Token.getLabelValue(Token.PARFOR) + "' loops are not supported by the virtual machine!");
+        } else if (statement instanceof ForEachAST) {
+            throw new UnsupportedFeatureException("Error at line " + statement.getLine() + ", column " + statement.getColumn() + ": Loops over channels are not supported by the virtual machine!");
+        } else if (statement instanceof ForLoopAST forLoop) {
+            compileForLoop(forLoop);
+        } else {
+            throw new Exception("Error at line " + statement.getLine() + ", column " + statement.getColumn() + ": Unexpected '" + statement + "'!");
+        }
+    }
+
+    private void compileForLoop(ForLoopAST forLoop) throws Exception {
+        if (forLoop.getInitAssignment() != null) {
+            compileAssignment(forLoop.getInitAssignment());
+        } else if (forLoop.getInitVariables() != null) {
+            compileVarList(forLoop.getInitVariables());
+        }
+
+        this.breaks.addFirst(new ArrayList<>());
+        int start = this.size;
+        if (forLoop.getCondition() != null) {
+            this.breaks.getFirst().add(compileCondition(forLoop.getCondition()));
+        }
+        compileStatements(forLoop.getStatements());
+        if (forLoop.getIncrement() != null) {
+            compileAssignment(forLoop.getIncrement());
+        }
+        emit(Opcode.JUMP, 0, start);
+
+        for (int address : this.breaks.removeFirst()) {
+            patch(address);
+        }
+    }
+
+    private void compileVarList(VarListAST vs) throws Exception {
+        for (VariableAST v : vs.getVariables()) {
+            if (v.getValue() != null) {
+                compileExpression(v.getValue());
+            } else {
+                emit(Opcode.NULL, 1);
+            }
+            emit(this.global ? Opcode.STORE_GLOBAL : Opcode.STORE, -1, v.getSlot());
+        }
+    }
+
+    private void compileAssignment(AssignmentAST assignment) throws Exception {
+        if (assignment.getIndex() != null) {
+            emitLoad(assignment.getDepth(), assignment.getSlot());
+            compileExpression(assignment.getIndex());
+            compileExpression(assignment.getExpression());
+            emit(Opcode.SET_ELEMENT, -3);
+        } else if (assignment.getField() != null) {
+            emitLoad(assignment.getDepth(), assignment.getSlot());
+            compileExpression(assignment.getExpression());
+            emit(Opcode.SET_FIELD, -2, assignment.getFieldIndex());
+        } else {
+            compileExpression(assignment.getExpression());
+            emitStore(assignment.getDepth(), assignment.getSlot());
+        }
+    }
+
+    private void compileCall(CallFuncAST call) throws Exception {
+        if (call instanceof SpawnAST || call instanceof JoinAST) {
+            throw new UnsupportedFeatureException("Error at line " + call.getLine() + ", column " + call.getColumn() + ": '" + Token.getLabelValue(Token.SPAWN) + "' tasks are not supported by the virtual machine!");
+        }
+        if (call instanceof MethodCallAST method) {
+            emitLoad(method.getDepth(), method.getSlot());
+            for (ExpressionAST arg : call.getArgs()) {
+                compileExpression(arg);
+            }
+            int count = call.getArgs().size();
+            emit(Opcode.INVOKE_METHOD, -count, method.getMethod(), count);
+            return;
+        }
+        for (ExpressionAST arg : call.getArgs()) {
+            compileExpression(arg);
+        }
+        int count = call.getArgs().size();
+        emit(Opcode.CALL, 1 - count, this.functions.get(call.getLabel()), count);
+    }
+
+    private void compileExpression(ExpressionAST expr) throws Exception {
+        if (expr.getOperation() != Token.NONE) {
+            compileExpression(expr.getLeft());
+            compileExpression(expr.getRight());
+            switch (expr.getOperation()) {
+                case Token.ADDITION -> emit(Opcode.ADD, -1);
+                case Token.SUBTRACTION -> emit(Opcode.SUB, -1);
+                case Token.MULTIPLICATION -> emit(Opcode.MUL, -1);
+                case Token.DIVISION -> emit(Opcode.DIV, -1);
+                case Token.MOD -> emit(Opcode.MOD, -1);
+                default -> throw new Exception("Error at line " + expr.getLine() + ", column " + expr.getColumn() + ": Unexpected '" + expr + "'!");
+            }
+        } else if (expr.getFunc() != null) {
+            compileCall(expr.getFunc());
+        } else if (expr.isNewObjectCreation() && expr.getIndex() != null) {
+            compileExpression(expr.getIndex());
+            emit(Opcode.NEW_ARRAY, 0, constant(expr.getLabel()));
+        } else if (expr.isNewObjectCreation() && CollectionSupport.isCollectionType(expr.getLabel())) {
+            emit(Opcode.NEW_COLLECTION, 1, constant(expr.getLabel()));
+        } else if (expr.isNewObjectCreation()) {
+            emit(Opcode.CALL, 1, this.structs.get(expr.getLabel()), 0);
+        } else if (expr.isNull()) {
+            emit(Opcode.NULL, 1);
+        } else if (expr.getIndex() != null) {
+            emitLoad(expr.getDepth(), expr.getSlot());
+            compileExpression(expr.getIndex());
+            emit(Opcode.GET_ELEMENT, -1);
+        } else if (expr.getField() != null) {
+            emitLoad(expr.getDepth(), expr.getSlot());
+            if (expr.getFieldIndex() == ExpressionAST.LENGTH) {
+                emit(Opcode.ARRAY_LENGTH, 0);
+            } else {
+                emit(Opcode.GET_FIELD, 0, expr.getFieldIndex());
+            }
+        } else if (expr.getLabel() != null) {
+            emitLoad(expr.getDepth(), expr.getSlot());
+        } else if (expr.getValue() instanceof Integer value) {
+            emit(Opcode.ICONST, 1, value);
+        } else if (expr.getValue() instanceof Double) {
+            emit(Opcode.DCONST, 1, constant(expr.getValue()));
+        } else if (expr.getValue() != null) {
+            emit(Opcode.CONST, 1, constant(expr.getValue()));
+        } else {
+            emit(Opcode.NULL, 1);
+        }
+    }
+
+    /**
+     * Compiles the condition followed by a jump which is taken if the condition does not hold.
+     *
+     * @return address of the jump operand to patch.
+     */
+    private int compileCondition(ComparisonAST cmp) throws Exception {
+        if (cmp.getLeft() == null && cmp.getLeftExpr() != null && cmp.getCmp() != Token.NEGATION) {
+            compileExpression(cmp.getLeftExpr());
+            compileExpression(cmp.getRightExpr());
+            emit(Opcode.JUMP_UNLESS, -2, cmp.getCmp(), -1);
+            return this.size - 1;
+        }
+        compileComparison(cmp);
+        return emitJump(Opcode.JUMP_IF_FALSE, -1);
+    }
+
+    private void compileComparison(ComparisonAST cmp) throws Exception {
+        if (cmp.getCmp() == Token.NEGATION) {
+            compileComparison(cmp.getRight());
+            emit(Opcode.NOT, 0);
+        } else if (cmp.getLeft() != null) {
+            // The left operand is the result if it decides it, the right operand is not evaluated then.
+            compileComparison(cmp.getLeft());
+            int end = emitJump(cmp.getCmp() == Token.AND ? Opcode.AND : Opcode.OR, -1);
+            compileComparison(cmp.getRight());
+            patch(end);
+        } else if (cmp.getLeftExpr() != null) {
+            compileExpression(cmp.getLeftExpr());
+            compileExpression(cmp.getRightExpr());
+            emit(Opcode.COMPARE, -1, cmp.getCmp());
+        } else if (cmp.getRightExpr() != null) {
+            compileExpression(cmp.getRightExpr());
+        } else {
+            emit(Opcode.NULL, 1);
+        }
+    }
+
+    private void emitLoad(int depth, int slot) {
+        if (depth == 0 && !this.global) {
+            emit(Opcode.LOAD, 1, slot);
+        } else {
+            emit(Opcode.LOAD_GLOBAL, 1, slot);
+        }
+    }
+
+    private void emitStore(int depth, int slot) {
+        if (depth == 0 && !this.global) {
+            emit(Opcode.STORE, -1, slot);
+        } else {
+            emit(Opcode.STORE_GLOBAL, -1, slot);
+        }
+    }
+
+    /**
+     * Starts a new chunk.
+     *
+     * @param frameSize number of the resolved variable slots.
+     * @param global    whether the chunk runs the global declarations.
+     */
+    private void begin(int frameSize, boolean global) {
+        this.code = new int[64];
+        this.size = 0;
+        this.constants = new ArrayList<>();
+        this.stack = 0;
+        this.maxStack = 0;
+        this.slots = frameSize;
+        this.global = global;
+        this.breaks = new LinkedList<>();
+    }
+
+    private Chunk end(String name) {
+        return new Chunk(name, Arrays.copyOf(this.code, this.size), this.constants.toArray(), this.slots, this.maxStack);
+    }
+
+    /**
+     * Appends an instruction.
+     *
+     * @param opcode   the instruction.
+     * @param effect   change of the operand stack depth.
+     * @param operands operands of the instruction.
+     */
+    private void emit(int opcode, int effect, int... operands) {
+        if (this.size + operands.length + 1 > this.code.length) {
+            this.code = Arrays.copyOf(this.code, this.code.length * 2 + operands.length + 1);
+        }
+        this.code[this.size++] = opcode;
+        for (int operand : operands) {
+            this.code[this.size++] = operand;
+        }
+        this.stack += effect;
+        this.maxStack = Math.max(this.maxStack, this.stack);
+    }
+
+    /**
+     * Appends a jump with unknown address.
+     *
+     * @return position of the address to patch.
+     */
+    private int emitJump(int opcode, int effect) {
+        emit(opcode, effect, -1);
+        return this.size - 1;
+    }
+
+    /**
+     * Sets the address of the jump to the end of the code.
+     *
+     * @param position position of the address.
+     */
+    private void patch(int position) {
+        this.code[position] = this.size;
+    }
+
+    private int constant(Object value) {
+        int index = this.constants.indexOf(value);
+        if (index < 0 || value instanceof String[]) {
+            index = this.constants.size();
+            this.constants.add(value);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,60 @@
+package compiler;
+
+/**
+ * Compiled program.
+ */
+public class Module {
+    /**
+     * Compiled functions and struct initializers. Calls refer to them by index.
+     */
+    private final Chunk[] chunks;
+
+    /**
+     * Chunk initializing the global variables and calling the function 'main'.
+     */
+    private final Chunk entry;
+
+    /**
+     * Number of global variable slots.
+     */
+    private final int globalsSize;
+
+    /**
+     * Whether the program declares function 'main'.
+     */
+    private final boolean mainExists;
+
+    public Module(Chunk[] chunks, Chunk entry, int globalsSize, boolean mainExists) {
+        this.chunks = chunks;
+        this.entry = entry;
+        this.globalsSize = globalsSize;
+        this.mainExists = mainExists;
+    }
+
+    public Chunk[] getChunks() {
+        return chunks;
+    }
+
+    public Chunk getEntry() {
+        return entry;
+    }
+
+    public int getGlobalsSize() {
+        return globalsSize;
+    }
+
+    public boolean isMainExists() {
+        return mainExists;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        for (Chunk chunk : this.chunks) {
+            str.append(chunk);
+            str.append("\n");
+        }
+        str.append(this.entry);
+        return str.toString();
+    }
+}
@@ -0,0 +1,198 @@
+package compiler;
+
+/**
+ * Instructions of the bytecode.
+ * Operands follow the opcode in the code array, their number is fixed per instruction.
+ */
+public class Opcode {
+    /**
+     * CONST index: pushes the constant.
+     */
+    public static final int CONST = 0;
+    /**
+     * NULL: pushes null.
+     */
+    public static final int NULL = 1;
+    /**
+     * LOAD slot: pushes the local variable.
+     */
+    public static final int LOAD = 2;
+    /**
+     * STORE slot: pops the value into the local variable.
+     */
+    public static final int STORE = 3;
+    /**
+     * LOAD_GLOBAL slot: pushes the global variable.
+     */
+    public static final int LOAD_GLOBAL = 4;
+    /**
+     * STORE_GLOBAL slot: pops the value into the global variable.
+     */
+    public static final int STORE_GLOBAL = 5;
+    /**
+     * GET_FIELD field: pops the struct and pushes its field.
+     */
+    public static final int GET_FIELD = 6;
+    /**
+     * SET_FIELD field: pops the value and the struct and sets the field.
+     */
+    public static final int SET_FIELD = 7;
+    /**
+     * ADD, SUB, MUL, DIV, MOD: pops two operands and pushes the result.
+     */
+    public static final int ADD = 8;
+    public static final int SUB = 9;
+    public static final int MUL = 10;
+    public static final int DIV = 11;
+    public static final int MOD = 12;
+    /**
+     * COMPARE cmp: pops two operands and pushes the result of the comparison, cmp is the token label.
+     */
+    public static final int COMPARE = 13;
+    /**
+     * AND address, OR address: continues at the address if the boolean on top of the stack is false (AND)
+     * or true (OR) and keeps it as the result, otherwise pops it.
+     */
+    public static final int AND = 14;
+    public static final int OR = 15;
+    /**
+     * NOT: negates the boolean on top of the stack.
+     */
+    public static final int NOT = 16;
+    /**
+     * JUMP address: continues at the address.
+     */
+    public static final int JUMP = 17;
+    /**
+     * JUMP_IF_FALSE address: pops the boolean and continues at the address if it is false.
+     */
+    public static final int JUMP_IF_FALSE = 18;
+    /**
+     * JUMP_IF_NOT_NULL address: pops the value and continues at the address if it is not null.
+     */
+    public static final int JUMP_IF_NOT_NULL = 20;
+    /**
+     * CALL chunk count: pops the arguments, runs the chunk and pushes its result.
+     * The arguments become the first local variables of the chunk.
+     */
+    public static final int CALL = 21;
+    /**
+     * NEW_STRUCT index count: pushes a new struct instance made of the first count local variables.
+     * The constant is the struct.
+     */
+    public static final int NEW_STRUCT = 22;
+    /**
+     * RETURN: pops the result and returns to the caller.
+     */
+    public static final int RETURN = 23;
+    /**
+     * PRINT: pops the value and prints it.
+     */
+    public static final int PRINT = 24;
+    /**
+     * PRINT_EMPTY: prints an empty line.
+     */
+    public static final int PRINT_EMPTY = 25;
+    /**
+     * POP: discards the value on top of the stack.
+     */
+    public static final int POP = 26;
+    /**
+     * ICONST value: pushes the integer operand.
+     */
+    public static final int ICONST = 27;
+    /**
+     * DCONST index: pushes the double constant.
+     */
+    public static final int DCONST = 28;
+    /**
+     * JUMP_UNLESS cmp address: pops two operands and continues at the address if the comparison does not hold.
+     */
+    public static final int JUMP_UNLESS = 29;
+    /**
+     * TAIL_CALL chunk count: pops the arguments and runs the chunk in place of the current call,
+     * its result is returned to the caller of the current call.
+     */
+    public static final int TAIL_CALL = 30;
+    /**
+     * NEW_ARRAY index: pops the length and pushes a new array of the element type of the string constant.
+     */
+    public static final int NEW_ARRAY = 31;
+    /**
+     * GET_ELEMENT: pops the index and the array and pushes the element.
+     */
+    public static final int GET_ELEMENT = 32;
+    /**
+     * SET_ELEMENT: pops the value, the index and the array and sets the element.
+     */
+    public static final int SET_ELEMENT = 33;
+    /**
+     * ARRAY_LENGTH: pops the array and pushes its length.
+     */
+    public static final int ARRAY_LENGTH = 34;
+    /**
+     * NEW_COLLECTION index: pushes a new collection of the type of the string constant.
+     */
+    public static final int NEW_COLLECTION = 35;
+    /**
+     * INVOKE_METHOD method count: pops the arguments and the collection, calls the collection method and pushes
+     * its result, null if the method does not return a value.
+     */
+    public static final int INVOKE_METHOD = 36;
+
+    /**
+     * @param opcode the instruction.
+     * @return number of the operands of the instruction.
+     */
+    public static int getOperandCount(int opcode) {
+        return switch (opcode) {
+            case CONST, ICONST, DCONST, LOAD, STORE, LOAD_GLOBAL, STORE_GLOBAL, GET_FIELD, SET_FIELD, COMPARE,
+                    AND, OR, JUMP, JUMP_IF_FALSE, JUMP_IF_NOT_NULL, NEW_ARRAY,
+                    NEW_COLLECTION -> 1;
+            case CALL, TAIL_CALL, NEW_STRUCT, JUMP_UNLESS, INVOKE_METHOD -> 2;
+            default -> 0;
+        };
+    }
+
+    public static String getName(int opcode) {
+        return switch (opcode) {
+            case CONST -> "CONST";
+            case NULL -> "NULL";
+            case LOAD -> "LOAD";
+            case STORE -> "STORE";
+            case LOAD_GLOBAL -> "LOAD_GLOBAL";
+            case STORE_GLOBAL -> "STORE_GLOBAL";
+            case GET_FIELD -> "GET_FIELD";
+            case SET_FIELD -> "SET_FIELD";
+            case ADD -> "ADD";
+            case SUB -> "SUB";
+            case MUL -> "MUL";
+            case DIV -> "DIV";
+            case MOD -> "MOD";
+            case COMPARE -> "COMPARE";
+            case AND -> "AND";
+            case OR -> "OR";
+            case NOT -> "NOT";
+            case JUMP -> "JUMP";
+            case JUMP_IF_FALSE -> "JUMP_IF_FALSE";
+            case JUMP_IF_NOT_NULL -> "JUMP_IF_NOT_NULL";
+            case CALL -> "CALL";
+            case NEW_STRUCT -> "NEW_STRUCT";
+            case RETURN -> "RETURN";
+            case PRINT -> "PRINT";
+            case PRINT_EMPTY -> "PRINT_EMPTY";
+            case POP -> "POP";
+            case ICONST -> "ICONST";
+            case DCONST -> "DCONST";
+            case JUMP_UNLESS -> "JUMP_UNLESS";
+            case TAIL_CALL -> "TAIL_CALL";
+            case NEW_ARRAY -> "NEW_ARRAY";
+            case GET_ELEMENT -> "GET_ELEMENT";
+            case SET_ELEMENT -> "SET_ELEMENT";
+            case ARRAY_LENGTH -> "ARRAY_LENGTH";
+            case NEW_COLLECTION -> "NEW_COLLECTION";
+            case INVOKE_METHOD -> "INVOKE_METHOD";
+            default -> "";
+        };
+    }
+}
@@ -0,0 +1,210 @@
+package jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer of JVM class files.
+ * The class files use version 49 (Java 5), which is verified by type inference and therefore does not need stack map frames.
+ */
+public class ClassFile {
+    private static final int VERSION = 49;
+
+    static final int ACC_PUBLIC = 0x0001, ACC_STATIC = 0x0008, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+    /**
+     * Internal name of the class.
+     */
+    private final String name;
+
+    /**
+     * Serialized constant pool entries.
+     */
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+
+    /**
+     * Indexes of the constant pool entries. It is a map of the entry key to the index.
+     */
+    private final Map<String, Integer> entries = new HashMap<>();
+
+    /**
+     * Next free constant pool index.
+     */
+    private int poolSize = 1;
+
+    /**
+     * Serialized fields and methods.
+     */
+    private final List<byte[]> fields = new ArrayList<>(), methods = new ArrayList<>();
+
+    private final int thisClass, superClass, codeAttribute;
+
+    public ClassFile(String name) {
+        this.name = name;
+        this.thisClass = classRef(name);
+        this.superClass = classRef("java/lang/Object");
+        this.codeAttribute = utf8("Code");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Adds a static field.
+     *
+     * @param fieldName  name of the field.
+     * @param descriptor type descriptor of the field.
+     */
+    public void addStaticField(String fieldName, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(ACC_PUBLIC | ACC_STATIC);
+            out.writeShort(utf8(fieldName));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        this.fields.add(bytes.toByteArray());
+    }
+
+    /**
+     * Adds a static method.
+     *
+     * @param methodName name of the method.
+     * @param descriptor type descriptor of the method.
+     * @param code       body of the method.
+     */
+    public void addStaticMethod(String methodName, String descriptor, Code code) throws Exception {
+        byte[] body = code.toByteArray();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(ACC_PUBLIC | ACC_STATIC);
+        out.writeShort(utf8(methodName));
+        out.writeShort(utf8(descriptor));
+        out.writeShort(1);
+        out.writeShort(this.codeAttribute);
+        out.writeInt(12 + body.length);
+        out.writeShort(code.getMaxStack());
+        out.writeShort(code.getMaxLocals());
+        out.writeInt(body.length);
+        out.write(body);
+        // No exception table and no attributes.
+        out.writeShort(0);
+        out.writeShort(0);
+        this.methods.add(bytes.toByteArray());
+    }
+
+    /**
+     * @return the serialized class file.
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(this.poolSize);
+            this.pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(this.thisClass);
+            out.writeShort(this.superClass);
+            out.writeShort(0);
+            out.writeShort(this.fields.size());
+            for (byte[] field : this.fields) {
+                out.write(field);
+            }
+            out.writeShort(this.methods.size());
+            for (byte[] method : this.methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    int utf8(String value) {
+        return entry("U" + value, 1, 1, out -> out.writeUTF(value));
+    }
+
+    int integer(int value) {
+        return entry("I" + value, 3, 1, out -> out.writeInt(value));
+    }
+
+    int doubleValue(double value) {
+        return entry("D" + Double.doubleToRawLongBits(value), 6, 2, out -> out.writeDouble(value));
+    }
+
+    int classRef(String internalName) {
+        int index = utf8(internalName);
+        return entry("C" + internalName, 7, 1, out -> out.writeShort(index));
+    }
+
+    int string(String value) {
+        int index = utf8(value);
+        return entry("S" + value, 8, 1, out -> out.writeShort(index));
+    }
+
+    int fieldRef(String owner, String fieldName, String descriptor) {
+        return memberRef(9, owner, fieldName, descriptor);
+    }
+
+    int methodRef(String owner, String methodName, String descriptor) {
+        return memberRef(10, owner, methodName, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String memberName, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(memberName);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + memberName + ":" + descriptor, 12, 1, out -> {
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return entry("M" + tag + owner + "." + memberName + ":" + descriptor, tag, 1, out -> {
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Adds a constant pool entry unless it already exists.
+     *
+     * @param key    unique key of the entry.
+     * @param tag    tag of the entry.
+     * @param slots  number of the constant pool indexes the entry takes.
+     * @param writer writer of the entry content.
+     * @return index of the entry.
+     */
+    private int entry(String key, int tag, int slots, EntryWriter writer) {
+        Integer index = this.entries.get(key);
+        if (index != null) {
+            return index;
+        }
+        DataOutputStream out = new DataOutputStream(this.pool);
+        try {
+            out.writeByte(tag);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        index = this.poolSize;
+        this.poolSize += slots;
+        this.entries.put(key, index);
+        return index;
+    }
+}
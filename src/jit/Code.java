@@ -0,0 +1,305 @@
+package jit;
+
+import program.UnsupportedFeatureException;
+
+import java.util.Arrays;
+
+/**
+ * Body of a JVM method being generated. Keeps track of the operand stack depth and the number of local variables.
+ */
+public class Code {
+    static final int ACONST_NULL = 0x01, ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11, LDC_W = 0x13, LDC2_W = 0x14,
+            ILOAD = 0x15, DLOAD = 0x18, ALOAD = 0x19, ISTORE = 0x36, DSTORE = 0x39, ASTORE = 0x3a,
+            IALOAD = 0x2e, DALOAD = 0x31, AALOAD = 0x32, BALOAD = 0x33, IASTORE = 0x4f, DASTORE = 0x52, AASTORE = 0x53,
+            BASTORE = 0x54,
+            POP = 0x57, POP2 = 0x58, DUP = 0x59,
+            IADD = 0x60, DADD = 0x63, ISUB = 0x64, DSUB = 0x67, IMUL = 0x68, DMUL = 0x6b, IDIV = 0x6c, DDIV = 0x6f,
+            IREM = 0x70, DREM = 0x73, IAND = 0x7e, IOR = 0x80, IXOR = 0x82, I2D = 0x87,
+            IFEQ = 0x99, IFNE = 0x9a, IFLT = 0x9b, IFGE = 0x9c, IFGT = 0x9d, IFLE = 0x9e,
+            IF_ICMPEQ = 0x9f, IF_ICMPNE = 0xa0, IF_ICMPLT = 0xa1, IF_ICMPGE = 0xa2, IF_ICMPGT = 0xa3, IF_ICMPLE = 0xa4,
+            GOTO = 0xa7, IRETURN = 0xac, DRETURN = 0xaf, ARETURN = 0xb0, RETURN = 0xb1,
+            GETSTATIC = 0xb2, PUTSTATIC = 0xb3, INVOKEVIRTUAL = 0xb6, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8,
+            NEW = 0xbb, NEWARRAY = 0xbc, ANEWARRAY = 0xbd, ARRAYLENGTH = 0xbe, CHECKCAST = 0xc0, IFNONNULL = 0xc7;
+
+    /**
+     * Element types of {@link #NEWARRAY}.
+     */
+    static final int T_BOOLEAN = 4, T_DOUBLE = 7, T_INT = 10;
+
+    private final ClassFile classFile;
+
+    private byte[] code = new byte[256];
+
+    private int size;
+
+    /**
+     * Current and maximum depth of the operand stack, in slots.
+     */
+    private int stack, maxStack;
+
+    private int maxLocals;
+
+    /**
+     * Whether a jump or a local variable index does not fit its operand.
+     */
+    private boolean overflow;
+
+    public Code(ClassFile classFile) {
+        this.classFile = classFile;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    int getMaxLocals() {
+        return maxLocals;
+    }
+
+    byte[] toByteArray() throws Exception {
+        if (this.size > 0xFFFF || this.overflow) {
+            throw new UnsupportedFeatureException("Method is too large");
+        }
+        return Arrays.copyOf(this.code, this.size);
+    }
+
+    /**
+     * Reserves local variable slots.
+     *
+     * @param index first slot.
+     * @param kind  kind of the value stored, see {@link Kind}.
+     */
+    void local(int index, char kind) {
+        this.maxLocals = Math.max(this.maxLocals, index + Kind.size(kind));
+        this.overflow |= this.maxLocals > 0xFF;
+    }
+
+    /**
+     * Appends an instruction without operands.
+     *
+     * @param opcode the instruction.
+     * @param effect change of the operand stack depth.
+     */
+    void op(int opcode, int effect) {
+        u1(opcode);
+        adjust(effect);
+    }
+
+    void iconst(int value) {
+        if (value >= -1 && value <= 5) {
+            op(ICONST_0 + value, 1);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            op(BIPUSH, 1);
+            u1(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            op(SIPUSH, 1);
+            u2(value);
+        } else {
+            op(LDC_W, 1);
+            u2(this.classFile.integer(value));
+        }
+    }
+
+    void dconst(double value) {
+        op(LDC2_W, 2);
+        u2(this.classFile.doubleValue(value));
+    }
+
+    void sconst(String value) {
+        op(LDC_W, 1);
+        u2(this.classFile.string(value));
+    }
+
+    void load(char kind, int index) {
+        local(index, kind);
+        op(switch (kind) {
+            case Kind.DOUBLE -> DLOAD;
+            case Kind.OBJECT -> ALOAD;
+            default -> ILOAD;
+        }, Kind.size(kind));
+        u1(index);
+    }
+
+    void store(char kind, int index) {
+        local(index, kind);
+        op(switch (kind) {
+            case Kind.DOUBLE -> DSTORE;
+            case Kind.OBJECT -> ASTORE;
+            default -> ISTORE;
+        }, -Kind.size(kind));
+        u1(index);
+    }
+
+    void pop(char kind) {
+        op(Kind.size(kind) == 2 ? POP2 : POP, -Kind.size(kind));
+    }
+
+    void ret(char kind) {
+        op(switch (kind) {
+            case Kind.DOUBLE -> DRETURN;
+            case Kind.OBJECT -> ARETURN;
+            case Kind.VOID -> RETURN;
+            default -> IRETURN;
+        }, -Kind.size(kind));
+    }
+
+    void getStatic(String owner, String name, char kind) {
+        op(GETSTATIC, Kind.size(kind));
+        u2(this.classFile.fieldRef(owner, name, Kind.descriptor(kind)));
+    }
+
+    void putStatic(String owner, String name, char kind) {
+        op(PUTSTATIC, -Kind.size(kind));
+        u2(this.classFile.fieldRef(owner, name, Kind.descriptor(kind)));
+    }
+
+    void invokeStatic(String owner, String name, String descriptor) {
+        op(INVOKESTATIC, effect(descriptor));
+        u2(this.classFile.methodRef(owner, name, descriptor));
+    }
+
+    void invokeVirtual(String owner, String name, String descriptor) {
+        op(INVOKEVIRTUAL, effect(descriptor) - 1);
+        u2(this.classFile.methodRef(owner, name, descriptor));
+    }
+
+    void invokeSpecial(String owner, String name, String descriptor) {
+        op(INVOKESPECIAL, effect(descriptor) - 1);
+        u2(this.classFile.methodRef(owner, name, descriptor));
+    }
+
+    void newObject(String type) {
+        op(NEW, 1);
+        u2(this.classFile.classRef(type));
+    }
+
+    /**
+     * Pops the length and pushes a new array of a primitive type.
+     *
+     * @param type element type, {@link #T_INT}, {@link #T_DOUBLE} or {@link #T_BOOLEAN}.
+     */
+    void newArray(int type) {
+        op(NEWARRAY, 0);
+        u1(type);
+    }
+
+    /**
+     * Pops the length and pushes a new array of objects.
+     */
+    void newObjectArray(String type) {
+        op(ANEWARRAY, 0);
+        u2(this.classFile.classRef(type));
+    }
+
+    /**
+     * Pops the index and the array and pushes the element.
+     */
+    void arrayLoad(char kind) {
+        switch (kind) {
+            case Kind.INT -> op(IALOAD, -1);
+            case Kind.DOUBLE -> op(DALOAD, 0);
+            case Kind.BOOLEAN -> op(BALOAD, -1);
+            default -> op(AALOAD, -1);
+        }
+    }
+
+    /**
+     * Pops the element, the index and the array and stores the element.
+     */
+    void arrayStore(char kind) {
+        switch (kind) {
+            case Kind.INT -> op(IASTORE, -3);
+            case Kind.DOUBLE -> op(DASTORE, -4);
+            case Kind.BOOLEAN -> op(BASTORE, -3);
+            default -> op(AASTORE, -3);
+        }
+    }
+
+    void checkcast(String type) {
+        op(CHECKCAST, 0);
+        u2(this.classFile.classRef(type));
+    }
+
+    /**
+     * Appends a jump instruction.
+     *
+     * @param opcode the jump instruction.
+     * @param target label to jump to.
+     */
+    void jump(int opcode, Label target) {
+        int position = this.size;
+        op(opcode, switch (opcode) {
+            case GOTO -> 0;
+            case IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE, IFNONNULL -> -1;
+            default -> -2;
+        });
+        if (target.position >= 0) {
+            this.overflow |= target.position - position < Short.MIN_VALUE;
+            u2(target.position - position);
+        } else {
+            target.jumps.add(position);
+            u2(0);
+        }
+        target.stack = this.stack;
+    }
+
+    /**
+     * Places the label at the end of the code.
+     */
+    void place(Label label) {
+        label.position = this.size;
+        for (int jump : label.jumps) {
+            int offset = label.position - jump;
+            this.overflow |= offset > Short.MAX_VALUE;
+            this.code[jump + 1] = (byte) (offset >> 8);
+            this.code[jump + 2] = (byte) offset;
+        }
+        if (label.stack >= 0) {
+            this.stack = label.stack;
+        }
+    }
+
+    /**
+     * Calculates the change of the operand stack depth of a static invocation.
+     *
+     * @param descriptor the method descriptor.
+     */
+    private static int effect(String descriptor) {
+        int effect = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            effect -= c == 'D' || c == 'J' ? 2 : 1;
+            if (c == 'L') {
+                i = descriptor.indexOf(';', i);
+            } else {
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                if (descriptor.charAt(i) == 'L') {
+                    i = descriptor.indexOf(';', i);
+                }
+            }
+            i++;
+        }
+        char result = descriptor.charAt(i + 1);
+        return effect + (result == 'V' ? 0 : result == 'D' || result == 'J' ? 2 : 1);
+    }
+
+    private void adjust(int effect) {
+        this.stack += effect;
+        this.maxStack = Math.max(this.maxStack, this.stack);
+    }
+
+    private void u1(int value) {
+        if (this.size == this.code.length) {
+            this.code = Arrays.copyOf(this.code, this.code.length * 2);
+        }
+        this.code[this.size++] = (byte) value;
+    }
+
+    private void u2(int value) {
+        u1(value >> 8);
+        u1(value);
+    }
+}
@@ -0,0 +1,1120 @@
+package jit;
+
+import lexer.Token;
+import program.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiler which translates the checked program AST into a hidden JVM class.
+ * Every function becomes a static method and every struct initializer a static factory method.
+ * Variables of type int, double and boolean which can never hold null are kept in JVM primitive locals,
+ * all other values are objects and share the runtime representation with the tree-walking interpreter.
+ */
+public class JitCompiler {
+    private static final String OBJECT = "java/lang/Object", STRUCT = "program/StructObject",
+            STRUCT_AST = "program/StructAST", OUTPUT = "program/Output",
+            SUPPORT = "jit/RuntimeSupport", OBJECT_DESCRIPTOR = "Ljava/lang/Object;";
+
+    /**
+     * Runtime classes of the collections, see {@link CollectionSupport}.
+     */
+    private static final String INT_MAP = "program/IntIntMap", OBJECT_MAP = "program/ObjectMap", INT_LIST = "program/IntList",
+            OBJECT_LIST = "program/ObjectList", CHANNEL = "program/Channel";
+
+    private ClassFile classFile;
+
+    /**
+     * Kinds of all variables, see {@link Kind}.
+     */
+    private Map<VariableAST, Character> kinds;
+
+    /**
+     * Kinds of the function results.
+     */
+    private Map<FunctionAST, Character> returns;
+
+    /**
+     * List of functions. It is a map of the function name to the function itself.
+     */
+    private Map<String, FunctionAST> functions;
+
+    /**
+     * Variables of the global frame by their slot.
+     */
+    private VariableAST[] globals;
+
+    /**
+     * Variables of the function and struct initializer frames by their slot.
+     */
+    private Map<AST, VariableAST[]> frames;
+
+    /**
+     * Variables of the frame being analyzed or compiled, null for the global declarations.
+     */
+    private VariableAST[] frame;
+
+    /**
+     * Whether the last analysis pass changed a kind.
+     */
+    private boolean changed;
+
+    /**
+     * Code of the method being compiled.
+     */
+    private Code code;
+
+    /**
+     * Local variable indexes of the method being compiled.
+     */
+    private Map<VariableAST, Integer> locals;
+
+    /**
+     * Next free local variable index of the method being compiled.
+     */
+    private int nextLocal;
+
+    /**
+     * Result kind of the function being compiled.
+     */
+    private char returnKind;
+
+    /**
+     * The function being compiled and the start of its body, calls of the function in tail position jump there.
+     */
+    private FunctionAST function;
+    private Label entry;
+
+    /**
+     * Ends of the loops being compiled.
+     */
+    private LinkedList<Label> breaks;
+
+    /**
+     * Compiles the program. The program must pass the semantics check first.
+     *
+     * @param program the program AST.
+     * @return the loaded program.
+     * @throws Exception if the program cannot be compiled, it then has to be executed by the interpreter.
+     */
+    public JitProgram compile(ProgramAST program) throws Exception {
+        this.classFile = new ClassFile("jit/Program");
+        this.kinds = new IdentityHashMap<>();
+        this.returns = new IdentityHashMap<>();
+        this.functions = new HashMap<>();
+        this.frames = new IdentityHashMap<>();
+        this.globals = new VariableAST[program.getFrameSize()];
+
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof StructAST struct) {
+                VariableAST[] variables = new VariableAST[struct.getFrameSize()];
+                for (VarListAST vs : struct.getFields()) {
+                    collect(vs, variables);
+                }
+                this.frames.put(struct, variables);
+            } else if (declaration instanceof VarListAST vs) {
+                collect(vs, this.globals);
+            } else if (declaration instanceof FunctionAST func) {
+                VariableAST[] variables = new VariableAST[func.getFrameSize()];
+                for (VariableAST param : func.getParams()) {
+                    variables[param.getSlot()] = param;
+                }
+                collect(func.getStatements(), variables);
+                this.frames.put(func, variables);
+                this.functions.put(func.getLabel(), func);
+                this.returns.put(func, kindOf(func.getType()));
+            }
+        }
+        for (VariableAST variable : this.globals) {
+            if (variable != null) {
+                this.kinds.put(variable, kindOf(variable.getType()));
+            }
+        }
+        for (VariableAST[] variables : this.frames.values()) {
+            for (VariableAST variable : variables) {
+                if (variable != null) {
+                    this.kinds.put(variable, kindOf(variable.getType()));
+                }
+            }
+        }
+
+        do {
+            this.changed = false;
+            analyze(program);
+        } while (this.changed);
+
+        boolean mainExists = false;
+        this.classFile.addStaticField("out", Kind.descriptor(Kind.OBJECT));
+        this.classFile.addStaticField("context", Kind.descriptor(Kind.OBJECT));
+        for (int slot = 0; slot < this.globals.length; slot++) {
+            if (this.globals[slot] != null) {
+                this.classFile.addStaticField(globalName(slot), Kind.descriptor(this.kinds.get(this.globals[slot])));
+            }
+        }
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof StructAST struct) {
+                this.classFile.addStaticField(layoutName(struct.getLabel()), Kind.descriptor(Kind.OBJECT));
+                compileStruct(struct);
+            } else if (declaration instanceof FunctionAST func) {
+                compileFunction(func);
+            }
+        }
+
+        begin(null);
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof VarListAST vs) {
+                compileVarList(vs);
+            } else if (declaration instanceof FunctionAST func && func.getLabel().equals("main")) {
+                mainExists = true;
+                this.code.invokeStatic(this.classFile.getName(), functionName(func), descriptor(func));
+                this.code.pop(this.returns.get(func));
+            }
+        }
+        this.code.ret(Kind.VOID);
+        this.classFile.addStaticMethod("run", "()V", this.code);
+
+        // The global declarations without main, for the programs whose functions are called from Java.
+        begin(null);
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof VarListAST vs) {
+                compileVarList(vs);
+            }
+        }
+        this.code.ret(Kind.VOID);
+        this.classFile.addStaticMethod("init", "()V", this.code);
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(this.classFile.toByteArray(), true);
+            MethodHandle entry = lookup.findStatic(lookup.lookupClass(), "run", MethodType.methodType(void.class));
+            MethodHandle initializer = lookup.findStatic(lookup.lookupClass(), "init", MethodType.methodType(void.class));
+            Map<String, MethodHandle> functions = new HashMap<>();
+            for (DeclarationAST declaration : program.getDeclarations()) {
+                if (declaration instanceof StructAST struct) {
+                    lookup.findStaticVarHandle(lookup.lookupClass(), layoutName(struct.getLabel()), Object.class).set(struct);
+                } else if (declaration instanceof FunctionAST func) {
+                    MethodType type = MethodType.fromMethodDescriptorString(descriptor(func), lookup.lookupClass().getClassLoader());
+                    functions.put(func.getLabel(), lookup.findStatic(lookup.lookupClass(), functionName(func), type));
+                }
+            }
+            VarHandle output = lookup.findStaticVarHandle(lookup.lookupClass(), "out", Object.class);
+            VarHandle context = lookup.findStaticVarHandle(lookup.lookupClass(), "context", Object.class);
+            return new JitProgram(entry, initializer, output, context, functions, this.functions, mainExists);
+        } catch (LinkageError e) {
+            throw new Exception(e);
+        }
+    }
+
+    private static char kindOf(String type) {
+        if (type.equals(Token.getLabelValue(Token.INTEGER))) {
+            return Kind.INT;
+        }
+        if (type.equals(Token.getLabelValue(Token.DOUBLE))) {
+            return Kind.DOUBLE;
+        }
+        if (type.equals(Token.getLabelValue(Token.BOOLEAN))) {
+            return Kind.BOOLEAN;
+        }
+        return Kind.OBJECT;
+    }
+
+    private static void collect(VarListAST vs, VariableAST[] variables) {
+        for (VariableAST v : vs.getVariables()) {
+            variables[v.getSlot()] = v;
+        }
+    }
+
+    private static void collect(List<StatementAST> statements, VariableAST[] variables) throws Exception {
+        for (StatementAST statement : statements) {
+            if (statement instanceof VarListAST vs) {
+                collect(vs, variables);
+            } else if (statement instanceof ParallelForAST) {
+                // The chunks of the loop run in frames of their own on the interpreter.
+                throw new UnsupportedFeatureException("Error at line " + statement.getLine() + ", column " + statement.getColumn() + ": '" + Token.getLabelValue(Token.PARFOR) + "' loops are not compiled!");
+            } else if (statement instanceof ForEachAST) {
+                // Loops over channels wait for the tasks, which run on the interpreter.
+                throw new UnsupportedFeatureException("Error at line " + statement.getLine() + ", column " + statement.getColumn() + ": Loops over channels are not compiled!");
+            } else if (statement instanceof ForLoopAST forLoop) {
+                if (forLoop.getInitVariables() != null) {
+                    collect(forLoop.getInitVariables(), variables);
+                }
+                collect(forLoop.getStatements(), variables);
+            } else if (statement instanceof IfChainAST chain) {
+                for (IfStatementAST branch : chain.getBranches()) {
+                    collect(branch.getStatements(), variables);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the variable referred by a resolved expression or assignment.
+     */
+    private VariableAST variable(int depth, int slot) {
+        if (this.frame != null && depth == 0) {
+            return this.frame[slot];
+        }
+        return this.globals[slot];
+    }
+
+    // Analysis of the kinds: every variable, parameter and function result which may hold null is demoted to an object.
+
+    private void demote(VariableAST variable) {
+        if (this.kinds.get(variable) != Kind.OBJECT) {
+            this.kinds.put(variable, Kind.OBJECT);
+            this.changed = true;
+        }
+    }
+
+    private void demote(FunctionAST func) {
+        if (this.returns.get(func) != Kind.OBJECT) {
+            this.returns.put(func, Kind.OBJECT);
+            this.changed = true;
+        }
+    }
+
+    private void analyze(ProgramAST program) {
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof StructAST struct) {
+                this.frame = this.frames.get(struct);
+                for (VarListAST vs : struct.getFields()) {
+                    analyzeVarList(vs);
+                }
+            } else if (declaration instanceof VarListAST vs) {
+                this.frame = null;
+                analyzeVarList(vs);
+            } else if (declaration instanceof FunctionAST func) {
+                this.frame = this.frames.get(func);
+                for (VariableAST param : func.getParams()) {
+                    // The default value is applied when the parameter is null.
+                    if (param.getValue() != null) {
+                        demote(param);
+                        analyzeExpression(param.getValue());
+                    }
+                }
+                analyzeStatements(func.getStatements(), func);
+                if (!endsWithReturn(func)) {
+                    demote(func);
+                }
+            }
+        }
+    }
+
+    private static boolean endsWithReturn(FunctionAST func) {
+        List<StatementAST> statements = func.getStatements();
+        return !statements.isEmpty() && statements.get(statements.size() - 1) instanceof ReturnAST;
+    }
+
+    private void analyzeVarList(VarListAST vs) {
+        for (VariableAST v : vs.getVariables()) {
+            if (v.getValue() == null) {
+                demote(v);
+            } else {
+                analyzeExpression(v.getValue());
+                if (kindOf(v.getValue()) == Kind.OBJECT) {
+                    demote(v);
+                }
+            }
+        }
+    }
+
+    private void analyzeAssignment(AssignmentAST assignment) {
+        if (assignment.getIndex() != null) {
+            analyzeExpression(assignment.getIndex());
+        }
+        analyzeExpression(assignment.getExpression());
+        if (assignment.getField() == null && assignment.getIndex() == null && kindOf(assignment.getExpression()) == Kind.OBJECT) {
+            demote(variable(assignment.getDepth(), assignment.getSlot()));
+        }
+    }
+
+    private void analyzeStatements(List<StatementAST> statements, FunctionAST func) {
+        for (StatementAST statement : statements) {
+            if (statement instanceof VarListAST vs) {
+                analyzeVarList(vs);
+            } else if (statement instanceof AssignmentAST assignment) {
+                analyzeAssignment(assignment);
+            } else if (statement instanceof CallFuncAST call) {
+                analyzeCall(call);
+            } else if (statement instanceof PrintfAST printf) {
+                if (printf.getExpression() != null) {
+                    analyzeExpression(printf.getExpression());
+                }
+            } else if (statement instanceof ReturnAST ret) {
+                if (ret.getExpression() == null) {
+                    demote(func);
+                } else {
+                    analyzeExpression(ret.getExpression());
+                    if (kindOf(ret.getExpression()) == Kind.OBJECT) {
+                        demote(func);
+                    }
+                }
+            } else if (statement instanceof ForLoopAST forLoop) {
+                if (forLoop.getInitAssignment() != null) {
+                    analyzeAssignment(forLoop.getInitAssignment());
+                } else if (forLoop.getInitVariables() != null) {
+                    analyzeVarList(forLoop.getInitVariables());
+                }
+                if (forLoop.getCondition() != null) {
+                    analyzeComparison(forLoop.getCondition());
+                }
+                if (forLoop.getIncrement() != null) {
+                    analyzeAssignment(forLoop.getIncrement());
+                }
+                analyzeStatements(forLoop.getStatements(), func);
+            } else if (statement instanceof IfChainAST chain) {
+                for (IfStatementAST branch : chain.getBranches()) {
+                    if (branch.getCondition() != null) {
+                        analyzeComparison(branch.getCondition());
+                    }
+                    analyzeStatements(branch.getStatements(), func);
+                }
+            }
+        }
+    }
+
+    private void analyzeCall(CallFuncAST call) {
+        if (call instanceof MethodCallAST || call instanceof JoinAST) {
+            for (ExpressionAST arg : call.getArgs()) {
+                analyzeExpression(arg);
+            }
+            return;
+        }
+        List<VariableAST> params = this.functions.get(call.getLabel()).getParams();
+        List<ExpressionAST> args = call.getArgs();
+        Iterator<ExpressionAST> iterator = args.iterator();
+        for (VariableAST param : params) {
+            ExpressionAST arg = iterator.hasNext() ? iterator.next() : null;
+            if (arg == null) {
+                demote(param);
+            } else {
+                analyzeExpression(arg);
+                if (kindOf(arg) == Kind.OBJECT) {
+                    demote(param);
+                }
+            }
+        }
+    }
+
+    private void analyzeExpression(ExpressionAST expr) {
+        if (expr.getIndex() != null) {
+            analyzeExpression(expr.getIndex());
+        }
+        if (expr.getOperation() != Token.NONE) {
+            analyzeExpression(expr.getLeft());
+            analyzeExpression(expr.getRight());
+        } else if (expr.getFunc() != null) {
+            analyzeCall(expr.getFunc());
+        }
+    }
+
+    private void analyzeComparison(ComparisonAST cmp) {
+        if (cmp.getLeft() != null) {
+            analyzeComparison(cmp.getLeft());
+        }
+        if (cmp.getRight() != null) {
+            analyzeComparison(cmp.getRight());
+        }
+        if (cmp.getLeftExpr() != null) {
+            analyzeExpression(cmp.getLeftExpr());
+        }
+        if (cmp.getRightExpr() != null) {
+            analyzeExpression(cmp.getRightExpr());
+        }
+    }
+
+    /**
+     * @return kind of the value the expression evaluates to.
+     */
+    private char kindOf(ExpressionAST expr) {
+        if (expr.getOperation() != Token.NONE) {
+            char left = kindOf(expr.getLeft());
+            char right = kindOf(expr.getRight());
+            if (!Kind.isNumber(left) || !Kind.isNumber(right)) {
+                return Kind.OBJECT;
+            }
+            return left == Kind.INT && right == Kind.INT ? Kind.INT : Kind.DOUBLE;
+        }
+        if (expr.getFunc() instanceof MethodCallAST || expr.getFunc() instanceof SpawnAST || expr.getFunc() instanceof JoinAST) {
+            return kindOf(expr.getFunc().getType());
+        }
+        if (expr.getFunc() != null) {
+            return this.returns.get(this.functions.get(expr.getFunc().getLabel()));
+        }
+        if (expr.getIndex() != null && !expr.isNewObjectCreation()) {
+            return kindOf(elementType(expr.getDepth(), expr.getSlot()));
+        }
+        if (expr.getField() != null && expr.getFieldIndex() == ExpressionAST.LENGTH) {
+            return Kind.INT;
+        }
+        if (expr.isNewObjectCreation() || expr.isNull() || expr.getField() != null) {
+            return Kind.OBJECT;
+        }
+        if (expr.getLabel() != null) {
+            return this.kinds.get(variable(expr.getDepth(), expr.getSlot()));
+        }
+        if (expr.getValue() instanceof Integer) {
+            return Kind.INT;
+        }
+        if (expr.getValue() instanceof Double) {
+            return Kind.DOUBLE;
+        }
+        if (expr.getValue() instanceof Boolean) {
+            return Kind.BOOLEAN;
+        }
+        return Kind.OBJECT;
+    }
+
+    /**
+     * @return kind of the value the comparison evaluates to, a boolean or a nullable object.
+     */
+    private char kindOf(ComparisonAST cmp) {
+        if (cmp.getCmp() == Token.NEGATION || cmp.getLeft() != null) {
+            return Kind.BOOLEAN;
+        }
+        if (cmp.getLeftExpr() != null) {
+            return isNumberComparison(cmp) ? Kind.BOOLEAN : Kind.OBJECT;
+        }
+        if (cmp.getRightExpr() != null) {
+            return kindOf(cmp.getRightExpr());
+        }
+        return Kind.OBJECT;
+    }
+
+    private boolean isNumberComparison(ComparisonAST cmp) {
+        return cmp.getLeft() == null && cmp.getLeftExpr() != null && cmp.getCmp() != Token.NEGATION
+                && Kind.isNumber(kindOf(cmp.getLeftExpr())) && Kind.isNumber(kindOf(cmp.getRightExpr()));
+    }
+
+    // Code generation.
+
+    /**
+     * @return element type of the array variable.
+     */
+    private String elementType(int depth, int slot) {
+        return ArraySupport.elementType(variable(depth, slot).getType());
+    }
+
+    /**
+     * @return descriptor of the arrays of the element kind, see {@link ArraySupport#newArray(String, int)}.
+     */
+    private static String arrayDescriptor(char kind) {
+        return switch (kind) {
+            case Kind.INT -> "[I";
+            case Kind.DOUBLE -> "[D";
+            case Kind.BOOLEAN -> "[Z";
+            default -> "[" + OBJECT_DESCRIPTOR;
+        };
+    }
+
+    /**
+     * Pushes the array variable, cast to its array class.
+     *
+     * @return kind of the elements.
+     */
+    private char loadArray(int depth, int slot) {
+        char kind = kindOf(elementType(depth, slot));
+        load(variable(depth, slot));
+        this.code.checkcast(arrayDescriptor(kind));
+        return kind;
+    }
+
+    private static String globalName(int slot) {
+        return "g" + slot;
+    }
+
+    private static String functionName(FunctionAST func) {
+        return "f$" + func.getLabel();
+    }
+
+    private static String structName(String label) {
+        return "new$" + label;
+    }
+
+    /**
+     * @return name of the static field which holds the struct declaration, it defines the layout of the instances.
+     */
+    private static String layoutName(String label) {
+        return "s$" + label;
+    }
+
+    private String descriptor(FunctionAST func) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (VariableAST param : func.getParams()) {
+            descriptor.append(Kind.descriptor(this.kinds.get(param)));
+        }
+        descriptor.append(")");
+        descriptor.append(Kind.descriptor(this.returns.get(func)));
+        return descriptor.toString();
+    }
+
+    /**
+     * Starts a new method.
+     *
+     * @param variables variables of the frame, null for the global declarations.
+     */
+    private void begin(VariableAST[] variables) {
+        this.frame = variables;
+        this.code = new Code(this.classFile);
+        this.locals = new IdentityHashMap<>();
+        this.nextLocal = 0;
+        this.breaks = new LinkedList<>();
+        if (variables != null) {
+            for (VariableAST variable : variables) {
+                if (variable != null) {
+                    char kind = this.kinds.get(variable);
+                    this.locals.put(variable, this.nextLocal);
+                    this.code.local(this.nextLocal, kind);
+                    this.nextLocal += Kind.size(kind);
+                }
+            }
+        }
+    }
+
+    private void compileStruct(StructAST struct) throws Exception {
+        begin(this.frames.get(struct));
+        for (VarListAST vs : struct.getFields()) {
+            compileVarList(vs);
+        }
+        this.code.newObject(STRUCT);
+        this.code.op(Code.DUP, 1);
+        this.code.getStatic(this.classFile.getName(), layoutName(struct.getLabel()), Kind.OBJECT);
+        this.code.checkcast(STRUCT_AST);
+        this.code.invokeSpecial(STRUCT, "<init>", "(L" + STRUCT_AST + ";)V");
+        int index = 0;
+        for (VarListAST vs : struct.getFields()) {
+            for (VariableAST v : vs.getVariables()) {
+                this.code.op(Code.DUP, 1);
+                this.code.iconst(index++);
+                coerce(load(v), Kind.OBJECT);
+                this.code.invokeVirtual(STRUCT, "setField", "(I" + OBJECT_DESCRIPTOR + ")V");
+            }
+        }
+        this.code.ret(Kind.OBJECT);
+        this.classFile.addStaticMethod(structName(struct.getLabel()), "()" + OBJECT_DESCRIPTOR, this.code);
+    }
+
+    private void compileFunction(FunctionAST func) throws Exception {
+        begin(this.frames.get(func));
+        this.returnKind = this.returns.get(func);
+        this.function = func;
+        this.entry = new Label();
+        this.code.place(this.entry);
+        compileCheckStopped();
+        // Parameters which received null fall back to their default values.
+        for (VariableAST param : func.getParams()) {
+            if (param.getValue() != null) {
+                Label skip = new Label();
+                load(param);
+                this.code.jump(Code.IFNONNULL, skip);
+                compileExpression(param.getValue(), Kind.OBJECT);
+                store(param);
+                this.code.place(skip);
+            }
+        }
+        compileStatements(func.getStatements());
+        if (!endsWithReturn(func)) {
+            this.code.op(Code.ACONST_NULL, 1);
+            this.code.ret(Kind.OBJECT);
+        }
+        this.classFile.addStaticMethod(functionName(func), descriptor(func), this.code);
+    }
+
+    private void compileStatements(List<StatementAST> statements) throws Exception {
+        for (StatementAST statement : statements) {
+            if (statement instanceof IfChainAST chain) {
+                compileIfChain(chain);
+            } else {
+                compileStatement(statement);
+            }
+        }
+    }
+
+    /**
+     * Compiles the branches in order, every condition is evaluated at most once
+     * and the executed branch jumps to the end of the chain.
+     */
+    private void compileIfChain(IfChainAST chain) throws Exception {
+        Label end = new Label();
+        List<IfStatementAST> branches = chain.getBranches();
+        for (int i = 0; i < branches.size(); i++) {
+            IfStatementAST branch = branches.get(i);
+            Label skipBody = new Label();
+            if (branch.getCondition() != null) {
+                compileJumpIfFalse(branch.getCondition(), skipBody);
+            }
+            compileStatements(branch.getStatements());
+            if (i < branches.size() - 1) {
+                this.code.jump(Code.GOTO, end);
+            }
+            this.code.place(skipBody);
+        }
+        this.code.place(end);
+    }
+
+    private void compileStatement(StatementAST statement) throws Exception {
+        if (statement instanceof VarListAST vs) {
+            compileVarList(vs);
+        } else if (statement instanceof AssignmentAST assignment) {
+            compileAssignment(assignment);
+        } else if (statement instanceof CallFuncAST call) {
+            this.code.pop(compileCall(call));
+        } else if (statement instanceof PrintfAST printf) {
+            this.code.getStatic(this.classFile.getName(), "out", Kind.OBJECT);
+            this.code.checkcast(OUTPUT);
+            if (printf.getExpression() != null) {
+                char kind = compileExpression(printf.getExpression());
+                this.code.invokeVirtual(OUTPUT, "println", "(" + Kind.descriptor(kind) + ")V");
+            } else {
+                this.code.invokeVirtual(OUTPUT, "println", "()V");
+            }
+        } else if (statement instanceof ReturnAST ret) {
+            ExpressionAST expr = ret.getExpression();
+            CallFuncAST tailCall = ret.getTailCall();
+            if (tailCall != null && tailCall.getLabel().equals(this.function.getLabel())) {
+                compileTailCall(tailCall);
+            } else {
+                if (expr != null) {
+                    compileExpression(expr, this.returnKind);
+                } else {
+                    this.code.op(Code.ACONST_NULL, 1);
+                }
+                this.code.ret(this.returnKind);
+            }
+        } else if (statement instanceof BreakAST) {
+            this.code.jump(Code.GOTO, this.breaks.getFirst());
+        } else if (statement instanceof ForLoopAST forLoop) {
+            compileForLoop(forLoop);
+        } else {
+            throw new Exception("Error at line " + statement.getLine() + ", column " + statement.getColumn() + ": Unexpected '" + statement + "'!");
+        }
+    }
+
+    private void compileForLoop(ForLoopAST forLoop) throws Exception {
+        if (forLoop.getInitAssignment() != null) {
+            compileAssignment(forLoop.getInitAssignment());
+        } else if (forLoop.getInitVariables() != null) {
+            compileVarList(forLoop.getInitVariables());
+        }
+
+        Label start = new Label(), end = new Label();
+        this.code.place(start);
+        if (forLoop.getCondition() != null) {
+            compileJumpIfFalse(forLoop.getCondition(), end);
+        }
+        this.breaks.addFirst(end);
+        compileStatements(forLoop.getStatements());
+        this.breaks.removeFirst();
+        if (forLoop.getIncrement() != null) {
+            compileAssignment(forLoop.getIncrement());
+        }
+        compileCheckStopped();
+        this.code.jump(Code.GOTO, start);
+        this.code.place(end);
+    }
+
+    /**
+     * Compiles a check whether the execution is stopped, at every iteration of a loop and every call like the
+     * interpreter, see {@link RuntimeSupport#checkStopped(Object)}.
+     */
+    private void compileCheckStopped() {
+        this.code.getStatic(this.classFile.getName(), "context", Kind.OBJECT);
+        this.code.invokeStatic(SUPPORT, "checkStopped", "(" + OBJECT_DESCRIPTOR + ")V");
+    }
+
+    private void compileVarList(VarListAST vs) throws Exception {
+        for (VariableAST v : vs.getVariables()) {
+            if (v.getValue() != null) {
+                compileExpression(v.getValue(), this.kinds.get(v));
+            } else {
+                compileNull(this.kinds.get(v));
+            }
+            store(v);
+        }
+    }
+
+    private void compileAssignment(AssignmentAST assignment) throws Exception {
+        VariableAST variable = variable(assignment.getDepth(), assignment.getSlot());
+        if (assignment.getIndex() != null) {
+            char kind = loadArray(assignment.getDepth(), assignment.getSlot());
+            compileExpression(assignment.getIndex(), Kind.INT);
+            compileExpression(assignment.getExpression(), kind);
+            this.code.arrayStore(kind);
+        } else if (assignment.getField() != null) {
+            load(variable);
+            this.code.checkcast(STRUCT);
+            this.code.iconst(assignment.getFieldIndex());
+            compileExpression(assignment.getExpression(), Kind.OBJECT);
+            this.code.invokeVirtual(STRUCT, "setField", "(I" + OBJECT_DESCRIPTOR + ")V");
+        } else {
+            compileExpression(assignment.getExpression(), this.kinds.get(variable));
+            store(variable);
+        }
+    }
+
+    /**
+     * @return kind of the result.
+     */
+    private char compileCall(CallFuncAST call) throws Exception {
+        if (call instanceof MethodCallAST method) {
+            return compileMethodCall(method);
+        }
+        if (call instanceof SpawnAST || call instanceof JoinAST) {
+            // The tasks run on threads of their own on the interpreter.
+            throw new UnsupportedFeatureException("Error at line " + call.getLine() + ", column " + call.getColumn() + ": '" + Token.getLabelValue(Token.SPAWN) + "' tasks are not compiled!");
+        }
+        FunctionAST func = this.functions.get(call.getLabel());
+        Iterator<ExpressionAST> args = call.getArgs().iterator();
+        for (VariableAST param : func.getParams()) {
+            if (args.hasNext()) {
+                compileExpression(args.next(), this.kinds.get(param));
+            } else {
+                compileNull(this.kinds.get(param));
+            }
+        }
+        this.code.invokeStatic(this.classFile.getName(), functionName(func), descriptor(func));
+        return this.returns.get(func);
+    }
+
+    /**
+     * Compiles a call of a collection method into a call of the runtime class of the collection,
+     * the integer collections are called without boxing.
+     *
+     * @return kind of the result, the methods which do not return a value push null.
+     */
+    private char compileMethodCall(MethodCallAST call) throws Exception {
+        String type = call.getReceiverType();
+        boolean isInt = CollectionSupport.isIntType(type);
+        boolean isMap = CollectionSupport.isMapType(type);
+        boolean isChannel = CollectionSupport.isChannelType(type);
+        String owner = isChannel ? CHANNEL : isMap ? (isInt ? INT_MAP : OBJECT_MAP) : (isInt ? INT_LIST : OBJECT_LIST);
+        load(variable(call.getDepth(), call.getSlot()));
+        this.code.checkcast(owner);
+
+        int method = call.getMethod();
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < call.getArgs().size(); i++) {
+            // The index of an element of a list is an integer in every list.
+            boolean isIndex = !isMap && !isChannel && i == 0 && method != CollectionSupport.ADD;
+            char kind = isInt || isIndex ? Kind.INT : Kind.OBJECT;
+            compileExpression(call.getArgs().get(i), kind);
+            descriptor.append(Kind.descriptor(kind));
+        }
+        if (isChannel && method != CollectionSupport.CLOSE) {
+            // The compiled programs have no tasks, a channel fails rather than waits, see Channel.
+            this.code.op(Code.ACONST_NULL, 1);
+            descriptor.append("Lprogram/Frame;");
+        }
+        descriptor.append(")");
+        char result = switch (method) {
+            case CollectionSupport.PUT, CollectionSupport.ADD, CollectionSupport.SET, CollectionSupport.SEND, CollectionSupport.CLOSE -> Kind.VOID;
+            case CollectionSupport.REMOVE -> isMap ? Kind.VOID : isInt ? Kind.INT : Kind.OBJECT;
+            case CollectionSupport.GET -> isInt ? Kind.INT : Kind.OBJECT;
+            case CollectionSupport.CONTAINS -> Kind.BOOLEAN;
+            case CollectionSupport.SIZE -> Kind.INT;
+            default -> Kind.OBJECT;
+        };
+        if (method == CollectionSupport.KEYS && isInt) {
+            descriptor.append("L").append(INT_LIST).append(";");
+        } else {
+            descriptor.append(Kind.descriptor(result));
+        }
+        this.code.invokeVirtual(owner, CollectionSupport.methodName(method), descriptor.toString());
+        if (result == Kind.VOID) {
+            this.code.op(Code.ACONST_NULL, 1);
+            return Kind.OBJECT;
+        }
+        // The values of the other collections are boxed, primitive ones are unboxed as their static type.
+        char kind = kindOf(call.getType());
+        coerce(result, kind);
+        return kind;
+    }
+
+    /**
+     * Compiles a recursive call in tail position into a jump to the start of the function,
+     * the arguments are evaluated before any parameter is assigned.
+     */
+    private void compileTailCall(CallFuncAST call) throws Exception {
+        List<VariableAST> params = this.function.getParams();
+        Iterator<ExpressionAST> args = call.getArgs().iterator();
+        for (VariableAST param : params) {
+            compileExpression(args.next(), this.kinds.get(param));
+        }
+        for (int i = params.size() - 1; i >= 0; i--) {
+            store(params.get(i));
+        }
+        this.code.jump(Code.GOTO, this.entry);
+    }
+
+    private void compileExpression(ExpressionAST expr, char kind) throws Exception {
+        coerce(compileExpression(expr), kind);
+    }
+
+    /**
+     * @return kind of the result.
+     */
+    private char compileExpression(ExpressionAST expr) throws Exception {
+        if (expr.getOperation() != Token.NONE) {
+            char kind = kindOf(expr);
+            if (kind == Kind.OBJECT) {
+                this.code.iconst(expr.getOperation());
+                compileExpression(expr.getLeft(), Kind.OBJECT);
+                compileExpression(expr.getRight(), Kind.OBJECT);
+                this.code.invokeStatic("program/ExpressionAST", "calculate", "(I" + OBJECT_DESCRIPTOR + OBJECT_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR);
+                return kind;
+            }
+            compileExpression(expr.getLeft(), kind);
+            compileExpression(expr.getRight(), kind);
+            boolean isInt = kind == Kind.INT;
+            switch (expr.getOperation()) {
+                case Token.ADDITION -> this.code.op(isInt ? Code.IADD : Code.DADD, -Kind.size(kind));
+                case Token.SUBTRACTION -> this.code.op(isInt ? Code.ISUB : Code.DSUB, -Kind.size(kind));
+                case Token.MULTIPLICATION -> this.code.op(isInt ? Code.IMUL : Code.DMUL, -Kind.size(kind));
+                case Token.DIVISION -> this.code.op(isInt ? Code.IDIV : Code.DDIV, -Kind.size(kind));
+                case Token.MOD -> this.code.op(isInt ? Code.IREM : Code.DREM, -Kind.size(kind));
+                default -> throw new Exception("Error at line " + expr.getLine() + ", column " + expr.getColumn() + ": Unexpected '" + expr + "'!");
+            }
+            return kind;
+        }
+        if (expr.getFunc() != null) {
+            return compileCall(expr.getFunc());
+        }
+        if (expr.isNewObjectCreation() && expr.getIndex() != null) {
+            compileExpression(expr.getIndex(), Kind.INT);
+            switch (kindOf(expr.getLabel())) {
+                case Kind.INT -> this.code.newArray(Code.T_INT);
+                case Kind.DOUBLE -> this.code.newArray(Code.T_DOUBLE);
+                case Kind.BOOLEAN -> this.code.newArray(Code.T_BOOLEAN);
+                default -> this.code.newObjectArray(OBJECT);
+            }
+            return Kind.OBJECT;
+        }
+        if (expr.getIndex() != null) {
+            char kind = loadArray(expr.getDepth(), expr.getSlot());
+            compileExpression(expr.getIndex(), Kind.INT);
+            this.code.arrayLoad(kind);
+            return kind;
+        }
+        if (expr.getField() != null && expr.getFieldIndex() == ExpressionAST.LENGTH) {
+            loadArray(expr.getDepth(), expr.getSlot());
+            this.code.op(Code.ARRAYLENGTH, 0);
+            return Kind.INT;
+        }
+        if (expr.isNewObjectCreation() && CollectionSupport.isCollectionType(expr.getLabel())) {
+            this.code.sconst(expr.getLabel());
+            this.code.invokeStatic("program/CollectionSupport", "newCollection", "(Ljava/lang/String;)" + OBJECT_DESCRIPTOR);
+            return Kind.OBJECT;
+        }
+        if (expr.isNewObjectCreation()) {
+            this.code.invokeStatic(this.classFile.getName(), structName(expr.getLabel()), "()" + OBJECT_DESCRIPTOR);
+            return Kind.OBJECT;
+        }
+        if (expr.isNull()) {
+            this.code.op(Code.ACONST_NULL, 1);
+            return Kind.OBJECT;
+        }
+        if (expr.getField() != null) {
+            load(variable(expr.getDepth(), expr.getSlot()));
+            this.code.checkcast(STRUCT);
+            this.code.iconst(expr.getFieldIndex());
+            this.code.invokeVirtual(STRUCT, "getField", "(I)" + OBJECT_DESCRIPTOR);
+            return Kind.OBJECT;
+        }
+        if (expr.getLabel() != null) {
+            return load(variable(expr.getDepth(), expr.getSlot()));
+        }
+        if (expr.getValue() instanceof Integer value) {
+            this.code.iconst(value);
+            return Kind.INT;
+        }
+        if (expr.getValue() instanceof Double value) {
+            this.code.dconst(value);
+            return Kind.DOUBLE;
+        }
+        if (expr.getValue() instanceof Boolean value) {
+            this.code.iconst(value ? 1 : 0);
+            return Kind.BOOLEAN;
+        }
+        if (expr.getValue() instanceof String value) {
+            this.code.sconst(value);
+            return Kind.OBJECT;
+        }
+        this.code.op(Code.ACONST_NULL, 1);
+        return Kind.OBJECT;
+    }
+
+    /**
+     * Compiles the condition followed by a jump which is taken if the condition does not hold.
+     */
+    private void compileJumpIfFalse(ComparisonAST cmp, Label target) throws Exception {
+        if (isNumberComparison(cmp)) {
+            boolean isInt = kindOf(cmp.getLeftExpr()) == Kind.INT && kindOf(cmp.getRightExpr()) == Kind.INT;
+            char kind = isInt ? Kind.INT : Kind.DOUBLE;
+            compileExpression(cmp.getLeftExpr(), kind);
+            compileExpression(cmp.getRightExpr(), kind);
+            if (!isInt) {
+                // Same ordering as the interpreter, which compares boxed doubles.
+                this.code.invokeStatic("java/lang/Double", "compare", "(DD)I");
+            }
+            int jump = switch (cmp.getCmp()) {
+                case Token.EQUAL -> Code.IFNE;
+                case Token.NOT_EQUAL -> Code.IFEQ;
+                case Token.LESS -> Code.IFGE;
+                case Token.MORE -> Code.IFLE;
+                case Token.LESS_EQUAL -> Code.IFGT;
+                default -> Code.IFLT;
+            };
+            this.code.jump(isInt ? jump + Code.IF_ICMPEQ - Code.IFEQ : jump, target);
+            return;
+        }
+        if (cmp.getLeft() != null && cmp.getCmp() == Token.AND) {
+            compileJumpIfFalse(cmp.getLeft(), target);
+            compileJumpIfFalse(cmp.getRight(), target);
+            return;
+        }
+        if (cmp.getLeft() != null) {
+            Label isTrue = new Label();
+            compileCondition(cmp.getLeft());
+            this.code.jump(Code.IFNE, isTrue);
+            compileJumpIfFalse(cmp.getRight(), target);
+            this.code.place(isTrue);
+            return;
+        }
+        compileCondition(cmp);
+        this.code.jump(Code.IFEQ, target);
+    }
+
+    /**
+     * Compiles the condition into a boolean, null conditions fail the same way as in the interpreter.
+     */
+    private void compileCondition(ComparisonAST cmp) throws Exception {
+        if (compileComparison(cmp) == Kind.OBJECT) {
+            this.code.invokeStatic(SUPPORT, "test", "(" + OBJECT_DESCRIPTOR + ")Z");
+        }
+    }
+
+    /**
+     * @return kind of the result, see {@link #kindOf(ComparisonAST)}.
+     */
+    private char compileComparison(ComparisonAST cmp) throws Exception {
+        if (cmp.getCmp() == Token.NEGATION) {
+            if (compileComparison(cmp.getRight()) == Kind.BOOLEAN) {
+                this.code.iconst(1);
+                this.code.op(Code.IXOR, -1);
+            } else {
+                this.code.invokeStatic(SUPPORT, "not", "(" + OBJECT_DESCRIPTOR + ")Z");
+            }
+            return Kind.BOOLEAN;
+        }
+        if (cmp.getLeft() != null) {
+            // The right operand is evaluated only if the left one does not decide the result.
+            boolean isAnd = cmp.getCmp() == Token.AND;
+            Label decided = new Label(), end = new Label();
+            compileCondition(cmp.getLeft());
+            this.code.jump(isAnd ? Code.IFEQ : Code.IFNE, decided);
+            compileCondition(cmp.getRight());
+            this.code.jump(Code.GOTO, end);
+            this.code.place(decided);
+            this.code.iconst(isAnd ? 0 : 1);
+            this.code.place(end);
+            return Kind.BOOLEAN;
+        }
+        if (cmp.getLeftExpr() != null) {
+            if (isNumberComparison(cmp)) {
+                Label isFalse = new Label(), end = new Label();
+                compileJumpIfFalse(cmp, isFalse);
+                this.code.iconst(1);
+                this.code.jump(Code.GOTO, end);
+                this.code.place(isFalse);
+                this.code.iconst(0);
+                this.code.place(end);
+                return Kind.BOOLEAN;
+            }
+            this.code.iconst(cmp.getCmp());
+            compileExpression(cmp.getLeftExpr(), Kind.OBJECT);
+            compileExpression(cmp.getRightExpr(), Kind.OBJECT);
+            this.code.invokeStatic("program/ComparisonAST", "compare", "(I" + OBJECT_DESCRIPTOR + OBJECT_DESCRIPTOR + ")Ljava/lang/Boolean;");
+            return Kind.OBJECT;
+        }
+        if (cmp.getRightExpr() != null) {
+            return compileExpression(cmp.getRightExpr());
+        }
+        this.code.op(Code.ACONST_NULL, 1);
+        return Kind.OBJECT;
+    }
+
+    private void compileNull(char kind) throws Exception {
+        if (kind != Kind.OBJECT) {
+            throw new Exception("Unexpected null of kind '" + kind + "'");
+        }
+        this.code.op(Code.ACONST_NULL, 1);
+    }
+
+    /**
+     * Converts the value on top of the operand stack.
+     *
+     * @param from kind of the value.
+     * @param to   requested kind.
+     */
+    private void coerce(char from, char to) throws Exception {
+        if (from == to) {
+            return;
+        }
+        if (to == Kind.OBJECT) {
+            switch (from) {
+                case Kind.INT -> this.code.invokeStatic("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+                case Kind.DOUBLE -> this.code.invokeStatic("java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
+                default -> this.code.invokeStatic("java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;");
+            }
+        } else if (from == Kind.INT && to == Kind.DOUBLE) {
+            this.code.op(Code.I2D, 1);
+        } else if (from == Kind.OBJECT && to == Kind.INT) {
+            this.code.checkcast("java/lang/Integer");
+            this.code.invokeVirtual("java/lang/Integer", "intValue", "()I");
+        } else if (from == Kind.OBJECT && to == Kind.DOUBLE) {
+            this.code.invokeStatic(SUPPORT, "toDouble", "(" + OBJECT_DESCRIPTOR + ")D");
+        } else if (from == Kind.OBJECT && to == Kind.BOOLEAN) {
+            this.code.checkcast("java/lang/Boolean");
+            this.code.invokeVirtual("java/lang/Boolean", "booleanValue", "()Z");
+        } else {
+            throw new Exception("Unexpected conversion from '" + from + "' to '" + to + "'");
+        }
+    }
+
+    /**
+     * Pushes the variable.
+     *
+     * @return kind of the variable.
+     */
+    private char load(VariableAST variable) {
+        char kind = this.kinds.get(variable);
+        Integer local = this.locals.get(variable);
+        if (local != null) {
+            this.code.load(kind, local);
+        } else {
+            this.code.getStatic(this.classFile.getName(), globalName(variable.getSlot()), kind);
+        }
+        return kind;
+    }
+
+    /**
+     * Pops the value into the variable.
+     */
+    private void store(VariableAST variable) {
+        char kind = this.kinds.get(variable);
+        Integer local = this.locals.get(variable);
+        if (local != null) {
+            this.code.store(kind, local);
+        } else {
+            this.code.putStatic(this.classFile.getName(), globalName(variable.getSlot()), kind);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package jit;
+
+import program.ExecutionContext;
+import program.FunctionAST;
+import program.HandleSupport;
+import program.Output;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Program compiled into JVM bytecode, see {@link JitCompiler}.
+ * <p>
+ * The functions can be called from Java once the program is run or initialized, see {@link #handle(String)}.
+ * A function is a static method of the generated class, so its handle calls it directly and the primitive arguments
+ * and results are never boxed. The global variables are static fields of the class, shared by all the calls.
+ * <p>
+ * A run stops at the next iteration of a loop or the next call once its context is cancelled or its time limit is
+ * exceeded, see {@link #run(ExecutionContext)}.
+ */
+public class JitProgram {
+    /**
+     * Method which runs the global declarations and the main function.
+     */
+    private final MethodHandle entry;
+
+    /**
+     * Method which runs the global declarations only.
+     */
+    private final MethodHandle initializer;
+
+    /**
+     * Static field which holds the destination of the printed values.
+     */
+    private final VarHandle output;
+
+    /**
+     * Static field which holds the state of the execution, see {@link RuntimeSupport#checkStopped(Object)}.
+     */
+    private final VarHandle context;
+
+    /**
+     * Static methods of the functions, their types are the types of the values in the generated code, see {@link Kind}.
+     */
+    private final Map<String, MethodHandle> methods;
+
+    private final Map<String, FunctionAST> functions;
+
+    private final boolean mainExists;
+
+    JitProgram(MethodHandle entry, MethodHandle initializer, VarHandle output, VarHandle context,
+               Map<String, MethodHandle> methods, Map<String, FunctionAST> functions, boolean mainExists) {
+        this.entry = entry;
+        this.initializer = initializer;
+        this.output = output;
+        this.context = context;
+        this.methods = Map.copyOf(methods);
+        this.functions = Map.copyOf(functions);
+        this.mainExists = mainExists;
+    }
+
+    /**
+     * Runs the program.
+     *
+     * @throws Exception in case of runtime errors.
+     */
+    public void run() throws Exception {
+        run(Output.standard());
+    }
+
+    /**
+     * Runs the program.
+     *
+     * @param output destination of the printed values, it is flushed when the program exits.
+     * @throws Exception in case of runtime errors.
+     */
+    public void run(Output output) throws Exception {
+        run(new ExecutionContext(output));
+    }
+
+    /**
+     * Runs the program, it stops when the context is cancelled or its time limit is exceeded.
+     *
+     * @param context state of the execution, only its output and its limits are used.
+     * @throws Exception in case of runtime errors.
+     */
+    public void run(ExecutionContext context) throws Exception {
+        run(this.entry, context);
+        if (!this.mainExists) {
+            throw new Exception("Warning: function 'main()' is required in order to execute program...");
+        }
+    }
+
+    /**
+     * Runs the global declarations without calling main, so the functions of a program without main can be called.
+     *
+     * @param output destination of the values printed by the functions, it is flushed when the declarations complete.
+     * @throws Exception in case of runtime errors.
+     */
+    public void initialize(Output output) throws Exception {
+        run(this.initializer, new ExecutionContext(output));
+    }
+
+    private void run(MethodHandle method, ExecutionContext context) throws Exception {
+        Output output = context.getOutput();
+        this.output.set(output);
+        this.context.set(context);
+        Future<?> timer = context.startTimer();
+        try {
+            method.invokeExact();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Exception(e);
+        } finally {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            output.flush();
+        }
+    }
+
+    /**
+     * @param label name of the function.
+     * @return handle of the function, its type is the signature of the function, e.g. (int, int)int for
+     * "int f(int a, int b)", see {@link HandleSupport#methodType(FunctionAST)}.
+     * @throws IllegalArgumentException if the function does not exist.
+     */
+    public MethodHandle handle(String label) {
+        MethodHandle method = this.methods.get(label);
+        if (method == null) {
+            throw new IllegalArgumentException("Function '" + label + "' does not exist!");
+        }
+        return method.asType(HandleSupport.methodType(this.functions.get(label)));
+    }
+
+    /**
+     * Implements a functional interface by a function, e.g. IntBinaryOperator by "int f(int a, int b)", see
+     * {@link #handle(String)}.
+     *
+     * @param label name of the function.
+     * @param type  the interface.
+     * @return implementation of the interface.
+     * @throws IllegalArgumentException if the function does not exist or does not match the interface.
+     */
+    public <T> T function(String label, Class<T> type) {
+        return HandleSupport.implement(label, handle(label), type);
+    }
+}
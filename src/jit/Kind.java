@@ -0,0 +1,27 @@
+package jit;
+
+/**
+ * Kinds of the values in the generated code: JVM primitives for the values which are never null, objects otherwise.
+ */
+class Kind {
+    static final char INT = 'I', DOUBLE = 'D', BOOLEAN = 'Z', OBJECT = 'O', VOID = 'V';
+
+    /**
+     * @return number of the operand stack (or local variable) slots the value takes.
+     */
+    static int size(char kind) {
+        return switch (kind) {
+            case DOUBLE -> 2;
+            case VOID -> 0;
+            default -> 1;
+        };
+    }
+
+    static String descriptor(char kind) {
+        return kind == OBJECT ? "Ljava/lang/Object;" : String.valueOf(kind);
+    }
+
+    static boolean isNumber(char kind) {
+        return kind == INT || kind == DOUBLE;
+    }
+}
@@ -0,0 +1,24 @@
+package jit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Position in the code which jumps refer to, see {@link Code#jump(int, Label)}.
+ */
+public class Label {
+    /**
+     * Position of the label, -1 until it is placed.
+     */
+    int position = -1;
+
+    /**
+     * Depth of the operand stack at the label, -1 until a jump to the label is emitted.
+     */
+    int stack = -1;
+
+    /**
+     * Positions of the jump instructions to patch once the label is placed.
+     */
+    final List<Integer> jumps = new ArrayList<>();
+}
@@ -0,0 +1,36 @@
+package jit;
+
+import program.ExecutionContext;
+
+/**
+ * Operations called by the generated code, they follow the semantics of the tree-walking interpreter.
+ */
+public class RuntimeSupport {
+    private RuntimeSupport() {
+    }
+
+    public static boolean test(Object condition) {
+        return (Boolean) condition;
+    }
+
+    public static boolean not(Object condition) {
+        return !(Boolean) condition;
+    }
+
+    /**
+     * @param context state of the execution, null if the program runs without one.
+     * @throws Exception if the execution is stopped, see {@link ExecutionContext#cancel()}.
+     */
+    public static void checkStopped(Object context) throws Exception {
+        if (context != null) {
+            ((ExecutionContext) context).checkStopped();
+        }
+    }
+
+    public static double toDouble(Object value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        return (Double) value;
+    }
+}
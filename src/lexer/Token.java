@@ -43,6 +43,12 @@ public class Token {
     public static final int BREAK = 36;
     public static final int VOID = 37;
     public static final int NOT_EQUAL = 38;
+    public static final int LSB = 39;
+    public static final int RSB = 40;
+    public static final int PARFOR = 41;
+    public static final int SPAWN = 42;
+    public static final int JOIN = 43;
+    public static final int COLON = 44;
 
     private int line, col;
     private String value;
@@ -94,6 +100,12 @@ public class Token {
             case "break" -> BREAK;
             case "void" -> VOID;
             case "!=" -> NOT_EQUAL;
+            case "[" -> LSB;
+            case "]" -> RSB;
+            case "parfor" -> PARFOR;
+            case "spawn" -> SPAWN;
+            case "join" -> JOIN;
+            case ":" -> COLON;
             default -> LITERAL;
         };
     }
@@ -137,6 +149,12 @@ public class Token {
             case BREAK -> "break";
             case VOID -> "void";
             case NOT_EQUAL -> "!=";
+            case LSB -> "[";
+            case RSB -> "]";
+            case PARFOR -> "parfor";
+            case SPAWN -> "spawn";
+            case JOIN -> "join";
+            case COLON -> ":";
             default -> "";
         };
     }
@@ -154,7 +172,8 @@ public class Token {
 
     public static boolean isExpressionToken(Token token) {
         return switch (token.getLabel()) {
-            case LB, RB, COMMA, DOT, NEW, ADDITION, SUBTRACTION, MULTIPLICATION, DIVISION, MOD, NULL, LITERAL -> true;
+            case LB, RB, LSB, RSB, COMMA, DOT, NEW, ADDITION, SUBTRACTION, MULTIPLICATION, DIVISION, MOD, NULL, LITERAL,
+                    BOOLEAN, INTEGER, DOUBLE, STRING, SPAWN, JOIN -> true;
             default -> false;
         };
     }
@@ -1,113 +1,282 @@
 package lexer;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Tokenizer which parses the provided file into tokens recognized by the language.
+ * The source is scanned in a single pass over a char array, a token is a range of the array
+ * and its value is created only once per distinct spelling.
  */
 public class Tokenizer {
     /**
-     * File to tokenize.
+     * File to tokenize, null if the source is given directly.
      */
     private final File file;
 
+    /**
+     * Source being tokenized, null until the file is read.
+     */
+    private char[] source;
+
+    /**
+     * Number of the source characters.
+     */
+    private int length;
+
+    /**
+     * Position of the next character to scan and the start of the current token.
+     */
+    private int position, start;
+
+    /**
+     * Line and column of the last scanned character.
+     */
+    private int row = 1, col = 1;
+
+    /**
+     * Whether the current token is a string literal.
+     */
+    private boolean quote;
+
+    /**
+     * Whether the end of the source is reached.
+     */
+    private boolean finished;
+
+    /**
+     * Scanned tokens which are not returned yet, a single character may complete two tokens.
+     */
+    private final ArrayDeque<Token> pending = new ArrayDeque<>();
+
+    /**
+     * Distinct token spellings with their labels, an open addressing hash table.
+     */
+    private String[] spellings = new String[256];
+    private int[] labels = new int[256];
+    private int spellingCount;
+
     public Tokenizer(File file) {
         this.file = file;
     }
 
+    public Tokenizer(char[] source) {
+        this.file = null;
+        this.source = source;
+        this.length = source.length;
+    }
+
+    /**
+     * @param source bytes of the source in the default charset.
+     */
+    public Tokenizer(ByteBuffer source) {
+        this.file = null;
+        decode(source);
+    }
+
     /**
      * Tokenizes the file.
      *
      * @return list of tokens.
-     * @throws Exception that are threw by the FileReader.
+     * @throws Exception that are thrown while reading the file.
      */
     public List<Token> run() throws Exception {
-        List<Token> tokens = new LinkedList<>();
-        int ch, row = 1, col = 1;
-        String token = "";
-        Token tokenObj;
-        boolean quote = false;
-
-        BufferedReader reader = new BufferedReader(new FileReader(this.file));
-        do {
-            ch = reader.read();
-            col++;
-            if (quote) {
-                token += (char) ch;
-                if (ch == '"' && (token.length() < 2 || token.charAt(token.length() - 2) != '\\')) {
-                    tokenObj = new Token(row, col - token.length(), token, Token.getTokenLabel(token));
-                    if (!token.isEmpty()) {
-                        tokens.add(tokenObj);
-                    }
-                    token = "";
-                    quote = false;
-                }
-            } else if (ch == '"') {
-                tokenObj = new Token(row, col - 1 - token.length(), token, Token.getTokenLabel(token));
-                if (!token.isEmpty()) {
-                    tokens.add(tokenObj);
-                }
-                token = String.valueOf((char) ch);
-                quote = true;
-            } else if (ch == '(' || ch == ')' || ch == '{' || ch == '}' || ch == ';' || ch == ',' || ch == '.') {
-                if (ch == '.' && (token.charAt(0) > 47 && token.charAt(0) < 58)) {
-                    token += (char) ch;
-                    continue;
-                }
-                tokenObj = new Token(row, col - 1 - token.length(), token, Token.getTokenLabel(token));
-                if (!token.isEmpty()) {
-                    tokens.add(tokenObj);
-                }
-                token = String.valueOf((char) ch);
-                tokenObj = new Token(row, col - token.length(), token, Token.getTokenLabel(token));
-                if (!token.isEmpty()) {
-                    tokens.add(tokenObj);
-                }
-                token = "";
-            } else if (ch == '<' || ch == '>' || ch == '!') {
-                tokenObj = new Token(row, col - 1 - token.length(), token, Token.getTokenLabel(token));
-                if (!token.isEmpty()) {
-                    tokens.add(tokenObj);
-                }
-                token = String.valueOf((char) ch);
-            } else if (ch == '=') {
-                int flag = 0;
-                if (token.equals("<") || token.equals(">") || token.equals("=") || token.equals("!")) {
-                    token += (char) ch;
-                    flag = 1;
-                }
-                tokenObj = new Token(row, col - flag - token.length(), token, Token.getTokenLabel(token));
-                if (!token.isEmpty()) {
-                    tokens.add(tokenObj);
+        List<Token> tokens = new ArrayList<>();
+        for (Token token = nextToken(); token != null; token = nextToken()) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Scans the next token.
+     *
+     * @return the token or null at the end of the file.
+     * @throws Exception that are thrown while reading the file.
+     */
+    public Token nextToken() throws Exception {
+        if (this.source == null) {
+            read();
+        }
+        while (this.pending.isEmpty() && !this.finished) {
+            scan();
+        }
+        return this.pending.poll();
+    }
+
+    private void read() throws Exception {
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+            decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private void decode(ByteBuffer bytes) {
+        CharBuffer chars = Charset.defaultCharset().decode(bytes);
+        if (chars.hasArray() && chars.arrayOffset() == 0) {
+            this.source = chars.array();
+            this.length = chars.limit();
+        } else {
+            this.source = new char[chars.remaining()];
+            chars.get(this.source);
+            this.length = this.source.length;
+        }
+    }
+
+    /**
+     * Scans a single character.
+     */
+    private void scan() {
+        int i = this.position++;
+        int ch = i < this.length ? this.source[i] : -1;
+        // Length of the current token, not including the scanned character.
+        int size = i - this.start;
+        this.col++;
+
+        if (this.quote) {
+            if (ch == -1) {
+                // An unterminated string literal is dropped.
+                this.finished = true;
+            } else if (ch == '"' && this.source[i - 1] != '\\') {
+                emit(this.start, i + 1, this.col - size - 1);
+                this.start = i + 1;
+                this.quote = false;
+            }
+            return;
+        }
+
+        switch (ch) {
+            case '"' -> {
+                emit(this.start, i, this.col - 1 - size);
+                this.start = i;
+                this.quote = true;
+            }
+            case '(', ')', '{', '}', '[', ']', ';', ',', '.', ':' -> {
+                if (ch == '.' && size > 0 && this.source[this.start] >= '0' && this.source[this.start] <= '9') {
+                    // Decimal point of a double literal.
+                    return;
                 }
-                if (flag == 1) {
-                    token = "";
+                emit(this.start, i, this.col - 1 - size);
+                emit(i, i + 1, this.col - 1);
+                this.start = i + 1;
+            }
+            case '<', '>', '!' -> {
+                emit(this.start, i, this.col - 1 - size);
+                this.start = i;
+            }
+            case '=' -> {
+                if (size == 1 && isComparisonStart(this.source[this.start])) {
+                    emit(this.start, i + 1, this.col - 2 - size);
+                    this.start = i + 1;
                 } else {
-                    token = String.valueOf((char) ch);
-                }
-            } else if (ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t' || ch == -1) {
-                tokenObj = new Token(row, col - 1 - token.length(), token, Token.getTokenLabel(token));
-                if (!token.isEmpty()) {
-                    tokens.add(tokenObj);
+                    emit(this.start, i, this.col - size);
+                    this.start = i;
                 }
+            }
+            case ' ', '\n', '\r', '\t', -1 -> {
+                emit(this.start, i, this.col - 1 - size);
                 if (ch == '\n') {
-                    row++;
-                    col = 1;
+                    this.row++;
+                    this.col = 1;
+                }
+                if (ch == -1) {
+                    this.finished = true;
+                }
+                this.start = i + 1;
+            }
+            default -> {
+                if (size > 0 && isComparisonStart(this.source[i - 1])) {
+                    emit(this.start, i, this.col - 1 - size);
+                    this.start = i;
                 }
-                token = "";
-            } else if (token.endsWith("<") || token.endsWith(">") || token.endsWith("=") || token.endsWith("!")) {
-                tokenObj = new Token(row, col - 1 - token.length(), token, Token.getTokenLabel(token));
-                tokens.add(tokenObj);
-                token = String.valueOf((char) ch);
-            } else token += (char) ch;
-        } while (ch != -1);
+            }
+        }
+    }
 
-        reader.close();
+    private static boolean isComparisonStart(char ch) {
+        return ch == '<' || ch == '>' || ch == '=' || ch == '!';
+    }
 
-        return tokens;
+    /**
+     * Adds the token made of the source range, unless the range is empty.
+     *
+     * @param from   first character of the token.
+     * @param to     end of the token, exclusive.
+     * @param column column of the token.
+     */
+    private void emit(int from, int to, int column) {
+        if (from < to) {
+            int index = spelling(from, to);
+            this.pending.add(new Token(this.row, column, this.spellings[index], this.labels[index]));
+        }
+    }
+
+    /**
+     * Finds the spelling of the source range, adds it to the table if it is new.
+     *
+     * @return index of the spelling in the table.
+     */
+    private int spelling(int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + this.source[i];
+        }
+        hash ^= hash >>> 16;
+
+        int mask = this.spellings.length - 1;
+        int index = hash & mask;
+        for (String spelling = this.spellings[index]; spelling != null; spelling = this.spellings[index]) {
+            if (matches(spelling, from, to)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+
+        String spelling = new String(this.source, from, to - from);
+        this.spellings[index] = spelling;
+        this.labels[index] = Token.getTokenLabel(spelling);
+        if (++this.spellingCount * 2 > this.spellings.length) {
+            grow();
+            return spelling(from, to);
+        }
+        return index;
+    }
+
+    private boolean matches(String spelling, int from, int to) {
+        if (spelling.length() != to - from) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (spelling.charAt(i - from) != this.source[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        String[] spellings = this.spellings;
+        int[] labels = this.labels;
+        this.spellings = new String[spellings.length * 2];
+        this.labels = new int[labels.length * 2];
+        int mask = this.spellings.length - 1;
+        for (int i = 0; i < spellings.length; i++) {
+            if (spellings[i] != null) {
+                int hash = spellings[i].hashCode();
+                hash ^= hash >>> 16;
+                int index = hash & mask;
+                while (this.spellings[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                this.spellings[index] = spellings[i];
+                this.labels[index] = labels[i];
+            }
+        }
     }
 }
@@ -8,8 +8,18 @@ import java.util.List;
 
 /**
  * Parser to convert list of tokens into ASTs.
+ * Tokens are read through a cursor over an array, expressions are parsed from index ranges of the array.
  */
 public class Parser {
+    /**
+     * Tokens being parsed.
+     */
+    private Token[] tokens;
+
+    /**
+     * Index of the next token to parse.
+     */
+    private int position;
 
     /**
      * Converts tokens into AST.
@@ -20,9 +30,11 @@ public class Parser {
      */
     public ProgramAST parse(List<Token> tokens) throws Exception {
         ProgramAST program = new ProgramAST(0, 0);
+        this.tokens = tokens.toArray(new Token[0]);
+        this.position = 0;
 
-        while (!tokens.isEmpty()) {
-            program.addDeclaration(parseDeclaration(tokens));
+        while (!isEmpty()) {
+            program.addDeclaration(parseDeclaration());
         }
 
         return program;
@@ -31,27 +43,28 @@ public class Parser {
     /**
      * Parses a declaration.
      *
-     * @param tokens list of tokens.
      * @return AST for the declaration.
      * @throws Exception for the parsing errors.
      */
-    private DeclarationAST parseDeclaration(List<Token> tokens) throws Exception {
+    private DeclarationAST parseDeclaration() throws Exception {
         DeclarationAST declaration;
-        Token next = tokens.get(0);
+        Token next = peek(0);
         if (next.getLabel() == Token.STRUCT) {
-            declaration = parseStruct(tokens);
+            declaration = parseStruct();
         } else {
-            if (tokens.size() < 2) {
+            if (remaining() < 2) {
                 throwException(next);
             }
-            if (tokens.size() < 3) {
-                throwException(tokens.get(1));
+            // The type arguments and the brackets of an array type precede the label.
+            int length = typeLength();
+            if (remaining() < length + 2) {
+                throwException(peek(remaining() - 1));
             }
-            next = tokens.get(2);
+            next = peek(length + 1);
             if (next.getLabel() == Token.LB) {
-                declaration = parseFunc(tokens);
+                declaration = parseFunc();
             } else {
-                declaration = parseVariableList(tokens);
+                declaration = parseVariableList();
             }
         }
 
@@ -61,39 +74,38 @@ public class Parser {
     /**
      * Parses a struct.
      *
-     * @param tokens list of tokens.
      * @return AST for the struct.
      * @throws Exception for the parsing errors.
      */
-    private StructAST parseStruct(List<Token> tokens) throws Exception {
-        tokens.remove(0); // struct
+    private StructAST parseStruct() throws Exception {
+        advance(); // struct
 
-        Token next = tokens.remove(0); // <label>
-        if (tokens.isEmpty() || Token.isIncorrectLabel(next)) {
+        Token next = advance(); // <label>
+        if (isEmpty() || Token.isIncorrectLabel(next)) {
             throwException(next);
         }
 
         StructAST structAST = new StructAST(next.getValue(), next.getLine(), next.getCol());
 
-        next = tokens.remove(0); // {
+        next = advance(); // {
 
-        if (tokens.isEmpty() || next.getLabel() != Token.LP) {
+        if (isEmpty() || next.getLabel() != Token.LP) {
             throwException(next);
         }
 
-        while (!tokens.isEmpty()) {
-            next = tokens.get(0);
+        while (!isEmpty()) {
+            next = peek(0);
             if (next.getLabel() == Token.RP) {
                 break;
             }
-            next = tokens.get(tokens.size() - 1);
-            structAST.addField(parseVariableList(tokens));
+            next = last();
+            structAST.addField(parseVariableList());
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
-        tokens.remove(0); // }
+        advance(); // }
 
         return structAST;
     }
@@ -101,36 +113,35 @@ public class Parser {
     /**
      * Parses list of multiple variables declared in one line.
      *
-     * @param tokens list of tokens.
      * @return AST for the list of variables.
      * @throws Exception for the parsing errors.
      */
-    private VarListAST parseVariableList(List<Token> tokens) throws Exception {
-        Token next = tokens.remove(0); // <type>
-        if (Token.isNotATypeToken(next) || next.getLabel() == Token.VOID || tokens.isEmpty()) {
+    private VarListAST parseVariableList() throws Exception {
+        Token next = advance(); // <type>
+        if (Token.isNotATypeToken(next) || next.getLabel() == Token.VOID || isEmpty()) {
             throwException(next);
         }
-        VarListAST var = new VarListAST(next.getValue(), next.getLine(), next.getCol());
+        VarListAST var = new VarListAST(parseTypeSuffix(next), next.getLine(), next.getCol());
 
-        while (!tokens.isEmpty()) {
-            next = tokens.get(0);
+        while (!isEmpty()) {
+            next = peek(0);
             if (next.getLabel() == Token.SEMICOLON) {
                 break;
             }
             if (next.getLabel() == Token.COMMA) {
-                tokens.remove(0);
+                advance();
             }
-            if (tokens.isEmpty()) {
+            if (isEmpty()) {
                 throwException(next);
             }
-            next = tokens.get(tokens.size() - 1);
-            var.addVariable(parseVariable(var.getType(), tokens, true, false));
+            next = last();
+            var.addVariable(parseVariable(var.getType(), true, false));
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
-        tokens.remove(0); // ;
+        advance(); // ;
 
         return var;
     }
@@ -138,24 +149,23 @@ public class Parser {
     /**
      * Parses a single variable declaration.
      *
-     * @param tokens list of tokens.
      * @return AST for the variable.
      * @throws Exception for the parsing errors.
      */
-    private VariableAST parseVariable(String type, List<Token> tokens, boolean semicolon, boolean rightBracket) throws Exception {
-        Token next = tokens.remove(0);
-        if (tokens.isEmpty() || Token.isIncorrectLabel(next)) {
+    private VariableAST parseVariable(String type, boolean semicolon, boolean rightBracket) throws Exception {
+        Token next = advance();
+        if (isEmpty() || Token.isIncorrectLabel(next)) {
             throwException(next);
         }
 
         VariableAST variable = new VariableAST(type, next.getValue(), next.getLine(), next.getCol());
 
-        if (!tokens.isEmpty() && tokens.get(0).getLabel() == Token.ASSIGNMENT) {
-            next = tokens.remove(0); // =
-            if (next.getLabel() != Token.ASSIGNMENT || tokens.isEmpty()) {
+        if (!isEmpty() && peek(0).getLabel() == Token.ASSIGNMENT) {
+            next = advance(); // =
+            if (next.getLabel() != Token.ASSIGNMENT || isEmpty()) {
                 throwException(next);
             }
-            variable.setValue(parseExpression(tokens, semicolon, true, rightBracket));
+            variable.setValue(parseExpression(semicolon, true, rightBracket, this.tokens.length));
         }
 
         return variable;
@@ -164,66 +174,69 @@ public class Parser {
     /**
      * Parses a function.
      *
-     * @param tokens list of tokens.
      * @return AST for the function.
      * @throws Exception for the parsing errors.
      */
-    private FunctionAST parseFunc(List<Token> tokens) throws Exception {
-        Token next = tokens.remove(0);
-        if (tokens.isEmpty() || Token.isNotATypeToken(next)) {
+    private FunctionAST parseFunc() throws Exception {
+        Token next = advance();
+        if (isEmpty() || Token.isNotATypeToken(next)) {
             throwException(next);
         }
 
-        FunctionAST func = new FunctionAST(next.getValue(), next.getLine(), next.getCol());
+        FunctionAST func = new FunctionAST(parseTypeSuffix(next), next.getLine(), next.getCol());
 
-        next = tokens.remove(0);
-        if (tokens.isEmpty() || Token.isIncorrectLabel(next)) {
+        next = advance();
+        if (isEmpty() || Token.isIncorrectLabel(next)) {
             throwException(next);
         }
         func.setLabel(next.getValue());
 
-        next = tokens.remove(0);
-        if (tokens.isEmpty() || next.getLabel() != Token.LB) {
+        next = advance();
+        if (isEmpty() || next.getLabel() != Token.LB) {
             throwException(next);
         }
 
-        while (!tokens.isEmpty()) {
-            next = tokens.get(0);
+        while (!isEmpty()) {
+            next = peek(0);
             if (next.getLabel() == Token.RB) {
                 break;
             }
             if (next.getLabel() == Token.COMMA) {
-                tokens.remove(0);
+                advance();
             }
-            if (tokens.isEmpty()) {
+            if (isEmpty()) {
                 throwException(next);
             }
-            Token type = tokens.remove(0);
-            if (tokens.isEmpty() || Token.isNotATypeToken(type)) {
+            Token type = advance();
+            if (isEmpty() || Token.isNotATypeToken(type)) {
                 throwException(type);
             }
-            next = tokens.get(tokens.size() - 1);
-            VariableAST param = parseVariable(type.getValue(), tokens, false, true);
+            String typeName = parseTypeSuffix(type);
+            if (isEmpty()) {
+                throwException(type);
+            }
+            next = last();
+            VariableAST param = parseVariable(typeName, false, true);
             param.setParam(true);
             func.addParam(param);
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
-        tokens.remove(0); // )
+        advance(); // )
 
-        next = tokens.remove(0); // {
-        if (tokens.isEmpty() || next.getLabel() != Token.LP) {
+        next = advance(); // {
+        if (isEmpty() || next.getLabel() != Token.LP) {
             throwException(next);
         }
 
-        next = tokens.get(tokens.size() - 1);
-        func.setStatements(parseStatements(tokens));
-        if (tokens.isEmpty()) {
+        next = last();
+        func.setStatements(parseStatements());
+        if (isEmpty()) {
             throwException(next);
         }
-        tokens.remove(0); // }
+        advance(); // }
 
         return func;
     }
@@ -231,54 +244,78 @@ public class Parser {
     /**
      * Parses a statement.
      *
-     * @param tokens list of tokens.
      * @return AST for the statement.
      * @throws Exception for the parsing errors.
      */
-    private List<StatementAST> parseStatements(List<Token> tokens) throws Exception {
-        List<StatementAST> statements = new LinkedList<>();
+    private List<StatementAST> parseStatements() throws Exception {
+        LinkedList<StatementAST> statements = new LinkedList<>();
 
-        while (!tokens.isEmpty()) {
-            Token statement = tokens.get(0);
+        while (!isEmpty()) {
+            Token statement = peek(0);
             if (statement.getLabel() == Token.RP) {
                 break;
             }
-            if (tokens.size() < 2) {
+            if (remaining() < 2) {
                 throwException(statement);
             }
-            if (statement.getLabel() == Token.FOR) {
-                statements.add(parseForLoop(tokens));
+            if (statement.getLabel() == Token.FOR || statement.getLabel() == Token.PARFOR) {
+                statements.add(parseForLoop());
             } else if (statement.getLabel() == Token.IF || statement.getLabel() == Token.ELSEIF || statement.getLabel() == Token.ELSE) {
-                statements.add(parseIfStatement(tokens));
+                // Else-if/else statements continue the chain of the preceding if-statement.
+                IfStatementAST ifStatement = parseIfStatement();
+                if (ifStatement.getType() != Token.IF && statements.peekLast() instanceof IfChainAST chain && !chain.isComplete()) {
+                    chain.addBranch(ifStatement);
+                } else {
+                    statements.add(new IfChainAST(ifStatement));
+                }
             } else if (statement.getLabel() == Token.PRINTF) {
-                statements.add(parsePrintf(tokens));
+                statements.add(parsePrintf());
             } else if (statement.getLabel() == Token.RETURN) {
-                statements.add(parseReturn(tokens));
+                statements.add(parseReturn());
             } else if (statement.getLabel() == Token.BREAK) {
-                tokens.remove(0); // break
+                advance(); // break
                 statements.add(new BreakAST(statement.getLine(), statement.getCol()));
-                if (tokens.isEmpty()) {
+                if (isEmpty()) {
                     throwException(statement);
                 }
-                statement = tokens.remove(0);
+                statement = advance();
                 if (statement.getLabel() != Token.SEMICOLON) {
                     throwException(statement);
                 }
 
-            } else if (tokens.get(1).getLabel() == Token.ASSIGNMENT || tokens.get(1).getLabel() == Token.DOT) {
-                statements.add(parseAssignment(tokens, Token.SEMICOLON));
-            } else if (tokens.get(1).getLabel() == Token.LB) {
-                statement = tokens.get(tokens.size() - 1);
-                statements.add(parseCallFunc(tokens));
-                if (tokens.isEmpty()) {
+            } else if (statement.getLabel() == Token.SPAWN || statement.getLabel() == Token.JOIN) {
+                statements.add(statement.getLabel() == Token.SPAWN ? parseSpawn(this.tokens.length) : parseJoin(this.tokens.length));
+                if (isEmpty()) {
                     throwException(statement);
                 }
-                statement = tokens.remove(0);
+                statement = advance();
+                if (statement.getLabel() != Token.SEMICOLON) {
+                    throwException(statement);
+                }
+            } else if (isMethodCall()) {
+                statement = last();
+                statements.add(parseMethodCall(this.tokens.length));
+                if (isEmpty()) {
+                    throwException(statement);
+                }
+                statement = advance();
+                if (statement.getLabel() != Token.SEMICOLON) {
+                    throwException(statement);
+                }
+            } else if (peek(1).getLabel() == Token.ASSIGNMENT || peek(1).getLabel() == Token.DOT || isElementAssignment()) {
+                statements.add(parseAssignment(Token.SEMICOLON));
+            } else if (peek(1).getLabel() == Token.LB) {
+                statement = last();
+                statements.add(parseCallFunc(this.tokens.length));
+                if (isEmpty()) {
+                    throwException(statement);
+                }
+                statement = advance();
                 if (statement.getLabel() != Token.SEMICOLON) {
                     throwException(statement);
                 }
             } else {
-                statements.add(parseVariableList(tokens));
+                statements.add(parseVariableList());
             }
         }
 
@@ -286,144 +323,229 @@ public class Parser {
     }
 
     /**
-     * Parses a for-loop.
+     * Parses a for-loop, a for-each loop over a channel or a parfor-loop.
      *
-     * @param tokens list of tokens.
      * @return AST for the for-loop.
      * @throws Exception for the parsing errors.
      */
-    private ForLoopAST parseForLoop(List<Token> tokens) throws Exception {
-        Token next = tokens.remove(0);
-        if (tokens.isEmpty()) {
+    private ForLoopAST parseForLoop() throws Exception {
+        Token next = advance();
+        if (isEmpty()) {
             throwException(next);
         }
+        if (next.getLabel() == Token.FOR && isForEach()) {
+            return parseForEach(next);
+        }
 
-        ForLoopAST forLoop = new ForLoopAST(next.getLine(), next.getCol());
+        ForLoopAST forLoop = next.getLabel() == Token.PARFOR ? new ParallelForAST(next.getLine(), next.getCol())
+                : new ForLoopAST(next.getLine(), next.getCol());
 
-        next = tokens.remove(0);
+        next = advance();
 
-        if (tokens.isEmpty() || next.getLabel() != Token.LB) {
+        if (isEmpty() || next.getLabel() != Token.LB) {
             throwException(next);
         }
 
-        next = tokens.get(0);
+        next = peek(0);
         if (next.getLabel() != Token.SEMICOLON) {
-            if (tokens.size() == 1) {
+            if (remaining() == 1) {
                 throwException(next);
             }
-            int label = tokens.get(1).getLabel();
-            next = tokens.get(tokens.size() - 1);
-            if (label == Token.ASSIGNMENT || label == Token.DOT) {
-                forLoop.setInitAssignment(parseAssignment(tokens, Token.SEMICOLON));
+            int label = peek(1).getLabel();
+            boolean isElement = isElementAssignment();
+            next = last();
+            if (label == Token.ASSIGNMENT || label == Token.DOT || isElement) {
+                forLoop.setInitAssignment(parseAssignment(Token.SEMICOLON));
             } else {
-                forLoop.setInitVariables(parseVariableList(tokens));
+                forLoop.setInitVariables(parseVariableList());
             }
 
         } else {
-            tokens.remove(0);
+            advance();
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
 
-        next = tokens.get(0);
+        next = peek(0);
         if (next.getLabel() != Token.SEMICOLON) {
-            next = tokens.get(tokens.size() - 1);
-            forLoop.setCondition(parseCompExpression(tokens, true, false));
+            next = last();
+            forLoop.setCondition(parseCompExpression(true, false));
 
-            if (tokens.isEmpty()) {
+            if (isEmpty()) {
                 throwException(next);
             }
-            next = tokens.remove(0);
+            next = advance();
             if (next.getLabel() != Token.SEMICOLON) {
                 throwException(next);
             }
 
         } else {
-            tokens.remove(0);
+            advance();
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
 
-        next = tokens.get(0);
+        next = peek(0);
         if (next.getLabel() != Token.RB) {
-            next = tokens.get(tokens.size() - 1);
-            forLoop.setIncrement(parseAssignment(tokens, Token.RB));
+            next = last();
+            forLoop.setIncrement(parseAssignment(Token.RB));
         } else {
-            tokens.remove(0);
+            advance();
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
 
-        next = tokens.remove(0); // {
-        if (tokens.isEmpty() || next.getLabel() != Token.LP) {
+        if (forLoop instanceof ParallelForAST parallel && peek(0).getValue().equals(ParallelForAST.REDUCE)) {
+            parseReductions(parallel);
+            if (isEmpty()) {
+                throwException(next);
+            }
+        }
+
+        next = advance(); // {
+        if (isEmpty() || next.getLabel() != Token.LP) {
             throwException(next);
         }
 
-        next = tokens.get(tokens.size() - 1);
-        forLoop.setStatements(parseStatements(tokens));
-        if (tokens.isEmpty()) {
+        next = last();
+        forLoop.setStatements(parseStatements());
+        if (isEmpty()) {
             throwException(next);
         }
-        tokens.remove(0); // }
+        advance(); // }
 
         return forLoop;
     }
 
+    /**
+     * Parses a for-each loop over a channel, "for (int v : c) { ... }".
+     *
+     * @param keyword the 'for' token, the left bracket follows it.
+     * @return AST for the loop.
+     * @throws Exception for the parsing errors.
+     */
+    private ForEachAST parseForEach(Token keyword) throws Exception {
+        ForEachAST forEach = new ForEachAST(keyword.getLine(), keyword.getCol());
+        advance(); // (
+        Token type = advance();
+        String typeName = parseTypeSuffix(type);
+        Token label = advance();
+        if (Token.isIncorrectLabel(label)) {
+            throwException(label);
+        }
+        forEach.setVariable(new VariableAST(typeName, label.getValue(), label.getLine(), label.getCol()));
+        advance(); // :
+        if (isEmpty()) {
+            throwException(label);
+        }
+        Token channel = advance();
+        if (isEmpty() || Token.isIncorrectLabel(channel)) {
+            throwException(channel);
+        }
+        forEach.setChannel(channel.getValue());
+        Token next = advance(); // )
+        if (isEmpty() || next.getLabel() != Token.RB) {
+            throwException(next);
+        }
+        next = advance(); // {
+        if (isEmpty() || next.getLabel() != Token.LP) {
+            throwException(next);
+        }
+
+        next = last();
+        forEach.setStatements(parseStatements());
+        if (isEmpty()) {
+            throwException(next);
+        }
+        advance(); // }
+
+        return forEach;
+    }
+
+    /**
+     * Parses the reduction variables of a parfor-loop, "reduce (a, b)".
+     *
+     * @throws Exception for the parsing errors.
+     */
+    private void parseReductions(ParallelForAST parallel) throws Exception {
+        Token next = advance(); // reduce
+        if (isEmpty() || peek(0).getLabel() != Token.LB) {
+            throwException(next);
+        }
+        next = advance(); // (
+        while (true) {
+            if (isEmpty() || Token.isIncorrectLabel(peek(0))) {
+                throwException(next);
+            }
+            next = advance();
+            parallel.addReduction(next.getValue());
+            if (isEmpty()) {
+                throwException(next);
+            }
+            next = advance();
+            if (next.getLabel() == Token.RB) {
+                return;
+            }
+            if (next.getLabel() != Token.COMMA) {
+                throwException(next);
+            }
+        }
+    }
+
     /**
      * Parses a if-statement.
      *
-     * @param tokens list of tokens.
      * @return AST for the if-statement.
      * @throws Exception for the parsing errors.
      */
-    private IfStatementAST parseIfStatement(List<Token> tokens) throws Exception {
-        Token next = tokens.remove(0);
-        if (tokens.isEmpty()) {
+    private IfStatementAST parseIfStatement() throws Exception {
+        Token next = advance();
+        if (isEmpty()) {
             throwException(next);
         }
         IfStatementAST ifStatement = new IfStatementAST(next.getLabel(), next.getLine(), next.getCol());
 
         if (next.getLabel() != Token.ELSE) {
-            next = tokens.remove(0);
-            if (tokens.isEmpty() || next.getLabel() != Token.LB) {
+            next = advance();
+            if (isEmpty() || next.getLabel() != Token.LB) {
                 throwException(next);
             }
-            next = tokens.get(0);
+            next = peek(0);
             if (next.getLabel() != Token.RB) {
-                next = tokens.get(tokens.size() - 1);
-                ifStatement.setCondition(parseCompExpression(tokens, false, true));
+                next = last();
+                ifStatement.setCondition(parseCompExpression(false, true));
 
-                if (tokens.isEmpty()) {
+                if (isEmpty()) {
                     throwException(next);
                 }
-                next = tokens.remove(0);
+                next = advance();
                 if (next.getLabel() != Token.RB) {
                     throwException(next);
                 }
             }
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
 
-        next = tokens.remove(0); // {
-        if (tokens.isEmpty() || next.getLabel() != Token.LP) {
+        next = advance(); // {
+        if (isEmpty() || next.getLabel() != Token.LP) {
             throwException(next);
         }
 
-        next = tokens.get(tokens.size() - 1);
-        ifStatement.setStatements(parseStatements(tokens));
-        if (tokens.isEmpty()) {
+        next = last();
+        ifStatement.setStatements(parseStatements());
+        if (isEmpty()) {
             throwException(next);
         }
-        tokens.remove(0); // }
+        advance(); // }
 
         return ifStatement;
     }
@@ -431,37 +553,36 @@ public class Parser {
     /**
      * Parses a printf.
      *
-     * @param tokens list of tokens.
      * @return AST for the printf.
      * @throws Exception for the parsing errors.
      */
-    private PrintfAST parsePrintf(List<Token> tokens) throws Exception {
-        Token next = tokens.remove(0);
+    private PrintfAST parsePrintf() throws Exception {
+        Token next = advance();
         PrintfAST printfAST = new PrintfAST(next.getLine(), next.getCol());
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
 
-        next = tokens.remove(0);
-        if (tokens.isEmpty() || next.getLabel() != Token.LB) {
+        next = advance();
+        if (isEmpty() || next.getLabel() != Token.LB) {
             throwException(next);
         }
-        next = tokens.get(0);
+        next = peek(0);
         if (next.getLabel() != Token.RB) {
-            next = tokens.get(tokens.size() - 1);
-            printfAST.setExpression(parseExpression(tokens, false, false, true));
+            next = last();
+            printfAST.setExpression(parseExpression(false, false, true, this.tokens.length));
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
-        next = tokens.remove(0);
-        if (tokens.isEmpty() || next.getLabel() != Token.RB) {
+        next = advance();
+        if (isEmpty() || next.getLabel() != Token.RB) {
             throwException(next);
         }
 
-        next = tokens.remove(0);
+        next = advance();
         if (next.getLabel() != Token.SEMICOLON) {
             throwException(next);
         }
@@ -472,29 +593,28 @@ public class Parser {
     /**
      * Parses a return statement.
      *
-     * @param tokens list of tokens.
      * @return AST for the return statement.
      * @throws Exception for the parsing errors.
      */
-    private ReturnAST parseReturn(List<Token> tokens) throws Exception {
-        Token next = tokens.remove(0);
+    private ReturnAST parseReturn() throws Exception {
+        Token next = advance();
         ReturnAST returnAST = new ReturnAST(next.getLine(), next.getCol());
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
 
-        next = tokens.get(0);
+        next = peek(0);
         if (next.getLabel() != Token.SEMICOLON) {
-            next = tokens.get(tokens.size() - 1);
-            returnAST.setExpression(parseExpression(tokens, true, false, false));
+            next = last();
+            returnAST.setExpression(parseExpression(true, false, false, this.tokens.length));
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
 
-        next = tokens.remove(0);
+        next = advance();
         if (next.getLabel() != Token.SEMICOLON) {
             throwException(next);
         }
@@ -505,48 +625,56 @@ public class Parser {
     /**
      * Parses an assignment.
      *
-     * @param tokens list of tokens.
+     * @param terminator label of the token which ends the assignment.
      * @return AST for the assignment.
      * @throws Exception for the parsing errors.
      */
-    private AssignmentAST parseAssignment(List<Token> tokens, int terminator) throws Exception {
-        Token next = tokens.remove(0);
+    private AssignmentAST parseAssignment(int terminator) throws Exception {
+        Token next = advance();
         Token label = next;
-        if (Token.isIncorrectLabel(label) || tokens.isEmpty()) {
+        if (Token.isIncorrectLabel(label) || isEmpty()) {
             throwException(label);
         }
 
         String field = null;
-        if (tokens.get(0).getLabel() == Token.DOT) {
-            next = tokens.remove(0); // .
-            if (tokens.isEmpty()) {
+        ExpressionAST index = null;
+        if (peek(0).getLabel() == Token.LSB) {
+            advance(); // [
+            int close = closingBracket(this.position - 1);
+            index = parseFullExpression(this.position, close);
+            this.position = close + 1;
+            next = this.tokens[close];
+        } else if (peek(0).getLabel() == Token.DOT) {
+            next = advance(); // .
+            if (isEmpty()) {
                 throwException(next);
             }
 
-            next = tokens.remove(0);
-            if (tokens.isEmpty() || Token.isIncorrectLabel(next)) {
+            next = advance();
+            if (isEmpty() || Token.isIncorrectLabel(next)) {
                 throwException(next);
             }
             field = next.getValue();
         }
 
-        if (tokens.isEmpty()) {
+        if (isEmpty()) {
             throwException(next);
         }
-        next = tokens.remove(0); // =
-        if (tokens.isEmpty() || next.getLabel() != Token.ASSIGNMENT) {
+        next = advance(); // =
+        if (isEmpty() || next.getLabel() != Token.ASSIGNMENT) {
             throwException(next);
         }
 
         AssignmentAST assignment = new AssignmentAST(label.getValue(), field, label.getLine(), label.getCol());
+        assignment.setIndex(index);
 
-        next = tokens.get(tokens.size() - 1);
-        assignment.setExpression(parseExpression(tokens, terminator == Token.SEMICOLON, false, terminator == Token.RB));
-        if (tokens.isEmpty()) {
+        next = last();
+        assignment.setExpression(parseExpression(terminator == Token.SEMICOLON, false, terminator == Token.RB, this.tokens.length));
+        if (isEmpty()) {
             throwException(next);
         }
 
-        next = tokens.remove(0);
+        next = advance();
         if (next.getLabel() != terminator) {
             throwException(next);
         }
@@ -557,78 +685,159 @@ public class Parser {
     /**
      * Parses a function call.
      *
-     * @param tokens list of tokens.
+     * @param end index after the last token the call may use.
      * @return AST for the function call.
      * @throws Exception for the parsing errors.
      */
-    private CallFuncAST parseCallFunc(List<Token> tokens) throws Exception {
-        Token next = tokens.remove(0);
-        if (tokens.isEmpty() || Token.isIncorrectLabel(next)) {
+    private CallFuncAST parseCallFunc(int end) throws Exception {
+        Token next = this.tokens[this.position++];
+        if (this.position == end || Token.isIncorrectLabel(next)) {
             throwException(next);
         }
 
         CallFuncAST func = new CallFuncAST(next.getValue(), next.getLine(), next.getCol());
+        parseArgs(func, end);
+        return func;
+    }
+
+    /**
+     * Parses a function call started as a task, e.g. "spawn f(x)".
+     *
+     * @param end index after the last token the call may use.
+     * @return AST for the spawn.
+     * @throws Exception for the parsing errors.
+     */
+    private SpawnAST parseSpawn(int end) throws Exception {
+        Token spawn = this.tokens[this.position++];
+        if (this.position == end) {
+            throwException(spawn);
+        }
+        Token next = this.tokens[this.position++];
+        if (this.position == end || Token.isIncorrectLabel(next)) {
+            throwException(next);
+        }
+
+        SpawnAST func = new SpawnAST(next.getValue(), spawn.getLine(), spawn.getCol());
+        parseArgs(func, end);
+        return func;
+    }
 
-        next = tokens.remove(0); // (
-        if (tokens.isEmpty() || next.getLabel() != Token.LB) {
+    /**
+     * Parses a join of a task, e.g. "join(t)".
+     *
+     * @param end index after the last token the join may use.
+     * @return AST for the join.
+     * @throws Exception for the parsing errors.
+     */
+    private JoinAST parseJoin(int end) throws Exception {
+        Token join = this.tokens[this.position++];
+        if (this.position == end) {
+            throwException(join);
+        }
+
+        JoinAST func = new JoinAST(join.getLine(), join.getCol());
+        parseArgs(func, end);
+        return func;
+    }
+
+    /**
+     * Parses a call of a collection method.
+     *
+     * @param end index after the last token the call may use.
+     * @return AST for the method call.
+     * @throws Exception for the parsing errors.
+     */
+    private MethodCallAST parseMethodCall(int end) throws Exception {
+        Token receiver = this.tokens[this.position++];
+        if (Token.isIncorrectLabel(receiver)) {
+            throwException(receiver);
+        }
+        this.position++; // .
+        Token next = this.tokens[this.position++];
+        if (this.position == end || Token.isIncorrectLabel(next)) {
+            throwException(next);
+        }
+
+        MethodCallAST method = new MethodCallAST(receiver.getValue(), next.getValue(), next.getLine(), next.getCol());
+        parseArgs(method, end);
+        return method;
+    }
+
+    /**
+     * Parses the arguments of a call in brackets.
+     *
+     * @param func the call to add the arguments to.
+     * @param end  index after the last token the call may use.
+     * @throws Exception for the parsing errors.
+     */
+    private void parseArgs(CallFuncAST func, int end) throws Exception {
+        Token next = this.tokens[this.position++]; // (
+        if (this.position == end || next.getLabel() != Token.LB) {
             throwException(next);
         }
 
-        while (!tokens.isEmpty()) {
-            next = tokens.get(0);
+        while (this.position < end) {
+            next = this.tokens[this.position];
             if (next.getLabel() == Token.RB) {
                 break;
             }
             if (next.getLabel() == Token.COMMA) {
-                tokens.remove(0);
+                this.position++;
             }
-            if (tokens.isEmpty()) {
+            if (this.position == end) {
                 throwException(next);
             }
-            next = tokens.get(tokens.size() - 1);
-            func.addArg(parseExpression(tokens, false, true, true));
+            next = this.tokens[end - 1];
+            func.addArg(parseExpression(false, true, true, end));
         }
 
-        if (tokens.isEmpty()) {
+        if (this.position == end) {
             throwException(next);
         }
-        tokens.remove(0); // )
-
-        return func;
+        this.position++; // )
     }
 
     /**
      * Parses a simple expression.
      *
-     * @param tokens list of tokens.
+     * @param end index after the last token the expression may use.
      * @return AST for the expression.
      * @throws Exception for the parsing errors.
      */
-    private ExpressionAST parseExpression(List<Token> tokens, boolean semicolon, boolean comma, boolean rightBracket) throws Exception {
-        List<Token> tokenList = new LinkedList<>();
-        Token next = null;
+    private ExpressionAST parseExpression(boolean semicolon, boolean comma, boolean rightBracket, int end) throws Exception {
+        int from = this.position;
+        int to = from;
         int counter = 0;
 
-        while (!tokens.isEmpty()) {
-            next = tokens.remove(0);
+        while (to < end) {
+            Token next = this.tokens[to];
             if (counter == 0 && ((semicolon && next.getLabel() == Token.SEMICOLON)
                     || (comma && next.getLabel() == Token.COMMA) || (rightBracket && next.getLabel() == Token.RB))) {
                 break;
             }
 
+            if (next.getLabel() == Token.NEW && to + 2 < end && this.tokens[to + 2].getLabel() == Token.LESS) {
+                // The type arguments of a new collection, they may contain commas.
+                to = Math.min(typeArgumentsEnd(to + 2), end);
+                continue;
+            }
             if (next.getLabel() == Token.LB) {
                 counter++;
             } else if (next.getLabel() == Token.RB) {
                 counter--;
             }
-            tokenList.add(next);
+            to++;
             if (!Token.isExpressionToken(next)) {
                 throwException(next);
             }
         }
 
-        ExpressionAST result = parseFullExpression(tokenList);
-        tokens.add(0, next); // Return terminator
+        ExpressionAST result = parseFullExpression(from, to);
+        if (to == end) {
+            // There is no terminator.
+            throwException(this.tokens[end - 1]);
+        }
+        this.position = to; // Return terminator
 
         return result;
     }
@@ -636,117 +845,133 @@ public class Parser {
     /**
      * Parses a complex expression.
      *
-     * @param tokens list of tokens.
+     * @param from index of the first token of the expression.
+     * @param to   index after the last token of the expression.
      * @return AST for the expression.
      * @throws Exception for the parsing errors.
      */
-    private ExpressionAST parseFullExpression(List<Token> tokens) throws Exception {
+    private ExpressionAST parseFullExpression(int from, int to) throws Exception {
         int counter = 0;
-        for (int i = tokens.size() - 1; i >= 0; i--) {
-            Token token = tokens.get(i);
-            if (token.getLabel() == Token.RB) {
+        for (int i = to - 1; i >= from; i--) {
+            Token token = this.tokens[i];
+            if (token.getLabel() == Token.RB || token.getLabel() == Token.RSB) {
                 counter++;
-            } else if (token.getLabel() == Token.LB) {
+            } else if (token.getLabel() == Token.LB || token.getLabel() == Token.LSB) {
                 counter--;
             } else if (counter == 0) {
                 int label = token.getLabel();
                 if (label == Token.ADDITION || label == Token.SUBTRACTION || label == Token.MOD) {
-                    List<Token> leftTokens = new LinkedList<>();
-                    for (int j = 0; j < i; j++) {
-                        leftTokens.add(tokens.remove(0));
-                    }
-                    tokens.remove(0); // remove binOp
-                    if (tokens.isEmpty() || leftTokens.isEmpty()) {
+                    if (i + 1 == to || i == from) {
                         throwException(token);
                     }
 
                     ExpressionAST expr = new ExpressionAST(label, token.getLine(), token.getCol());
-                    expr.setLeft(parseFullExpression(leftTokens));
-                    expr.setRight(parseProduction(tokens));
+                    expr.setLeft(parseFullExpression(from, i));
+                    expr.setRight(parseProduction(i + 1, to));
 
                     return expr;
                 }
             }
         }
 
-        return parseProduction(tokens);
+        return parseProduction(from, to);
     }
 
     /**
      * Parses a production expression.
      *
-     * @param tokens list of tokens.
+     * @param from index of the first token of the expression.
+     * @param to   index after the last token of the expression.
      * @return AST for the expression.
      * @throws Exception for the parsing errors.
      */
-    private ExpressionAST parseProduction(List<Token> tokens) throws Exception {
+    private ExpressionAST parseProduction(int from, int to) throws Exception {
         int counter = 0;
-        for (int i = tokens.size() - 1; i >= 0; i--) {
-            Token token = tokens.get(i);
-            if (token.getLabel() == Token.RB) {
+        for (int i = to - 1; i >= from; i--) {
+            Token token = this.tokens[i];
+            if (token.getLabel() == Token.RB || token.getLabel() == Token.RSB) {
                 counter++;
-            } else if (token.getLabel() == Token.LB) {
+            } else if (token.getLabel() == Token.LB || token.getLabel() == Token.LSB) {
                 counter--;
             } else if (counter == 0) {
                 int label = token.getLabel();
                 if (label == Token.MULTIPLICATION || label == Token.DIVISION) {
-                    List<Token> leftTokens = new LinkedList<>();
-                    for (int j = 0; j < i; j++) {
-                        leftTokens.add(tokens.remove(0));
-                    }
-                    tokens.remove(0); // remove primOp
-                    if (tokens.isEmpty() || leftTokens.isEmpty()) {
+                    if (i + 1 == to || i == from) {
                         throwException(token);
                     }
 
                     ExpressionAST expr = new ExpressionAST(label, token.getLine(), token.getCol());
-                    expr.setLeft(parseProduction(leftTokens));
-                    expr.setRight(parsePrimary(tokens));
+                    expr.setLeft(parseProduction(from, i));
+                    expr.setRight(parsePrimary(i + 1, to));
 
                     return expr;
                 }
             }
         }
-        return parsePrimary(tokens);
+        return parsePrimary(from, to);
     }
 
     /**
      * Parses primary part in a production expression.
      *
-     * @param tokens list of tokens.
+     * @param from index of the first token of the expression.
+     * @param to   index after the last token of the expression.
      * @return AST for the expression.
      * @throws Exception for the parsing errors.
      */
-    private ExpressionAST parsePrimary(List<Token> tokens) throws Exception {
-        Token next = tokens.get(0);
+    private ExpressionAST parsePrimary(int from, int to) throws Exception {
+        if (from == to) {
+            throwException(this.tokens[from - 1]);
+        }
+        Token next = this.tokens[from];
         if (next.getLabel() == Token.LB) {
-            tokens.remove(0); // (
-            if (tokens.isEmpty()) {
+            if (from + 1 == to) {
                 throwException(next);
             }
-            next = tokens.remove(tokens.size() - 1); // Remove )
-            if (tokens.isEmpty() || next.getLabel() != Token.RB) {
+            next = this.tokens[to - 1]; // )
+            if (from + 1 == to - 1 || next.getLabel() != Token.RB) {
                 throwException(next);
             }
-            return parseFullExpression(tokens);
+            return parseFullExpression(from + 1, to - 1);
         }
 
         if (next.getLabel() == Token.NEW) {
             ExpressionAST expr = new ExpressionAST(true, next.getLine(), next.getCol());
-            tokens.remove(0); // new
-            if (tokens.isEmpty()) {
+            int i = from + 1; // new
+            if (i == to) {
                 throwException(next);
             }
-            next = tokens.remove(0); // <label>
-            if (tokens.isEmpty() || Token.isIncorrectLabel(next)) {
+            next = this.tokens[i++]; // <label>
+            String label = next.getValue();
+            if (i < to && this.tokens[i].getLabel() == Token.LESS && !Token.isIncorrectLabel(next)) {
+                // Type arguments of a collection type.
+                this.position = i;
+                label = parseTypeArguments(label);
+                i = this.position;
+                if (i >= to) {
+                    throwException(this.tokens[to - 1]);
+                }
+            }
+            boolean isType = !Token.isIncorrectLabel(next) || (!Token.isNotATypeToken(next) && next.getLabel() != Token.VOID);
+            if (i < to && this.tokens[i].getLabel() == Token.LSB && isType) {
+                // new <type>[<length>]
+                next = this.tokens[to - 1]; // ]
+                if (next.getLabel() != Token.RSB) {
+                    throwException(next);
+                }
+                expr.setLabel(label);
+                expr.setIndex(parseFullExpression(i + 1, to - 1));
+                return expr;
+            }
+            if (i == to || Token.isIncorrectLabel(next)) {
                 throwException(next);
             }
-            expr.setLabel(next.getValue());
-            next = tokens.remove(0); // (
-            if (tokens.isEmpty() || next.getLabel() != Token.LB) {
+            expr.setLabel(label);
+            next = this.tokens[i++]; // (
+            if (i == to || next.getLabel() != Token.LB) {
                 throwException(next);
             }
-            next = tokens.remove(0); // )
+            next = this.tokens[i]; // )
             if (next.getLabel() != Token.RB) {
                 throwException(next);
             }
@@ -757,17 +982,41 @@ public class Parser {
             return new ExpressionAST(next.getLine(), next.getCol(), true);
         }
 
-        if (tokens.size() > 1 && tokens.get(1).getLabel() == Token.LB) {
-            return new ExpressionAST(parseCallFunc(tokens), next.getLine(), next.getCol());
+        if (next.getLabel() == Token.SPAWN || next.getLabel() == Token.JOIN) {
+            this.position = from;
+            CallFuncAST func = next.getLabel() == Token.SPAWN ? parseSpawn(to) : parseJoin(to);
+            if (this.position != to) {
+                throwException(this.tokens[this.position]);
+            }
+            return new ExpressionAST(func, next.getLine(), next.getCol());
+        }
+
+        if (to - from > 1 && this.tokens[from + 1].getLabel() == Token.LB) {
+            this.position = from;
+            return new ExpressionAST(parseCallFunc(to), next.getLine(), next.getCol());
+        }
+
+        if (to - from > 4 && this.tokens[from + 1].getLabel() == Token.DOT && this.tokens[from + 3].getLabel() == Token.LB) {
+            this.position = from;
+            return new ExpressionAST(parseMethodCall(to), next.getLine(), next.getCol());
+        }
+
+        if (to - from > 1 && this.tokens[from + 1].getLabel() == Token.LSB) {
+            if (Token.isIncorrectLabel(next)) {
+                throwException(next);
+            }
+            Token close = this.tokens[to - 1];
+            if (close.getLabel() != Token.RSB) {
+                throwException(close);
+            }
+            return new ExpressionAST(next.getValue(), parseFullExpression(from + 2, to - 1), next.getLine(), next.getCol());
         }
 
-        if (tokens.size() == 3 && tokens.get(1).getLabel() == Token.DOT) {
-            next = tokens.remove(0); // <label>
+        if (to - from == 3 && this.tokens[from + 1].getLabel() == Token.DOT) {
             if (Token.isIncorrectLabel(next)) {
                 throwException(next);
             }
-            tokens.remove(0); // .
-            Token fieldName = tokens.remove(0);
+            Token fieldName = this.tokens[from + 2];
             if (Token.isIncorrectLabel(fieldName)) {
                 throwException(fieldName);
             }
@@ -802,17 +1051,17 @@ public class Parser {
     /**
      * Parses a simple comparison expression.
      *
-     * @param tokens list of tokens.
      * @return AST for the expression.
      * @throws Exception for the parsing errors.
      */
-    private ComparisonAST parseCompExpression(List<Token> tokens, boolean semicolon, boolean rightBracket) throws Exception {
-        List<Token> tokenList = new LinkedList<>();
-        Token next = null;
+    private ComparisonAST parseCompExpression(boolean semicolon, boolean rightBracket) throws Exception {
+        int from = this.position;
+        int to = from;
+        int end = this.tokens.length;
         int counter = 0;
 
-        while (!tokens.isEmpty()) {
-            next = tokens.remove(0);
+        while (to < end) {
+            Token next = this.tokens[to];
             if (counter == 0 && ((semicolon && next.getLabel() == Token.SEMICOLON)
                     || (rightBracket && next.getLabel() == Token.RB))) {
                 break;
@@ -824,14 +1073,18 @@ public class Parser {
                     counter--;
                 }
             }
-            tokenList.add(next);
+            to++;
             if (!Token.isCompExpressionToken(next)) {
                 throwException(next);
             }
         }
 
-        ComparisonAST result = parseFullCompExpression(tokenList);
-        tokens.add(0, next); // Return terminator
+        ComparisonAST result = parseFullCompExpression(from, to);
+        if (to == end) {
+            // There is no terminator.
+            throwException(this.tokens[end - 1]);
+        }
+        this.position = to; // Return terminator
 
         return result;
     }
@@ -839,14 +1092,15 @@ public class Parser {
     /**
      * Parses a complex comparison expression.
      *
-     * @param tokens list of tokens.
+     * @param from index of the first token of the expression.
+     * @param to   index after the last token of the expression.
      * @return AST for the expression.
      * @throws Exception for the parsing errors.
      */
-    private ComparisonAST parseFullCompExpression(List<Token> tokens) throws Exception {
+    private ComparisonAST parseFullCompExpression(int from, int to) throws Exception {
         int counter = 0;
-        for (int i = tokens.size() - 1; i >= 0; i--) {
-            Token token = tokens.get(i);
+        for (int i = to - 1; i >= from; i--) {
+            Token token = this.tokens[i];
             if (token.getLabel() == Token.RB) {
                 counter++;
             } else if (token.getLabel() == Token.LB) {
@@ -854,84 +1108,250 @@ public class Parser {
             } else if (counter == 0) {
                 int label = token.getLabel();
                 if (label == Token.AND || label == Token.OR) {
-                    List<Token> leftTokens = new LinkedList<>();
-                    for (int j = 0; j < i; j++) {
-                        leftTokens.add(tokens.remove(0));
-                    }
-                    tokens.remove(0); // remove compConcatOp
-                    if (tokens.isEmpty() || leftTokens.isEmpty()) {
+                    if (i + 1 == to || i == from) {
                         throwException(token);
                     }
 
                     ComparisonAST comparision = new ComparisonAST(label, token.getLine(), token.getCol());
-                    comparision.setLeft(parseFullCompExpression(leftTokens));
-                    comparision.setRight(parseCompTerm(tokens));
+                    comparision.setLeft(parseFullCompExpression(from, i));
+                    comparision.setRight(parseCompTerm(i + 1, to));
 
                     return comparision;
                 }
             }
         }
 
-        return parseCompTerm(tokens);
+        return parseCompTerm(from, to);
     }
 
     /**
      * Parses a comparison term.
      *
-     * @param tokens list of tokens.
+     * @param from index of the first token of the expression.
+     * @param to   index after the last token of the expression.
      * @return AST for the expression.
      * @throws Exception for the parsing errors.
      */
-    private ComparisonAST parseCompTerm(List<Token> tokens) throws Exception {
-        Token next = tokens.get(0);
+    private ComparisonAST parseCompTerm(int from, int to) throws Exception {
+        if (from == to) {
+            throwException(this.tokens[from - 1]);
+        }
+        Token next = this.tokens[from];
         if (next.getLabel() == Token.LB) {
-            tokens.remove(0);
-            if (tokens.isEmpty()) {
+            if (from + 1 == to) {
                 throwException(next);
             }
-            next = tokens.remove(tokens.size() - 1);
-            if (next.getLabel() != Token.RB || tokens.isEmpty()) {
+            next = this.tokens[to - 1];
+            if (next.getLabel() != Token.RB || from + 1 == to - 1) {
                 throwException(next);
             }
 
-            return parseFullCompExpression(tokens);
+            return parseFullCompExpression(from + 1, to - 1);
         }
 
         if (next.getLabel() == Token.NEGATION) {
             ComparisonAST comparison = new ComparisonAST(next.getLabel(), next.getLine(), next.getCol());
-            tokens.remove(0); // remove '!'
-            comparison.setRight(parseFullCompExpression(tokens));
+            comparison.setRight(parseFullCompExpression(from + 1, to));
 
             return comparison;
         }
 
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
+        for (int i = from; i < to; i++) {
+            Token token = this.tokens[i];
             int label = token.getLabel();
             if (label == Token.EQUAL || label == Token.NOT_EQUAL || label == Token.LESS || label == Token.MORE || label == Token.LESS_EQUAL || label == Token.MORE_EQUAL) {
-                List<Token> leftTokens = new LinkedList<>();
-                for (int j = 0; j < i; j++) {
-                    leftTokens.add(tokens.remove(0));
-                }
-                tokens.remove(0); // remove compOp
-                if (tokens.isEmpty() || leftTokens.isEmpty()) {
+                if (i + 1 == to || i == from) {
                     throwException(token);
                 }
 
                 ComparisonAST comparison = new ComparisonAST(label, token.getLine(), token.getCol());
-                comparison.setLeftExpr(parseFullExpression(leftTokens));
-                comparison.setRightExpr(parseFullExpression(tokens));
+                comparison.setLeftExpr(parseFullExpression(from, i));
+                comparison.setRightExpr(parseFullExpression(i + 1, to));
 
                 return comparison;
             }
         }
 
         ComparisonAST comparison = new ComparisonAST(next.getLine(), next.getCol());
-        comparison.setRightExpr(parseFullExpression(tokens));
+        comparison.setRightExpr(parseFullExpression(from, to));
         return comparison;
     }
 
+    /**
+     * Parses the brackets which may follow a type token.
+     *
+     * @param type the type token, it is already consumed.
+     * @return name of the type, the array type if the brackets follow.
+     * @throws Exception for the parsing errors.
+     */
+    private String parseTypeSuffix(Token type) throws Exception {
+        String name = type.getValue();
+        if (!isEmpty() && peek(0).getLabel() == Token.LESS) {
+            name = parseTypeArguments(name);
+        }
+        if (isEmpty() || peek(0).getLabel() != Token.LSB) {
+            return name;
+        }
+        Token next = advance(); // [
+        if (isEmpty() || peek(0).getLabel() != Token.RSB) {
+            throwException(next);
+        }
+        advance(); // ]
+        return name + ArraySupport.SUFFIX;
+    }
+
+    /**
+     * Parses the type arguments of a collection or task type, e.g. "&lt;string, int&gt;".
+     *
+     * @param name name of the collection type, the arguments follow it.
+     * @return name of the type with the arguments, e.g. "map&lt;string,int&gt;".
+     * @throws Exception for the parsing errors.
+     */
+    private String parseTypeArguments(String name) throws Exception {
+        StringBuilder type = new StringBuilder(name);
+        Token next = advance(); // <
+        type.append(next.getValue());
+        do {
+            if (isEmpty()) {
+                throwException(next);
+            }
+            next = advance(); // <type>
+            // Only a task may have no result.
+            if (Token.isNotATypeToken(next) || next.getLabel() == Token.VOID && !name.equals(Task.TYPE) || isEmpty()) {
+                throwException(next);
+            }
+            type.append(parseTypeSuffix(next));
+            if (isEmpty()) {
+                throwException(next);
+            }
+            next = advance(); // , or >
+            if (next.getLabel() != Token.COMMA && next.getLabel() != Token.MORE) {
+                throwException(next);
+            }
+            type.append(next.getValue());
+        } while (next.getLabel() == Token.COMMA);
+        return type.toString();
+    }
+
+    /**
+     * @return number of the tokens of the type at the current position, including its type arguments and the
+     * brackets of an array type.
+     */
+    private int typeLength() {
+        int i = this.position + 1;
+        if (i < this.tokens.length && this.tokens[i].getLabel() == Token.LESS) {
+            i = typeArgumentsEnd(i);
+        }
+        if (i + 1 < this.tokens.length && this.tokens[i].getLabel() == Token.LSB && this.tokens[i + 1].getLabel() == Token.RSB) {
+            i += 2;
+        }
+        return i - this.position;
+    }
+
+    /**
+     * @param open index of the '&lt;' which starts type arguments.
+     * @return index after the matching '&gt;', or the number of tokens if the arguments are not closed.
+     */
+    private int typeArgumentsEnd(int open) {
+        int counter = 0;
+        for (int i = open; i < this.tokens.length; i++) {
+            if (this.tokens[i].getLabel() == Token.LESS) {
+                counter++;
+            } else if (this.tokens[i].getLabel() == Token.MORE && --counter == 0) {
+                return i + 1;
+            }
+        }
+        return this.tokens.length;
+    }
+
+    /**
+     * @return whether the next tokens are the header of a for-each loop, "( &lt;type&gt; &lt;label&gt; :".
+     */
+    private boolean isForEach() {
+        if (remaining() < 4 || peek(0).getLabel() != Token.LB || Token.isNotATypeToken(peek(1))) {
+            return false;
+        }
+        this.position++;
+        int length = typeLength();
+        this.position--;
+        return remaining() > length + 2 && peek(length + 2).getLabel() == Token.COLON;
+    }
+
+    /**
+     * @return whether the next tokens start a call of a collection method.
+     */
+    private boolean isMethodCall() {
+        return remaining() > 3 && peek(1).getLabel() == Token.DOT && peek(3).getLabel() == Token.LB;
+    }
+
+    /**
+     * @return whether the next tokens start an assignment to an array element, rather than an array declaration.
+     */
+    private boolean isElementAssignment() {
+        return remaining() > 2 && peek(1).getLabel() == Token.LSB && peek(2).getLabel() != Token.RSB;
+    }
+
+    /**
+     * @param open index of a left square bracket.
+     * @return index of the matching right square bracket.
+     * @throws Exception if the bracket is not closed.
+     */
+    private int closingBracket(int open) throws Exception {
+        int counter = 0;
+        for (int i = open; i < this.tokens.length; i++) {
+            if (this.tokens[i].getLabel() == Token.LSB) {
+                counter++;
+            } else if (this.tokens[i].getLabel() == Token.RSB && --counter == 0) {
+                return i;
+            }
+        }
+        throwException(last());
+        return -1;
+    }
+
+    /**
+     * @return whether all tokens are consumed.
+     */
+    private boolean isEmpty() {
+        return this.position == this.tokens.length;
+    }
+
+    /**
+     * @return number of tokens which are not consumed yet.
+     */
+    private int remaining() {
+        return this.tokens.length - this.position;
+    }
+
+    /**
+     * @param offset distance from the next token.
+     * @return the token, without consuming it.
+     */
+    private Token peek(int offset) {
+        return this.tokens[this.position + offset];
+    }
+
+    /**
+     * @return the last token of the program.
+     */
+    private Token last() {
+        return this.tokens[this.tokens.length - 1];
+    }
+
+    /**
+     * Consumes the next token.
+     *
+     * @return the token.
+     * @throws Exception if all tokens are already consumed.
+     */
+    private Token advance() throws Exception {
+        if (isEmpty()) {
+            throwException(last());
+        }
+        return this.tokens[this.position++];
+    }
+
     private void throwException(Token token) throws Exception {
         throw new Exception("Syntax error on line: " + token.getLine() + ", column: " + token.getCol());
     }
-}
\ No newline at end of file
+}
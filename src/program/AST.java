@@ -1,5 +1,6 @@
 package program;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +19,13 @@ public abstract class AST {
         this.column = column;
     }
 
+    /**
+     * Reads the AST written by {@link #write(ASTOutput)}.
+     */
+    AST(ASTInput in) {
+        this(in.readInt(), in.readInt());
+    }
+
     public int getLine() {
         return line;
     }
@@ -48,14 +56,35 @@ public abstract class AST {
      */
     abstract String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception;
 
+    /**
+     * Resolves variable labels into frame slots.
+     * Runs after the semantics check, so all the labels are known to exist.
+     *
+     * @param scope current scope.
+     * @throws Exception in case of unresolved labels.
+     */
+    abstract void resolve(Scope scope) throws Exception;
+
     /**
      * Executes the code.
      *
      * @param structs   list of structs declared so far. It is a map of the struct name to the struct itself.
-     * @param vars      list of variables declared so far. It is a map of the variable name to the variable itself.
+     * @param frame     frame holding the values of the variables visible to the code.
      * @param functions list of functions declared so far. It is a map of the function name to the function itself.
      * @return the result of execution.
      * @throws Exception in case of runtime errors.
      */
-    abstract Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception;
+    abstract Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception;
+
+    /**
+     * Writes the checked AST, see {@link ProgramCache}.
+     * Subclasses write their own state after the state of the superclass.
+     *
+     * @param out output to write to.
+     * @throws IOException if the output cannot be written.
+     */
+    void write(ASTOutput out) throws IOException {
+        out.writeInt(this.line);
+        out.writeInt(this.column);
+    }
 }
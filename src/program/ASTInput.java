@@ -0,0 +1,178 @@
+package program;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static program.ASTOutput.*;
+
+/**
+ * Decoding of a program written by {@link ASTOutput}.
+ * Malformed data is reported by runtime exceptions, see {@link ProgramCache#load(byte[])}.
+ */
+class ASTInput {
+    private final ByteBuffer buffer;
+
+    /**
+     * String table, see {@link ASTOutput#writeString(String)}.
+     */
+    private final String[] strings;
+
+    /**
+     * Read structs. It is a map of the struct name to the struct itself.
+     */
+    private final Map<String, StructAST> structs = new HashMap<>();
+
+    /**
+     * Read expressions which instantiate a struct, they are bound to the struct when the whole program is read
+     * since a struct may be instantiated before it is declared.
+     */
+    private final List<ExpressionAST> instantiations = new ArrayList<>();
+
+    /**
+     * Read functions. It is a map of the function name to the function itself.
+     */
+    private final Map<String, FunctionAST> functions = new HashMap<>();
+
+    /**
+     * Read function calls, they are bound to the called function when the whole program is read.
+     */
+    private final List<CallFuncAST> calls = new ArrayList<>();
+
+    /**
+     * @param buffer the string table followed by the nodes, see {@link ASTOutput#toByteArray()}.
+     */
+    ASTInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.strings = new String[buffer.getInt()];
+        for (int i = 0; i < this.strings.length; i++) {
+            byte[] utf8 = new byte[buffer.getInt()];
+            buffer.get(utf8);
+            this.strings[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+
+    int readInt() {
+        return this.buffer.getInt();
+    }
+
+    boolean readBoolean() {
+        return this.buffer.get() != 0;
+    }
+
+    int[] readInts() {
+        int[] values = new int[readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readInt();
+        }
+        return values;
+    }
+
+    String readString() {
+        int index = readInt();
+        return index >= 0 ? this.strings[index] : null;
+    }
+
+    String[] readStrings() {
+        String[] values = new String[readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString();
+        }
+        return values;
+    }
+
+    Object readValue() {
+        int tag = this.buffer.get();
+        return switch (tag) {
+            case NO_VALUE -> null;
+            case INT_VALUE -> this.buffer.getInt();
+            case DOUBLE_VALUE -> this.buffer.getDouble();
+            case STRING_VALUE -> readString();
+            case BOOLEAN_VALUE -> readBoolean();
+            default -> throw new IllegalStateException("Unknown value tag " + tag);
+        };
+    }
+
+    /**
+     * Reads a node written by {@link ASTOutput#writeNode(AST)}.
+     *
+     * @return the node, null if null was written.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends AST> T readNode() {
+        int tag = this.buffer.get();
+        AST node = switch (tag) {
+            case NULL -> null;
+            case ASSIGNMENT -> new AssignmentAST(this);
+            case BREAK -> new BreakAST(this);
+            case CALL_FUNC -> new CallFuncAST(this);
+            case COMPARISON -> new ComparisonAST(this);
+            case DOUBLE_OPERATION -> new DoubleOperationAST(this);
+            case EXPRESSION -> new ExpressionAST(this);
+            case FOR_LOOP -> new ForLoopAST(this);
+            case FOR_EACH -> new ForEachAST(this);
+            case FUNCTION -> new FunctionAST(this);
+            case IF_CHAIN -> new IfChainAST(this);
+            case IF_STATEMENT -> new IfStatementAST(this);
+            case METHOD_CALL -> new MethodCallAST(this);
+            case PARALLEL_FOR -> new ParallelForAST(this);
+            case SPAWN -> new SpawnAST(this);
+            case JOIN -> new JoinAST(this);
+            case INT_OPERATION -> new IntOperationAST(this);
+            case PRINTF -> new PrintfAST(this);
+            case PROGRAM -> new ProgramAST(this);
+            case RETURN -> new ReturnAST(this);
+            case STRUCT -> new StructAST(this);
+            case VAR_LIST -> new VarListAST(this);
+            case VARIABLE -> new VariableAST(this);
+            default -> throw new IllegalStateException("Unknown AST tag " + tag);
+        };
+        if (node instanceof StructAST struct) {
+            this.structs.put(struct.getLabel(), struct);
+        } else if (node instanceof FunctionAST function) {
+            this.functions.put(function.getLabel(), function);
+        }
+        return (T) node;
+    }
+
+    <T extends AST> List<T> readNodes() {
+        int size = readInt();
+        List<T> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            nodes.add(readNode());
+        }
+        return nodes;
+    }
+
+    /**
+     * Binds the expression to the instantiated struct once the whole program is read.
+     */
+    void instantiates(ExpressionAST expression) {
+        this.instantiations.add(expression);
+    }
+
+    /**
+     * Binds the call to the called function once the whole program is read.
+     */
+    void calls(CallFuncAST call) {
+        this.calls.add(call);
+    }
+
+    /**
+     * Binds the expressions which instantiate structs and the function calls,
+     * see {@link #instantiates(ExpressionAST)} and {@link #calls(CallFuncAST)}.
+     */
+    void link() {
+        for (ExpressionAST expression : this.instantiations) {
+            expression.setStruct(this.structs.get(expression.getLabel()));
+        }
+        for (CallFuncAST call : this.calls) {
+            if (!(call instanceof MethodCallAST) && !(call instanceof JoinAST)) {
+                call.setFunction(this.functions.get(call.getLabel()));
+            }
+        }
+    }
+}
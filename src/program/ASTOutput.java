@@ -0,0 +1,161 @@
+package program;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of a checked program, see {@link ProgramCache}.
+ * Strings are collected in a table and the nodes refer to them by their indexes.
+ */
+class ASTOutput {
+    /**
+     * Tags of the AST classes, written before every node.
+     */
+    static final int NULL = 0, ASSIGNMENT = 1, BREAK = 2, CALL_FUNC = 3, COMPARISON = 4, DOUBLE_OPERATION = 5,
+            EXPRESSION = 6, FOR_LOOP = 7, FUNCTION = 8, IF_STATEMENT = 9, INT_OPERATION = 10, PRINTF = 11,
+            PROGRAM = 12, RETURN = 13, STRUCT = 14, VAR_LIST = 15, VARIABLE = 16, IF_CHAIN = 17,
+            METHOD_CALL = 18, PARALLEL_FOR = 19, SPAWN = 20, JOIN = 21, FOR_EACH = 22;
+
+    /**
+     * Tags of the literal values.
+     */
+    static final int NO_VALUE = 0, INT_VALUE = 1, DOUBLE_VALUE = 2, STRING_VALUE = 3, BOOLEAN_VALUE = 4;
+
+    /**
+     * Written strings. It is a map of the string to its index in the table.
+     */
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 12);
+
+    private final DataOutputStream data = new DataOutputStream(this.bytes);
+
+    void writeInt(int value) throws IOException {
+        this.data.writeInt(value);
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        this.data.writeBoolean(value);
+    }
+
+    void writeInts(int[] values) throws IOException {
+        writeInt(values.length);
+        for (int value : values) {
+            writeInt(value);
+        }
+    }
+
+    /**
+     * Writes the index of the string in the table, -1 for null.
+     */
+    void writeString(String value) throws IOException {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        Integer index = this.strings.get(value);
+        if (index == null) {
+            index = this.strings.size();
+            this.strings.put(value, index);
+        }
+        writeInt(index);
+    }
+
+    void writeStrings(String[] values) throws IOException {
+        writeInt(values.length);
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    /**
+     * Writes a literal value of an expression.
+     *
+     * @param value integer, double, string, boolean or null.
+     */
+    void writeValue(Object value) throws IOException {
+        if (value instanceof Integer i) {
+            this.data.writeByte(INT_VALUE);
+            this.data.writeInt(i);
+        } else if (value instanceof Double d) {
+            this.data.writeByte(DOUBLE_VALUE);
+            this.data.writeDouble(d);
+        } else if (value instanceof String s) {
+            this.data.writeByte(STRING_VALUE);
+            writeString(s);
+        } else if (value instanceof Boolean b) {
+            this.data.writeByte(BOOLEAN_VALUE);
+            this.data.writeBoolean(b);
+        } else {
+            this.data.writeByte(NO_VALUE);
+        }
+    }
+
+    /**
+     * Writes the tag of the node followed by the node itself.
+     *
+     * @param node node to write, may be null.
+     */
+    void writeNode(AST node) throws IOException {
+        this.data.writeByte(tagOf(node));
+        if (node != null) {
+            node.write(this);
+        }
+    }
+
+    void writeNodes(List<? extends AST> nodes) throws IOException {
+        writeInt(nodes.size());
+        for (AST node : nodes) {
+            writeNode(node);
+        }
+    }
+
+    private static int tagOf(AST node) {
+        if (node == null) return NULL;
+        if (node instanceof IntOperationAST) return INT_OPERATION;
+        if (node instanceof DoubleOperationAST) return DOUBLE_OPERATION;
+        if (node instanceof ExpressionAST) return EXPRESSION;
+        if (node instanceof ComparisonAST) return COMPARISON;
+        if (node instanceof AssignmentAST) return ASSIGNMENT;
+        if (node instanceof BreakAST) return BREAK;
+        if (node instanceof MethodCallAST) return METHOD_CALL;
+        if (node instanceof SpawnAST) return SPAWN;
+        if (node instanceof JoinAST) return JOIN;
+        if (node instanceof CallFuncAST) return CALL_FUNC;
+        if (node instanceof ParallelForAST) return PARALLEL_FOR;
+        if (node instanceof ForEachAST) return FOR_EACH;
+        if (node instanceof ForLoopAST) return FOR_LOOP;
+        if (node instanceof FunctionAST) return FUNCTION;
+        if (node instanceof IfChainAST) return IF_CHAIN;
+        if (node instanceof IfStatementAST) return IF_STATEMENT;
+        if (node instanceof PrintfAST) return PRINTF;
+        if (node instanceof ProgramAST) return PROGRAM;
+        if (node instanceof ReturnAST) return RETURN;
+        if (node instanceof StructAST) return STRUCT;
+        if (node instanceof VarListAST) return VAR_LIST;
+        if (node instanceof VariableAST) return VARIABLE;
+        throw new IllegalArgumentException("Unknown AST " + node.getClass().getName());
+    }
+
+    /**
+     * @return the string table followed by the written nodes.
+     */
+    byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(this.bytes.size() + 16 * this.strings.size());
+        DataOutputStream out = new DataOutputStream(result);
+        out.writeInt(this.strings.size());
+        for (String value : this.strings.keySet()) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        this.bytes.writeTo(out);
+        out.flush();
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,139 @@
+package program;
+
+import lexer.Token;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Runtime representation of the arrays, shared by the interpreter, the VM and the generated code.
+ * Arrays of integers, doubles and booleans are Java primitive arrays, arrays of strings and structs are object arrays.
+ * The elements of a new array are 0, 0.0, false or null.
+ */
+public final class ArraySupport {
+    /**
+     * Suffix of the array types, e.g. "int[]".
+     */
+    public static final String SUFFIX = Token.getLabelValue(Token.LSB) + Token.getLabelValue(Token.RSB);
+
+    /**
+     * Name of the read-only field which holds the length of an array.
+     */
+    public static final String LENGTH = "length";
+
+    private ArraySupport() {
+    }
+
+    public static boolean isArrayType(String type) {
+        return type != null && type.endsWith(SUFFIX);
+    }
+
+    /**
+     * @param type array type.
+     * @return type of the elements.
+     */
+    public static String elementType(String type) {
+        return type.substring(0, type.length() - SUFFIX.length());
+    }
+
+    /**
+     * @return whether the type is declared, arrays and collections of declared types (except void) and tasks of declared types are declared as well.
+     */
+    static boolean isDeclared(Map<String, Map<String, String>> types, String type) {
+        if (CollectionSupport.isCollectionType(type)) {
+            return CollectionSupport.isDeclared(types, type);
+        }
+        if (Task.isTaskType(type)) {
+            return Task.isDeclared(types, type);
+        }
+        if (!isArrayType(type)) {
+            return types.containsKey(type);
+        }
+        String elementType = elementType(type);
+        return !elementType.equals(Token.getLabelValue(Token.VOID)) && !isArrayType(elementType) && isDeclared(types, elementType);
+    }
+
+    /**
+     * @return whether the elements of the array type can not be null.
+     */
+    static boolean isPrimitive(String elementType) {
+        return elementType.equals(Token.getLabelValue(Token.INTEGER)) || elementType.equals(Token.getLabelValue(Token.DOUBLE))
+                || elementType.equals(Token.getLabelValue(Token.BOOLEAN));
+    }
+
+    public static Object newArray(String elementType, int length) {
+        if (elementType.equals(Token.getLabelValue(Token.INTEGER))) {
+            return new int[length];
+        }
+        if (elementType.equals(Token.getLabelValue(Token.DOUBLE))) {
+            return new double[length];
+        }
+        if (elementType.equals(Token.getLabelValue(Token.BOOLEAN))) {
+            return new boolean[length];
+        }
+        return new Object[length];
+    }
+
+    /**
+     * @return the element, integers, doubles and booleans are boxed.
+     */
+    public static Object get(Object array, int index) {
+        if (array instanceof int[] ints) {
+            return ints[index];
+        }
+        if (array instanceof double[] doubles) {
+            return doubles[index];
+        }
+        if (array instanceof boolean[] booleans) {
+            return booleans[index];
+        }
+        return ((Object[]) array)[index];
+    }
+
+    /**
+     * Sets the element, null can not be stored into an array of integers, doubles or booleans.
+     */
+    public static void set(Object array, int index, Object value) {
+        if (array instanceof int[] ints) {
+            ints[index] = (Integer) value;
+        } else if (array instanceof double[] doubles) {
+            doubles[index] = (Double) value;
+        } else if (array instanceof boolean[] booleans) {
+            booleans[index] = (Boolean) value;
+        } else {
+            ((Object[]) array)[index] = value;
+        }
+    }
+
+    public static int length(Object array) {
+        if (array instanceof int[] ints) {
+            return ints.length;
+        }
+        if (array instanceof double[] doubles) {
+            return doubles.length;
+        }
+        if (array instanceof boolean[] booleans) {
+            return booleans.length;
+        }
+        return ((Object[]) array).length;
+    }
+
+    /**
+     * @return the printed form of the value, the elements of an array are listed in brackets.
+     */
+    public static String toString(Object value) {
+        if (value instanceof int[] ints) {
+            return Arrays.toString(ints);
+        }
+        if (value instanceof double[] doubles) {
+            return Arrays.toString(doubles);
+        }
+        if (value instanceof boolean[] booleans) {
+            return Arrays.toString(booleans);
+        }
+        if (value instanceof Object[] objects) {
+            return Arrays.toString(objects);
+        }
+        return String.valueOf(value);
+    }
+}
@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -19,17 +20,49 @@ public class AssignmentAST extends StatementAST {
      */
     private String field;
 
+    /**
+     * If the variable is an array then the index of the element to assign to.
+     */
+    private ExpressionAST index;
+
     /**
      * The expression (right side of the assignment).
      */
     private ExpressionAST expression;
 
+    /**
+     * Location of the variable, see {@link Frame#get(int, int)}.
+     */
+    private int depth, slot;
+
+    /**
+     * Index of the struct field to assign to, see {@link StructObject#setField(int, Object)}.
+     */
+    private int fieldIndex;
+
+    /**
+     * Whether the expression never waits for another thread, see {@link ExpressionAST#isSimple()}.
+     */
+    private boolean simple;
+
     public AssignmentAST(String label, String field, int line, int column) {
         super(line, column);
         this.label = label;
         this.field = field;
     }
 
+    AssignmentAST(ASTInput in) {
+        super(in);
+        this.label = in.readString();
+        this.field = in.readString();
+        this.index = in.readNode();
+        this.expression = in.readNode();
+        this.depth = in.readInt();
+        this.slot = in.readInt();
+        this.fieldIndex = in.readInt();
+        this.simple = in.readBoolean();
+    }
+
     public String getLabel() {
         return label;
     }
@@ -46,6 +79,18 @@ public class AssignmentAST extends StatementAST {
         this.field = field;
     }
 
+    public ExpressionAST getIndex() {
+        return index;
+    }
+
+    public void setIndex(ExpressionAST index) {
+        this.index = index;
+    }
+
+    public int getFieldIndex() {
+        return fieldIndex;
+    }
+
     public ExpressionAST getExpression() {
         return expression;
     }
@@ -54,6 +99,14 @@ public class AssignmentAST extends StatementAST {
         this.expression = expression;
     }
 
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
         if (!vars.containsKey(this.label)) {
@@ -61,7 +114,19 @@ public class AssignmentAST extends StatementAST {
         }
         String type;
         VariableAST var = vars.get(this.label);
-        if (this.field != null) {
+        if (this.index != null) {
+            if (!var.isInitialized()) {
+                throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + var.getLabel() + "' not initialized!");
+            }
+            if (!ArraySupport.isArrayType(var.getType())) {
+                throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.label + "' is not an array!");
+            }
+            String indexType = this.index.checkSemantics(types, vars, functions, callStack);
+            if (indexType != null && !indexType.equals(Token.getLabelValue(Token.INTEGER))) {
+                throw new Exception("Error at line " + this.index.getLine() + ", column " + this.index.getColumn() + ": Type mismatch, expected '" + Token.getLabelValue(Token.INTEGER) + "', but found '" + indexType + "'!");
+            }
+            type = ArraySupport.elementType(var.getType());
+        } else if (this.field != null) {
             Map<String, String> fields = types.get(var.getType());
             if (!fields.containsKey(this.field)) {
                 throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Struct '" + var.getType() + "' does not have field '" + this.field + "'!");
@@ -70,32 +135,98 @@ public class AssignmentAST extends StatementAST {
         } else {
             type = var.getType();
         }
-
+        ParallelForAST.checkWrite(callStack, this, var, this.index == null && this.field == null, this.index, this.expression);
 
         String valueType = this.expression.checkSemantics(types, vars, functions, callStack);
         if (valueType != null) {
-            if (!valueType.equals("null") && !type.equals(valueType)) {
+            if (!valueType.equals("null") && !type.equals(valueType)
+                    || valueType.equals("null") && this.index != null && ArraySupport.isPrimitive(type)) {
                 throw new Exception("Error at line " + this.expression.getLine() + ", column " + this.expression.getColumn() + ": Type mismatch, expected '" + type + "', but found '" + valueType + "'!");
             }
-            if (var.getValue() == null) {
-                var.setValue(this.expression);
+            if (this.index == null) {
+                var.setAssigned(true);
             }
         }
         return null;
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
-        ValueObject var = vars.get(this.label);
+    void resolve(Scope scope) throws Exception {
+        VariableAST var = scope.lookup(this.label);
+        if (var == null) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.label + "' does not exist!");
+        }
+        this.depth = scope.depthOf(this.label);
+        this.slot = var.getSlot();
         if (this.field != null) {
-            StructObject struct = (StructObject) var.getValue();
-            struct.setField(this.field, this.expression.execute(structs, vars, functions));
+            this.fieldIndex = scope.lookupStruct(var.getType()).getFieldIndex(this.field);
+        }
+        if (this.index != null) {
+            this.index.resolve(scope);
+            this.index = this.index.specialize();
+        }
+        this.simple = this.expression.isSimple();
+        this.expression.resolve(scope);
+        this.expression = this.expression.specialize();
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (this.index != null) {
+            Object array = frame.get(this.depth, this.slot);
+            int index;
+            try {
+                index = this.index.executeInt(structs, frame, functions);
+            } catch (UnexpectedResultException e) {
+                index = (Integer) e.getResult();
+            }
+            try {
+                if (array instanceof int[] ints) {
+                    ints[index] = this.expression.executeInt(structs, frame, functions);
+                } else if (array instanceof double[] doubles) {
+                    doubles[index] = this.expression.executeDouble(structs, frame, functions);
+                } else {
+                    ArraySupport.set(array, index, this.expression.execute(structs, frame, functions));
+                }
+            } catch (UnexpectedResultException e) {
+                ArraySupport.set(array, index, e.getResult());
+            }
+        } else if (this.field != null) {
+            StructObject struct = (StructObject) frame.get(this.depth, this.slot);
+            struct.setField(this.fieldIndex, this.expression.execute(structs, frame, functions));
+        } else if (frame.isShared() && frame.isShared(this.depth)) {
+            // The global variables shared by tasks are written under the lock of the global frame, an expression which
+            // never waits, e.g. "g = g + 1", is evaluated under the lock as well, so no task changes g in between.
+            Frame globals = frame.getGlobals();
+            if (this.simple) {
+                synchronized (globals) {
+                    this.expression.executeInto(structs, frame, functions, frame, this.depth, this.slot);
+                }
+            } else {
+                Object value = this.expression.execute(structs, frame, functions);
+                synchronized (globals) {
+                    frame.set(this.depth, this.slot, value);
+                }
+            }
         } else {
-            var.setValue(this.expression.execute(structs, vars, functions));
+            this.expression.executeInto(structs, frame, functions, frame, this.depth, this.slot);
         }
         return null;
     }
 
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeString(this.label);
+        out.writeString(this.field);
+        out.writeNode(this.index);
+        out.writeNode(this.expression);
+        out.writeInt(this.depth);
+        out.writeInt(this.slot);
+        out.writeInt(this.fieldIndex);
+        out.writeBoolean(this.simple);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder(this.label);
@@ -103,6 +234,11 @@ public class AssignmentAST extends StatementAST {
             str.append(Token.getLabelValue(Token.DOT));
             str.append(this.field);
         }
+        if (this.index != null) {
+            str.append(Token.getLabelValue(Token.LSB));
+            str.append(this.index);
+            str.append(Token.getLabelValue(Token.RSB));
+        }
         str.append(" ");
         str.append(Token.getLabelValue(Token.ASSIGNMENT));
         str.append(" ");
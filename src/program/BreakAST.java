@@ -13,16 +13,24 @@ public class BreakAST extends StatementAST {
         super(line, column);
     }
 
+    BreakAST(ASTInput in) {
+        super(in);
+    }
+
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
-        if (callStack.get(0) instanceof ForLoopAST) {
+        if (callStack.get(0) instanceof ForLoopAST && !(callStack.get(0) instanceof ParallelForAST)) {
             return Token.getLabelValue(Token.BREAK);
         }
         throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Unexpected '" + this + "'!");
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    void resolve(Scope scope) {
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
         return this;
     }
 
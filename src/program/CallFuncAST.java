@@ -2,9 +2,10 @@ package program;
 
 import lexer.Token;
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 
 /**
@@ -21,12 +22,42 @@ public class CallFuncAST extends StatementAST {
      */
     private List<ExpressionAST> args;
 
+    /**
+     * The called function, bound when the call is resolved.
+     */
+    private FunctionAST function;
+
+    /**
+     * The resolved arguments in an array, the argument at an index is passed to the parameter at the same index.
+     */
+    private ExpressionAST[] resolvedArgs;
+
+    /**
+     * Static type of the call, the return type of the function computed by the semantics check, null if unknown.
+     */
+    private String type;
+
+    /**
+     * Whether the type is computed, the semantics check of a checked call returns it without checking again.
+     */
+    private boolean checked;
+
     public CallFuncAST(String label, int line, int column) {
         super(line, column);
         this.label = label;
         this.args = new LinkedList<>();
     }
 
+    CallFuncAST(ASTInput in) {
+        super(in);
+        this.label = in.readString();
+        this.args = in.readNodes();
+        this.type = in.readString();
+        this.checked = true;
+        this.resolvedArgs = this.args.toArray(new ExpressionAST[0]);
+        in.calls(this);
+    }
+
     public void addArg(ExpressionAST a) {
         this.args.add(a);
     }
@@ -47,8 +78,32 @@ public class CallFuncAST extends StatementAST {
         this.args = args;
     }
 
+    public String getType() {
+        return type;
+    }
+
+    FunctionAST getFunction() {
+        return function;
+    }
+
+    void setFunction(FunctionAST function) {
+        this.function = function;
+    }
+
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        if (this.checked) {
+            return this.type;
+        }
+        this.type = checkType(types, vars, functions, callStack);
+        this.checked = true;
+        return this.type;
+    }
+
+    /**
+     * @return type of the call, see {@link #checkSemantics(Map, Map, Map, List)}.
+     */
+    String checkType(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
         if (!functions.containsKey(this.label)) {
             throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Function '" + this.label + "' does not exist!");
         }
@@ -56,6 +111,13 @@ public class CallFuncAST extends StatementAST {
             throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Function '" + this.label + "' can not be called!");
         }
         FunctionAST func = functions.get(this.label);
+        if (func.hasSideEffects() || callStack.contains(func) && ParallelForAST.isInLoop(callStack)) {
+            // The effects of a function are not known until its check completes.
+            ParallelForAST.checkEffect(callStack, this, "Function '" + this.label + "', which prints or changes variables declared outside it,");
+        }
+        if (!callStack.contains(func)) {
+            ParallelForAST.checkReads(callStack, this, func);
+        }
         if (this.args.size() != func.getParams().size()) {
             throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Incorrect number of arguments, expected " + func.getParams().size() + ", but found " + this.args.size());
         }
@@ -70,20 +132,43 @@ public class CallFuncAST extends StatementAST {
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> varList, Map<String, FunctionAST> functions) throws Exception {
-        Map<String, ValueObject> vars = new HashMap<>(varList);
-        FunctionAST func = functions.get(this.label);
-        List<VariableAST> params = func.getParams();
-        for (int i = 0; i < this.args.size(); i++) {
-            ExpressionAST arg = this.args.get(i);
-            VariableAST param = params.get(i);
-            Object value = arg.execute(structs, vars, functions);
-            if (value == null && param.getValue() != null) {
-                value = param.getValue().execute(structs, vars, functions);
-            }
-            vars.put(param.getLabel(), new ValueObject(value));
+    void resolve(Scope scope) throws Exception {
+        for (ListIterator<ExpressionAST> iterator = this.args.listIterator(); iterator.hasNext(); ) {
+            ExpressionAST arg = iterator.next();
+            arg.resolve(scope);
+            iterator.set(arg.specialize());
         }
-        return func.execute(structs, vars, functions);
+        this.function = scope.lookupFunction(this.label);
+        this.resolvedArgs = this.args.toArray(new ExpressionAST[0]);
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        return this.function.invoke(structs, bind(structs, frame, functions), functions);
+    }
+
+    /**
+     * Evaluates the arguments.
+     *
+     * @param frame frame of the caller.
+     * @return frame of the called function with the arguments assigned to the parameters.
+     */
+    Frame bind(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        Frame callee = new Frame(frame.getGlobals(), this.function.getFrameSize());
+        int[] slots = this.function.getParamSlots();
+        ExpressionAST[] args = this.resolvedArgs;
+        for (int i = 0; i < args.length; i++) {
+            args[i].executeInto(structs, frame, functions, callee, 0, slots[i]);
+        }
+        return callee;
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeString(this.label);
+        out.writeNodes(this.args);
+        out.writeString(this.type);
     }
 
     @Override
@@ -0,0 +1,153 @@
+package program;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runtime representation of chan&lt;T&gt;, a bounded queue of the values sent from one task to another, see {@link Task}.
+ * The values are stored in a ring buffer of {@link #CAPACITY} values, a send to a full channel waits for a receive and
+ * a receive from an empty channel waits for a send. The waiting is done on a lock which parks the virtual thread of
+ * the task rather than the platform thread it runs on. The lock is only held to move a single value, signalling
+ * a condition nobody waits for does not wake anyone up. A waiting task wakes up every {@link #STOP_CHECK_MILLIS} ms
+ * to check whether its execution is stopped, see {@link ExecutionContext#cancel()}, so it never waits for a value
+ * which will not come. The programs compiled by the VM and the JIT run without tasks, so they fail rather than wait.
+ */
+public final class Channel {
+    /**
+     * Number of the values a channel buffers.
+     */
+    public static final int CAPACITY = 256;
+
+    /**
+     * Longest time a waiting task does not notice that its execution is stopped.
+     */
+    private static final long STOP_CHECK_MILLIS = 10;
+
+    /**
+     * Result of {@link #next()} once the channel is closed and all its values are received.
+     */
+    static final Object CLOSED = new Object();
+
+    private final Object[] values = new Object[CAPACITY];
+
+    /**
+     * Index of the next value to receive.
+     */
+    private int head;
+
+    private int size;
+
+    private boolean closed;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = this.lock.newCondition(), notFull = this.lock.newCondition();
+
+    /**
+     * Sends a value, waits while the channel is full.
+     *
+     * @param frame frame of the sending code, null if the program has no tasks, the send then fails rather than waits.
+     * @throws IllegalStateException if the channel is closed, or it is full and the program has no tasks.
+     * @throws Exception             if the execution is stopped while waiting, see {@link Frame#checkStopped()}.
+     */
+    public void send(Object value, Frame frame) throws Exception {
+        this.lock.lock();
+        try {
+            while (this.size == CAPACITY && !this.closed) {
+                await(this.notFull, frame, "Channel is full");
+            }
+            if (this.closed) {
+                throw new IllegalStateException("Channel is closed");
+            }
+            this.values[(this.head + this.size) % CAPACITY] = value;
+            this.size++;
+            this.notEmpty.signal();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Receives a value, waits while the channel is empty.
+     *
+     * @param frame frame of the receiving code, null if the program has no tasks, the receive then fails rather than waits.
+     * @throws IllegalStateException if the channel is closed and all its values are received, or it is empty and the
+     *                               program has no tasks.
+     * @throws Exception             if the execution is stopped while waiting, see {@link Frame#checkStopped()}.
+     */
+    public Object receive(Frame frame) throws Exception {
+        Object value = next(frame);
+        if (value == CLOSED) {
+            throw new IllegalStateException("Channel is closed");
+        }
+        return value;
+    }
+
+    /**
+     * Receives a value, waits while the channel is empty and not closed.
+     *
+     * @param frame frame of the receiving code, null if the program has no tasks, the receive then fails rather than waits.
+     * @return the value, {@link #CLOSED} if the channel is closed and all its values are received.
+     * @throws Exception if the execution is stopped while waiting, see {@link Frame#checkStopped()}.
+     */
+    Object next(Frame frame) throws Exception {
+        this.lock.lock();
+        try {
+            while (this.size == 0) {
+                if (this.closed) {
+                    return CLOSED;
+                }
+                await(this.notEmpty, frame, "Channel is empty");
+            }
+            Object value = this.values[this.head];
+            this.values[this.head] = null;
+            this.head = (this.head + 1) % CAPACITY;
+            this.size--;
+            this.notFull.signal();
+            return value;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a signal of the condition, or until it is time to check whether the execution is stopped.
+     * The lock is held.
+     *
+     * @param deadlock message of the failure if the program has no tasks, nobody would signal the condition.
+     */
+    private static void await(Condition condition, Frame frame, String deadlock) throws Exception {
+        if (frame == null) {
+            throw new IllegalStateException(deadlock);
+        }
+        frame.checkStopped();
+        condition.await(STOP_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+        frame.checkStopped();
+    }
+
+    /**
+     * Closes the channel, the values which are already sent can still be received.
+     * The waiting senders fail and the waiting receivers stop once the channel is empty.
+     */
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.notEmpty.signalAll();
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        this.lock.lock();
+        try {
+            return "chan(" + this.size + (this.closed ? ", closed)" : ")");
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package program;
+
+import lexer.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Built-in collection types map&lt;K, V&gt;, list&lt;T&gt; and chan&lt;T&gt; and their methods, shared by the interpreter,
+ * the VM and the generated code. map&lt;int, int&gt; is {@link IntIntMap} and list&lt;int&gt; is {@link IntList}, which
+ * store integers unboxed, other maps are {@link ObjectMap}, other lists are {@link ObjectList} and channels are
+ * {@link Channel}.
+ */
+public final class CollectionSupport {
+    public static final String MAP = "map", LIST = "list", CHAN = "chan";
+
+    /**
+     * Methods of the collections, see {@link #signature(String, int)}.
+     */
+    public static final int PUT = 0, GET = 1, CONTAINS = 2, REMOVE = 3, SIZE = 4, KEYS = 5, ADD = 6, SET = 7, SEND = 8,
+            RECEIVE = 9, CLOSE = 10;
+
+    private static final String[] METHODS = {"put", "get", "contains", "remove", "size", "keys", "add", "set", "send",
+            "receive", "close"};
+
+    /**
+     * Types and prefixes of the types stored unboxed, compared when a collection is created instead of parsing its type.
+     */
+    private static final String INT_LIST = LIST + "<" + Token.getLabelValue(Token.INTEGER) + ">",
+            INT_KEYS = MAP + "<" + Token.getLabelValue(Token.INTEGER) + ",", INT_MAP = INT_KEYS + Token.getLabelValue(Token.INTEGER) + ">";
+
+    /**
+     * Ends of the map types with a primitive value type, their missing keys have a value other than null.
+     * The value type is the last type argument, it is primitive only if it directly precedes the closing '&gt;'.
+     */
+    private static final String[] PRIMITIVE_VALUES = {"," + Token.getLabelValue(Token.INTEGER) + ">",
+            "," + Token.getLabelValue(Token.DOUBLE) + ">", "," + Token.getLabelValue(Token.BOOLEAN) + ">"};
+
+    private static final Object[] PRIMITIVE_DEFAULTS = {0, 0.0, false};
+
+    private CollectionSupport() {
+    }
+
+    public static boolean isCollectionType(String type) {
+        return type != null && (type.startsWith(MAP + Token.getLabelValue(Token.LESS)) || type.startsWith(LIST + Token.getLabelValue(Token.LESS))
+                || type.startsWith(CHAN + Token.getLabelValue(Token.LESS))) && type.endsWith(Token.getLabelValue(Token.MORE));
+    }
+
+    public static boolean isChannelType(String type) {
+        return isCollectionType(type) && type.startsWith(CHAN);
+    }
+
+    public static boolean isMapType(String type) {
+        return isCollectionType(type) && type.startsWith(MAP);
+    }
+
+    /**
+     * @return whether the collection type stores its integers unboxed.
+     */
+    public static boolean isIntType(String type) {
+        return type.equals(INT_LIST) || type.equals(INT_MAP);
+    }
+
+    /**
+     * @param type collection type, e.g. "map&lt;string,list&lt;int&gt;&gt;".
+     * @return the type arguments, e.g. "string" and "list&lt;int&gt;".
+     */
+    public static List<String> typeArguments(String type) {
+        List<String> arguments = new ArrayList<>();
+        int depth = 0;
+        int start = type.indexOf(Token.getLabelValue(Token.LESS)) + 1;
+        for (int i = start; i < type.length() - 1; i++) {
+            char ch = type.charAt(i);
+            if (ch == '<') {
+                depth++;
+            } else if (ch == '>') {
+                depth--;
+            } else if (ch == ',' && depth == 0) {
+                arguments.add(type.substring(start, i));
+                start = i + 1;
+            }
+        }
+        arguments.add(type.substring(start, type.length() - 1));
+        return arguments;
+    }
+
+    /**
+     * @return whether the collection type has the right number of declared type arguments.
+     */
+    static boolean isDeclared(Map<String, Map<String, String>> types, String type) {
+        List<String> arguments = typeArguments(type);
+        if (arguments.size() != (isMapType(type) ? 2 : 1)) {
+            return false;
+        }
+        for (String argument : arguments) {
+            if (argument.equals(Token.getLabelValue(Token.VOID)) || !ArraySupport.isDeclared(types, argument)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the method, -1 if there is no method with the name.
+     */
+    public static int methodOf(String name) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static String methodName(int method) {
+        return METHODS[method];
+    }
+
+    /**
+     * @param type   collection type.
+     * @param method the method.
+     * @return the return type followed by the parameter types, null if the collection does not have the method.
+     */
+    static String[] signature(String type, int method) {
+        List<String> arguments = typeArguments(type);
+        String integer = Token.getLabelValue(Token.INTEGER);
+        String none = Token.getLabelValue(Token.VOID);
+        if (isMapType(type)) {
+            String key = arguments.get(0), value = arguments.get(1);
+            return switch (method) {
+                case PUT -> new String[]{none, key, value};
+                case GET -> new String[]{value, key};
+                case CONTAINS -> new String[]{Token.getLabelValue(Token.BOOLEAN), key};
+                case REMOVE -> new String[]{none, key};
+                case SIZE -> new String[]{integer};
+                case KEYS -> new String[]{LIST + Token.getLabelValue(Token.LESS) + key + Token.getLabelValue(Token.MORE)};
+                default -> null;
+            };
+        }
+        String element = arguments.get(0);
+        if (isChannelType(type)) {
+            return switch (method) {
+                case SEND -> new String[]{none, element};
+                case RECEIVE -> new String[]{element};
+                case CLOSE -> new String[]{none};
+                default -> null;
+            };
+        }
+        return switch (method) {
+            case ADD -> new String[]{none, element};
+            case GET -> new String[]{element, integer};
+            case SET -> new String[]{none, integer, element};
+            case REMOVE -> new String[]{element, integer};
+            case SIZE -> new String[]{integer};
+            default -> null;
+        };
+    }
+
+    public static Object newCollection(String type) {
+        if (type.startsWith(CHAN)) {
+            return new Channel();
+        }
+        if (!type.startsWith(MAP)) {
+            return type.equals(INT_LIST) ? new IntList() : new ObjectList();
+        }
+        if (type.equals(INT_MAP)) {
+            return new IntIntMap();
+        }
+        for (int i = 0; i < PRIMITIVE_VALUES.length; i++) {
+            if (type.endsWith(PRIMITIVE_VALUES[i])) {
+                return new ObjectMap(PRIMITIVE_DEFAULTS[i], type.startsWith(INT_KEYS));
+            }
+        }
+        return new ObjectMap(null, type.startsWith(INT_KEYS));
+    }
+
+    /**
+     * Calls the method with the boxed arguments.
+     *
+     * @return the result, boxed, null for the methods which do not return a value.
+     * @throws Exception if a channel can not send or receive a value, see {@link Channel}.
+     */
+    public static Object invoke(Object collection, int method, Object[] args) throws Exception {
+        if (collection instanceof IntIntMap map) {
+            switch (method) {
+                case PUT -> map.put((Integer) args[0], (Integer) args[1]);
+                case GET -> {
+                    return map.get((Integer) args[0]);
+                }
+                case CONTAINS -> {
+                    return map.contains((Integer) args[0]);
+                }
+                case REMOVE -> map.remove((Integer) args[0]);
+                case SIZE -> {
+                    return map.size();
+                }
+                case KEYS -> {
+                    return map.keys();
+                }
+                default -> throw new IllegalArgumentException("Unknown method " + method);
+            }
+            return null;
+        }
+        if (collection instanceof ObjectMap map) {
+            switch (method) {
+                case PUT -> map.put(args[0], args[1]);
+                case GET -> {
+                    return map.get(args[0]);
+                }
+                case CONTAINS -> {
+                    return map.contains(args[0]);
+                }
+                case REMOVE -> map.remove(args[0]);
+                case SIZE -> {
+                    return map.size();
+                }
+                case KEYS -> {
+                    return map.keys();
+                }
+                default -> throw new IllegalArgumentException("Unknown method " + method);
+            }
+            return null;
+        }
+        if (collection instanceof IntList list) {
+            switch (method) {
+                case ADD -> list.add((Integer) args[0]);
+                case GET -> {
+                    return list.get((Integer) args[0]);
+                }
+                case SET -> list.set((Integer) args[0], (Integer) args[1]);
+                case REMOVE -> {
+                    return list.remove((Integer) args[0]);
+                }
+                case SIZE -> {
+                    return list.size();
+                }
+                default -> throw new IllegalArgumentException("Unknown method " + method);
+            }
+            return null;
+        }
+        if (collection instanceof Channel channel) {
+            // The programs of the VM and the JIT have no tasks, see MethodCallAST for the interpreter.
+            switch (method) {
+                case SEND -> channel.send(args[0], null);
+                case RECEIVE -> {
+                    return channel.receive(null);
+                }
+                case CLOSE -> channel.close();
+                default -> throw new IllegalArgumentException("Unknown method " + method);
+            }
+            return null;
+        }
+        ObjectList list = (ObjectList) collection;
+        switch (method) {
+            case ADD -> list.add(args[0]);
+            case GET -> {
+                return list.get((Integer) args[0]);
+            }
+            case SET -> list.set((Integer) args[0], args[1]);
+            case REMOVE -> {
+                return list.remove((Integer) args[0]);
+            }
+            case SIZE -> {
+                return list.size();
+            }
+            default -> throw new IllegalArgumentException("Unknown method " + method);
+        }
+        return null;
+    }
+}
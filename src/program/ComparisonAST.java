@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -10,6 +11,21 @@ public class ComparisonAST extends AST {
     private int cmp;
     private ExpressionAST leftExpr, rightExpr;
 
+    /**
+     * Primitive kind the operands are compared as, {@link Token#INTEGER}, {@link Token#DOUBLE} or {@link Token#NONE}.
+     */
+    private int kind = Token.NONE;
+
+    /**
+     * Static type of the comparison computed by the semantics check, null if unknown.
+     */
+    private String type;
+
+    /**
+     * Whether the type is computed, the semantics check of a checked comparison returns it without checking again.
+     */
+    private boolean checked;
+
     public ComparisonAST(int line, int column) {
         super(line, column);
     }
@@ -19,6 +35,18 @@ public class ComparisonAST extends AST {
         this.cmp = cmp;
     }
 
+    ComparisonAST(ASTInput in) {
+        super(in);
+        this.left = in.readNode();
+        this.right = in.readNode();
+        this.cmp = in.readInt();
+        this.leftExpr = in.readNode();
+        this.rightExpr = in.readNode();
+        this.kind = in.readInt();
+        this.type = in.readString();
+        this.checked = true;
+    }
+
     public ComparisonAST getLeft() {
         return left;
     }
@@ -59,8 +87,21 @@ public class ComparisonAST extends AST {
         this.rightExpr = rightExpr;
     }
 
+    public String getType() {
+        return type;
+    }
+
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        if (this.checked) {
+            return this.type;
+        }
+        this.type = checkType(types, vars, functions, callStack);
+        this.checked = true;
+        return this.type;
+    }
+
+    private String checkType(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
         if (this.cmp == Token.NEGATION) return this.right.checkSemantics(types, vars, functions, callStack);
         else if (this.left != null) {
             String leftType = this.left.checkSemantics(types, vars, functions, callStack);
@@ -102,79 +143,190 @@ public class ComparisonAST extends AST {
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    void resolve(Scope scope) throws Exception {
+        if (this.left != null) {
+            this.left.resolve(scope);
+        }
+        if (this.right != null) {
+            this.right.resolve(scope);
+        }
+        if (this.leftExpr != null) {
+            this.leftExpr.resolve(scope);
+            this.leftExpr = this.leftExpr.specialize();
+        }
+        if (this.rightExpr != null) {
+            this.rightExpr.resolve(scope);
+            this.rightExpr = this.rightExpr.specialize();
+        }
+        if (this.leftExpr != null && this.leftExpr.getKind() != Token.NONE && this.rightExpr.getKind() != Token.NONE) {
+            if (this.leftExpr.getKind() == Token.INTEGER && this.rightExpr.getKind() == Token.INTEGER) {
+                this.kind = Token.INTEGER;
+            } else {
+                this.kind = Token.DOUBLE;
+            }
+        }
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
         if (this.cmp == Token.NEGATION) {
-            return !((Boolean) this.right.execute(structs, vars, functions));
+            return !((Boolean) this.right.execute(structs, frame, functions));
         }
         if (this.left != null) {
-            Boolean leftResult = (Boolean) this.left.execute(structs, vars, functions);
-            Boolean rightResult = (Boolean) this.right.execute(structs, vars, functions);
-
+            // The right operand is only evaluated if the left one does not decide the result.
             if (this.cmp == Token.AND) {
-                return (leftResult && rightResult);
+                return (Boolean) this.left.execute(structs, frame, functions) && (Boolean) this.right.execute(structs, frame, functions);
             }
-            return (leftResult || rightResult);
+            return (Boolean) this.left.execute(structs, frame, functions) || (Boolean) this.right.execute(structs, frame, functions);
+        }
+        if (this.kind != Token.NONE) {
+            return executeBoolean(structs, frame, functions);
         }
         if (this.leftExpr != null) {
-            Object leftResult = this.leftExpr.execute(structs, vars, functions);
-            Object rightResult = this.rightExpr.execute(structs, vars, functions);
-            int compare = 0;
-            if (leftResult instanceof String) {
-                if (rightResult == null) {
-                    return this.cmp != Token.EQUAL;
-                }
-                compare = ((String) leftResult).compareTo((String) rightResult);
-            } else if (leftResult instanceof Integer) {
-                if (rightResult == null) {
-                    return this.cmp != Token.EQUAL;
-                }
-                if (rightResult instanceof Integer) {
-                    compare = ((Integer) leftResult).compareTo((Integer) rightResult);
-                } else {
-                    compare = Double.valueOf((Integer) leftResult).compareTo((Double) rightResult);
-                }
-            } else if (leftResult instanceof Double) {
-                if (rightResult == null) {
-                    return this.cmp != Token.EQUAL;
-                }
-                if (rightResult instanceof Integer) {
-                    compare = ((Double) leftResult).compareTo(((Integer) rightResult).doubleValue());
-                } else {
-                    compare = ((Double) leftResult).compareTo((Double) rightResult);
-                }
-            } else if (leftResult == null) {
-                return (this.cmp == Token.EQUAL && rightResult == null) || (this.cmp == Token.NOT_EQUAL && rightResult != null);
-            } else if (rightResult == null) {
-                return this.cmp != Token.EQUAL;
-            }
-
-            switch (this.cmp) {
-                case Token.EQUAL -> {
-                    return compare == 0;
-                }
-                case Token.NOT_EQUAL -> {
-                    return compare != 0;
-                }
-                case Token.LESS -> {
-                    return compare < 0;
-                }
-                case Token.MORE -> {
-                    return compare > 0;
-                }
-                case Token.LESS_EQUAL -> {
-                    return compare <= 0;
-                }
-                case Token.MORE_EQUAL -> {
-                    return compare >= 0;
-                }
+            Object leftResult = this.leftExpr.execute(structs, frame, functions);
+            Object rightResult = this.rightExpr.execute(structs, frame, functions);
+            return compare(this.cmp, leftResult, rightResult);
+        } else if (this.rightExpr != null) {
+            return this.rightExpr.execute(structs, frame, functions);
+        }
+        return null;
+    }
+
+    /**
+     * Executes the comparison without boxing the operands or the result.
+     *
+     * @return the result of the comparison.
+     * @throws Exception in case of runtime errors.
+     */
+    boolean executeBoolean(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (this.cmp == Token.NEGATION) {
+            return !this.right.executeBoolean(structs, frame, functions);
+        }
+        if (this.left != null) {
+            if (this.cmp == Token.AND) {
+                return this.left.executeBoolean(structs, frame, functions) && this.right.executeBoolean(structs, frame, functions);
+            }
+            return this.left.executeBoolean(structs, frame, functions) || this.right.executeBoolean(structs, frame, functions);
+        }
+        if (this.kind == Token.INTEGER) {
+            int leftResult;
+            try {
+                leftResult = this.leftExpr.executeInt(structs, frame, functions);
+            } catch (UnexpectedResultException e) {
+                return compare(this.cmp, e.getResult(), this.rightExpr.execute(structs, frame, functions));
+            }
+            int rightResult;
+            try {
+                rightResult = this.rightExpr.executeInt(structs, frame, functions);
+            } catch (UnexpectedResultException e) {
+                return compare(this.cmp, leftResult, e.getResult());
+            }
+            return test(this.cmp, Integer.compare(leftResult, rightResult));
+        }
+        if (this.kind == Token.DOUBLE) {
+            double leftResult;
+            try {
+                leftResult = this.leftExpr.executeDouble(structs, frame, functions);
+            } catch (UnexpectedResultException e) {
+                return compare(this.cmp, e.getResult(), this.rightExpr.execute(structs, frame, functions));
+            }
+            double rightResult;
+            try {
+                rightResult = this.rightExpr.executeDouble(structs, frame, functions);
+            } catch (UnexpectedResultException e) {
+                return compare(this.cmp, leftResult, e.getResult());
             }
+            return test(this.cmp, Double.compare(leftResult, rightResult));
+        }
+        return (Boolean) execute(structs, frame, functions);
+    }
 
-        } else if (this.rightExpr != null) {
-            return this.rightExpr.execute(structs, vars, functions);
+    private static boolean test(int cmp, int compare) {
+        return switch (cmp) {
+            case Token.EQUAL -> compare == 0;
+            case Token.NOT_EQUAL -> compare != 0;
+            case Token.LESS -> compare < 0;
+            case Token.MORE -> compare > 0;
+            case Token.LESS_EQUAL -> compare <= 0;
+            default -> compare >= 0;
+        };
+    }
+
+    /**
+     * Compares two values.
+     *
+     * @param cmp         the comparison token label.
+     * @param leftResult  left operand.
+     * @param rightResult right operand.
+     * @return result of the comparison.
+     */
+    public static Boolean compare(int cmp, Object leftResult, Object rightResult) {
+        int compare = 0;
+        leftResult = Rope.flatten(leftResult);
+        if (leftResult instanceof String) {
+            if (rightResult == null) {
+                return cmp != Token.EQUAL;
+            }
+            compare = ((String) leftResult).compareTo((String) Rope.flatten(rightResult));
+        } else if (leftResult instanceof Integer) {
+            if (rightResult == null) {
+                return cmp != Token.EQUAL;
+            }
+            if (rightResult instanceof Integer) {
+                compare = ((Integer) leftResult).compareTo((Integer) rightResult);
+            } else {
+                compare = Double.valueOf((Integer) leftResult).compareTo((Double) rightResult);
+            }
+        } else if (leftResult instanceof Double) {
+            if (rightResult == null) {
+                return cmp != Token.EQUAL;
+            }
+            if (rightResult instanceof Integer) {
+                compare = ((Double) leftResult).compareTo(((Integer) rightResult).doubleValue());
+            } else {
+                compare = ((Double) leftResult).compareTo((Double) rightResult);
+            }
+        } else if (leftResult == null) {
+            return (cmp == Token.EQUAL && rightResult == null) || (cmp == Token.NOT_EQUAL && rightResult != null);
+        } else if (rightResult == null) {
+            return cmp != Token.EQUAL;
+        }
+
+        switch (cmp) {
+            case Token.EQUAL -> {
+                return compare == 0;
+            }
+            case Token.NOT_EQUAL -> {
+                return compare != 0;
+            }
+            case Token.LESS -> {
+                return compare < 0;
+            }
+            case Token.MORE -> {
+                return compare > 0;
+            }
+            case Token.LESS_EQUAL -> {
+                return compare <= 0;
+            }
+            case Token.MORE_EQUAL -> {
+                return compare >= 0;
+            }
         }
         return null;
     }
 
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeNode(this.left);
+        out.writeNode(this.right);
+        out.writeInt(this.cmp);
+        out.writeNode(this.leftExpr);
+        out.writeNode(this.rightExpr);
+        out.writeInt(this.kind);
+        out.writeString(this.type);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder();
@@ -0,0 +1,243 @@
+package program;
+
+import lexer.Token;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * A checked program ready to be executed, see {@link ProgramAST#semanticsCheck()}.
+ * The program is never changed by its executions, the state of an execution is kept in its {@link ExecutionContext},
+ * so a program checked once can be executed by many threads at the same time.
+ */
+public final class CompiledProgram {
+    private final ProgramAST program;
+
+    /**
+     * The declarations, registered once for all the executions.
+     */
+    private final Map<String, StructAST> structs;
+    private final Map<String, FunctionAST> functions;
+
+    /**
+     * @param program checked program, it must not be changed afterwards.
+     */
+    public CompiledProgram(ProgramAST program) {
+        this.program = program;
+        Map<String, StructAST> structs = new HashMap<>();
+        Map<String, FunctionAST> functions = new HashMap<>();
+        for (DeclarationAST declaration : program.getDeclarations()) {
+            if (declaration instanceof StructAST struct) {
+                structs.put(struct.getLabel(), struct);
+            } else if (declaration instanceof FunctionAST func) {
+                functions.put(func.getLabel(), func);
+            }
+        }
+        this.structs = Map.copyOf(structs);
+        this.functions = Map.copyOf(functions);
+    }
+
+    public ProgramAST getProgram() {
+        return program;
+    }
+
+    /**
+     * Executes the program, the execution completes when main returns and all the tasks it started complete.
+     *
+     * @param context state of the execution, it is not used by other executions.
+     * @throws Exception in case of runtime errors.
+     */
+    public void execute(ExecutionContext context) throws Exception {
+        run(context, true);
+    }
+
+    /**
+     * Executes the global declarations without calling main, so the functions of a program without main can be
+     * invoked, see {@link #invoke(ExecutionContext, String, Object...)}.
+     *
+     * @param context state of the execution, it is not used by other executions.
+     * @throws Exception in case of runtime errors.
+     */
+    public void initialize(ExecutionContext context) throws Exception {
+        run(context, false);
+    }
+
+    private void run(ExecutionContext context, boolean main) throws Exception {
+        context.start(this.program.getFrameSize());
+        Frame globals = context.getGlobals();
+        Future<?> timer = context.startTimer();
+        try {
+            if (main) {
+                this.program.execute(this.structs, globals, this.functions);
+            } else {
+                this.program.initialize(this.structs, globals, this.functions);
+            }
+            context.getTasks().joinAll();
+            // The functions invoked afterwards may run on several threads.
+            globals.share();
+        } finally {
+            complete(context, timer);
+        }
+    }
+
+    public boolean hasFunction(String label) {
+        return this.functions.containsKey(label);
+    }
+
+    /**
+     * Calls a function with the global variables of an execution, after it completes. The functions can be invoked
+     * by several threads at the same time, they share the global variables the same way as tasks do.
+     * <p>
+     * The arguments are the Java values of the parameter types: Integer for int, Double for double (or any
+     * other number), Boolean for boolean and String for string. Arrays are int[], double[], boolean[] and Object[],
+     * other values, e.g. structs or maps, are the values returned by the program. Null falls back to the default
+     * value of the parameter, if it has one. The result is converted the same way, void functions return null.
+     *
+     * @param context state of a completed execution of the program, see {@link #execute(ExecutionContext)}.
+     * @param label   name of the function.
+     * @param args    the arguments.
+     * @return result of the function.
+     * @throws IllegalArgumentException if the function does not exist or the arguments do not match its parameters.
+     * @throws Exception                in case of runtime errors.
+     */
+    public Object invoke(ExecutionContext context, String label, Object... args) throws Exception {
+        FunctionAST function = this.functions.get(label);
+        if (function == null) {
+            throw new IllegalArgumentException("Function '" + label + "' does not exist!");
+        }
+        Frame globals = context.getGlobals();
+        if (globals == null) {
+            throw new IllegalStateException("The program is not executed in the context!");
+        }
+        List<VariableAST> params = function.getParams();
+        if (args.length != params.size()) {
+            throw new IllegalArgumentException("Incorrect number of arguments of function '" + label + "', expected " + params.size() + ", but found " + args.length);
+        }
+        Frame frame = new Frame(globals, function.getFrameSize());
+        int[] slots = function.getParamSlots();
+        for (int i = 0; i < args.length; i++) {
+            bind(frame, slots[i], params.get(i).getType(), args[i], label);
+        }
+        Future<?> timer = context.startTimer();
+        try {
+            Object result = function.invoke(this.structs, frame, this.functions);
+            context.getTasks().joinAll();
+            return result(function.getType(), result);
+        } finally {
+            complete(context, timer);
+        }
+    }
+
+    /**
+     * Resolves a function once for many calls from Java. The handle calls the function with the global variables of
+     * an execution, like {@link #invoke(ExecutionContext, String, Object...)}, but its type is the signature of the
+     * function, e.g. (int, int)int for "int f(int a, int b)", see {@link HandleSupport#methodType(FunctionAST)}.
+     * The primitive arguments are passed to the function unboxed.
+     * <p>
+     * The calls do not wait for the tasks the function starts, do not flush the output of the context and are not
+     * limited by its time limit, they only stop when the context is cancelled. A call of a function returning int,
+     * double or boolean which returns null throws a NullPointerException, since the result cannot be unboxed.
+     *
+     * @param context state of a completed execution of the program, see {@link #execute(ExecutionContext)}.
+     * @param label   name of the function.
+     * @return handle of the function, it can be called by several threads at the same time.
+     * @throws IllegalArgumentException if the function does not exist.
+     */
+    public MethodHandle handle(ExecutionContext context, String label) {
+        FunctionAST function = this.functions.get(label);
+        if (function == null) {
+            throw new IllegalArgumentException("Function '" + label + "' does not exist!");
+        }
+        Frame globals = context.getGlobals();
+        if (globals == null) {
+            throw new IllegalStateException("The program is not executed in the context!");
+        }
+        return HandleSupport.bind(function, this.structs, this.functions, globals);
+    }
+
+    /**
+     * Implements a functional interface by a function, e.g. IntBinaryOperator by "int f(int a, int b)", see
+     * {@link #handle(ExecutionContext, String)}.
+     *
+     * @param context state of a completed execution of the program, see {@link #execute(ExecutionContext)}.
+     * @param label   name of the function.
+     * @param type    the interface.
+     * @return implementation of the interface.
+     * @throws IllegalArgumentException if the function does not exist or does not match the interface.
+     */
+    public <T> T function(ExecutionContext context, String label, Class<T> type) {
+        return HandleSupport.implement(label, handle(context, label), type);
+    }
+
+    private static void complete(ExecutionContext context, Future<?> timer) throws IOException {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        Output output = context.getOutput();
+        // The tasks may still print if the program failed.
+        synchronized (output) {
+            output.flush();
+        }
+    }
+
+    /**
+     * Assigns a Java value to a parameter.
+     */
+    private static void bind(Frame frame, int slot, String type, Object value, String label) {
+        if (value == null) {
+            // The default value of the parameter, if any, is assigned when the function is called.
+            frame.set(0, slot, null);
+        } else if (type.equals(Token.getLabelValue(Token.INTEGER)) && (value instanceof Integer || value instanceof Short
+                || value instanceof Byte || value instanceof Long l && l == l.intValue())) {
+            frame.setInt(0, slot, ((Number) value).intValue());
+        } else if (type.equals(Token.getLabelValue(Token.DOUBLE)) && value instanceof Number number) {
+            frame.setDouble(0, slot, number.doubleValue());
+        } else if (type.equals(Token.getLabelValue(Token.BOOLEAN)) && value instanceof Boolean || isValue(type, value)) {
+            frame.set(0, slot, value);
+        } else {
+            throw new IllegalArgumentException("Type mismatch of function '" + label + "', expected " + type + ", but found " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * @return whether the value is a value of the type which is not primitive.
+     */
+    private static boolean isValue(String type, Object value) {
+        if (ArraySupport.isPrimitive(type)) {
+            return false;
+        }
+        if (type.equals(Token.getLabelValue(Token.STRING))) {
+            return value instanceof String;
+        }
+        if (ArraySupport.isArrayType(type)) {
+            return value.getClass() == ArraySupport.newArray(ArraySupport.elementType(type), 0).getClass();
+        }
+        if (value instanceof StructObject struct) {
+            return struct.getLabel().equals(type);
+        }
+        if (Task.isTaskType(type)) {
+            return value instanceof Task;
+        }
+        if (CollectionSupport.isChannelType(type)) {
+            return value instanceof Channel;
+        }
+        return CollectionSupport.isCollectionType(type) && value.getClass() == CollectionSupport.newCollection(type).getClass();
+    }
+
+    /**
+     * @return the Java value of a result of the type.
+     */
+    private static Object result(String type, Object value) {
+        if (value instanceof Rope) {
+            return Rope.flatten(value);
+        }
+        if (value instanceof Integer i && type.equals(Token.getLabelValue(Token.DOUBLE))) {
+            return i.doubleValue();
+        }
+        return value;
+    }
+}
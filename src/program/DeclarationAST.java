@@ -7,4 +7,8 @@ public abstract class DeclarationAST extends StatementAST {
     public DeclarationAST(int line, int column) {
         super(line, column);
     }
+
+    DeclarationAST(ASTInput in) {
+        super(in);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package program;
+
+import lexer.Token;
+
+import java.util.Map;
+
+/**
+ * Arithmetic operation with a double result, executed without boxing. One of the operands may be an integer.
+ */
+class DoubleOperationAST extends ExpressionAST {
+    DoubleOperationAST(ExpressionAST operation) {
+        super(operation);
+    }
+
+    DoubleOperationAST(ASTInput in) {
+        super(in);
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        try {
+            return executeDouble(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            return e.getResult();
+        }
+    }
+
+    @Override
+    double executeDouble(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        double leftResult;
+        try {
+            leftResult = this.getLeft().executeDouble(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(calculate(this.getOperation(), e.getResult(), this.getRight().execute(structs, frame, functions)));
+        }
+        double rightResult;
+        try {
+            rightResult = this.getRight().executeDouble(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(calculate(this.getOperation(), leftResult, e.getResult()));
+        }
+
+        return switch (this.getOperation()) {
+            case Token.ADDITION -> leftResult + rightResult;
+            case Token.SUBTRACTION -> leftResult - rightResult;
+            case Token.MULTIPLICATION -> leftResult * rightResult;
+            case Token.DIVISION -> leftResult / rightResult;
+            default -> leftResult % rightResult;
+        };
+    }
+}
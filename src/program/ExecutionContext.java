@@ -0,0 +1,135 @@
+package program;
+
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State of a single execution of a {@link CompiledProgram}: the global variables, the destination of the printed
+ * values, the tasks started by the program and the limits of the execution.
+ * A context is used by a single execution, every execution of a program needs its own context.
+ * <p>
+ * An execution stops when it is cancelled or its time limit is exceeded, the program fails with a runtime error
+ * at the next iteration of a loop or the next function call, or while it waits on a channel, see {@link Channel}.
+ * Its tasks stop the same way. The time limit applies to
+ * every function invoked after the execution as well, see {@link CompiledProgram#invoke(ExecutionContext, String, Object...)}.
+ * A stopped context stays stopped.
+ */
+public final class ExecutionContext {
+    /**
+     * Timer of the time limits, its thread is started by the first execution with a time limit.
+     */
+    private static final ScheduledThreadPoolExecutor TIMER = newTimer();
+
+    private final Output output;
+
+    /**
+     * Maximal duration of the execution, null if it is unlimited.
+     */
+    private final Duration timeLimit;
+
+    /**
+     * Tasks started by the program.
+     */
+    private final Tasks tasks = new Tasks();
+
+    /**
+     * Frame of the global variables, created when the execution starts.
+     */
+    private Frame globals;
+
+    /**
+     * Why the execution is stopped, null while it runs.
+     */
+    private volatile String stopped;
+
+    /**
+     * @param output destination of the printed values, it is flushed when the program exits.
+     */
+    public ExecutionContext(Output output) {
+        this(output, null);
+    }
+
+    /**
+     * @param output    destination of the printed values, it is flushed when the program exits.
+     * @param timeLimit maximal duration of the execution, null if it is unlimited.
+     */
+    public ExecutionContext(Output output, Duration timeLimit) {
+        this.output = output;
+        this.timeLimit = timeLimit;
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "time-limit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    public Output getOutput() {
+        return output;
+    }
+
+    public Duration getTimeLimit() {
+        return timeLimit;
+    }
+
+    Tasks getTasks() {
+        return tasks;
+    }
+
+    Frame getGlobals() {
+        return globals;
+    }
+
+    /**
+     * Stops the execution, it fails at the next iteration of a loop or the next function call, or while it waits on
+     * a channel.
+     */
+    public void cancel() {
+        stop("Execution cancelled!");
+    }
+
+    private void stop(String reason) {
+        if (this.stopped == null) {
+            this.stopped = reason;
+        }
+    }
+
+    /**
+     * Creates the frame of the global variables.
+     *
+     * @param size number of slots required by the global variables.
+     */
+    void start(int size) {
+        this.globals = new Frame(null, size);
+        this.globals.setContext(this);
+    }
+
+    /**
+     * Starts the time limit of the execution, the caller cancels the timer when the execution completes.
+     *
+     * @return the timer of the time limit, null if the time is unlimited.
+     */
+    public Future<?> startTimer() {
+        if (this.timeLimit == null) {
+            return null;
+        }
+        return TIMER.schedule(() -> stop("Execution exceeded the time limit of " + this.timeLimit.toMillis() + " ms!"),
+                this.timeLimit.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @throws Exception if the execution is stopped, see {@link #cancel()}.
+     */
+    public void checkStopped() throws Exception {
+        String reason = this.stopped;
+        if (reason != null) {
+            throw new Exception(reason);
+        }
+    }
+}
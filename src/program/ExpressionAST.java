@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -9,6 +10,11 @@ import java.util.Map;
  * AST for expressions.
  */
 public class ExpressionAST extends AST {
+    /**
+     * Field index of the length of an array, see {@link #getFieldIndex()}.
+     */
+    public static final int LENGTH = -1;
+
     /**
      * Label of the variable used in the expression.
      */
@@ -19,6 +25,12 @@ public class ExpressionAST extends AST {
      */
     private String field;
 
+    /**
+     * If the variable is an array, the index of the element used in the expression.
+     * If the expression creates an array, the length of the array.
+     */
+    private ExpressionAST index;
+
     /**
      * A value used in the expression.
      */
@@ -54,6 +66,36 @@ public class ExpressionAST extends AST {
      */
     private boolean isNull;
 
+    /**
+     * Location of the variable used in the expression, see {@link Frame#get(int, int)}.
+     */
+    private int depth, slot;
+
+    /**
+     * Index of the struct field used in the expression, see {@link StructObject#getField(int)}.
+     */
+    private int fieldIndex;
+
+    /**
+     * Struct instantiated by the expression.
+     */
+    private StructAST struct;
+
+    /**
+     * Static type of the expression computed by the semantics check, null if unknown.
+     */
+    private String type;
+
+    /**
+     * Primitive kind of the static type, {@link Token#INTEGER}, {@link Token#DOUBLE} or {@link Token#NONE}.
+     */
+    private int kind = Token.NONE;
+
+    /**
+     * Whether the type is computed, the semantics check of a checked expression returns it without checking again.
+     */
+    private boolean checked;
+
     public ExpressionAST(String label, int line, int column) {
         super(line, column);
         this.label = label;
@@ -80,6 +122,12 @@ public class ExpressionAST extends AST {
         this.field = field;
     }
 
+    public ExpressionAST(String label, ExpressionAST index, int line, int column) {
+        super(line, column);
+        this.label = label;
+        this.index = index;
+    }
+
     public ExpressionAST(boolean isNewObjectCreation, int line, int column) {
         super(line, column);
         this.isNewObjectCreation = isNewObjectCreation;
@@ -90,6 +138,42 @@ public class ExpressionAST extends AST {
         this.isNull = isNull;
     }
 
+    ExpressionAST(ASTInput in) {
+        super(in);
+        this.label = in.readString();
+        this.field = in.readString();
+        this.value = in.readValue();
+        this.operation = in.readInt();
+        this.left = in.readNode();
+        this.right = in.readNode();
+        this.func = in.readNode();
+        this.index = in.readNode();
+        this.isNewObjectCreation = in.readBoolean();
+        this.isNull = in.readBoolean();
+        this.depth = in.readInt();
+        this.slot = in.readInt();
+        this.fieldIndex = in.readInt();
+        this.type = in.readString();
+        this.kind = in.readInt();
+        this.checked = true;
+        if (this.isNewObjectCreation && this.index == null && !CollectionSupport.isCollectionType(this.label)) {
+            in.instantiates(this);
+        }
+    }
+
+    /**
+     * Copies the arithmetic operation, used to create specialized nodes, see {@link #specialize()}.
+     */
+    ExpressionAST(ExpressionAST operation) {
+        super(operation.getLine(), operation.getColumn());
+        this.operation = operation.operation;
+        this.left = operation.left;
+        this.right = operation.right;
+        this.type = operation.type;
+        this.kind = operation.kind;
+        this.checked = operation.checked;
+    }
+
     public String getLabel() {
         return label;
     }
@@ -142,10 +226,22 @@ public class ExpressionAST extends AST {
         return field;
     }
 
+    public ExpressionAST getIndex() {
+        return index;
+    }
+
+    public void setIndex(ExpressionAST index) {
+        this.index = index;
+    }
+
     public void setField(String field) {
         this.field = field;
     }
 
+    public int getFieldIndex() {
+        return fieldIndex;
+    }
+
     public boolean isNewObjectCreation() {
         return isNewObjectCreation;
     }
@@ -154,8 +250,48 @@ public class ExpressionAST extends AST {
         this.isNewObjectCreation = newObject;
     }
 
+    public boolean isNull() {
+        return isNull;
+    }
+
+    void setStruct(StructAST struct) {
+        this.struct = struct;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    int getKind() {
+        return kind;
+    }
+
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        if (this.checked) {
+            return this.type;
+        }
+        this.type = checkType(types, vars, functions, callStack);
+        this.checked = true;
+        if (Token.getLabelValue(Token.INTEGER).equals(this.type)) {
+            this.kind = Token.INTEGER;
+        } else if (Token.getLabelValue(Token.DOUBLE).equals(this.type)) {
+            this.kind = Token.DOUBLE;
+        } else {
+            this.kind = Token.NONE;
+        }
+        return this.type;
+    }
+
+    private String checkType(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
         if (this.operation != Token.NONE) {
             String leftType = this.left.checkSemantics(types, vars, functions, callStack);
             if (leftType == null) {
@@ -186,16 +322,44 @@ public class ExpressionAST extends AST {
             return this.func.checkSemantics(types, vars, functions, callStack);
         }
         if (this.isNewObjectCreation) {
+            if (this.index == null && Task.isTaskType(this.label)) {
+                throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Type '" + this.label + "' can only be created by '" + Token.getLabelValue(Token.SPAWN) + "'!");
+            }
+            if (this.index == null && CollectionSupport.isCollectionType(this.label)) {
+                if (!ArraySupport.isDeclared(types, this.label)) {
+                    throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Type '" + this.label + "' does not exist!");
+                }
+                return this.label;
+            }
+            if (this.index != null) {
+                if (!ArraySupport.isDeclared(types, this.label + ArraySupport.SUFFIX)) {
+                    throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Type '" + this.label + ArraySupport.SUFFIX + "' does not exist!");
+                }
+                checkIndex(types, vars, functions, callStack);
+                return this.label + ArraySupport.SUFFIX;
+            }
             return this.label;
         }
         if (this.isNull) {
             return "null";
         }
+        if (this.index != null) {
+            VariableAST var = checkArray(vars);
+            checkIndex(types, vars, functions, callStack);
+            ParallelForAST.checkRead(callStack, this, var, this.index);
+            return ArraySupport.elementType(var.getType());
+        }
         if (this.field != null) {
             if (!vars.containsKey(this.label)) {
                 throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.label + "' does not exist!");
             }
             VariableAST var = vars.get(this.label);
+            if (ArraySupport.isArrayType(var.getType())) {
+                if (!this.field.equals(ArraySupport.LENGTH)) {
+                    throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Array '" + var.getType() + "' does not have field '" + this.field + "'!");
+                }
+                return Token.getLabelValue(Token.INTEGER);
+            }
             Map<String, String> fields = types.get(var.getType());
             if (!fields.containsKey(this.field)) {
                 throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Struct '" + var.getType() + "' does not have field '" + this.field + "'!");
@@ -207,9 +371,10 @@ public class ExpressionAST extends AST {
                 throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.label + "' does not exist!");
             }
             VariableAST var = vars.get(this.label);
-            if (!var.isParam() && (var.getValue() == null || var.getValue().checkSemantics(types, vars, functions, callStack) == null)) {
+            if (!var.isInitialized()) {
                 throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + var.getLabel() + "' not initialized!");
             }
+            ParallelForAST.checkRead(callStack, this, var, null);
             return var.getType();
         }
         if (this.value != null) {
@@ -230,93 +395,90 @@ public class ExpressionAST extends AST {
         return null;
     }
 
+    /**
+     * Checks the variable of the element access.
+     *
+     * @return the variable, it is an initialized array.
+     */
+    private VariableAST checkArray(Map<String, VariableAST> vars) throws Exception {
+        VariableAST var = vars.get(this.label);
+        if (var == null) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.label + "' does not exist!");
+        }
+        if (!var.isInitialized()) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + var.getLabel() + "' not initialized!");
+        }
+        if (!ArraySupport.isArrayType(var.getType())) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.label + "' is not an array!");
+        }
+        return var;
+    }
+
+    /**
+     * Checks that the index or the length of the array is an integer.
+     */
+    private void checkIndex(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        String indexType = this.index.checkSemantics(types, vars, functions, callStack);
+        if (indexType != null && !indexType.equals(Token.getLabelValue(Token.INTEGER))) {
+            throw new Exception("Error at line " + this.index.getLine() + ", column " + this.index.getColumn() + ": Type mismatch, expected '" + Token.getLabelValue(Token.INTEGER) + "', but found '" + indexType + "'!");
+        }
+    }
+
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    void resolve(Scope scope) throws Exception {
+        if (this.index != null) {
+            this.index.resolve(scope);
+            this.index = this.index.specialize();
+        }
         if (this.operation != Token.NONE) {
-            Object leftResult = this.left.execute(structs, vars, functions);
-            Object rightResult = this.right.execute(structs, vars, functions);
-
-            switch (this.operation) {
-                case Token.ADDITION:
-                    if (leftResult instanceof String || rightResult instanceof String) {
-                        return leftResult.toString() + rightResult;
-                    }
-                    if (leftResult instanceof Integer) {
-                        if (rightResult instanceof Integer) {
-                            return ((Integer) leftResult) + ((Integer) rightResult);
-                        }
-                        return ((Integer) leftResult) + ((Double) rightResult);
-                    }
-                    if (leftResult instanceof Double) {
-                        if (rightResult instanceof Integer) {
-                            return ((Double) leftResult) + ((Integer) rightResult);
-                        }
-                        return ((Double) leftResult) + ((Double) rightResult);
-                    }
-                    return null;
-                case Token.SUBTRACTION:
-                    if (leftResult instanceof Integer) {
-                        if (rightResult instanceof Integer) {
-                            return ((Integer) leftResult) - ((Integer) rightResult);
-                        }
-                        return ((Integer) leftResult) - ((Double) rightResult);
-                    }
-                    if (leftResult instanceof Double) {
-                        if (rightResult instanceof Integer) {
-                            return ((Double) leftResult) - ((Integer) rightResult);
-                        }
-                        return ((Double) leftResult) - ((Double) rightResult);
-                    }
-                case Token.MULTIPLICATION:
-                    if (leftResult instanceof Integer) {
-                        if (rightResult instanceof Integer) {
-                            return ((Integer) leftResult) * ((Integer) rightResult);
-                        }
-                        return ((Integer) leftResult) * ((Double) rightResult);
-                    }
-                    if (leftResult instanceof Double) {
-                        if (rightResult instanceof Integer) {
-                            return ((Double) leftResult) * ((Integer) rightResult);
-                        }
-                        return ((Double) leftResult) * ((Double) rightResult);
-                    }
-                case Token.DIVISION:
-                    if (leftResult instanceof Integer) {
-                        if (rightResult instanceof Integer) {
-                            return ((Integer) leftResult) / ((Integer) rightResult);
-                        }
-                        return ((Integer) leftResult) / ((Double) rightResult);
-                    }
-                    if (leftResult instanceof Double) {
-                        if (rightResult instanceof Integer) {
-                            return ((Double) leftResult) / ((Integer) rightResult);
-                        }
-                        return ((Double) leftResult) / ((Double) rightResult);
-                    }
-                case Token.MOD:
-                    if (leftResult instanceof Integer) {
-                        if (rightResult instanceof Integer) {
-                            return ((Integer) leftResult) % ((Integer) rightResult);
-                        }
-                        return ((Integer) leftResult) % ((Double) rightResult);
-                    }
-                    if (leftResult instanceof Double) {
-                        if (rightResult instanceof Integer) {
-                            return ((Double) leftResult) % ((Integer) rightResult);
-                        }
-                        return ((Double) leftResult) % ((Double) rightResult);
-                    }
+            this.left.resolve(scope);
+            this.right.resolve(scope);
+            this.left = this.left.specialize();
+            this.right = this.right.specialize();
+        } else if (this.func != null) {
+            this.func.resolve(scope);
+        } else if (this.label != null && !this.isNewObjectCreation) {
+            VariableAST var = scope.lookup(this.label);
+            if (var == null) {
+                throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.label + "' does not exist!");
             }
+            this.depth = scope.depthOf(this.label);
+            this.slot = var.getSlot();
+            if (this.field != null) {
+                this.fieldIndex = ArraySupport.isArrayType(var.getType()) ? LENGTH : scope.lookupStruct(var.getType()).getFieldIndex(this.field);
+            }
+        } else if (this.isNewObjectCreation && this.index == null && !CollectionSupport.isCollectionType(this.label)) {
+            this.struct = scope.lookupStruct(this.label);
+        }
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (this.operation != Token.NONE) {
+            Object leftResult = this.left.execute(structs, frame, functions);
+            Object rightResult = this.right.execute(structs, frame, functions);
+
+            return calculate(this.operation, leftResult, rightResult);
         }
         if (this.func != null) {
-            return this.func.execute(structs, vars, functions);
+            return this.func.execute(structs, frame, functions);
         }
         if (this.isNewObjectCreation) {
-            StructAST struct = structs.get(this.label);
-            StructObject object = new StructObject(this.label);
-            for (VarListAST vs : struct.getFields()) {
+            if (this.index != null) {
+                return ArraySupport.newArray(this.label, executeIndex(structs, frame, functions));
+            }
+            if (this.struct == null) {
+                // A collection, it is not bound to a struct.
+                return CollectionSupport.newCollection(this.label);
+            }
+            StructObject object = new StructObject(this.struct);
+            Frame init = new Frame(frame.getGlobals(), this.struct.getFrameSize());
+            int index = 0;
+            for (VarListAST vs : this.struct.getFields()) {
                 for (VariableAST v : vs.getVariables()) {
-                    object.addField(v.getLabel(), v.execute(structs, vars, functions));
+                    Object value = v.execute(structs, init, functions);
+                    init.set(0, v.getSlot(), value);
+                    object.setField(index++, value);
                 }
             }
             return object;
@@ -324,16 +486,244 @@ public class ExpressionAST extends AST {
         if (this.isNull) {
             return null;
         }
+        if (this.index != null) {
+            return ArraySupport.get(frame.get(this.depth, this.slot), executeIndex(structs, frame, functions));
+        }
         if (this.field != null) {
-            StructObject var = (StructObject) vars.get(this.label).getValue();
-            return var.getField(this.field);
+            if (this.fieldIndex == LENGTH) {
+                return ArraySupport.length(frame.get(this.depth, this.slot));
+            }
+            StructObject var = (StructObject) frame.get(this.depth, this.slot);
+            return var.getField(this.fieldIndex);
         }
         if (this.label != null) {
-            return vars.get(this.label).getValue();
+            return frame.get(this.depth, this.slot);
         }
         return this.value;
     }
 
+    /**
+     * Executes the index of the element or the length of the new array.
+     *
+     * @return the index, the null value is reported by {@link NullPointerException}.
+     */
+    int executeIndex(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        try {
+            return this.index.executeInt(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            return (Integer) e.getResult();
+        }
+    }
+
+    /**
+     * Executes the expression which is statically typed as integer.
+     *
+     * @return the result without boxing.
+     * @throws UnexpectedResultException if the result is not an integer.
+     */
+    int executeInt(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (isVariable()) {
+            return frame.getInt(this.depth, this.slot);
+        }
+        if (isElement() && frame.get(this.depth, this.slot) instanceof int[] ints) {
+            return ints[executeIndex(structs, frame, functions)];
+        }
+        Object result = execute(structs, frame, functions);
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        throw new UnexpectedResultException(result);
+    }
+
+    /**
+     * Executes the expression which is statically typed as integer or double.
+     *
+     * @return the result without boxing, integers are widened.
+     * @throws UnexpectedResultException if the result is not a number.
+     */
+    double executeDouble(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (isVariable()) {
+            return frame.getDouble(this.depth, this.slot);
+        }
+        if (isElement() && frame.get(this.depth, this.slot) instanceof double[] doubles) {
+            return doubles[executeIndex(structs, frame, functions)];
+        }
+        Object result = execute(structs, frame, functions);
+        if (result instanceof Double) {
+            return (Double) result;
+        }
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        throw new UnexpectedResultException(result);
+    }
+
+    /**
+     * Executes the expression and writes the result into a variable. Integer and double results are not boxed.
+     *
+     * @param target frame to write the result to, it may differ from the frame the expression is executed in.
+     * @param depth  see {@link Frame#set(int, int, Object)}.
+     * @param slot   see {@link Frame#set(int, int, Object)}.
+     */
+    void executeInto(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions, Frame target, int depth, int slot) throws Exception {
+        try {
+            switch (this.kind) {
+                case Token.INTEGER -> target.setInt(depth, slot, executeInt(structs, frame, functions));
+                case Token.DOUBLE -> target.setDouble(depth, slot, executeDouble(structs, frame, functions));
+                default -> target.set(depth, slot, execute(structs, frame, functions));
+            }
+        } catch (UnexpectedResultException e) {
+            target.set(depth, slot, e.getResult());
+        }
+    }
+
+    /**
+     * Rewrites the arithmetic operation into a node specialized for its static type.
+     * Must be called after the semantics check and the resolution of the expression.
+     *
+     * @return the specialized node, or this expression if there is no specialization.
+     */
+    ExpressionAST specialize() {
+        if (this.operation == Token.NONE || this.left.kind == Token.NONE || this.right.kind == Token.NONE) {
+            return this;
+        }
+        if (this.kind == Token.INTEGER) {
+            return new IntOperationAST(this);
+        }
+        if (this.kind == Token.DOUBLE) {
+            return new DoubleOperationAST(this);
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the expression only reads a variable.
+     */
+    boolean isVariable() {
+        return this.label != null && this.operation == Token.NONE && this.func == null && this.field == null && this.index == null
+                && !this.isNewObjectCreation;
+    }
+
+    /**
+     * @return true if the expression does not call functions or methods and does not create objects, so it never
+     * waits for another thread, e.g. by "join".
+     */
+    boolean isSimple() {
+        return this.func == null && !this.isNewObjectCreation && (this.left == null || this.left.isSimple())
+                && (this.right == null || this.right.isSimple()) && (this.index == null || this.index.isSimple());
+    }
+
+    /**
+     * @return true if the expression only reads an array element.
+     */
+    private boolean isElement() {
+        return this.index != null && !this.isNewObjectCreation;
+    }
+
+    /**
+     * Applies an arithmetic operation.
+     *
+     * @param operation   the operation token label.
+     * @param leftResult  left operand.
+     * @param rightResult right operand.
+     * @return result of the operation.
+     */
+    public static Object calculate(int operation, Object leftResult, Object rightResult) {
+        switch (operation) {
+            case Token.ADDITION:
+                if (leftResult instanceof String || rightResult instanceof String || leftResult instanceof Rope
+                        || rightResult instanceof Rope) {
+                    return Rope.concat(leftResult, rightResult);
+                }
+                if (leftResult instanceof Integer) {
+                    if (rightResult instanceof Integer) {
+                        return ((Integer) leftResult) + ((Integer) rightResult);
+                    }
+                    return ((Integer) leftResult) + ((Double) rightResult);
+                }
+                if (leftResult instanceof Double) {
+                    if (rightResult instanceof Integer) {
+                        return ((Double) leftResult) + ((Integer) rightResult);
+                    }
+                    return ((Double) leftResult) + ((Double) rightResult);
+                }
+                return null;
+            case Token.SUBTRACTION:
+                if (leftResult instanceof Integer) {
+                    if (rightResult instanceof Integer) {
+                        return ((Integer) leftResult) - ((Integer) rightResult);
+                    }
+                    return ((Integer) leftResult) - ((Double) rightResult);
+                }
+                if (leftResult instanceof Double) {
+                    if (rightResult instanceof Integer) {
+                        return ((Double) leftResult) - ((Integer) rightResult);
+                    }
+                    return ((Double) leftResult) - ((Double) rightResult);
+                }
+            case Token.MULTIPLICATION:
+                if (leftResult instanceof Integer) {
+                    if (rightResult instanceof Integer) {
+                        return ((Integer) leftResult) * ((Integer) rightResult);
+                    }
+                    return ((Integer) leftResult) * ((Double) rightResult);
+                }
+                if (leftResult instanceof Double) {
+                    if (rightResult instanceof Integer) {
+                        return ((Double) leftResult) * ((Integer) rightResult);
+                    }
+                    return ((Double) leftResult) * ((Double) rightResult);
+                }
+            case Token.DIVISION:
+                if (leftResult instanceof Integer) {
+                    if (rightResult instanceof Integer) {
+                        return ((Integer) leftResult) / ((Integer) rightResult);
+                    }
+                    return ((Integer) leftResult) / ((Double) rightResult);
+                }
+                if (leftResult instanceof Double) {
+                    if (rightResult instanceof Integer) {
+                        return ((Double) leftResult) / ((Integer) rightResult);
+                    }
+                    return ((Double) leftResult) / ((Double) rightResult);
+                }
+            case Token.MOD:
+                if (leftResult instanceof Integer) {
+                    if (rightResult instanceof Integer) {
+                        return ((Integer) leftResult) % ((Integer) rightResult);
+                    }
+                    return ((Integer) leftResult) % ((Double) rightResult);
+                }
+                if (leftResult instanceof Double) {
+                    if (rightResult instanceof Integer) {
+                        return ((Double) leftResult) % ((Integer) rightResult);
+                    }
+                    return ((Double) leftResult) % ((Double) rightResult);
+                }
+        }
+        return null;
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeString(this.label);
+        out.writeString(this.field);
+        out.writeValue(this.value);
+        out.writeInt(this.operation);
+        out.writeNode(this.left);
+        out.writeNode(this.right);
+        out.writeNode(this.func);
+        out.writeNode(this.index);
+        out.writeBoolean(this.isNewObjectCreation);
+        out.writeBoolean(this.isNull);
+        out.writeInt(this.depth);
+        out.writeInt(this.slot);
+        out.writeInt(this.fieldIndex);
+        out.writeString(this.type);
+        out.writeInt(this.kind);
+    }
+
     @Override
     public String toString() {
         if (this.func != null) {
@@ -356,8 +746,19 @@ public class ExpressionAST extends AST {
         } else if (this.isNewObjectCreation) {
             str.append(Token.getLabelValue(Token.NEW));
             str.append(this.label);
-            str.append(Token.getLabelValue(Token.LB));
-            str.append(Token.getLabelValue(Token.RB));
+            if (this.index != null) {
+                str.append(Token.getLabelValue(Token.LSB));
+                str.append(this.index);
+                str.append(Token.getLabelValue(Token.RSB));
+            } else {
+                str.append(Token.getLabelValue(Token.LB));
+                str.append(Token.getLabelValue(Token.RB));
+            }
+        } else if (this.index != null) {
+            str.append(this.label);
+            str.append(Token.getLabelValue(Token.LSB));
+            str.append(this.index);
+            str.append(Token.getLabelValue(Token.RSB));
         } else if (this.label != null) {
             str.append(this.label);
         } else if (this.value != null) {
@@ -0,0 +1,160 @@
+package program;
+
+import lexer.Token;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AST for for-each loops over channels, e.g. "for (int v : c) { ... }", see {@link Channel}.
+ * The loop receives the values sent to the channel until the channel is closed and all its values are received.
+ */
+public class ForEachAST extends ForLoopAST {
+    /**
+     * The loop variable, it holds the received value.
+     */
+    private VariableAST variable;
+
+    /**
+     * Label of the channel variable.
+     */
+    private String channel;
+
+    /**
+     * Location of the channel variable, see {@link Frame#get(int, int)}.
+     */
+    private int depth, slot;
+
+    public ForEachAST(int line, int column) {
+        super(line, column);
+    }
+
+    ForEachAST(ASTInput in) {
+        super(in);
+        this.variable = in.readNode();
+        this.channel = in.readString();
+        this.depth = in.readInt();
+        this.slot = in.readInt();
+    }
+
+    public VariableAST getVariable() {
+        return variable;
+    }
+
+    public void setVariable(VariableAST variable) {
+        this.variable = variable;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> varList, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        VariableAST var = varList.get(this.channel);
+        if (var == null) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.channel + "' does not exist!");
+        }
+        if (!var.isInitialized()) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.channel + "' not initialized!");
+        }
+        if (!CollectionSupport.isChannelType(var.getType())) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.channel + "' is not a channel!");
+        }
+        // Receiving changes the channel.
+        ParallelForAST.checkWrite(callStack, this, var, false, null, null);
+        String type = CollectionSupport.typeArguments(var.getType()).get(0);
+        if (!this.variable.getType().equals(type)) {
+            throw new Exception("Error at line " + this.variable.getLine() + ", column " + this.variable.getColumn() + ": Type mismatch, expected '" + this.variable.getType() + "', but found '" + type + "'!");
+        }
+        if (varList.containsKey(this.variable.getLabel())) {
+            throw new Exception("Error at line " + this.variable.getLine() + ", column " + this.variable.getColumn() + ": variable '" + this.variable.getLabel() + "' already exists!");
+        }
+        this.variable.checkSemantics(types, varList, functions, callStack);
+        this.variable.setAssigned(true);
+
+        callStack.add(0, this);
+        Map<String, VariableAST> vars = new HashMap<>(varList);
+        vars.put(this.variable.getLabel(), this.variable);
+        for (StatementAST statement : getStatements()) {
+            statement.checkSemantics(types, vars, functions, callStack);
+        }
+        callStack.remove(0);
+
+        return null;
+    }
+
+    @Override
+    void resolve(Scope scope) throws Exception {
+        VariableAST var = scope.lookup(this.channel);
+        if (var == null) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.channel + "' does not exist!");
+        }
+        this.depth = scope.depthOf(this.channel);
+        this.slot = var.getSlot();
+        Scope block = scope.newBlock();
+        block.declare(this.variable);
+        for (StatementAST statement : getStatements()) {
+            statement.resolve(block);
+        }
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        Channel channel = (Channel) frame.get(this.depth, this.slot);
+        for (Object value = channel.next(frame); value != Channel.CLOSED; value = channel.next(frame)) {
+            frame.checkStopped();
+            frame.set(0, this.variable.getSlot(), value);
+            Object ret = executeStatements(getStatements(), structs, frame, functions);
+            if (ret instanceof BreakAST) {
+                break;
+            }
+            if (ret != null) {
+                return ret;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeNode(this.variable);
+        out.writeString(this.channel);
+        out.writeInt(this.depth);
+        out.writeInt(this.slot);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder(Token.getLabelValue(Token.FOR));
+        str.append(Token.getLabelValue(Token.LB));
+        str.append(this.variable.getType());
+        str.append(" ");
+        str.append(this.variable.getLabel());
+        str.append(" ");
+        str.append(Token.getLabelValue(Token.COLON));
+        str.append(" ");
+        str.append(this.channel);
+        str.append(Token.getLabelValue(Token.RB));
+        str.append(" ");
+        str.append(Token.getLabelValue(Token.LP));
+        str.append("\n");
+        for (StatementAST s : getStatements()) {
+            str.append(s);
+            if (s instanceof VarListAST || s instanceof PrintfAST || s instanceof ReturnAST
+                    || s instanceof CallFuncAST || s instanceof AssignmentAST || s instanceof BreakAST) {
+                str.append(Token.getLabelValue(Token.SEMICOLON));
+            }
+            str.append("\n");
+        }
+        str.append(Token.getLabelValue(Token.RP));
+        return str.toString();
+    }
+}
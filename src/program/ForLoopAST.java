@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +40,15 @@ public class ForLoopAST extends StatementAST {
         super(line, column);
     }
 
+    ForLoopAST(ASTInput in) {
+        super(in);
+        this.initAssignment = in.readNode();
+        this.initVariables = in.readNode();
+        this.increment = in.readNode();
+        this.condition = in.readNode();
+        this.statements = in.readNodes();
+    }
+
     public AssignmentAST getInitAssignment() {
         return initAssignment;
     }
@@ -95,82 +105,70 @@ public class ForLoopAST extends StatementAST {
             this.increment.checkSemantics(types, vars, functions, callStack);
         }
 
-        IfStatementAST ifStatementAST = null;
         for (StatementAST statement : this.statements) {
             statement.checkSemantics(types, vars, functions, callStack);
-            if (statement instanceof IfStatementAST ifStatement) {
-                if (ifStatement.getType() == Token.IF) {
-                    ifStatementAST = ifStatement;
-                } else if (ifStatementAST == null) {
-                    throw new Exception("Error at line " + ifStatement.getLine() + ", column " + ifStatement.getColumn() + ": '" + Token.getLabelValue(ifStatement.getType()) + "' statement without 'IF' statement!");
-                }
-                if (ifStatement.getType() == Token.ELSE) {
-                    ifStatementAST = null;
-                }
-            } else {
-                ifStatementAST = null;
-            }
         }
         callStack.remove(0);
 
         return null;
     }
 
-    private void runIncrement(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    @Override
+    void resolve(Scope scope) throws Exception {
+        Scope block = scope.newBlock();
+        if (this.initAssignment != null) {
+            this.initAssignment.resolve(block);
+        } else if (this.initVariables != null) {
+            this.initVariables.resolve(block);
+        }
+        if (this.condition != null) {
+            this.condition.resolve(block);
+        }
         if (this.increment != null) {
-            this.increment.execute(structs, vars, functions);
+            this.increment.resolve(block);
+        }
+        for (StatementAST statement : this.statements) {
+            statement.resolve(block);
+        }
+    }
+
+    private void runIncrement(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (this.increment != null) {
+            this.increment.execute(structs, frame, functions);
         }
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> varList, Map<String, FunctionAST> functions) throws Exception {
-        Map<String, ValueObject> vars = new HashMap<>(varList);
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
         if (this.initAssignment != null) {
-            this.initAssignment.execute(structs, vars, functions);
+            this.initAssignment.execute(structs, frame, functions);
         } else if (this.initVariables != null) {
-            this.initVariables.execute(structs, vars, functions);
+            this.initVariables.execute(structs, frame, functions);
         }
 
-        boolean breakAST = false;
-        for (; (this.condition == null || (Boolean) this.condition.execute(structs, vars, functions)); this.runIncrement(structs, vars, functions)) {
-            boolean ifStatementExecuted = true;
-            for (StatementAST statement : this.statements) {
-                if (statement instanceof IfStatementAST ifStatement) {
-                    // Found a new if-statement flow.
-                    if (ifStatement.getType() == Token.IF) {
-                        ifStatementExecuted = false;
-                    }
-
-                    Object ret = null;
-                    if (!ifStatementExecuted) {
-                        ret = ifStatement.execute(structs, vars, functions);
-                    }
-                    if (ret instanceof BreakAST) {
-                        breakAST = true;
-                        break;
-                    }
-                    if (ret != null) {
-                        return ret;
-                    }
-
-                    // Mark the if statement executed to ignore following else-if/else statements.
-                    if (ifStatement.getCondition() == null || (Boolean) ifStatement.getCondition().execute(structs, vars, functions)) {
-                        ifStatementExecuted = true;
-                    }
-                } else if (statement instanceof BreakAST) {
-                    breakAST = true;
-                    break;
-                } else if (statement instanceof ReturnAST ret) {
-                    return ret.execute(structs, vars, functions);
-                } else {
-                    statement.execute(structs, vars, functions);
-                }
+        for (; (this.condition == null || this.condition.executeBoolean(structs, frame, functions)); this.runIncrement(structs, frame, functions)) {
+            frame.checkStopped();
+            Object ret = executeStatements(this.statements, structs, frame, functions);
+            if (ret instanceof BreakAST) {
+                break;
+            }
+            if (ret != null) {
+                return ret;
             }
-            if (breakAST) break;
         }
         return null;
     }
 
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeNode(this.initAssignment);
+        out.writeNode(this.initVariables);
+        out.writeNode(this.increment);
+        out.writeNode(this.condition);
+        out.writeNodes(this.statements);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder(Token.getLabelValue(Token.FOR));
@@ -0,0 +1,251 @@
+package program;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Runtime storage of the variables of a single function call (or of the global declarations).
+ * Variables are stored in slots which are resolved before execution, see {@link Scope}.
+ * Integer and double values may be stored unboxed, the slot then holds a marker of the primitive type.
+ * The global frame is shared by the tasks of the program once the first task is spawned, its values are then always
+ * stored boxed so that a slot and its unboxed value can not be seen half-written by another thread, and its slots are
+ * read and written as volatile, so a value written by a task is seen by the other tasks at their next read.
+ */
+public class Frame {
+    /**
+     * Markers of the slots which hold their value in {@link #primitives}.
+     */
+    private static final Object INT = new Object(), DOUBLE = new Object();
+
+    /**
+     * Volatile access to the slots of a shared frame.
+     */
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /**
+     * Frame of the enclosing scope, null for the global frame.
+     */
+    private final Frame parent;
+
+    /**
+     * Frame of the global declarations.
+     */
+    private final Frame globals;
+
+    /**
+     * Values of the variables.
+     */
+    private final Object[] slots;
+
+    /**
+     * Unboxed values of the variables, allocated on the first primitive write.
+     */
+    private long[] primitives;
+
+    /**
+     * Value of the last executed return statement.
+     */
+    private Object returnValue;
+
+    /**
+     * State of the execution, only set for the global frame.
+     */
+    private ExecutionContext context;
+
+    /**
+     * Whether the frame is shared by threads, its values are stored boxed. It is set by the thread which spawns
+     * the first task before the task starts, so the tasks see it without synchronization.
+     */
+    private boolean shared;
+
+    public Frame(Frame parent, int size) {
+        this.parent = parent;
+        this.globals = parent == null ? this : parent.globals;
+        this.slots = new Object[size];
+    }
+
+    public Frame getParent() {
+        return parent;
+    }
+
+    public Frame getGlobals() {
+        return globals;
+    }
+
+    public Object getReturnValue() {
+        return returnValue;
+    }
+
+    public void setReturnValue(Object returnValue) {
+        this.returnValue = returnValue;
+    }
+
+    /**
+     * @return destination of the printed values, shared by all frames of the program.
+     */
+    public Output getOutput() {
+        return this.globals.context.getOutput();
+    }
+
+    /**
+     * @return tasks started by the program, shared by all frames of the program.
+     */
+    Tasks getTasks() {
+        return this.globals.context.getTasks();
+    }
+
+    void setContext(ExecutionContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @throws Exception if the execution is stopped, see {@link ExecutionContext#cancel()}.
+     */
+    void checkStopped() throws Exception {
+        this.globals.context.checkStopped();
+    }
+
+    /**
+     * @return whether the global frame is shared by the tasks of the program.
+     */
+    boolean isShared() {
+        return this.globals.shared;
+    }
+
+    /**
+     * @param depth number of frames to go up from this frame.
+     * @return whether the frame of a variable is shared by threads, only the global frame can be.
+     */
+    boolean isShared(int depth) {
+        return up(depth).shared;
+    }
+
+    /**
+     * Marks the frame as shared by threads, its values are stored boxed from now on.
+     */
+    void share() {
+        this.shared = true;
+    }
+
+    /**
+     * @return value of the slot, read as volatile if the frame is shared.
+     */
+    private Object load(int slot) {
+        return this.shared ? SLOTS.getVolatile(this.slots, slot) : this.slots[slot];
+    }
+
+    /**
+     * Writes the slot, as volatile if the frame is shared.
+     */
+    private void store(int slot, Object value) {
+        if (this.shared) {
+            SLOTS.setVolatile(this.slots, slot, value);
+        } else {
+            this.slots[slot] = value;
+        }
+    }
+
+    private Frame up(int depth) {
+        Frame frame = this;
+        for (int i = 0; i < depth; i++) {
+            frame = frame.parent;
+        }
+        return frame;
+    }
+
+    /**
+     * Reads a variable.
+     *
+     * @param depth number of frames to go up from this frame.
+     * @param slot  slot of the variable in that frame.
+     * @return value of the variable.
+     */
+    public Object get(int depth, int slot) {
+        Frame frame = up(depth);
+        Object value = frame.load(slot);
+        if (value == INT) {
+            return (int) frame.primitives[slot];
+        }
+        if (value == DOUBLE) {
+            return Double.longBitsToDouble(frame.primitives[slot]);
+        }
+        return value;
+    }
+
+    /**
+     * Writes a variable.
+     *
+     * @param depth number of frames to go up from this frame.
+     * @param slot  slot of the variable in that frame.
+     * @param value new value of the variable.
+     */
+    public void set(int depth, int slot, Object value) {
+        up(depth).store(slot, value);
+    }
+
+    /**
+     * Reads an integer variable without boxing.
+     *
+     * @throws UnexpectedResultException if the variable does not hold an integer.
+     */
+    int getInt(int depth, int slot) throws UnexpectedResultException {
+        Frame frame = up(depth);
+        Object value = frame.load(slot);
+        if (value == INT) {
+            return (int) frame.primitives[slot];
+        }
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        throw new UnexpectedResultException(frame.get(0, slot));
+    }
+
+    /**
+     * Reads a double variable without boxing, integers are widened.
+     *
+     * @throws UnexpectedResultException if the variable does not hold a number.
+     */
+    double getDouble(int depth, int slot) throws UnexpectedResultException {
+        Frame frame = up(depth);
+        Object value = frame.load(slot);
+        if (value == DOUBLE) {
+            return Double.longBitsToDouble(frame.primitives[slot]);
+        }
+        if (value == INT) {
+            return (int) frame.primitives[slot];
+        }
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    void setInt(int depth, int slot, int value) {
+        Frame frame = up(depth);
+        if (frame.shared) {
+            SLOTS.setVolatile(frame.slots, slot, (Object) value);
+            return;
+        }
+        if (frame.primitives == null) {
+            frame.primitives = new long[frame.slots.length];
+        }
+        frame.slots[slot] = INT;
+        frame.primitives[slot] = value;
+    }
+
+    void setDouble(int depth, int slot, double value) {
+        Frame frame = up(depth);
+        if (frame.shared) {
+            SLOTS.setVolatile(frame.slots, slot, (Object) value);
+            return;
+        }
+        if (frame.primitives == null) {
+            frame.primitives = new long[frame.slots.length];
+        }
+        frame.slots[slot] = DOUBLE;
+        frame.primitives[slot] = Double.doubleToRawLongBits(value);
+    }
+}
@@ -2,10 +2,14 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * AST for function declaration.
@@ -32,12 +36,54 @@ public class FunctionAST extends DeclarationAST {
      */
     private List<StatementAST> statements;
 
+    /**
+     * Number of slots required by the parameters and the local variables.
+     */
+    private int frameSize;
+
+    /**
+     * Slots of the parameters in the order of the parameters, see {@link CallFuncAST}.
+     */
+    private int[] paramSlots;
+
+    /**
+     * Parameters which have a default value.
+     */
+    private VariableAST[] defaultParams;
+
+    /**
+     * Variables declared outside the function. Only used by the semantics check.
+     */
+    private Map<String, VariableAST> globals;
+
+    /**
+     * Whether the function prints or changes variables declared outside it, see {@link ParallelForAST}.
+     * Computed by the semantics check.
+     */
+    private boolean sideEffects;
+
+    /**
+     * Variables declared outside the function which it reads, also by the functions it calls,
+     * see {@link ParallelForAST#checkReads(List, CallFuncAST, FunctionAST)}. Computed by the semantics check.
+     */
+    private Set<VariableAST> reads = new HashSet<>();
+
     public FunctionAST(String type, int line, int column) {
         super(line, column);
         this.type = type;
         this.params = new LinkedList<>();
     }
 
+    FunctionAST(ASTInput in) {
+        super(in);
+        this.type = in.readString();
+        this.label = in.readString();
+        this.params = in.readNodes();
+        this.statements = in.readNodes();
+        this.frameSize = in.readInt();
+        bindParams();
+    }
+
     public void addParam(VariableAST p) {
         this.params.add(p);
     }
@@ -74,14 +120,39 @@ public class FunctionAST extends DeclarationAST {
         this.statements = statements;
     }
 
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    int[] getParamSlots() {
+        return paramSlots;
+    }
+
+    /**
+     * Collects the resolved parameters into arrays, so calls do not walk the list of parameters.
+     */
+    private void bindParams() {
+        this.paramSlots = new int[this.params.size()];
+        List<VariableAST> defaults = new ArrayList<>();
+        int i = 0;
+        for (VariableAST param : this.params) {
+            this.paramSlots[i++] = param.getSlot();
+            if (param.getValue() != null) {
+                defaults.add(param);
+            }
+        }
+        this.defaultParams = defaults.toArray(new VariableAST[0]);
+    }
+
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> varList, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
         callStack.add(0, this);
+        this.globals = varList;
         Map<String, VariableAST> vars = new HashMap<>(varList);
         if (types.containsKey(this.label)) {
             throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Label '" + this.label + "' is used as type!");
         }
-        if (!types.containsKey(this.type)) {
+        if (!ArraySupport.isDeclared(types, this.type)) {
             throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Type '" + this.type + "' does not exist!");
         }
         for (VariableAST v : this.params) {
@@ -91,24 +162,11 @@ public class FunctionAST extends DeclarationAST {
             v.checkSemantics(types, vars, functions, callStack);
             vars.put(v.getLabel(), v);
         }
-        IfStatementAST ifStatementAST = null;
         boolean returnExists = false;
         for (StatementAST statement : this.statements) {
             statement.checkSemantics(types, vars, functions, callStack);
-            if (statement instanceof IfStatementAST ifStatement) {
-                if (ifStatement.getType() == Token.IF) {
-                    ifStatementAST = ifStatement;
-                } else if (ifStatementAST == null) {
-                    throw new Exception("Error at line " + ifStatement.getLine() + ", column " + ifStatement.getColumn() + ": '" + Token.getLabelValue(ifStatement.getType()) + "' statement without 'IF' statement!");
-                }
-                if (ifStatement.getType() == Token.ELSE) {
-                    ifStatementAST = null;
-                }
-            } else {
-                ifStatementAST = null;
-                if (statement instanceof ReturnAST) {
-                    returnExists = true;
-                }
+            if (statement instanceof ReturnAST) {
+                returnExists = true;
             }
         }
         if (!returnExists && !this.type.equals(Token.getLabelValue(Token.VOID))) {
@@ -118,41 +176,104 @@ public class FunctionAST extends DeclarationAST {
         return null;
     }
 
+    public boolean hasSideEffects() {
+        return sideEffects;
+    }
+
+    /**
+     * Records a write of a variable, see {@link ParallelForAST#checkWrite(List, AST, VariableAST, boolean, ExpressionAST, ExpressionAST)}.
+     * Changing an array, a struct or a collection of a parameter is visible outside the function as well.
+     */
+    void recordWrite(VariableAST var, boolean assigned) {
+        if (this.globals.get(var.getLabel()) == var || !assigned && this.params.contains(var)) {
+            this.sideEffects = true;
+        }
+    }
+
+    /**
+     * Records a read of a variable, see {@link ParallelForAST#checkRead(List, AST, VariableAST, ExpressionAST)}.
+     */
+    void recordRead(VariableAST var) {
+        if (this.globals.get(var.getLabel()) == var) {
+            this.reads.add(var);
+        }
+    }
+
+    /**
+     * Records the reads of a called function.
+     */
+    void recordReads(FunctionAST function) {
+        this.reads.addAll(function.reads);
+    }
+
+    Set<VariableAST> getReads() {
+        return reads;
+    }
+
+    /**
+     * Records an effect visible outside the function, see {@link ParallelForAST#checkEffect(List, AST, String)}.
+     */
+    void recordEffect() {
+        this.sideEffects = true;
+    }
+
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> varList, Map<String, FunctionAST> functions) throws Exception {
-        Map<String, ValueObject> vars = new HashMap<>(varList);
-        boolean ifStatementExecuted = true;
+    void resolve(Scope scope) throws Exception {
+        Scope local = scope.newFrame();
+        for (VariableAST v : this.params) {
+            v.resolve(local);
+            local.declare(v);
+        }
         for (StatementAST statement : this.statements) {
-            if (statement instanceof IfStatementAST ifStatement) {
-                // Found a new if-statement flow.
-                if (ifStatement.getType() == Token.IF) {
-                    ifStatementExecuted = false;
-                }
-
-                Object ret = null;
-                if (!ifStatementExecuted) {
-                    ret = ifStatement.execute(structs, vars, functions);
-                }
-                if (ret != null) {
-                    return ret;
-                }
-
-                // Mark the if statement executed to ignore following else-if/else statements.
-                if (ifStatement.getCondition() == null || (Boolean) ifStatement.getCondition().execute(structs, vars, functions)) {
-                    ifStatementExecuted = true;
-                }
-            } else if (statement instanceof ReturnAST ret) {
-                return ret.execute(structs, vars, functions);
-            } else if (statement instanceof ForLoopAST forLoop) {
-                Object ret = forLoop.execute(structs, vars, functions);
-                if (ret != null) return ret;
-            } else {
-                statement.execute(structs, vars, functions);
+            statement.resolve(local);
+        }
+        this.frameSize = local.getSize();
+        bindParams();
+    }
+
+    /**
+     * Executes the function followed by the calls it returns in tail position, see {@link ReturnAST}.
+     * Tail calls run one after another, so they do not grow the Java stack.
+     *
+     * @param frame frame of the call with the arguments assigned.
+     * @return the result of the last call.
+     */
+    Object invoke(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        Object result = execute(structs, frame, functions);
+        while (result instanceof TailCall call) {
+            result = call.getFunction().execute(structs, call.getFrame(), functions);
+        }
+        return result;
+    }
+
+    /**
+     * @return the result of the function, or the {@link TailCall} it returns.
+     */
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        frame.checkStopped();
+        // Parameters which received null fall back to their default values.
+        for (VariableAST param : this.defaultParams) {
+            if (frame.get(0, param.getSlot()) == null) {
+                param.getValue().executeInto(structs, frame, functions, frame, 0, param.getSlot());
             }
         }
+        if (executeStatements(this.statements, structs, frame, functions) != null) {
+            return frame.getReturnValue();
+        }
         return null;
     }
 
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeString(this.type);
+        out.writeString(this.label);
+        out.writeNodes(this.params);
+        out.writeNodes(this.statements);
+        out.writeInt(this.frameSize);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder(this.type);
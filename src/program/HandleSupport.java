@@ -0,0 +1,160 @@
+package program;
+
+import lexer.Token;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Method handles of the functions, see {@link CompiledProgram#handle(ExecutionContext, String)}.
+ * The handle of a function takes and returns the Java types of the bicycle types: int, double and boolean are passed
+ * as JVM primitives, string as String and the other types as Object.
+ */
+public final class HandleSupport {
+    private static final MethodHandle INVOKE, NEW_FRAME, SET_INT, SET_DOUBLE, SET_BOOLEAN, SET, FLATTEN, REQUIRE_VALUE;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            INVOKE = lookup.findStatic(HandleSupport.class, "invoke", MethodType.methodType(Object.class, FunctionAST.class, Map.class, Map.class, Frame.class));
+            NEW_FRAME = lookup.findConstructor(Frame.class, MethodType.methodType(void.class, Frame.class, int.class));
+            SET_INT = lookup.findStatic(HandleSupport.class, "setInt", MethodType.methodType(void.class, Frame.class, int.class, int.class));
+            SET_DOUBLE = lookup.findStatic(HandleSupport.class, "setDouble", MethodType.methodType(void.class, Frame.class, int.class, double.class));
+            SET_BOOLEAN = lookup.findStatic(HandleSupport.class, "set", MethodType.methodType(void.class, Frame.class, int.class, boolean.class));
+            SET = lookup.findStatic(HandleSupport.class, "set", MethodType.methodType(void.class, Frame.class, int.class, Object.class));
+            FLATTEN = lookup.findStatic(Rope.class, "flatten", MethodType.methodType(Object.class, Object.class));
+            REQUIRE_VALUE = lookup.findStatic(HandleSupport.class, "requireValue", MethodType.methodType(Object.class, String.class, String.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private HandleSupport() {
+    }
+
+    /**
+     * @return Java type of the values of the type, void.class for "void".
+     */
+    public static Class<?> javaType(String type) {
+        if (type.equals(Token.getLabelValue(Token.INTEGER))) {
+            return int.class;
+        }
+        if (type.equals(Token.getLabelValue(Token.DOUBLE))) {
+            return double.class;
+        }
+        if (type.equals(Token.getLabelValue(Token.BOOLEAN))) {
+            return boolean.class;
+        }
+        if (type.equals(Token.getLabelValue(Token.STRING))) {
+            return String.class;
+        }
+        if (type.equals(Token.getLabelValue(Token.VOID))) {
+            return void.class;
+        }
+        return Object.class;
+    }
+
+    /**
+     * @return type of the handle of the function.
+     */
+    public static MethodType methodType(FunctionAST function) {
+        Class<?>[] params = new Class<?>[function.getParams().size()];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = javaType(function.getParams().get(i).getType());
+        }
+        return MethodType.methodType(javaType(function.getType()), params);
+    }
+
+    /**
+     * Implements a functional interface by the handle of a function, e.g. IntBinaryOperator by "int f(int a, int b)".
+     * The interface calls the handle, the handle itself is the faster way to call the function many times.
+     *
+     * @param label  name of the function.
+     * @param handle handle of the function.
+     * @param type   the interface.
+     * @return implementation of the interface.
+     * @throws IllegalArgumentException if the type is not a functional interface or its method does not match the
+     *                                  function.
+     */
+    public static <T> T implement(String label, MethodHandle handle, Class<T> type) {
+        try {
+            return MethodHandleProxies.asInterfaceInstance(type, handle);
+        } catch (WrongMethodTypeException e) {
+            throw new IllegalArgumentException("Function '" + label + "' does not match " + type.getName() + "!", e);
+        }
+    }
+
+    /**
+     * Binds the function to the global variables of an execution. The handle creates the frame of the call and assigns
+     * every argument to the slot of its parameter, the primitive arguments are stored unboxed.
+     * A function returning int, double or boolean can still return null, e.g. "int x = null; return x;", the handle
+     * throws a NullPointerException naming the function then.
+     */
+    static MethodHandle bind(FunctionAST function, Map<String, StructAST> structs, Map<String, FunctionAST> functions, Frame globals) {
+        MethodType type = methodType(function);
+        Class<?>[] params = type.parameterArray();
+        int[] slots = function.getParamSlots();
+        // (Frame, params...) -> result
+        MethodHandle target = MethodHandles.dropArguments(MethodHandles.insertArguments(INVOKE, 0, function, structs, functions), 1, params);
+        for (int i = 0; i < params.length; i++) {
+            MethodHandle setter = MethodHandles.insertArguments(setter(params[i]), 1, slots[i]).asType(MethodType.methodType(void.class, Frame.class, params[i]));
+            setter = MethodHandles.dropArguments(setter, 1, Arrays.copyOfRange(params, 0, i));
+            setter = MethodHandles.dropArguments(setter, i + 2, Arrays.copyOfRange(params, i + 1, params.length));
+            target = MethodHandles.foldArguments(target, setter);
+        }
+        target = MethodHandles.foldArguments(target, MethodHandles.insertArguments(NEW_FRAME, 0, globals, function.getFrameSize()));
+        if (type.returnType() == String.class) {
+            // Concatenated strings are flattened.
+            target = MethodHandles.filterReturnValue(target, FLATTEN);
+        } else if (type.returnType().isPrimitive() && type.returnType() != void.class) {
+            target = MethodHandles.filterReturnValue(target, MethodHandles.insertArguments(REQUIRE_VALUE, 0, function.getLabel(), function.getType()));
+        }
+        return target.asType(type);
+    }
+
+    private static MethodHandle setter(Class<?> type) {
+        if (type == int.class) {
+            return SET_INT;
+        }
+        if (type == double.class) {
+            return SET_DOUBLE;
+        }
+        return type == boolean.class ? SET_BOOLEAN : SET;
+    }
+
+    private static Object invoke(FunctionAST function, Map<String, StructAST> structs, Map<String, FunctionAST> functions, Frame frame) throws Exception {
+        return function.invoke(structs, frame, functions);
+    }
+
+    /**
+     * @return the result of a function returning a primitive type.
+     * @throws NullPointerException if the result is null, it cannot be unboxed.
+     */
+    private static Object requireValue(String label, String type, Object value) {
+        if (value == null) {
+            throw new NullPointerException("Function '" + label + "' returned null, which is not a value of type '" + type + "'!");
+        }
+        return value;
+    }
+
+    private static void setInt(Frame frame, int slot, int value) {
+        frame.setInt(0, slot, value);
+    }
+
+    private static void setDouble(Frame frame, int slot, double value) {
+        frame.setDouble(0, slot, value);
+    }
+
+    private static void set(Frame frame, int slot, boolean value) {
+        frame.set(0, slot, value);
+    }
+
+    private static void set(Frame frame, int slot, Object value) {
+        frame.set(0, slot, value);
+    }
+}
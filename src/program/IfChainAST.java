@@ -0,0 +1,95 @@
+package program;
+
+import lexer.Token;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AST for an if-statement followed by its else-if/else statements.
+ * The conditions are evaluated in order, each at most once, until a branch is executed.
+ */
+public class IfChainAST extends StatementAST {
+    /**
+     * The if-statement followed by the else-if statements and the optional else statement.
+     */
+    private List<IfStatementAST> branches;
+
+    public IfChainAST(IfStatementAST ifStatement) {
+        super(ifStatement.getLine(), ifStatement.getColumn());
+        this.branches = new ArrayList<>();
+        this.branches.add(ifStatement);
+    }
+
+    IfChainAST(ASTInput in) {
+        super(in);
+        this.branches = in.readNodes();
+    }
+
+    public void addBranch(IfStatementAST branch) {
+        this.branches.add(branch);
+    }
+
+    public List<IfStatementAST> getBranches() {
+        return branches;
+    }
+
+    public void setBranches(List<IfStatementAST> branches) {
+        this.branches = branches;
+    }
+
+    /**
+     * @return whether the chain ends with an else statement, so no else-if/else statement can follow.
+     */
+    public boolean isComplete() {
+        return this.branches.get(this.branches.size() - 1).getType() == Token.ELSE;
+    }
+
+    @Override
+    String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        for (IfStatementAST branch : this.branches) {
+            branch.checkSemantics(types, vars, functions, callStack);
+            if (branch == this.branches.get(0) && branch.getType() != Token.IF) {
+                throw new Exception("Error at line " + branch.getLine() + ", column " + branch.getColumn() + ": '" + Token.getLabelValue(branch.getType()) + "' statement without 'IF' statement!");
+            }
+        }
+        return null;
+    }
+
+    @Override
+    void resolve(Scope scope) throws Exception {
+        for (IfStatementAST branch : this.branches) {
+            branch.resolve(scope);
+        }
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        for (IfStatementAST branch : this.branches) {
+            if (branch.getCondition() == null || branch.getCondition().executeBoolean(structs, frame, functions)) {
+                return executeStatements(branch.getStatements(), structs, frame, functions);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeNodes(this.branches);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        for (IfStatementAST branch : this.branches) {
+            if (str.length() > 0) {
+                str.append("\n");
+            }
+            str.append(branch);
+        }
+        return str.toString();
+    }
+}
@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,13 @@ public class IfStatementAST extends StatementAST {
         this.type = type;
     }
 
+    IfStatementAST(ASTInput in) {
+        super(in);
+        this.type = in.readInt();
+        this.condition = in.readNode();
+        this.statements = in.readNodes();
+    }
+
     public int getType() {
         return type;
     }
@@ -60,61 +68,39 @@ public class IfStatementAST extends StatementAST {
         if (this.condition != null) {
             this.condition.checkSemantics(types, vars, functions, callStack);
         }
-        IfStatementAST ifStatementAST = null;
         for (StatementAST statement : this.statements) {
             statement.checkSemantics(types, vars, functions, callStack);
-            if (statement instanceof IfStatementAST ifStatement) {
-                if (ifStatement.getType() == Token.IF) {
-                    ifStatementAST = ifStatement;
-                } else if (ifStatementAST == null) {
-                    throw new Exception("Error at line " + ifStatement.getLine() + ", column " + ifStatement.getColumn() + ": '" + Token.getLabelValue(ifStatement.getType()) + "' statement without 'IF' statement!");
-                }
-                if (ifStatement.getType() == Token.ELSE) {
-                    ifStatementAST = null;
-                }
-            } else {
-                ifStatementAST = null;
-            }
         }
         return null;
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> varList, Map<String, FunctionAST> functions) throws Exception {
-        Map<String, ValueObject> vars = new HashMap<>(varList);
-        if (this.condition == null || (Boolean) this.condition.execute(structs, vars, functions)) {
-            boolean ifStatementExecuted = true;
-            for (StatementAST statement : this.statements) {
-                if (statement instanceof IfStatementAST ifStatement) {
-                    // Found a new if-statement flow.
-                    if (ifStatement.getType() == Token.IF) {
-                        ifStatementExecuted = false;
-                    }
-
-                    Object ret = null;
-                    if (!ifStatementExecuted) {
-                        ret = ifStatement.execute(structs, vars, functions);
-                    }
-                    if (ret != null) {
-                        return ret;
-                    }
-
-                    // Mark the if statement executed to ignore following else-if/else statements.
-                    if (ifStatement.getCondition() == null || (Boolean) ifStatement.getCondition().execute(structs, vars, functions)) {
-                        ifStatementExecuted = true;
-                    }
-                } else if (statement instanceof ReturnAST ret) {
-                    return ret.execute(structs, vars, functions);
-                } else if (statement instanceof BreakAST breakAST) {
-                    return breakAST.execute(structs, vars, functions);
-                } else {
-                    statement.execute(structs, vars, functions);
-                }
-            }
+    void resolve(Scope scope) throws Exception {
+        Scope block = scope.newBlock();
+        if (this.condition != null) {
+            this.condition.resolve(block);
+        }
+        for (StatementAST statement : this.statements) {
+            statement.resolve(block);
+        }
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (this.condition == null || this.condition.executeBoolean(structs, frame, functions)) {
+            return executeStatements(this.statements, structs, frame, functions);
         }
         return null;
     }
 
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeInt(this.type);
+        out.writeNode(this.condition);
+        out.writeNodes(this.statements);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder(Token.getLabelValue(this.type));
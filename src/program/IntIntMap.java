@@ -0,0 +1,137 @@
+package program;
+
+/**
+ * Runtime representation of map&lt;int, int&gt;, an open addressing hash table with linear probing,
+ * keys and values are stored unboxed. The keys are listed in no particular order.
+ */
+public final class IntIntMap {
+    private int[] keys = new int[16];
+
+    private int[] values = new int[16];
+
+    /**
+     * Whether a slot holds an entry.
+     */
+    private boolean[] used = new boolean[16];
+
+    private int size;
+
+    public void put(int key, int value) {
+        int slot = slotOf(key);
+        if (!this.used[slot]) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                grow();
+                slot = slotOf(key);
+            }
+            this.used[slot] = true;
+            this.keys[slot] = key;
+            this.size++;
+        }
+        this.values[slot] = value;
+    }
+
+    /**
+     * @return value of the key, 0 if the map does not contain the key.
+     */
+    public int get(int key) {
+        int slot = slotOf(key);
+        return this.used[slot] ? this.values[slot] : 0;
+    }
+
+    public boolean contains(int key) {
+        return this.used[slotOf(key)];
+    }
+
+    /**
+     * Removes the entry of the key, the entries which follow it in the probe sequence are moved back,
+     * so lookups never need to skip removed entries.
+     */
+    public void remove(int key) {
+        int slot = slotOf(key);
+        if (!this.used[slot]) {
+            return;
+        }
+        int mask = this.keys.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (!this.used[next]) {
+                break;
+            }
+            int home = hash(this.keys[next]) & mask;
+            // The entry can fill the gap unless its home slot lies cyclically between the gap and the entry.
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                this.keys[slot] = this.keys[next];
+                this.values[slot] = this.values[next];
+                slot = next;
+            }
+        }
+        this.used[slot] = false;
+        this.size--;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return a new list of the keys.
+     */
+    public IntList keys() {
+        IntList keys = new IntList();
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.used[i]) {
+                keys.add(this.keys[i]);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return slot of the key, or the free slot the key would be put into.
+     */
+    private int slotOf(int key) {
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.used[slot] && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        int[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        boolean[] oldUsed = this.used;
+        this.keys = new int[oldKeys.length * 2];
+        this.values = new int[oldKeys.length * 2];
+        this.used = new boolean[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                this.used[slot] = true;
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder("{");
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.used[i]) {
+                if (str.length() > 1) {
+                    str.append(", ");
+                }
+                str.append(this.keys[i]).append('=').append(this.values[i]);
+            }
+        }
+        return str.append('}').toString();
+    }
+}
@@ -0,0 +1,49 @@
+package program;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Runtime representation of list&lt;int&gt;, the elements are stored unboxed in a growing array.
+ */
+public final class IntList {
+    private int[] elements = new int[8];
+
+    private int size;
+
+    public void add(int element) {
+        if (this.size == this.elements.length) {
+            this.elements = Arrays.copyOf(this.elements, this.size * 2);
+        }
+        this.elements[this.size++] = element;
+    }
+
+    public int get(int index) {
+        return this.elements[Objects.checkIndex(index, this.size)];
+    }
+
+    public void set(int index, int element) {
+        this.elements[Objects.checkIndex(index, this.size)] = element;
+    }
+
+    /**
+     * Removes the element, the following elements are moved one position back.
+     *
+     * @return the removed element.
+     */
+    public int remove(int index) {
+        int element = this.elements[Objects.checkIndex(index, this.size)];
+        System.arraycopy(this.elements, index + 1, this.elements, index, this.size - index - 1);
+        this.size--;
+        return element;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(this.elements, this.size));
+    }
+}
@@ -0,0 +1,56 @@
+package program;
+
+import lexer.Token;
+
+import java.util.Map;
+
+/**
+ * Arithmetic operation between two integer expressions, executed without boxing.
+ */
+class IntOperationAST extends ExpressionAST {
+    IntOperationAST(ExpressionAST operation) {
+        super(operation);
+    }
+
+    IntOperationAST(ASTInput in) {
+        super(in);
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        try {
+            return executeInt(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            return e.getResult();
+        }
+    }
+
+    @Override
+    int executeInt(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        int leftResult;
+        try {
+            leftResult = this.getLeft().executeInt(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(calculate(this.getOperation(), e.getResult(), this.getRight().execute(structs, frame, functions)));
+        }
+        int rightResult;
+        try {
+            rightResult = this.getRight().executeInt(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(calculate(this.getOperation(), leftResult, e.getResult()));
+        }
+
+        return switch (this.getOperation()) {
+            case Token.ADDITION -> leftResult + rightResult;
+            case Token.SUBTRACTION -> leftResult - rightResult;
+            case Token.MULTIPLICATION -> leftResult * rightResult;
+            case Token.DIVISION -> leftResult / rightResult;
+            default -> leftResult % rightResult;
+        };
+    }
+
+    @Override
+    double executeDouble(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        return executeInt(structs, frame, functions);
+    }
+}
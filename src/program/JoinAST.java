@@ -0,0 +1,60 @@
+package program;
+
+import lexer.Token;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AST for waiting for a task, e.g. "join(t)", see {@link Task}.
+ * It evaluates to the result of the function the task runs, the runtime error of the function is rethrown.
+ */
+public class JoinAST extends CallFuncAST {
+    /**
+     * The resolved task expression, the single argument.
+     */
+    private ExpressionAST task;
+
+    public JoinAST(int line, int column) {
+        super(Token.getLabelValue(Token.JOIN), line, column);
+    }
+
+    JoinAST(ASTInput in) {
+        super(in);
+        this.task = getArgs().get(0);
+    }
+
+    @Override
+    String checkType(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        List<ExpressionAST> args = getArgs();
+        if (args.size() != 1) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Incorrect number of arguments, expected 1, but found " + args.size());
+        }
+        ExpressionAST arg = args.get(0);
+        String type = arg.checkSemantics(types, vars, functions, callStack);
+        if (type == null) {
+            return null;
+        }
+        if (!Task.isTaskType(type)) {
+            throw new Exception("Error at line " + arg.getLine() + ", column " + arg.getColumn() + ": Type mismatch, expected " + Task.TYPE + ", but found " + type);
+        }
+        return Task.resultType(type);
+    }
+
+    @Override
+    void resolve(Scope scope) throws Exception {
+        ExpressionAST arg = getArgs().get(0);
+        arg.resolve(scope);
+        this.task = arg.specialize();
+        getArgs().set(0, this.task);
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        Object task = this.task.execute(structs, frame, functions);
+        if (task == null) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Task is null!");
+        }
+        return ((Task) task).join();
+    }
+}
@@ -0,0 +1,217 @@
+package program;
+
+import lexer.Token;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * AST for calls of the methods of the built-in collections, e.g. "m.put(k, v)", see {@link CollectionSupport}.
+ * The label of the call is the name of the method.
+ */
+public class MethodCallAST extends CallFuncAST {
+    /**
+     * Label of the collection variable the method is called on.
+     */
+    private String receiver;
+
+    /**
+     * Static type of the collection, computed by the semantics check.
+     */
+    private String receiverType;
+
+    /**
+     * The called method, see {@link CollectionSupport#PUT}.
+     */
+    private int method;
+
+    /**
+     * Location of the collection variable, see {@link Frame#get(int, int)}.
+     */
+    private int depth, slot;
+
+    /**
+     * The resolved arguments in an array.
+     */
+    private ExpressionAST[] arguments;
+
+    public MethodCallAST(String receiver, String label, int line, int column) {
+        super(label, line, column);
+        this.receiver = receiver;
+    }
+
+    MethodCallAST(ASTInput in) {
+        super(in);
+        this.receiver = in.readString();
+        this.receiverType = in.readString();
+        this.method = in.readInt();
+        this.depth = in.readInt();
+        this.slot = in.readInt();
+        this.arguments = getArgs().toArray(new ExpressionAST[0]);
+    }
+
+    public String getReceiver() {
+        return receiver;
+    }
+
+    public String getReceiverType() {
+        return receiverType;
+    }
+
+    public int getMethod() {
+        return method;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    String checkType(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        VariableAST var = vars.get(this.receiver);
+        if (var == null) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.receiver + "' does not exist!");
+        }
+        if (!var.isInitialized()) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.receiver + "' not initialized!");
+        }
+        if (!CollectionSupport.isCollectionType(var.getType())) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.receiver + "' is not a map, a list or a channel!");
+        }
+        this.receiverType = var.getType();
+        this.method = CollectionSupport.methodOf(getLabel());
+        String[] signature = this.method < 0 ? null : CollectionSupport.signature(this.receiverType, this.method);
+        if (signature == null) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Type '" + this.receiverType + "' does not have method '" + getLabel() + "'!");
+        }
+        List<ExpressionAST> args = getArgs();
+        if (args.size() != signature.length - 1) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Incorrect number of arguments, expected " + (signature.length - 1) + ", but found " + args.size());
+        }
+        if (this.method == CollectionSupport.PUT || this.method == CollectionSupport.REMOVE || this.method == CollectionSupport.ADD
+                || this.method == CollectionSupport.SEND || this.method == CollectionSupport.RECEIVE || this.method == CollectionSupport.CLOSE) {
+            ParallelForAST.checkWrite(callStack, this, var, false, null, null);
+        } else if (this.method == CollectionSupport.SET) {
+            // The elements of a list at distinct indexes are set independently, as the elements of an array.
+            ParallelForAST.checkWrite(callStack, this, var, false, args.get(0), null);
+        } else if (this.method == CollectionSupport.GET) {
+            ParallelForAST.checkRead(callStack, this, var, args.get(0));
+        } else if (this.method != CollectionSupport.SIZE) {
+            ParallelForAST.checkRead(callStack, this, var, null);
+        }
+        for (int i = 0; i < args.size(); i++) {
+            ExpressionAST arg = args.get(i);
+            String type = arg.checkSemantics(types, vars, functions, callStack);
+            String expected = signature[i + 1];
+            if (type != null && (type.equals("null") ? ArraySupport.isPrimitive(expected) : !expected.equals(type))) {
+                throw new Exception("Error at line " + arg.getLine() + ", column " + arg.getColumn() + ": Type mismatch, expected " + expected + ", but found " + type);
+            }
+        }
+        return signature[0];
+    }
+
+    @Override
+    void resolve(Scope scope) throws Exception {
+        for (ListIterator<ExpressionAST> iterator = getArgs().listIterator(); iterator.hasNext(); ) {
+            ExpressionAST arg = iterator.next();
+            arg.resolve(scope);
+            iterator.set(arg.specialize());
+        }
+        VariableAST var = scope.lookup(this.receiver);
+        if (var == null) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + this.receiver + "' does not exist!");
+        }
+        this.depth = scope.depthOf(this.receiver);
+        this.slot = var.getSlot();
+        this.arguments = getArgs().toArray(new ExpressionAST[0]);
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        Object collection = frame.get(this.depth, this.slot);
+        ExpressionAST[] args = this.arguments;
+        // The integer collections are called without boxing the arguments.
+        if (collection instanceof IntIntMap map) {
+            switch (this.method) {
+                case CollectionSupport.PUT -> map.put(intArg(0, structs, frame, functions), intArg(1, structs, frame, functions));
+                case CollectionSupport.GET -> {
+                    return map.get(intArg(0, structs, frame, functions));
+                }
+                case CollectionSupport.CONTAINS -> {
+                    return map.contains(intArg(0, structs, frame, functions));
+                }
+                case CollectionSupport.REMOVE -> map.remove(intArg(0, structs, frame, functions));
+                default -> {
+                    return CollectionSupport.invoke(map, this.method, new Object[0]);
+                }
+            }
+            return null;
+        }
+        if (collection instanceof IntList list) {
+            switch (this.method) {
+                case CollectionSupport.ADD -> list.add(intArg(0, structs, frame, functions));
+                case CollectionSupport.GET -> {
+                    return list.get(intArg(0, structs, frame, functions));
+                }
+                case CollectionSupport.SET -> list.set(intArg(0, structs, frame, functions), intArg(1, structs, frame, functions));
+                case CollectionSupport.REMOVE -> {
+                    return list.remove(intArg(0, structs, frame, functions));
+                }
+                default -> {
+                    return list.size();
+                }
+            }
+            return null;
+        }
+        // A waiting task checks whether its execution is stopped.
+        if (collection instanceof Channel channel) {
+            switch (this.method) {
+                case CollectionSupport.SEND -> channel.send(args[0].execute(structs, frame, functions), frame);
+                case CollectionSupport.RECEIVE -> {
+                    return channel.receive(frame);
+                }
+                default -> channel.close();
+            }
+            return null;
+        }
+        Object[] values = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = args[i].execute(structs, frame, functions);
+        }
+        return CollectionSupport.invoke(collection, this.method, values);
+    }
+
+    /**
+     * Executes the integer argument.
+     *
+     * @return the argument, the null value is reported by {@link NullPointerException}.
+     */
+    private int intArg(int index, Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        try {
+            return this.arguments[index].executeInt(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            return (Integer) e.getResult();
+        }
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeString(this.receiver);
+        out.writeString(this.receiverType);
+        out.writeInt(this.method);
+        out.writeInt(this.depth);
+        out.writeInt(this.slot);
+    }
+
+    @Override
+    public String toString() {
+        return this.receiver + Token.getLabelValue(Token.DOT) + super.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package program;
+
+import java.util.ArrayList;
+
+/**
+ * Runtime representation of the lists of any type except int, see {@link IntList}.
+ */
+public final class ObjectList {
+    private final ArrayList<Object> elements = new ArrayList<>();
+
+    public void add(Object element) {
+        this.elements.add(element);
+    }
+
+    public Object get(int index) {
+        return this.elements.get(index);
+    }
+
+    public void set(int index, Object element) {
+        this.elements.set(index, element);
+    }
+
+    /**
+     * Removes the element, the following elements are moved one position back.
+     *
+     * @return the removed element.
+     */
+    public Object remove(int index) {
+        return this.elements.remove(index);
+    }
+
+    public int size() {
+        return this.elements.size();
+    }
+
+    @Override
+    public String toString() {
+        return this.elements.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package program;
+
+import java.util.HashMap;
+
+/**
+ * Runtime representation of the maps of any types except map&lt;int, int&gt;, see {@link IntIntMap}.
+ * The keys are listed in no particular order, string keys are stored flattened, see {@link Rope}.
+ */
+public final class ObjectMap {
+    private final HashMap<Object, Object> entries = new HashMap<>();
+
+    /**
+     * Value of the keys the map does not contain, the default value of the value type.
+     */
+    private final Object defaultValue;
+
+    /**
+     * Whether the keys are integers, which are listed by {@link IntList}.
+     */
+    private final boolean intKeys;
+
+    public ObjectMap(Object defaultValue, boolean intKeys) {
+        this.defaultValue = defaultValue;
+        this.intKeys = intKeys;
+    }
+
+    public void put(Object key, Object value) {
+        this.entries.put(Rope.flatten(key), value);
+    }
+
+    /**
+     * @return value of the key, the default value of the value type if the map does not contain the key.
+     */
+    public Object get(Object key) {
+        return this.entries.getOrDefault(Rope.flatten(key), this.defaultValue);
+    }
+
+    public boolean contains(Object key) {
+        return this.entries.containsKey(Rope.flatten(key));
+    }
+
+    public void remove(Object key) {
+        this.entries.remove(Rope.flatten(key));
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return a new list of the keys, {@link IntList} for integer keys, {@link ObjectList} otherwise.
+     */
+    public Object keys() {
+        if (this.intKeys) {
+            IntList keys = new IntList();
+            for (Object key : this.entries.keySet()) {
+                keys.add((Integer) key);
+            }
+            return keys;
+        }
+        ObjectList keys = new ObjectList();
+        for (Object key : this.entries.keySet()) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return this.entries.toString();
+    }
+}
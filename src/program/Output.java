@@ -0,0 +1,195 @@
+package program;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Destination of the values printed by a program, see {@link PrintfAST}.
+ * Printed lines are collected in a buffer which is written out when it is full, after every line
+ * if the output flushes on newline, and when the program exits.
+ * The output is not thread-safe, the tasks of a program print under its lock, see {@link PrintfAST}.
+ */
+public class Output implements Flushable, Closeable {
+    /**
+     * Default size of the buffer in characters.
+     */
+    public static final int DEFAULT_SIZE = 1 << 16;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * Stream the output is written to, null if it is written to a channel or a writer.
+     */
+    private final OutputStream stream;
+
+    /**
+     * Channel the output is written to, null if it is written to a stream or a writer.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Writer the output is written to, the characters are not encoded. Null if it is written to a stream or a channel.
+     */
+    private final Writer writer;
+
+    /**
+     * Whether the channel is opened by the output and has to be closed with it.
+     */
+    private final boolean owned;
+
+    /**
+     * Number of characters which are buffered before they are written out.
+     */
+    private final int size;
+
+    /**
+     * Whether every line is written out as soon as it is printed.
+     */
+    private final boolean flushOnNewline;
+
+    /**
+     * Printed characters which are not written out yet.
+     */
+    private final StringBuilder buffer;
+
+    private Output(OutputStream stream, WritableByteChannel channel, Writer writer, boolean owned, int size, boolean flushOnNewline) {
+        this.stream = stream;
+        this.channel = channel;
+        this.writer = writer;
+        this.owned = owned;
+        this.size = size;
+        this.flushOnNewline = flushOnNewline;
+        this.buffer = new StringBuilder(Math.min(size, DEFAULT_SIZE) + 64);
+    }
+
+    /**
+     * @param stream         stream to write the output to, it is flushed but never closed by the output.
+     * @param size           number of characters to buffer.
+     * @param flushOnNewline whether every line is written out as soon as it is printed.
+     */
+    public Output(OutputStream stream, int size, boolean flushOnNewline) {
+        this(stream, null, null, false, size, flushOnNewline);
+    }
+
+    /**
+     * @param channel        channel to write the output to, it is never closed by the output.
+     * @param size           number of characters to buffer.
+     * @param flushOnNewline whether every line is written out as soon as it is printed.
+     */
+    public Output(WritableByteChannel channel, int size, boolean flushOnNewline) {
+        this(null, channel, null, false, size, flushOnNewline);
+    }
+
+    /**
+     * @param writer         writer to write the output to, it is flushed but never closed by the output.
+     * @param size           number of characters to buffer.
+     * @param flushOnNewline whether every line is written out as soon as it is printed.
+     */
+    public Output(Writer writer, int size, boolean flushOnNewline) {
+        this(null, null, writer, false, size, flushOnNewline);
+    }
+
+    /**
+     * @return output to the standard output stream with the default buffer, which is written out when it is full.
+     */
+    public static Output standard() {
+        return new Output(System.out, DEFAULT_SIZE, false);
+    }
+
+    /**
+     * Opens a file channel, the file is created or truncated.
+     *
+     * @param file           file to write the output to.
+     * @param size           number of characters to buffer.
+     * @param flushOnNewline whether every line is written out as soon as it is printed.
+     * @return the output, which has to be closed.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static Output open(Path file, int size, boolean flushOnNewline) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new Output(null, channel, null, true, size, flushOnNewline);
+    }
+
+    public void println(Object value) throws IOException {
+        this.buffer.append(ArraySupport.toString(value));
+        endLine();
+    }
+
+    public void println(int value) throws IOException {
+        this.buffer.append(value);
+        endLine();
+    }
+
+    public void println(double value) throws IOException {
+        this.buffer.append(value);
+        endLine();
+    }
+
+    public void println(boolean value) throws IOException {
+        this.buffer.append(value);
+        endLine();
+    }
+
+    public void println() throws IOException {
+        endLine();
+    }
+
+    private void endLine() throws IOException {
+        this.buffer.append(LINE_SEPARATOR);
+        if (this.flushOnNewline || this.buffer.length() >= this.size) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes out the buffered characters.
+     *
+     * @throws IOException if the output cannot be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (this.writer != null) {
+            this.writer.append(this.buffer);
+            this.buffer.setLength(0);
+            this.writer.flush();
+            return;
+        }
+        if (this.buffer.length() > 0) {
+            byte[] bytes = this.buffer.toString().getBytes(Charset.defaultCharset());
+            this.buffer.setLength(0);
+            if (this.channel != null) {
+                ByteBuffer data = ByteBuffer.wrap(bytes);
+                while (data.hasRemaining()) {
+                    this.channel.write(data);
+                }
+            } else {
+                this.stream.write(bytes);
+            }
+        }
+        if (this.stream != null) {
+            this.stream.flush();
+        }
+    }
+
+    /**
+     * Writes out the buffered characters and closes the file the output is opened for.
+     *
+     * @throws IOException if the output cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (this.owned) {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package program;
+
+import lexer.Token;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * AST for parallel for-loops, e.g. "parfor (int i = 0; i &lt; n; i = i + 1) reduce (sum) { ... }".
+ * The range of the loop variable is split into chunks which are executed on the {@link ForkJoinPool#commonPool()},
+ * every chunk in its own frame which holds the loop variable and the variables declared in the loop.
+ * <p>
+ * The semantics check keeps the result independent of the order the chunks run in: the loop can not change the
+ * variables declared outside it, except the elements of arrays at the index of the loop variable and the reduction
+ * variables, it can not print and it can not call functions which do, see {@link #checkWrite(List, AST, VariableAST, boolean, ExpressionAST, ExpressionAST)}.
+ * An array changed at the index of the loop variable is only read at that index, also by the called functions, see
+ * {@link #checkRead(List, AST, VariableAST, ExpressionAST)}. So are the other arrays of its type, which may refer to the
+ * same array, the check does not follow the values of the variables. The arrays, structs and collections referred to by the
+ * variables declared in the loop are only changed if they are created in the iteration by "new", so they are never
+ * shared with another iteration.
+ * A reduction variable is only added to, "sum = sum + ...": every chunk adds to its own copy starting at 0,
+ * which are added to the variable in the order of the chunks when the loop completes.
+ */
+public class ParallelForAST extends ForLoopAST {
+    /**
+     * Word starting the list of the reduction variables, it is not a keyword, so it can still label a variable.
+     */
+    public static final String REDUCE = "reduce";
+
+    /**
+     * Maximum number of the chunks. The chunks depend only on the range, so do the sums of doubles.
+     */
+    private static final int CHUNKS = 256;
+
+    /**
+     * Labels of the reduction variables.
+     */
+    private List<String> reductions = new ArrayList<>();
+
+    /**
+     * Variables visible outside the loop, the loop variable and the sum a reduction is currently adding to.
+     * Only used by the semantics check.
+     */
+    private Map<String, VariableAST> outer;
+    private VariableAST variable;
+    private ExpressionAST reductionOperand;
+
+    /**
+     * Variables declared in the loop which are assigned only new arrays, structs or collections, and the ones which
+     * are assigned other values. Only used by the semantics check.
+     */
+    private Set<VariableAST> created, aliased;
+
+    /**
+     * Changes of the values referred to by the variables declared in the loop, and reads of the variables declared
+     * outside it, they are checked when the check of the loop completes. Only used by the semantics check.
+     */
+    private List<Access> changes, reads;
+
+    /**
+     * Variables declared outside the loop which are changed at the index of the loop variable.
+     * Only used by the semantics check.
+     */
+    private Set<VariableAST> written;
+
+    /**
+     * End of the range, the right side of the condition.
+     */
+    private ExpressionAST end;
+
+    /**
+     * Whether the end of the range belongs to the range, "&lt;=" condition.
+     */
+    private boolean inclusive;
+
+    /**
+     * Number of slots of the frame of a chunk.
+     */
+    private int frameSize;
+
+    /**
+     * Types of the reduction variables, their locations outside the loop and the slots of their copies in the frame
+     * of a chunk.
+     */
+    private String[] reductionTypes;
+    private int[] reductionDepths, reductionSlots, copySlots;
+
+    public ParallelForAST(int line, int column) {
+        super(line, column);
+    }
+
+    ParallelForAST(ASTInput in) {
+        super(in);
+        this.reductions = List.of(in.readStrings());
+        this.end = in.readNode();
+        this.inclusive = in.readBoolean();
+        this.frameSize = in.readInt();
+        this.reductionTypes = in.readStrings();
+        this.reductionDepths = in.readInts();
+        this.reductionSlots = in.readInts();
+        this.copySlots = in.readInts();
+    }
+
+    public List<String> getReductions() {
+        return reductions;
+    }
+
+    public void addReduction(String label) {
+        this.reductions.add(label);
+    }
+
+    @Override
+    String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> varList, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        checkRange();
+        this.outer = varList;
+        this.created = new HashSet<>();
+        this.aliased = new HashSet<>();
+        this.changes = new ArrayList<>();
+        this.reads = new ArrayList<>();
+        this.written = new HashSet<>();
+        for (String label : this.reductions) {
+            VariableAST var = varList.get(label);
+            if (var == null) {
+                throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + label + "' does not exist!");
+            }
+            if (!var.isInitialized()) {
+                throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Variable '" + label + "' not initialized!");
+            }
+            if (!var.getType().equals(Token.getLabelValue(Token.INTEGER)) && !var.getType().equals(Token.getLabelValue(Token.DOUBLE))) {
+                throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Reduction variable '" + label + "' has to be '"
+                        + Token.getLabelValue(Token.INTEGER) + "' or '" + Token.getLabelValue(Token.DOUBLE) + "'!");
+            }
+        }
+
+        Map<String, VariableAST> vars = new HashMap<>(varList);
+        getInitVariables().checkSemantics(types, vars, functions, callStack);
+        this.variable = getInitVariables().getVariables().get(0);
+        getCondition().checkSemantics(types, vars, functions, callStack);
+        getIncrement().checkSemantics(types, vars, functions, callStack);
+
+        callStack.add(0, this);
+        for (StatementAST statement : getStatements()) {
+            statement.checkSemantics(types, vars, functions, callStack);
+        }
+        callStack.remove(0);
+        checkAccesses();
+        return null;
+    }
+
+    /**
+     * Checks the changes and the reads recorded by the check of the statements, once all the writes are known.
+     */
+    private void checkAccesses() throws Exception {
+        for (Access change : this.changes) {
+            if (!this.created.contains(change.var) || this.aliased.contains(change.var)) {
+                throw new Exception("Error at line " + change.ast.getLine() + ", column " + change.ast.getColumn() + ": Variable '" + change.var.getLabel()
+                        + "' can only be changed in '" + Token.getLabelValue(Token.PARFOR) + "' loop if it is assigned only values created by '"
+                        + Token.getLabelValue(Token.NEW) + "' in the loop!");
+            }
+        }
+        for (Access read : this.reads) {
+            if (read.index != null && isVariable(read.index, this.variable.getLabel())) {
+                continue;
+            }
+            VariableAST changed = changedAs(read.var);
+            if (changed == read.var) {
+                throw new Exception("Error at line " + read.ast.getLine() + ", column " + read.ast.getColumn() + ": Variable '" + read.var.getLabel()
+                        + "' is changed at the index of the loop variable, it can only be read at that index in '" + Token.getLabelValue(Token.PARFOR) + "' loop!");
+            }
+            // A variable declared in the loop can only refer to another array if it is assigned a value not created by "new".
+            if (changed != null && (this.outer.get(read.var.getLabel()) == read.var || this.aliased.contains(read.var))) {
+                throw new Exception("Error at line " + read.ast.getLine() + ", column " + read.ast.getColumn() + ": Variable '" + read.var.getLabel()
+                        + "' may refer to the same value as variable '" + changed.getLabel() + "', which is changed at the index of the loop variable, it can only be read at that index in '"
+                        + Token.getLabelValue(Token.PARFOR) + "' loop!");
+            }
+        }
+        this.changes = null;
+        this.reads = null;
+    }
+
+    /**
+     * Checks that the loop counts an integer variable up by 1 to a bound, so the range is known before the loop runs.
+     */
+    private void checkRange() throws Exception {
+        VarListAST init = getInitVariables();
+        ComparisonAST condition = getCondition();
+        AssignmentAST increment = getIncrement();
+        boolean counts = init != null && init.getVariables().size() == 1 && init.getType().equals(Token.getLabelValue(Token.INTEGER))
+                && init.getVariables().get(0).getValue() != null && condition != null && condition.getLeftExpr() != null
+                && (condition.getCmp() == Token.LESS || condition.getCmp() == Token.LESS_EQUAL) && increment != null;
+        if (counts) {
+            String label = init.getVariables().get(0).getLabel();
+            ExpressionAST step = increment.getExpression();
+            counts = isVariable(condition.getLeftExpr(), label) && label.equals(increment.getLabel()) && increment.getField() == null
+                    && increment.getIndex() == null && step.getOperation() == Token.ADDITION && isVariable(step.getLeft(), label)
+                    && Integer.valueOf(1).equals(step.getRight().getValue());
+        }
+        if (!counts) {
+            throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": '" + Token.getLabelValue(Token.PARFOR)
+                    + "' loop has to count an '" + Token.getLabelValue(Token.INTEGER) + "' variable up by 1, e.g. '"
+                    + Token.getLabelValue(Token.PARFOR) + " (int i = 0; i < n; i = i + 1)'!");
+        }
+        this.inclusive = condition.getCmp() == Token.LESS_EQUAL;
+    }
+
+    /**
+     * @return the variable itself if the loop changes it at the index of the loop variable, otherwise a changed
+     * variable of the same type, which may refer to the same array or list, or null.
+     */
+    private VariableAST changedAs(VariableAST var) {
+        if (this.written.contains(var)) {
+            return var;
+        }
+        for (VariableAST changed : this.written) {
+            if (changed.getType().equals(var.getType())) {
+                return changed;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isVariable(ExpressionAST expression, String label) {
+        return expression != null && expression.isVariable() && expression.getLabel().equals(label);
+    }
+
+    /**
+     * Checks a write of a variable in the enclosing parfor loops and records it in the enclosing function,
+     * see {@link FunctionAST#hasSideEffects()}.
+     *
+     * @param callStack  current call stack.
+     * @param writer     the assignment or the method call.
+     * @param var        the written variable.
+     * @param assigned   whether the variable itself is assigned, otherwise the array, struct or collection it refers to
+     *                   is changed.
+     * @param index      index of the changed array element, null if it is not an element.
+     * @param expression the assigned value, null if the variable is not assigned.
+     */
+    static void checkWrite(List<AST> callStack, AST writer, VariableAST var, boolean assigned, ExpressionAST index, ExpressionAST expression) throws Exception {
+        for (AST ast : callStack) {
+            if (ast instanceof ParallelForAST loop) {
+                loop.checkWrite(writer, var, assigned, index, expression);
+            } else if (ast instanceof FunctionAST function) {
+                function.recordWrite(var, assigned);
+                return;
+            }
+        }
+    }
+
+    private void checkWrite(AST writer, VariableAST var, boolean assigned, ExpressionAST index, ExpressionAST expression) throws Exception {
+        if (var == this.variable) {
+            throw new Exception("Error at line " + writer.getLine() + ", column " + writer.getColumn() + ": Variable '" + var.getLabel() + "' of '" + Token.getLabelValue(Token.PARFOR) + "' loop can not be changed!");
+        }
+        if (this.outer.get(var.getLabel()) != var) {
+            // The variable may still refer to a value of another iteration or declared outside the loop.
+            if (assigned) {
+                assign(var, expression);
+            } else {
+                this.changes.add(new Access(writer, var, index));
+            }
+            return;
+        }
+        if (assigned && this.reductions.contains(var.getLabel())) {
+            // The sum is the leftmost operand of the additions.
+            ExpressionAST operand = expression;
+            while (operand.getOperation() == Token.ADDITION) {
+                operand = operand.getLeft();
+            }
+            if (operand != expression && isVariable(operand, var.getLabel())) {
+                this.reductionOperand = operand;
+                return;
+            }
+        }
+        if (!assigned && index != null && isVariable(index, this.variable.getLabel())) {
+            this.written.add(var);
+            return;
+        }
+        throw new Exception("Error at line " + writer.getLine() + ", column " + writer.getColumn() + ": Variable '" + var.getLabel() + "' is declared outside '"
+                + Token.getLabelValue(Token.PARFOR) + "' loop, it can only be changed by a reduction or at the index of the loop variable!");
+    }
+
+    /**
+     * Records a value assigned to a variable declared in the loop.
+     */
+    private void assign(VariableAST var, ExpressionAST value) {
+        if (value == null || value.isNull()) {
+            return;
+        }
+        if (value.isNewObjectCreation()) {
+            this.created.add(var);
+        } else {
+            this.aliased.add(var);
+        }
+    }
+
+    /**
+     * Records a declaration of a variable in the enclosing parfor loops.
+     *
+     * @param callStack current call stack.
+     * @param var       the declared variable.
+     */
+    static void checkDeclaration(List<AST> callStack, VariableAST var) {
+        for (AST ast : callStack) {
+            if (ast instanceof ParallelForAST loop) {
+                loop.assign(var, var.getValue());
+            } else if (ast instanceof FunctionAST) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks a read of a variable in the enclosing parfor loops and records it in the enclosing function,
+     * see {@link FunctionAST#getReads()}. A reduction variable is only read by its reduction. The reads of the variables
+     * declared in a loop are recorded as well, they may refer to an array declared outside it.
+     *
+     * @param callStack current call stack.
+     * @param reader    the reading expression or method call.
+     * @param var       the read variable.
+     * @param index     index of the read element of an array or a list, null if the variable itself is read.
+     */
+    static void checkRead(List<AST> callStack, AST reader, VariableAST var, ExpressionAST index) throws Exception {
+        for (AST ast : callStack) {
+            if (ast instanceof ParallelForAST loop) {
+                if (loop.outer.get(var.getLabel()) != var) {
+                    loop.reads.add(new Access(reader, var, index));
+                    continue;
+                }
+                if (loop.reductions.contains(var.getLabel()) && reader != loop.reductionOperand) {
+                    throw new Exception("Error at line " + reader.getLine() + ", column " + reader.getColumn() + ": Reduction variable '" + var.getLabel()
+                            + "' can only be read by its reduction '" + var.getLabel() + " = " + var.getLabel() + " + ...'!");
+                }
+                loop.reads.add(new Access(reader, var, index));
+            } else if (ast instanceof FunctionAST function) {
+                function.recordRead(var);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks the variables read by a called function once its check completes, the function can not read an array
+     * which the enclosing parfor loops change, or another one of its type, and records them in the calling function.
+     *
+     * @param callStack call stack of the call.
+     * @param call      the call.
+     * @param function  the called function.
+     */
+    static void checkReads(List<AST> callStack, CallFuncAST call, FunctionAST function) throws Exception {
+        for (AST ast : callStack) {
+            if (ast instanceof ParallelForAST loop) {
+                for (VariableAST var : function.getReads()) {
+                    VariableAST changed = loop.changedAs(var);
+                    if (changed != null) {
+                        throw new Exception("Error at line " + call.getLine() + ", column " + call.getColumn() + ": Function '" + function.getLabel() + "', which reads variable '"
+                                + var.getLabel() + (changed == var ? "'" : "', which may refer to the same value as variable '" + changed.getLabel() + "',")
+                                + " changed by '" + Token.getLabelValue(Token.PARFOR) + "' loop, is not allowed in the loop!");
+                    }
+                }
+            } else if (ast instanceof FunctionAST caller) {
+                caller.recordReads(function);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return whether the checked code is in a parfor loop of the current function.
+     */
+    static boolean isInLoop(List<AST> callStack) {
+        for (AST ast : callStack) {
+            if (ast instanceof ParallelForAST) {
+                return true;
+            }
+            if (ast instanceof FunctionAST) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks an effect visible outside the enclosing parfor loops, e.g. printing, and records it in the enclosing function.
+     *
+     * @param callStack current call stack.
+     * @param statement the statement which has the effect.
+     * @param effect    description of the effect.
+     */
+    static void checkEffect(List<AST> callStack, AST statement, String effect) throws Exception {
+        for (AST ast : callStack) {
+            if (ast instanceof ParallelForAST) {
+                throw new Exception("Error at line " + statement.getLine() + ", column " + statement.getColumn() + ": " + effect + " is not allowed in '"
+                        + Token.getLabelValue(Token.PARFOR) + "' loop!");
+            } else if (ast instanceof FunctionAST function) {
+                function.recordEffect();
+                return;
+            }
+        }
+    }
+
+    @Override
+    void resolve(Scope scope) throws Exception {
+        Scope chunk = scope.newFrame();
+        VariableAST variable = getInitVariables().getVariables().get(0);
+        variable.resolve(scope);
+        chunk.declare(variable);
+        ExpressionAST end = getCondition().getRightExpr();
+        end.resolve(scope);
+        this.end = end.specialize();
+
+        int count = this.reductions.size();
+        this.reductionTypes = new String[count];
+        this.reductionDepths = new int[count];
+        this.reductionSlots = new int[count];
+        this.copySlots = new int[count];
+        for (int i = 0; i < count; i++) {
+            String label = this.reductions.get(i);
+            VariableAST var = scope.lookup(label);
+            this.reductionTypes[i] = var.getType();
+            this.reductionDepths[i] = scope.depthOf(label);
+            this.reductionSlots[i] = var.getSlot();
+            // The loop adds to a copy in the frame of the chunk.
+            VariableAST copy = new VariableAST(var.getType(), label, this.getLine(), this.getColumn());
+            chunk.declare(copy);
+            this.copySlots[i] = copy.getSlot();
+        }
+        for (StatementAST statement : getStatements()) {
+            statement.resolve(chunk);
+        }
+        this.frameSize = chunk.getSize();
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        int from = intOf(getInitVariables().getVariables().get(0).getValue(), structs, frame, functions);
+        long to = intOf(this.end, structs, frame, functions) + (this.inclusive ? 1L : 0L);
+        if (from >= to) {
+            return null;
+        }
+        long length = to - from;
+        Frame[] chunks = new Frame[(int) Math.min(CHUNKS, length)];
+        try {
+            ForkJoinPool.commonPool().invoke(new Chunks(structs, frame, functions, chunks, from, length, 0, chunks.length));
+        } catch (CompletionException e) {
+            Throwable cause = e;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+        for (int i = 0; i < this.copySlots.length; i++) {
+            Object sum = frame.get(this.reductionDepths[i], this.reductionSlots[i]);
+            for (Frame chunk : chunks) {
+                sum = ExpressionAST.calculate(Token.ADDITION, sum, chunk.get(0, this.copySlots[i]));
+            }
+            frame.set(this.reductionDepths[i], this.reductionSlots[i], sum);
+        }
+        return null;
+    }
+
+    /**
+     * Executes the iterations of a chunk in a new frame.
+     *
+     * @return the frame, which holds the sums of the chunk.
+     */
+    private Frame executeChunk(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions, int from, int to) throws Exception {
+        Frame chunk = new Frame(frame, this.frameSize);
+        for (int i = 0; i < this.copySlots.length; i++) {
+            if (this.reductionTypes[i].equals(Token.getLabelValue(Token.DOUBLE))) {
+                chunk.setDouble(0, this.copySlots[i], 0.0);
+            } else {
+                chunk.setInt(0, this.copySlots[i], 0);
+            }
+        }
+        int slot = getInitVariables().getVariables().get(0).getSlot();
+        for (int i = from; i < to; i++) {
+            chunk.checkStopped();
+            chunk.setInt(0, slot, i);
+            executeStatements(getStatements(), structs, chunk, functions);
+        }
+        return chunk;
+    }
+
+    private static int intOf(ExpressionAST expression, Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        try {
+            return expression.executeInt(structs, frame, functions);
+        } catch (UnexpectedResultException e) {
+            return (Integer) e.getResult();
+        }
+    }
+
+    /**
+     * A change or a read of a variable, see {@link #checkAccesses()}.
+     */
+    private static final class Access {
+        private final AST ast;
+        private final VariableAST var;
+        private final ExpressionAST index;
+
+        Access(AST ast, VariableAST var, ExpressionAST index) {
+            this.ast = ast;
+            this.var = var;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Task executing the chunks of a range, it splits the range in halves until a single chunk is left.
+     */
+    private class Chunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, StructAST> structs;
+        private final Frame frame;
+        private final Map<String, FunctionAST> functions;
+
+        /**
+         * Frames of all the chunks of the loop, see {@link #executeChunk(Map, Frame, Map, int, int)}.
+         */
+        private final Frame[] chunks;
+
+        /**
+         * Start and length of the range of the loop.
+         */
+        private final int from;
+        private final long length;
+
+        /**
+         * Chunks executed by this task.
+         */
+        private final int first, last;
+
+        Chunks(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions, Frame[] chunks, int from, long length, int first, int last) {
+            this.structs = structs;
+            this.frame = frame;
+            this.functions = functions;
+            this.chunks = chunks;
+            this.from = from;
+            this.length = length;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.last - this.first > 1) {
+                int middle = (this.first + this.last) >>> 1;
+                invokeAll(new Chunks(this.structs, this.frame, this.functions, this.chunks, this.from, this.length, this.first, middle),
+                        new Chunks(this.structs, this.frame, this.functions, this.chunks, this.from, this.length, middle, this.last));
+                return;
+            }
+            int start = (int) (this.from + this.length * this.first / this.chunks.length);
+            int end = (int) (this.from + this.length * this.last / this.chunks.length);
+            try {
+                this.chunks[this.first] = executeChunk(this.structs, this.frame, this.functions, start, end);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeStrings(this.reductions.toArray(new String[0]));
+        out.writeNode(this.end);
+        out.writeBoolean(this.inclusive);
+        out.writeInt(this.frameSize);
+        out.writeStrings(this.reductionTypes);
+        out.writeInts(this.reductionDepths);
+        out.writeInts(this.reductionSlots);
+        out.writeInts(this.copySlots);
+    }
+
+    @Override
+    public String toString() {
+        String loop = super.toString();
+        StringBuilder str = new StringBuilder(Token.getLabelValue(Token.PARFOR));
+        int body = loop.indexOf(Token.getLabelValue(Token.RB) + " " + Token.getLabelValue(Token.LP));
+        str.append(loop, Token.getLabelValue(Token.FOR).length(), body + 1);
+        if (!this.reductions.isEmpty()) {
+            str.append(" ").append(REDUCE).append(Token.getLabelValue(Token.LB)).append(String.join(Token.getLabelValue(Token.COMMA) + " ", this.reductions))
+                    .append(Token.getLabelValue(Token.RB));
+        }
+        str.append(loop, body + 1, loop.length());
+        return str.toString();
+    }
+}
@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +19,11 @@ public class PrintfAST extends StatementAST {
         super(line, column);
     }
 
+    PrintfAST(ASTInput in) {
+        super(in);
+        this.expression = in.readNode();
+    }
+
     public ExpressionAST getExpression() {
         return expression;
     }
@@ -28,6 +34,7 @@ public class PrintfAST extends StatementAST {
 
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> calStack) throws Exception {
+        ParallelForAST.checkEffect(calStack, this, "'" + Token.getLabelValue(Token.PRINTF) + "'");
         if (this.expression != null) {
             this.expression.checkSemantics(types, vars, functions, calStack);
         }
@@ -35,21 +42,43 @@ public class PrintfAST extends StatementAST {
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    void resolve(Scope scope) throws Exception {
         if (this.expression != null) {
-            Object result = this.expression.execute(structs, vars, functions);
-            if (result == null) {
-                System.out.println("null");
-            } else {
-                System.out.println(result);
+            this.expression.resolve(scope);
+            this.expression = this.expression.specialize();
+        }
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        Object value = this.expression != null ? this.expression.execute(structs, frame, functions) : null;
+        Output output = frame.getOutput();
+        if (frame.isShared()) {
+            // The tasks of the program print under the lock of the output.
+            synchronized (output) {
+                print(output, value);
             }
         } else {
-            System.out.println();
+            print(output, value);
         }
 
         return null;
     }
 
+    private void print(Output output, Object value) throws IOException {
+        if (this.expression != null) {
+            output.println(value);
+        } else {
+            output.println();
+        }
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeNode(this.expression);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder(Token.getLabelValue(Token.PRINTF));
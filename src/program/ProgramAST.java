@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -18,11 +19,23 @@ public class ProgramAST extends AST {
      */
     private List<DeclarationAST> declarations;
 
+    /**
+     * Number of slots required by the global variables.
+     */
+    private int frameSize;
+
     public ProgramAST(int line, int column) {
         super(line, column);
         this.declarations = new LinkedList<>();
     }
 
+    ProgramAST(ASTInput in) {
+        super(in);
+        this.declarations = in.readNodes();
+        this.frameSize = in.readInt();
+        in.link();
+    }
+
     public void addDeclaration(DeclarationAST d) {
         this.declarations.add(d);
     }
@@ -35,6 +48,10 @@ public class ProgramAST extends AST {
         this.declarations = declarations;
     }
 
+    public int getFrameSize() {
+        return frameSize;
+    }
+
     public void semanticsCheck() throws Exception {
         // Start with the list of primitive types.
         // Custom types (structs) will be added in the order they are declared.
@@ -49,13 +66,22 @@ public class ProgramAST extends AST {
         Map<String, FunctionAST> functions = new HashMap<>();
         List<AST> callStack = new LinkedList<>();
         checkSemantics(types, vars, functions, callStack);
+        resolve(new Scope());
     }
 
     public void execute() throws Exception {
-        Map<String, StructAST> structs = new HashMap<>();
-        Map<String, ValueObject> vars = new HashMap<>();
-        Map<String, FunctionAST> functions = new HashMap<>();
-        execute(structs, vars, functions);
+        execute(Output.standard());
+    }
+
+    /**
+     * Executes the program, the program exits when main returns and all the tasks it started complete.
+     * Programs executed more than once should be compiled once, see {@link CompiledProgram}.
+     *
+     * @param output destination of the printed values, it is flushed when the program exits.
+     * @throws Exception in case of runtime errors.
+     */
+    public void execute(Output output) throws Exception {
+        new CompiledProgram(this).execute(new ExecutionContext(output));
     }
 
     @Override
@@ -91,19 +117,30 @@ public class ProgramAST extends AST {
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
-        boolean mainExists = false;
+    void resolve(Scope scope) throws Exception {
         for (DeclarationAST declaration : this.declarations) {
             if (declaration instanceof StructAST struct) {
-                structs.put(struct.getLabel(), struct);
-            } else if (declaration instanceof VarListAST vs) {
-                vs.execute(structs, vars, functions);
-            } else {
-                FunctionAST func = (FunctionAST) declaration;
-                functions.put(func.getLabel(), func);
+                scope.declareStruct(struct);
+            } else if (declaration instanceof FunctionAST func) {
+                scope.declareFunction(func);
+            }
+        }
+        for (DeclarationAST declaration : this.declarations) {
+            declaration.resolve(scope);
+        }
+        this.frameSize = scope.getSize();
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        boolean mainExists = false;
+        for (DeclarationAST declaration : this.declarations) {
+            if (declaration instanceof VarListAST vs) {
+                vs.execute(structs, frame, functions);
+            } else if (declaration instanceof FunctionAST func) {
                 if (func.getLabel().equals("main")) {
                     mainExists = true;
-                    func.execute(structs, vars, functions);
+                    func.invoke(structs, new Frame(frame, func.getFrameSize()), functions);
                 }
             }
         }
@@ -112,6 +149,24 @@ public class ProgramAST extends AST {
         return null;
     }
 
+    /**
+     * Executes the global declarations without calling main, see {@link CompiledProgram#initialize(ExecutionContext)}.
+     */
+    void initialize(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        for (DeclarationAST declaration : this.declarations) {
+            if (declaration instanceof VarListAST vs) {
+                vs.execute(structs, frame, functions);
+            }
+        }
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeNodes(this.declarations);
+        out.writeInt(this.frameSize);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder();
@@ -0,0 +1,155 @@
+package program;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Cache of checked programs, a program which did not change is executed without tokenizing, parsing and checking it.
+ * Every program is stored in a file of the cache directory named by the hash of its source.
+ * The file starts with a header: {@link #MAGIC}, {@link #VERSION}, the charset the source is decoded with and the source
+ * itself, which is compared to the source being loaded, so a hash collision can never load a different program.
+ * The header is followed by the AST, see {@link ASTOutput}.
+ */
+public class ProgramCache {
+    /**
+     * "BCLC" in ASCII.
+     */
+    private static final int MAGIC = 0x42434c43;
+
+    /**
+     * Version of the format, it has to be increased whenever the written state of any AST changes.
+     */
+    public static final int VERSION = 9;
+
+    /**
+     * Files of this size in bytes or larger are memory-mapped. Smaller ones are read since the first mapping
+     * takes longer than reading them.
+     */
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    /**
+     * Directory the files are stored in.
+     */
+    private final Path directory;
+
+    public ProgramCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return directory of the cache in the home directory of the user.
+     */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".cache", "bicycle");
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Loads the checked program.
+     *
+     * @param source source of the program.
+     * @return the program, null if it is not cached, or the file is damaged or written by another version.
+     * @throws IOException if the file cannot be read.
+     */
+    public ProgramAST load(byte[] source) throws IOException {
+        try (FileChannel channel = FileChannel.open(fileOf(source), StandardOpenOption.READ)) {
+            ByteBuffer buffer;
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                }
+                buffer.flip();
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !matches(buffer, charset())
+                    || !matches(buffer, source)) {
+                return null;
+            }
+            AST program = new ASTInput(buffer).readNode();
+            return program instanceof ProgramAST ? (ProgramAST) program : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // The file is damaged, it is replaced by the next store.
+            return null;
+        }
+    }
+
+    /**
+     * Stores the checked program, replacing the file atomically, so concurrent runs never read a partial file.
+     *
+     * @param source  source of the program.
+     * @param program the program, it has to pass the semantics check.
+     * @throws IOException if the file cannot be written.
+     */
+    public void store(byte[] source, ProgramAST program) throws IOException {
+        ASTOutput out = new ASTOutput();
+        out.writeNode(program);
+        byte[] charset = charset();
+        ByteBuffer header = ByteBuffer.allocate(16 + charset.length + source.length);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.putInt(charset.length).put(charset);
+        header.putInt(source.length).put(source);
+        header.flip();
+        ByteBuffer[] data = {header, ByteBuffer.wrap(out.toByteArray())};
+
+        Files.createDirectories(this.directory);
+        Path temp = Files.createTempFile(this.directory, "program", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (data[1].hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(temp, fileOf(source), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * CRC32C is used instead of a cryptographic hash since it is computed much faster,
+     * collisions are detected by the header.
+     *
+     * @return file of the program with the source.
+     */
+    private Path fileOf(byte[] source) {
+        CRC32C crc = new CRC32C();
+        crc.update(source);
+        // Not a string concatenation, its bootstrap would take longer than the whole load.
+        String name = new StringBuilder(Long.toHexString(crc.getValue())).append('-')
+                .append(Integer.toHexString(source.length)).append(".bcc").toString();
+        return this.directory.resolve(name);
+    }
+
+    private static byte[] charset() {
+        return Charset.defaultCharset().name().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads a length-prefixed array and compares it to the expected one.
+     */
+    private static boolean matches(ByteBuffer buffer, byte[] expected) {
+        int length = buffer.getInt();
+        if (length != expected.length) {
+            return false;
+        }
+        int position = buffer.position();
+        buffer.position(position + length);
+        return buffer.slice(position, length).equals(ByteBuffer.wrap(expected));
+    }
+}
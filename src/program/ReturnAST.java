@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -14,10 +15,21 @@ public class ReturnAST extends StatementAST {
      */
     private ExpressionAST expression;
 
+    /**
+     * The returned call if the expression is a call, it runs after the function returns, see {@link TailCall}.
+     */
+    private CallFuncAST tailCall;
+
     public ReturnAST(int line, int column) {
         super(line, column);
     }
 
+    ReturnAST(ASTInput in) {
+        super(in);
+        this.expression = in.readNode();
+        this.tailCall = tailCallOf(this.expression);
+    }
+
     public ExpressionAST getExpression() {
         return expression;
     }
@@ -38,6 +50,10 @@ public class ReturnAST extends StatementAST {
                 func = (FunctionAST) call;
                 break;
             }
+            if (call instanceof ParallelForAST) {
+                // The iterations of a parallel loop can not return from the function.
+                break;
+            }
         }
         if (func == null) {
             throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Unexpected '" + this + "'!");
@@ -55,11 +71,45 @@ public class ReturnAST extends StatementAST {
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    void resolve(Scope scope) throws Exception {
         if (this.expression != null) {
-            return this.expression.execute(structs, vars, functions);
+            this.expression.resolve(scope);
+            this.expression = this.expression.specialize();
+        }
+        this.tailCall = tailCallOf(this.expression);
+    }
+
+    /**
+     * @return the function call in tail position, null if the returned expression is not a call of a function.
+     */
+    public CallFuncAST getTailCall() {
+        return tailCall;
+    }
+
+    private static CallFuncAST tailCallOf(ExpressionAST expression) {
+        if (expression != null && expression.getOperation() == Token.NONE && !(expression.getFunc() instanceof MethodCallAST)
+                && !(expression.getFunc() instanceof SpawnAST) && !(expression.getFunc() instanceof JoinAST)) {
+            return expression.getFunc();
         }
-        return new ReturnAST(this.getLine(), this.getColumn());
+        return null;
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (this.tailCall != null) {
+            frame.setReturnValue(new TailCall(this.tailCall.getFunction(), this.tailCall.bind(structs, frame, functions)));
+        } else if (this.expression != null) {
+            frame.setReturnValue(this.expression.execute(structs, frame, functions));
+        } else {
+            frame.setReturnValue(null);
+        }
+        return this;
+    }
+
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeNode(this.expression);
     }
 
     @Override
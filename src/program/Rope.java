@@ -0,0 +1,86 @@
+package program;
+
+/**
+ * Runtime representation of the long strings built by concatenation, see {@link #concat(Object, Object)}.
+ * A rope is a prefix of a builder it shares with the ropes it was appended to, so appending to the last built rope,
+ * e.g. in a loop, takes amortized constant time instead of copying the whole string. Appending to a rope which is no
+ * longer the whole builder copies the prefix into a new builder.
+ * The rope is flattened into a string only when it is compared, printed or used as a map key.
+ */
+public final class Rope {
+    /**
+     * Strings shorter than this are concatenated directly, copying them is cheaper than creating a builder.
+     */
+    private static final int MIN_LENGTH = 64;
+
+    /**
+     * The builder, shared by the ropes built by appending to each other. Appends are synchronized on it since
+     * the ropes may be shared by threads.
+     */
+    private final StringBuilder builder;
+
+    /**
+     * Length of the prefix of the builder this rope represents.
+     */
+    private final int length;
+
+    /**
+     * The flattened string, computed on the first use.
+     */
+    private String flat;
+
+    private Rope(StringBuilder builder, int length) {
+        this.builder = builder;
+        this.length = length;
+    }
+
+    /**
+     * Concatenates two values, at least one of which is a string or a rope.
+     *
+     * @return a string if the result is short, a rope otherwise.
+     */
+    public static Object concat(Object left, Object right) {
+        String tail = ArraySupport.toString(right);
+        if (left instanceof Rope rope) {
+            return rope.append(tail);
+        }
+        String head = ArraySupport.toString(left);
+        int length = head.length() + tail.length();
+        if (length < MIN_LENGTH) {
+            return head + tail;
+        }
+        StringBuilder builder = new StringBuilder(2 * length).append(head).append(tail);
+        return new Rope(builder, length);
+    }
+
+    private Rope append(String tail) {
+        synchronized (this.builder) {
+            if (this.builder.length() == this.length) {
+                this.builder.append(tail);
+                return new Rope(this.builder, this.builder.length());
+            }
+            int length = this.length + tail.length();
+            StringBuilder builder = new StringBuilder(2 * length).append(this.builder, 0, this.length).append(tail);
+            return new Rope(builder, length);
+        }
+    }
+
+    /**
+     * @return the value itself, a rope is flattened into a string.
+     */
+    public static Object flatten(Object value) {
+        return value instanceof Rope ? value.toString() : value;
+    }
+
+    @Override
+    public String toString() {
+        String flat = this.flat;
+        if (flat == null) {
+            synchronized (this.builder) {
+                flat = this.builder.substring(0, this.length);
+            }
+            this.flat = flat;
+        }
+        return flat;
+    }
+}
@@ -0,0 +1,153 @@
+package program;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lexical scope used to resolve variable labels into frame slots.
+ * A scope either starts a new frame (global declarations, function, struct initializer)
+ * or is a block (for-loop, if-statement) which allocates its slots in the enclosing frame.
+ */
+public class Scope {
+    /**
+     * Enclosing scope, null for the global scope.
+     */
+    private final Scope parent;
+
+    /**
+     * Scope which owns the frame the variables of this scope are stored in.
+     */
+    private final Scope owner;
+
+    /**
+     * Variables declared in this scope. It is a map of the variable name to the variable itself.
+     */
+    private final Map<String, VariableAST> variables;
+
+    /**
+     * Declared structs, shared by all scopes of the program. It is a map of the struct name to the struct itself.
+     */
+    private final Map<String, StructAST> structs;
+
+    /**
+     * Declared functions, shared by all scopes of the program. It is a map of the function name to the function itself.
+     */
+    private final Map<String, FunctionAST> functions;
+
+    /**
+     * Number of slots allocated so far. Only used by the frame owner.
+     */
+    private int size;
+
+    private Scope(Scope parent, boolean newFrame) {
+        this.parent = parent;
+        this.owner = newFrame ? this : parent.owner;
+        this.variables = new HashMap<>();
+        this.structs = parent != null ? parent.structs : new HashMap<>();
+        this.functions = parent != null ? parent.functions : new HashMap<>();
+    }
+
+    public Scope() {
+        this(null, true);
+    }
+
+    /**
+     * @return a nested scope which starts a new frame.
+     */
+    public Scope newFrame() {
+        return new Scope(this, true);
+    }
+
+    /**
+     * @return a nested scope which stores its variables in the frame of this scope.
+     */
+    public Scope newBlock() {
+        return new Scope(this, false);
+    }
+
+    /**
+     * Allocates a slot for the variable.
+     *
+     * @param variable variable to declare.
+     */
+    public void declare(VariableAST variable) {
+        variable.setSlot(this.owner.size++);
+        this.variables.put(variable.getLabel(), variable);
+    }
+
+    /**
+     * Makes the struct visible in all scopes of the program.
+     *
+     * @param struct struct to declare.
+     */
+    public void declareStruct(StructAST struct) {
+        this.structs.put(struct.getLabel(), struct);
+    }
+
+    /**
+     * @param label name of the struct.
+     * @return the declared struct or null if it does not exist.
+     */
+    public StructAST lookupStruct(String label) {
+        return this.structs.get(label);
+    }
+
+    /**
+     * Makes the function visible in all scopes of the program.
+     *
+     * @param function function to declare.
+     */
+    public void declareFunction(FunctionAST function) {
+        this.functions.put(function.getLabel(), function);
+    }
+
+    /**
+     * @param label name of the function.
+     * @return the declared function or null if it does not exist.
+     */
+    public FunctionAST lookupFunction(String label) {
+        return this.functions.get(label);
+    }
+
+    /**
+     * @return number of slots the frame of this scope requires.
+     */
+    public int getSize() {
+        return this.owner.size;
+    }
+
+    /**
+     * Finds the declaration of the variable.
+     *
+     * @param label name of the variable.
+     * @return the declared variable or null if it is not visible in this scope.
+     */
+    public VariableAST lookup(String label) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            VariableAST variable = scope.variables.get(label);
+            if (variable != null) {
+                return variable;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calculates the number of frames between this scope and the declaration of the variable.
+     *
+     * @param label name of the variable.
+     * @return the depth, see {@link Frame#get(int, int)}.
+     */
+    public int depthOf(String label) {
+        int depth = 0;
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            if (scope.variables.containsKey(label)) {
+                return depth;
+            }
+            if (scope.owner == scope) {
+                depth++;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,40 @@
+package program;
+
+import lexer.Token;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AST for the function calls started as tasks, e.g. "spawn f(x)", see {@link Task}.
+ * The arguments are evaluated by the spawning thread, the function runs on a thread of its own in a frame of its own
+ * and the spawn evaluates to the task&lt;T&gt; handle, where T is the return type of the function.
+ */
+public class SpawnAST extends CallFuncAST {
+    public SpawnAST(String label, int line, int column) {
+        super(label, line, column);
+    }
+
+    SpawnAST(ASTInput in) {
+        super(in);
+    }
+
+    @Override
+    String checkType(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        return Task.TYPE + Token.getLabelValue(Token.LESS) + super.checkType(types, vars, functions, callStack) + Token.getLabelValue(Token.MORE);
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        FunctionAST function = getFunction();
+        Frame callee = bind(structs, frame, functions);
+        Frame globals = frame.getGlobals();
+        globals.share();
+        return globals.getTasks().spawn(() -> function.invoke(structs, callee, functions));
+    }
+
+    @Override
+    public String toString() {
+        return Token.getLabelValue(Token.SPAWN) + " " + super.toString();
+    }
+}
@@ -1,5 +1,8 @@
 package program;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Base class for statement ASTs.
  */
@@ -7,4 +10,33 @@ public abstract class StatementAST extends AST {
     public StatementAST(int line, int column) {
         super(line, column);
     }
+
+    StatementAST(ASTInput in) {
+        super(in);
+    }
+
+    /**
+     * Executes a block of statements.
+     *
+     * @param statements statements of the block.
+     * @param structs    list of structs declared so far. It is a map of the struct name to the struct itself.
+     * @param frame      frame holding the values of the variables visible to the block.
+     * @param functions  list of functions declared so far. It is a map of the function name to the function itself.
+     * @return null if the block completed normally, a {@link BreakAST} if a loop break was executed,
+     * or a {@link ReturnAST} if a return was executed (the value is stored in the frame).
+     * @throws Exception in case of runtime errors.
+     */
+    static Object executeStatements(List<StatementAST> statements, Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        for (StatementAST statement : statements) {
+            if (statement instanceof IfChainAST || statement instanceof ForLoopAST || statement instanceof ReturnAST || statement instanceof BreakAST) {
+                Object ret = statement.execute(structs, frame, functions);
+                if (ret != null) {
+                    return ret;
+                }
+            } else {
+                statement.execute(structs, frame, functions);
+            }
+        }
+        return null;
+    }
 }
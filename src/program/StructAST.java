@@ -2,6 +2,8 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -21,12 +23,46 @@ public class StructAST extends DeclarationAST {
      */
     private List<VarListAST> fields;
 
+    /**
+     * Number of slots required to evaluate the initial values of the fields.
+     */
+    private int frameSize;
+
+    /**
+     * Layout of the instances computed by the semantics check, see {@link StructObject}.
+     * It is map of field names to their indexes.
+     */
+    private Map<String, Integer> fieldIndexes;
+
+    /**
+     * Names of the fields by their indexes.
+     */
+    private String[] fieldNames;
+
+    /**
+     * Indexes of the fields in the order they are printed.
+     */
+    private int[] printOrder;
+
     public StructAST(String label, int line, int column) {
         super(line, column);
         this.label = label;
         this.fields = new LinkedList<>();
     }
 
+    StructAST(ASTInput in) {
+        super(in);
+        this.label = in.readString();
+        this.fields = in.readNodes();
+        this.frameSize = in.readInt();
+        this.fieldNames = in.readStrings();
+        this.printOrder = in.readInts();
+        this.fieldIndexes = new HashMap<>();
+        for (int i = 0; i < this.fieldNames.length; i++) {
+            this.fieldIndexes.put(this.fieldNames[i], i);
+        }
+    }
+
     public void addField(VarListAST field) {
         this.fields.add(field);
     }
@@ -47,8 +83,37 @@ public class StructAST extends DeclarationAST {
         this.fields = fields;
     }
 
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * @return number of the fields an instance stores.
+     */
+    public int getFieldCount() {
+        return this.fieldNames.length;
+    }
+
+    /**
+     * @param name name of the field.
+     * @return index of the field in the instances, -1 if the struct does not have the field.
+     */
+    public int getFieldIndex(String name) {
+        Integer index = this.fieldIndexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    String getFieldName(int index) {
+        return this.fieldNames[index];
+    }
+
+    int[] getPrintOrder() {
+        return this.printOrder;
+    }
+
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> varList, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
+        layout();
         Map<String, VariableAST> vars = new HashMap<>(varList);
         for (VarListAST vs : this.fields) {
             vs.checkSemantics(types, vars, functions, callStack);
@@ -61,11 +126,53 @@ public class StructAST extends DeclarationAST {
         return null;
     }
 
+    /**
+     * Assigns the fields their indexes in the order they are declared.
+     */
+    private void layout() {
+        List<String> names = new ArrayList<>();
+        this.fieldIndexes = new HashMap<>();
+        for (VarListAST vs : this.fields) {
+            for (VariableAST v : vs.getVariables()) {
+                if (this.fieldIndexes.putIfAbsent(v.getLabel(), names.size()) == null) {
+                    names.add(v.getLabel());
+                }
+            }
+        }
+        this.fieldNames = names.toArray(new String[0]);
+
+        // Instances print their fields in the iteration order of the map.
+        this.printOrder = new int[this.fieldNames.length];
+        int i = 0;
+        for (int index : this.fieldIndexes.values()) {
+            this.printOrder[i++] = index;
+        }
+    }
+
+    @Override
+    void resolve(Scope scope) throws Exception {
+        Scope init = scope.newFrame();
+        for (VarListAST vs : this.fields) {
+            vs.resolve(init);
+        }
+        this.frameSize = init.getSize();
+    }
+
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
         return null;
     }
 
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeString(this.label);
+        out.writeNodes(this.fields);
+        out.writeInt(this.frameSize);
+        out.writeStrings(this.fieldNames);
+        out.writeInts(this.printOrder);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder(Token.getLabelValue(Token.STRUCT));
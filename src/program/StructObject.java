@@ -2,54 +2,39 @@ package program;
 
 import lexer.Token;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Information about a struct instance.
  */
 public class StructObject {
     /**
-     * Name of the struct.
+     * Declaration of the struct, it defines the layout of the fields.
      */
-    private String label;
+    private final StructAST struct;
 
     /**
-     * Fields of the struct. It is map of field names to their values.
+     * Fields of the struct. The index of a field is given by {@link StructAST#getFieldIndex(String)}.
      */
-    private Map<String, Object> fields;
-
-    public StructObject(String label) {
-        this.label = label;
-        this.fields = new HashMap<>();
-    }
+    private final Object[] fields;
 
-    public void addField(String label, Object value) {
-        this.fields.put(label, value);
+    public StructObject(StructAST struct) {
+        this.struct = struct;
+        this.fields = new Object[struct.getFieldCount()];
     }
 
-    public Object getField(String name) {
-        return this.fields.get(name);
+    public Object getField(int index) {
+        return this.fields[index];
     }
 
-    public void setField(String name, Object value) {
-        this.fields.put(name, value);
+    public void setField(int index, Object value) {
+        this.fields[index] = value;
     }
 
     public String getLabel() {
-        return label;
-    }
-
-    public void setLabel(String label) {
-        this.label = label;
-    }
-
-    public Map<String, Object> getFields() {
-        return fields;
+        return this.struct.getLabel();
     }
 
-    public void setFields(Map<String, Object> fields) {
-        this.fields = fields;
+    public StructAST getStruct() {
+        return struct;
     }
 
     @Override
@@ -58,24 +43,24 @@ public class StructObject {
         str.append(Token.getLabelValue(Token.LP));
         str.append(" ");
         boolean isFirst = true;
-        for (String k : this.fields.keySet()) {
+        for (int i : this.struct.getPrintOrder()) {
             if (!isFirst) {
                 str.append(Token.getLabelValue(Token.COMMA));
                 str.append(" ");
             } else {
                 isFirst = false;
             }
-            str.append(k);
+            str.append(this.struct.getFieldName(i));
             str.append(" ");
             str.append(Token.getLabelValue(Token.ASSIGNMENT));
             str.append(" ");
-            if (this.fields.get(k) != null) {
-                str.append(this.fields.get(k));
+            if (this.fields[i] != null) {
+                str.append(ArraySupport.toString(this.fields[i]));
             } else {
                 str.append("null");
             }
         }
-        if (!this.fields.isEmpty()) {
+        if (this.fields.length != 0) {
             str.append(" ");
             str.append(Token.getLabelValue(Token.RP));
         }
@@ -0,0 +1,30 @@
+package program;
+
+/**
+ * Call in tail position, it is returned by the calling function instead of its result
+ * and executed by {@link FunctionAST#invoke(java.util.Map, Frame, java.util.Map)} after the caller has returned.
+ */
+final class TailCall {
+    /**
+     * The called function.
+     */
+    private final FunctionAST function;
+
+    /**
+     * Frame of the call with the arguments already assigned.
+     */
+    private final Frame frame;
+
+    TailCall(FunctionAST function, Frame frame) {
+        this.function = function;
+        this.frame = frame;
+    }
+
+    FunctionAST getFunction() {
+        return function;
+    }
+
+    Frame getFrame() {
+        return frame;
+    }
+}
@@ -0,0 +1,77 @@
+package program;
+
+import lexer.Token;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runtime representation of the task&lt;T&gt; values, the handles of the function calls started by spawn, see {@link SpawnAST}.
+ * The result of the call is returned by join, see {@link JoinAST}.
+ */
+public final class Task {
+    public static final String TYPE = "task";
+
+    /**
+     * The running call.
+     */
+    private final Future<Object> future;
+
+    /**
+     * The tasks of the program which are not joined yet, the task removes itself when it is joined.
+     */
+    private final Tasks tasks;
+
+    Task(Future<Object> future, Tasks tasks) {
+        this.future = future;
+        this.tasks = tasks;
+    }
+
+    public static boolean isTaskType(String type) {
+        return type != null && type.startsWith(TYPE + Token.getLabelValue(Token.LESS)) && type.endsWith(Token.getLabelValue(Token.MORE));
+    }
+
+    /**
+     * @param type task type, e.g. "task&lt;int&gt;".
+     * @return type of the result, e.g. "int".
+     */
+    public static String resultType(String type) {
+        return type.substring(TYPE.length() + 1, type.length() - 1);
+    }
+
+    /**
+     * @return whether the task type has a single declared type argument, which may be void.
+     */
+    static boolean isDeclared(Map<String, Map<String, String>> types, String type) {
+        List<String> arguments = CollectionSupport.typeArguments(type);
+        return arguments.size() == 1 && ArraySupport.isDeclared(types, arguments.get(0));
+    }
+
+    /**
+     * Waits for the call to complete.
+     *
+     * @return result of the called function.
+     * @throws Exception the runtime error of the call.
+     */
+    public Object join() throws Exception {
+        try {
+            return this.future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (Exception) e.getCause();
+        } finally {
+            if (this.future.isDone()) {
+                this.tasks.joined(this);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return TYPE + (this.future.isDone() ? "(done)" : "(running)");
+    }
+}
@@ -0,0 +1,51 @@
+package program;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The tasks started by a single execution of a program, the program does not exit until all of them complete.
+ * Every task runs on a virtual thread, a blocked join does not hold a platform thread, see
+ * {@link ThreadSupport#newExecutor(String)}.
+ */
+final class Tasks {
+    private static final ExecutorService EXECUTOR = ThreadSupport.newExecutor("task");
+
+    /**
+     * Tasks which are not joined yet.
+     */
+    private final Set<Task> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Starts a task.
+     *
+     * @param call the function call, its arguments are already evaluated.
+     * @return handle of the task.
+     */
+    Task spawn(Callable<Object> call) {
+        Task task = new Task(EXECUTOR.submit(call), this);
+        this.running.add(task);
+        return task;
+    }
+
+    void joined(Task task) {
+        this.running.remove(task);
+    }
+
+    /**
+     * Waits for the tasks which are not joined, including the tasks they start.
+     *
+     * @throws Exception the runtime error of the first failed task.
+     */
+    void joinAll() throws Exception {
+        while (!this.running.isEmpty()) {
+            Iterator<Task> iterator = this.running.iterator();
+            if (iterator.hasNext()) {
+                iterator.next().join();
+            }
+        }
+    }
+}
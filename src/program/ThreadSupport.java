@@ -0,0 +1,33 @@
+package program;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads of the work which mostly waits, e.g. the tasks of the programs, see {@link Tasks}.
+ */
+public final class ThreadSupport {
+    private ThreadSupport() {
+    }
+
+    /**
+     * Every submitted call runs on a virtual thread, a blocked call does not hold a platform thread. The Java versions
+     * without virtual threads run the calls on daemon platform threads, created as needed and reused.
+     *
+     * @param name name of the platform threads.
+     * @return a new executor.
+     */
+    public static ExecutorService newExecutor(String name) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
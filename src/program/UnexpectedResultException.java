@@ -0,0 +1,24 @@
+package program;
+
+/**
+ * Thrown by the type-specialized execution methods (e.g. {@link ExpressionAST#executeInt}) when the runtime value
+ * does not have the statically expected type, which happens for null values. The caller falls back to the generic
+ * execution with the carried value.
+ */
+class UnexpectedResultException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The value which has been computed instead.
+     */
+    private final Object result;
+
+    UnexpectedResultException(Object result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    Object getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package program;
+
+/**
+ * Thrown by the compilers of a checked program (the bytecode compiler of the virtual machine and the JIT) for the
+ * features they do not compile, e.g. 'parfor' loops or tasks. The program is then executed by walking the AST.
+ * Any other exception of a compiler is a bug of the compiler.
+ */
+public class UnsupportedFeatureException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedFeatureException(String message) {
+        super(message);
+    }
+}
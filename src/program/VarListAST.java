@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,12 @@ public class VarListAST extends DeclarationAST {
         this.variables = new LinkedList<>();
     }
 
+    VarListAST(ASTInput in) {
+        super(in);
+        this.type = in.readString();
+        this.variables = in.readNodes();
+    }
+
     public void addVariable(VariableAST v) {
         this.variables.add(v);
     }
@@ -48,7 +55,7 @@ public class VarListAST extends DeclarationAST {
 
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
-        if (!types.containsKey(this.type)) {
+        if (!ArraySupport.isDeclared(types, this.type)) {
             throw new Exception("Error at line " + this.getLine() + ", column " + this.getColumn() + ": Type '" + this.type + "' does not exist!");
         }
         for (VariableAST v : this.variables) {
@@ -56,19 +63,39 @@ public class VarListAST extends DeclarationAST {
                 throw new Exception("Error at line " + v.getLine() + ", column " + v.getColumn() + ": variable '" + v.getLabel() + "' already exists!");
             }
             v.checkSemantics(types, vars, functions, callStack);
+            ParallelForAST.checkDeclaration(callStack, v);
             vars.put(v.getLabel(), v);
         }
         return null;
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    void resolve(Scope scope) throws Exception {
         for (VariableAST v : this.variables) {
-            vars.put(v.getLabel(), new ValueObject(v.execute(structs, vars, functions)));
+            v.resolve(scope);
+            scope.declare(v);
+        }
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        for (VariableAST v : this.variables) {
+            if (v.getValue() != null) {
+                v.getValue().executeInto(structs, frame, functions, frame, 0, v.getSlot());
+            } else {
+                frame.set(0, v.getSlot(), null);
+            }
         }
         return null;
     }
 
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeString(this.type);
+        out.writeNodes(this.variables);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder(this.type);
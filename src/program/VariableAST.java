@@ -2,6 +2,7 @@ package program;
 
 import lexer.Token;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -29,12 +30,38 @@ public class VariableAST extends StatementAST {
      */
     private boolean isParam;
 
+    /**
+     * Whether the variable is assigned somewhere after the declaration.
+     */
+    private boolean isAssigned;
+
+    /**
+     * Whether the declaration assigns a value, computed once by the semantics check.
+     */
+    private boolean isInitialized;
+
+    /**
+     * Slot of the variable in its frame, see {@link Scope#declare(VariableAST)}.
+     */
+    private int slot;
+
     public VariableAST(String type, String label, int line, int column) {
         super(line, column);
         this.type = type;
         this.label = label;
     }
 
+    VariableAST(ASTInput in) {
+        super(in);
+        this.type = in.readString();
+        this.label = in.readString();
+        this.value = in.readNode();
+        this.isParam = in.readBoolean();
+        this.isAssigned = in.readBoolean();
+        this.isInitialized = in.readBoolean();
+        this.slot = in.readInt();
+    }
+
     public String getType() {
         return type;
     }
@@ -67,6 +94,29 @@ public class VariableAST extends StatementAST {
         isParam = param;
     }
 
+    public boolean isAssigned() {
+        return isAssigned;
+    }
+
+    public void setAssigned(boolean assigned) {
+        isAssigned = assigned;
+    }
+
+    /**
+     * @return whether the variable has a value before it is read, see {@link #isParam()} and {@link #isAssigned()}.
+     */
+    public boolean isInitialized() {
+        return isParam || isAssigned || isInitialized;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
     @Override
     String checkSemantics(Map<String, Map<String, String>> types, Map<String, VariableAST> vars, Map<String, FunctionAST> functions, List<AST> callStack) throws Exception {
         if (types.containsKey(this.label)) {
@@ -74,6 +124,7 @@ public class VariableAST extends StatementAST {
         }
         if (this.value != null) {
             String valueType = this.value.checkSemantics(types, vars, functions, callStack);
+            this.isInitialized = valueType != null;
             if (valueType != null) {
                 if (!valueType.equals("null") && !this.type.equals(valueType)) {
                     throw new Exception("Error at line " + this.value.getLine() + ", column " + this.value.getColumn() + ": Type mismatch, expected '" + this.type + "', but found '" + valueType + "'!");
@@ -84,13 +135,33 @@ public class VariableAST extends StatementAST {
     }
 
     @Override
-    Object execute(Map<String, StructAST> structs, Map<String, ValueObject> vars, Map<String, FunctionAST> functions) throws Exception {
+    void resolve(Scope scope) throws Exception {
         if (this.value != null) {
-            return this.value.execute(structs, vars, functions);
+            this.value.resolve(scope);
+            this.value = this.value.specialize();
+        }
+    }
+
+    @Override
+    Object execute(Map<String, StructAST> structs, Frame frame, Map<String, FunctionAST> functions) throws Exception {
+        if (this.value != null) {
+            return this.value.execute(structs, frame, functions);
         }
         return null;
     }
 
+    @Override
+    void write(ASTOutput out) throws IOException {
+        super.write(out);
+        out.writeString(this.type);
+        out.writeString(this.label);
+        out.writeNode(this.value);
+        out.writeBoolean(this.isParam);
+        out.writeBoolean(this.isAssigned);
+        out.writeBoolean(this.isInitialized);
+        out.writeInt(this.slot);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder(this.label);
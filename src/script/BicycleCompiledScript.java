@@ -0,0 +1,58 @@
+package script;
+
+import program.CompiledProgram;
+import program.ExecutionContext;
+import program.Output;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.time.Duration;
+
+/**
+ * A checked program, every evaluation executes it in its own {@link ExecutionContext}, so the script can be evaluated
+ * by several threads at the same time.
+ */
+public class BicycleCompiledScript extends CompiledScript {
+    private final BicycleScriptEngine engine;
+
+    private final CompiledProgram program;
+
+    BicycleCompiledScript(BicycleScriptEngine engine, CompiledProgram program) {
+        this.engine = engine;
+        this.program = program;
+    }
+
+    public CompiledProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * Executes the program, main is called if the program has one.
+     *
+     * @return null, programs do not have a value.
+     */
+    @Override
+    public Object eval(ScriptContext context) throws ScriptException {
+        Object timeLimit = context.getAttribute(BicycleScriptEngine.TIME_LIMIT);
+        ExecutionContext execution = new ExecutionContext(new Output(context.getWriter(), Output.DEFAULT_SIZE, false),
+                timeLimit instanceof Duration duration ? duration : null);
+        try {
+            if (this.program.hasFunction("main")) {
+                this.program.execute(execution);
+            } else {
+                this.program.initialize(execution);
+            }
+        } catch (Exception e) {
+            throw BicycleScriptEngine.scriptException(e);
+        }
+        this.engine.evaluated(this.program, execution);
+        return null;
+    }
+
+    @Override
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,202 @@
+package script;
+
+import lexer.Tokenizer;
+import parser.Parser;
+import program.CompiledProgram;
+import program.ExecutionContext;
+import program.ProgramAST;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+
+/**
+ * Script engine of bicycle programs, see {@link javax.script}.
+ * A script is a program, it is checked once by {@link #compile(String)} and executed by every evaluation of the
+ * compiled script. The evaluation calls main, if the program has one, after the global declarations.
+ * <p>
+ * The functions of the program evaluated last are called by {@link #invokeFunction(String, Object...)} with the global
+ * variables of that evaluation, the arguments and the results are converted as described by
+ * {@link CompiledProgram#invoke(ExecutionContext, String, Object...)}. The functions can be invoked by several threads
+ * at the same time.
+ * <p>
+ * The printed values are written to the writer of the script context. The programs do not see the bindings,
+ * the time limit of an evaluation is read from the {@link #TIME_LIMIT} attribute of the context.
+ */
+public class BicycleScriptEngine extends AbstractScriptEngine implements Compilable, Invocable {
+    /**
+     * Attribute of the script context holding the time limit of the evaluation, a {@link java.time.Duration}.
+     * It applies to the functions invoked afterwards as well, see {@link ExecutionContext}.
+     */
+    public static final String TIME_LIMIT = "bicycle.timeLimit";
+
+    private final ScriptEngineFactory factory;
+
+    /**
+     * The program evaluated last and its execution, null until a program is evaluated.
+     */
+    private volatile Evaluation evaluation;
+
+    public BicycleScriptEngine() {
+        this(new BicycleScriptEngineFactory());
+    }
+
+    BicycleScriptEngine(ScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return compile(script).eval(context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return compile(reader).eval(context);
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        return compile(script.toCharArray());
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        StringBuilder source = new StringBuilder();
+        char[] buffer = new char[8192];
+        try {
+            for (int length = script.read(buffer); length >= 0; length = script.read(buffer)) {
+                source.append(buffer, 0, length);
+            }
+        } catch (IOException e) {
+            throw scriptException(e);
+        }
+        char[] chars = new char[source.length()];
+        source.getChars(0, chars.length, chars, 0);
+        return compile(chars);
+    }
+
+    private CompiledScript compile(char[] source) throws ScriptException {
+        try {
+            ProgramAST program = new Parser().parse(new Tokenizer(source).run());
+            program.semanticsCheck();
+            return new BicycleCompiledScript(this, new CompiledProgram(program));
+        } catch (Exception e) {
+            throw scriptException(e);
+        }
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    void evaluated(CompiledProgram program, ExecutionContext context) {
+        this.evaluation = new Evaluation(program, context);
+    }
+
+    @Override
+    public Object invokeFunction(String name, Object... args) throws ScriptException, NoSuchMethodException {
+        if (name == null) {
+            throw new NullPointerException("Function name is null");
+        }
+        Evaluation evaluation = this.evaluation;
+        if (evaluation == null || !evaluation.program.hasFunction(name)) {
+            throw new NoSuchMethodException("Function '" + name + "' does not exist!");
+        }
+        try {
+            return evaluation.program.invoke(evaluation.context, name, args != null ? args : new Object[0]);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw scriptException(e);
+        }
+    }
+
+    /**
+     * Bicycle values have no methods which can be invoked from Java.
+     *
+     * @throws IllegalArgumentException always.
+     */
+    @Override
+    public Object invokeMethod(Object thiz, String name, Object... args) {
+        throw new IllegalArgumentException("Values of bicycle programs have no methods, use invokeFunction");
+    }
+
+    /**
+     * @return implementation of the interface which calls the functions of the program evaluated last with the names of
+     * the methods, null if the program has no function for some method.
+     */
+    @Override
+    public <T> T getInterface(Class<T> clasz) {
+        if (clasz == null || !clasz.isInterface()) {
+            throw new IllegalArgumentException("Not an interface: " + clasz);
+        }
+        Evaluation evaluation = this.evaluation;
+        if (evaluation == null) {
+            return null;
+        }
+        for (Method method : clasz.getMethods()) {
+            if (Modifier.isAbstract(method.getModifiers()) && !evaluation.program.hasFunction(method.getName())) {
+                return null;
+            }
+        }
+        Object proxy = Proxy.newProxyInstance(clasz.getClassLoader(), new Class<?>[]{clasz}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    default -> clasz.getName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                };
+            }
+            try {
+                return evaluation.program.invoke(evaluation.context, method.getName(), args != null ? args : new Object[0]);
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Exception e) {
+                throw scriptException(e);
+            }
+        });
+        return clasz.cast(proxy);
+    }
+
+    @Override
+    public <T> T getInterface(Object thiz, Class<T> clasz) {
+        throw new IllegalArgumentException("Values of bicycle programs have no methods, use getInterface(Class)");
+    }
+
+    static ScriptException scriptException(Exception e) {
+        ScriptException exception = new ScriptException(e.getMessage());
+        exception.initCause(e);
+        return exception;
+    }
+
+    /**
+     * A program and the state of its evaluation.
+     */
+    private static final class Evaluation {
+        private final CompiledProgram program;
+        private final ExecutionContext context;
+
+        private Evaluation(CompiledProgram program, ExecutionContext context) {
+            this.program = program;
+            this.context = context;
+        }
+    }
+}
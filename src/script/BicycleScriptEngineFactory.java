@@ -0,0 +1,95 @@
+package script;
+
+import lexer.Token;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.List;
+
+/**
+ * Factory of {@link BicycleScriptEngine}, it is found by {@link javax.script.ScriptEngineManager} under the name
+ * "bicycle" and the extension "bcl".
+ */
+public class BicycleScriptEngineFactory implements ScriptEngineFactory {
+    private static final String NAME = "bicycle", VERSION = "1.0";
+
+    @Override
+    public String getEngineName() {
+        return NAME;
+    }
+
+    @Override
+    public String getEngineVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("bcl");
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return List.of();
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of(NAME);
+    }
+
+    @Override
+    public String getLanguageName() {
+        return NAME;
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return VERSION;
+    }
+
+    /**
+     * The engine can be used by several threads at the same time, see {@link BicycleScriptEngine}.
+     */
+    @Override
+    public Object getParameter(String key) {
+        return switch (key) {
+            case ScriptEngine.ENGINE, ScriptEngine.NAME, ScriptEngine.LANGUAGE -> NAME;
+            case ScriptEngine.ENGINE_VERSION, ScriptEngine.LANGUAGE_VERSION -> VERSION;
+            case "THREADING" -> "MULTITHREADED";
+            default -> null;
+        };
+    }
+
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        return obj + Token.getLabelValue(Token.DOT) + m + Token.getLabelValue(Token.LB)
+                + String.join(Token.getLabelValue(Token.COMMA) + " ", args) + Token.getLabelValue(Token.RB);
+    }
+
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        return Token.getLabelValue(Token.PRINTF) + Token.getLabelValue(Token.LB) + "\"" + toDisplay + "\"" + Token.getLabelValue(Token.RB);
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        StringBuilder str = new StringBuilder("void main() ");
+        str.append(Token.getLabelValue(Token.LP));
+        str.append("\n");
+        for (String statement : statements) {
+            str.append("    ");
+            str.append(statement);
+            str.append(Token.getLabelValue(Token.SEMICOLON));
+            str.append("\n");
+        }
+        str.append(Token.getLabelValue(Token.RP));
+        str.append("\n");
+        return str.toString();
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new BicycleScriptEngine(this);
+    }
+}
@@ -0,0 +1,507 @@
+package vm;
+
+import compiler.Chunk;
+import compiler.Module;
+import compiler.Opcode;
+import lexer.Token;
+import program.ArraySupport;
+import program.CollectionSupport;
+import program.ComparisonAST;
+import program.ExecutionContext;
+import program.ExpressionAST;
+import program.IntIntMap;
+import program.Output;
+import program.StructAST;
+import program.StructObject;
+
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+/**
+ * Stack based virtual machine which executes the compiled program.
+ * Calls do not nest Java frames, the call stack is kept in arrays.
+ * <p>
+ * Every stack slot is a pair of an object and a primitive. Integers and doubles are kept unboxed:
+ * the object is the {@link #INT} or {@link #DOUBLE} marker and the primitive holds the value.
+ * Any other value (including null) is kept in the object.
+ * <p>
+ * A run stops at the next jump back of a loop or the next call once its context is cancelled or its time limit is
+ * exceeded, see {@link #run(Module, ExecutionContext)}.
+ */
+public class VirtualMachine {
+    /**
+     * Markers of the unboxed values.
+     */
+    private static final Object INT = new Object();
+    private static final Object DOUBLE = new Object();
+
+    /**
+     * Values of the global variables.
+     */
+    private Object[] globals;
+    private long[] globalPrimitives;
+
+    /**
+     * Local variables and operand stacks of all the active calls.
+     */
+    private Object[] stack;
+    private long[] primitives;
+
+    /**
+     * Saved state of the callers: chunk, address of the next instruction and the frame start.
+     */
+    private Chunk[] callChunks;
+    private int[] callAddresses;
+    private int[] callBases;
+
+    /**
+     * Destination of the printed values.
+     */
+    private Output output;
+
+    /**
+     * State of the execution.
+     */
+    private ExecutionContext context;
+
+    /**
+     * Executes the program.
+     *
+     * @param module the compiled program.
+     * @throws Exception in case of runtime errors.
+     */
+    public void run(Module module) throws Exception {
+        run(module, Output.standard());
+    }
+
+    /**
+     * Runs the program.
+     *
+     * @param module the compiled program.
+     * @param output destination of the printed values, it is flushed when the program exits.
+     * @throws Exception in case of runtime errors.
+     */
+    public void run(Module module, Output output) throws Exception {
+        run(module, new ExecutionContext(output));
+    }
+
+    /**
+     * Runs the program, it stops when the context is cancelled or its time limit is exceeded.
+     *
+     * @param module  the compiled program.
+     * @param context state of the execution, only its output and its limits are used.
+     * @throws Exception in case of runtime errors.
+     */
+    public void run(Module module, ExecutionContext context) throws Exception {
+        Output output = context.getOutput();
+        this.output = output;
+        this.context = context;
+        this.globals = new Object[module.getGlobalsSize()];
+        this.globalPrimitives = new long[module.getGlobalsSize()];
+        this.stack = new Object[256];
+        this.primitives = new long[256];
+        this.callChunks = new Chunk[16];
+        this.callAddresses = new int[16];
+        this.callBases = new int[16];
+        Future<?> timer = context.startTimer();
+        try {
+            execute(module.getChunks(), module.getEntry());
+        } finally {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            output.flush();
+        }
+        if (!module.isMainExists()) throw new Exception("Warning: function 'main()' is required in order to execute program...");
+    }
+
+    private void execute(Chunk[] chunks, Chunk entry) throws Exception {
+        Object[] globals = this.globals;
+        long[] globalPrimitives = this.globalPrimitives;
+        ensureStack(entry.getFrameSize() + entry.getMaxStack());
+        Object[] stack = this.stack;
+        long[] primitives = this.primitives;
+        Chunk chunk = entry;
+        int[] code = chunk.getCode();
+        Object[] constants = chunk.getConstants();
+        int pc = 0, base = 0, sp = chunk.getFrameSize(), depth = 0;
+        ExecutionContext context = this.context;
+
+        while (true) {
+            switch (code[pc++]) {
+                case Opcode.CONST -> stack[sp++] = constants[code[pc++]];
+                case Opcode.ICONST -> {
+                    stack[sp] = INT;
+                    primitives[sp++] = code[pc++];
+                }
+                case Opcode.DCONST -> {
+                    stack[sp] = DOUBLE;
+                    primitives[sp++] = Double.doubleToRawLongBits((Double) constants[code[pc++]]);
+                }
+                case Opcode.NULL -> stack[sp++] = null;
+                case Opcode.LOAD -> {
+                    int slot = base + code[pc++];
+                    stack[sp] = stack[slot];
+                    primitives[sp++] = primitives[slot];
+                }
+                case Opcode.STORE -> {
+                    int slot = base + code[pc++];
+                    stack[slot] = stack[--sp];
+                    primitives[slot] = primitives[sp];
+                }
+                case Opcode.LOAD_GLOBAL -> {
+                    int slot = code[pc++];
+                    stack[sp] = globals[slot];
+                    primitives[sp++] = globalPrimitives[slot];
+                }
+                case Opcode.STORE_GLOBAL -> {
+                    int slot = code[pc++];
+                    globals[slot] = stack[--sp];
+                    globalPrimitives[slot] = primitives[sp];
+                }
+                case Opcode.GET_FIELD -> {
+                    StructObject object = (StructObject) stack[sp - 1];
+                    unbox(stack, primitives, sp - 1, object.getField(code[pc++]));
+                }
+                case Opcode.SET_FIELD -> {
+                    sp -= 2;
+                    ((StructObject) stack[sp]).setField(code[pc++], box(stack[sp + 1], primitives[sp + 1]));
+                }
+                case Opcode.NEW_ARRAY -> stack[sp - 1] = ArraySupport.newArray((String) constants[code[pc++]], index(stack[sp - 1], primitives[sp - 1]));
+                case Opcode.GET_ELEMENT -> {
+                    sp--;
+                    Object array = stack[sp - 1];
+                    int index = index(stack[sp], primitives[sp]);
+                    if (array instanceof int[] ints) {
+                        stack[sp - 1] = INT;
+                        primitives[sp - 1] = ints[index];
+                    } else if (array instanceof double[] doubles) {
+                        stack[sp - 1] = DOUBLE;
+                        primitives[sp - 1] = Double.doubleToRawLongBits(doubles[index]);
+                    } else {
+                        stack[sp - 1] = ArraySupport.get(array, index);
+                    }
+                }
+                case Opcode.SET_ELEMENT -> {
+                    sp -= 3;
+                    Object array = stack[sp];
+                    int index = index(stack[sp + 1], primitives[sp + 1]);
+                    if (array instanceof int[] ints && stack[sp + 2] == INT) {
+                        ints[index] = (int) primitives[sp + 2];
+                    } else if (array instanceof double[] doubles && stack[sp + 2] == DOUBLE) {
+                        doubles[index] = Double.longBitsToDouble(primitives[sp + 2]);
+                    } else {
+                        ArraySupport.set(array, index, box(stack[sp + 2], primitives[sp + 2]));
+                    }
+                }
+                case Opcode.ARRAY_LENGTH -> {
+                    primitives[sp - 1] = ArraySupport.length(stack[sp - 1]);
+                    stack[sp - 1] = INT;
+                }
+                case Opcode.NEW_COLLECTION -> stack[sp++] = CollectionSupport.newCollection((String) constants[code[pc++]]);
+                case Opcode.INVOKE_METHOD -> {
+                    int method = code[pc++];
+                    int count = code[pc++];
+                    sp -= count;
+                    Object collection = stack[sp - 1];
+                    if (collection instanceof IntIntMap map && method == CollectionSupport.GET && stack[sp] == INT) {
+                        stack[sp - 1] = INT;
+                        primitives[sp - 1] = map.get((int) primitives[sp]);
+                    } else if (collection instanceof IntIntMap map && method == CollectionSupport.PUT && stack[sp] == INT && stack[sp + 1] == INT) {
+                        map.put((int) primitives[sp], (int) primitives[sp + 1]);
+                        stack[sp - 1] = null;
+                    } else {
+                        Object[] args = new Object[count];
+                        for (int i = 0; i < count; i++) {
+                            args[i] = box(stack[sp + i], primitives[sp + i]);
+                        }
+                        unbox(stack, primitives, sp - 1, CollectionSupport.invoke(collection, method, args));
+                    }
+                }
+                case Opcode.ADD -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (left == INT && right == INT) {
+                        primitives[sp - 1] = (int) primitives[sp - 1] + (int) primitives[sp];
+                    } else if (left == DOUBLE && right == DOUBLE) {
+                        primitives[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(primitives[sp - 1]) + Double.longBitsToDouble(primitives[sp]));
+                    } else {
+                        calculate(stack, primitives, sp, Token.ADDITION);
+                    }
+                }
+                case Opcode.SUB -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (left == INT && right == INT) {
+                        primitives[sp - 1] = (int) primitives[sp - 1] - (int) primitives[sp];
+                    } else if (left == DOUBLE && right == DOUBLE) {
+                        primitives[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(primitives[sp - 1]) - Double.longBitsToDouble(primitives[sp]));
+                    } else {
+                        calculate(stack, primitives, sp, Token.SUBTRACTION);
+                    }
+                }
+                case Opcode.MUL -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (left == INT && right == INT) {
+                        primitives[sp - 1] = (int) primitives[sp - 1] * (int) primitives[sp];
+                    } else if (left == DOUBLE && right == DOUBLE) {
+                        primitives[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(primitives[sp - 1]) * Double.longBitsToDouble(primitives[sp]));
+                    } else {
+                        calculate(stack, primitives, sp, Token.MULTIPLICATION);
+                    }
+                }
+                case Opcode.DIV -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (left == INT && right == INT) {
+                        primitives[sp - 1] = (int) primitives[sp - 1] / (int) primitives[sp];
+                    } else if (left == DOUBLE && right == DOUBLE) {
+                        primitives[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(primitives[sp - 1]) / Double.longBitsToDouble(primitives[sp]));
+                    } else {
+                        calculate(stack, primitives, sp, Token.DIVISION);
+                    }
+                }
+                case Opcode.MOD -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (left == INT && right == INT) {
+                        primitives[sp - 1] = (int) primitives[sp - 1] % (int) primitives[sp];
+                    } else if (left == DOUBLE && right == DOUBLE) {
+                        primitives[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(primitives[sp - 1]) % Double.longBitsToDouble(primitives[sp]));
+                    } else {
+                        calculate(stack, primitives, sp, Token.MOD);
+                    }
+                }
+                case Opcode.COMPARE -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    int cmp = code[pc++];
+                    if (left == INT && right == INT) {
+                        stack[sp - 1] = test(cmp, Integer.compare((int) primitives[sp - 1], (int) primitives[sp]));
+                    } else if (left == DOUBLE && right == DOUBLE) {
+                        stack[sp - 1] = test(cmp, Double.compare(Double.longBitsToDouble(primitives[sp - 1]), Double.longBitsToDouble(primitives[sp])));
+                    } else {
+                        stack[sp - 1] = ComparisonAST.compare(cmp, box(left, primitives[sp - 1]), box(right, primitives[sp]));
+                    }
+                }
+                case Opcode.AND -> {
+                    if ((Boolean) stack[sp - 1]) {
+                        sp--;
+                        pc++;
+                    } else {
+                        pc = code[pc];
+                    }
+                }
+                case Opcode.OR -> {
+                    if ((Boolean) stack[sp - 1]) {
+                        pc = code[pc];
+                    } else {
+                        sp--;
+                        pc++;
+                    }
+                }
+                case Opcode.NOT -> stack[sp - 1] = !(Boolean) stack[sp - 1];
+                case Opcode.JUMP -> {
+                    int target = code[pc];
+                    if (target < pc) {
+                        // The next iteration of a loop.
+                        context.checkStopped();
+                    }
+                    pc = target;
+                }
+                case Opcode.JUMP_IF_FALSE -> pc = (Boolean) stack[--sp] ? pc + 1 : code[pc];
+                case Opcode.JUMP_UNLESS -> {
+                    sp -= 2;
+                    Object left = stack[sp];
+                    Object right = stack[sp + 1];
+                    int cmp = code[pc++];
+                    boolean holds;
+                    if (left == INT && right == INT) {
+                        holds = holds(cmp, Integer.compare((int) primitives[sp], (int) primitives[sp + 1]));
+                    } else if (left == DOUBLE && right == DOUBLE) {
+                        holds = holds(cmp, Double.compare(Double.longBitsToDouble(primitives[sp]), Double.longBitsToDouble(primitives[sp + 1])));
+                    } else {
+                        holds = ComparisonAST.compare(cmp, box(left, primitives[sp]), box(right, primitives[sp + 1]));
+                    }
+                    pc = holds ? pc + 1 : code[pc];
+                }
+                case Opcode.JUMP_IF_NOT_NULL -> pc = stack[--sp] != null ? code[pc] : pc + 1;
+                case Opcode.CALL -> {
+                    context.checkStopped();
+                    Chunk callee = chunks[code[pc++]];
+                    int count = code[pc++];
+                    if (depth == this.callChunks.length) {
+                        growCallStack();
+                    }
+                    this.callChunks[depth] = chunk;
+                    this.callAddresses[depth] = pc;
+                    this.callBases[depth] = base;
+                    depth++;
+
+                    base = sp - count;
+                    int top = base + callee.getFrameSize();
+                    if (top + callee.getMaxStack() > stack.length) {
+                        ensureStack(top + callee.getMaxStack());
+                        stack = this.stack;
+                        primitives = this.primitives;
+                    }
+                    Arrays.fill(stack, sp, top, null);
+                    sp = top;
+                    chunk = callee;
+                    code = chunk.getCode();
+                    constants = chunk.getConstants();
+                    pc = 0;
+                }
+                case Opcode.TAIL_CALL -> {
+                    context.checkStopped();
+                    Chunk callee = chunks[code[pc++]];
+                    int count = code[pc++];
+                    // The arguments replace the local variables of the current call.
+                    System.arraycopy(stack, sp - count, stack, base, count);
+                    System.arraycopy(primitives, sp - count, primitives, base, count);
+                    int top = base + callee.getFrameSize();
+                    if (top + callee.getMaxStack() > stack.length) {
+                        ensureStack(top + callee.getMaxStack());
+                        stack = this.stack;
+                        primitives = this.primitives;
+                    }
+                    Arrays.fill(stack, base + count, top, null);
+                    sp = top;
+                    chunk = callee;
+                    code = chunk.getCode();
+                    constants = chunk.getConstants();
+                    pc = 0;
+                }
+                case Opcode.NEW_STRUCT -> {
+                    StructObject object = new StructObject((StructAST) constants[code[pc++]]);
+                    int count = code[pc++];
+                    for (int i = 0; i < count; i++) {
+                        object.setField(i, box(stack[base + i], primitives[base + i]));
+                    }
+                    stack[sp++] = object;
+                }
+                case Opcode.RETURN -> {
+                    if (depth == 0) {
+                        return;
+                    }
+                    Object result = stack[--sp];
+                    long primitive = primitives[sp];
+                    sp = base;
+                    depth--;
+                    chunk = this.callChunks[depth];
+                    pc = this.callAddresses[depth];
+                    base = this.callBases[depth];
+                    code = chunk.getCode();
+                    constants = chunk.getConstants();
+                    stack[sp] = result;
+                    primitives[sp++] = primitive;
+                }
+                case Opcode.PRINT -> {
+                    sp--;
+                    if (stack[sp] == INT) {
+                        this.output.println((int) primitives[sp]);
+                    } else if (stack[sp] == DOUBLE) {
+                        this.output.println(Double.longBitsToDouble(primitives[sp]));
+                    } else {
+                        this.output.println(stack[sp]);
+                    }
+                }
+                case Opcode.PRINT_EMPTY -> this.output.println();
+                case Opcode.POP -> sp--;
+                default -> throw new Exception("Unknown instruction " + code[pc - 1] + " in '" + chunk.getName() + "'");
+            }
+        }
+    }
+
+    /**
+     * Applies an arithmetic operation to the boxed operands, for the operands of different or non-numeric types.
+     *
+     * @param sp        position of the right operand, the result replaces the left operand.
+     * @param operation the operation token label.
+     */
+    private static void calculate(Object[] stack, long[] primitives, int sp, int operation) {
+        Object left = box(stack[sp - 1], primitives[sp - 1]);
+        Object right = box(stack[sp], primitives[sp]);
+        unbox(stack, primitives, sp - 1, ExpressionAST.calculate(operation, left, right));
+    }
+
+    /**
+     * @return the integer of the stack slot, used as an array index or length.
+     */
+    private static int index(Object value, long primitive) {
+        return value == INT ? (int) primitive : (Integer) value;
+    }
+
+    private static Object box(Object value, long primitive) {
+        if (value == INT) {
+            return (int) primitive;
+        }
+        if (value == DOUBLE) {
+            return Double.longBitsToDouble(primitive);
+        }
+        return value;
+    }
+
+    private static void unbox(Object[] stack, long[] primitives, int slot, Object value) {
+        if (value instanceof Integer i) {
+            stack[slot] = INT;
+            primitives[slot] = i;
+        } else if (value instanceof Double d) {
+            stack[slot] = DOUBLE;
+            primitives[slot] = Double.doubleToRawLongBits(d);
+        } else {
+            stack[slot] = value;
+        }
+    }
+
+    /**
+     * Converts the result of a comparison into the boolean value of the comparison operator.
+     *
+     * @param cmp     the comparison token label.
+     * @param compare result of the comparison.
+     * @return whether the operator holds.
+     */
+    private static boolean holds(int cmp, int compare) {
+        return switch (cmp) {
+            case Token.EQUAL -> compare == 0;
+            case Token.NOT_EQUAL -> compare != 0;
+            case Token.LESS -> compare < 0;
+            case Token.MORE -> compare > 0;
+            case Token.LESS_EQUAL -> compare <= 0;
+            default -> compare >= 0;
+        };
+    }
+
+    private static Boolean test(int cmp, int compare) {
+        return switch (cmp) {
+            case Token.EQUAL -> compare == 0;
+            case Token.NOT_EQUAL -> compare != 0;
+            case Token.LESS -> compare < 0;
+            case Token.MORE -> compare > 0;
+            case Token.LESS_EQUAL -> compare <= 0;
+            case Token.MORE_EQUAL -> compare >= 0;
+            default -> null;
+        };
+    }
+
+    /**
+     * Makes sure the value stack can hold the requested number of elements.
+     *
+     * @param size requested number of elements.
+     */
+    private void ensureStack(int size) {
+        if (size > this.stack.length) {
+            int length = Math.max(size, this.stack.length * 2);
+            this.stack = Arrays.copyOf(this.stack, length);
+            this.primitives = Arrays.copyOf(this.primitives, length);
+        }
+    }
+
+    private void growCallStack() {
+        int length = this.callChunks.length * 2;
+        this.callChunks = Arrays.copyOf(this.callChunks, length);
+        this.callAddresses = Arrays.copyOf(this.callAddresses, length);
+        this.callBases = Arrays.copyOf(this.callBases, length);
+    }
+}
@@ -0,0 +1,179 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DaemonTest {
+    /**
+     * Tags of the frames, see {@link Daemon}.
+     */
+    private static final byte OUTPUT = 0, ERROR = 1, EXIT = 2;
+
+    @TempDir
+    static Path directory;
+
+    private static Path socket;
+
+    @BeforeAll
+    static void startDaemon() throws Exception {
+        socket = directory.resolve("daemon").resolve("d.sock");
+        Daemon daemon = new Daemon(socket, Duration.ofSeconds(1));
+        Thread thread = new Thread(() -> {
+            try {
+                daemon.serve();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        // The daemon serves until the tests exit.
+        thread.setDaemon(true);
+        thread.start();
+        for (int i = 0; i < 500 && !isListening(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(isListening());
+    }
+
+    private static boolean isListening() {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String program(String name, String source) throws IOException {
+        return Files.writeString(directory.resolve(name), source).toString();
+    }
+
+    /**
+     * Result of {@link Daemon#request(Path, String[])}, the standard output and the standard error it wrote.
+     */
+    private record Result(int status, String output, String errors) {
+    }
+
+    private static Result request(String... args) throws Exception {
+        PrintStream out = System.out, err = System.err;
+        ByteArrayOutputStream output = new ByteArrayOutputStream(), errors = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        System.setErr(new PrintStream(errors, true));
+        try {
+            int status = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> Daemon.request(socket, args));
+            return new Result(status, output.toString(), errors.toString());
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+    }
+
+    @Test
+    void runsProgramOfClient() throws Exception {
+        String file = program("print.bcl", "void main() { for (int i = 1; i <= 3; i = i + 1) { printf(i); } }");
+        Result result = request("--no-cache", file);
+        assertEquals(new Result(0, "1\n2\n3\n", ""), result);
+        // The checked program is kept in memory, on every engine.
+        assertEquals(result, request("--no-cache", "--vm", file));
+        assertEquals(result, request("--no-cache", "--jit", file));
+    }
+
+    @Test
+    void reportsErrorOfProgram() throws Exception {
+        String file = program("error.bcl", "void main() { printf(1); int[] a = new int[1]; a[2] = 1; }");
+        Result result = request("--no-cache", file);
+        assertEquals(1, result.status());
+        assertEquals("1\n", result.output());
+        assertFalse(result.errors().isEmpty());
+    }
+
+    @Test
+    void stopsProgramAfterTimeLimit() throws Exception {
+        String file = program("spin.bcl", "void main() { for (int i = 0; i < 1; i = i) { } }");
+        Result result = request("--no-cache", file);
+        assertEquals(1, result.status());
+        assertTrue(result.errors().contains("Execution exceeded the time limit of 1000 ms!"), result.errors());
+    }
+
+    @Test
+    void refusesCacheOfClient() throws Exception {
+        String file = program("cache.bcl", "void main() { printf(1); }");
+        Result result = request("--cache", directory.resolve("cache").toString(), file);
+        assertEquals(new Result(1, "", "Option '--cache' is not allowed on the daemon\n"), result);
+        assertFalse(Files.exists(directory.resolve("cache")));
+    }
+
+    @Test
+    void writesOutputFileByClient() throws Exception {
+        String file = program("output.bcl", "void main() { printf(\"a\"); printf(2); }");
+        Path output = directory.resolve("output.txt");
+        assertEquals(new Result(0, "", ""), request("--output", output.toString(), "--no-cache", file));
+        assertEquals("a\n2\n", Files.readString(output));
+    }
+
+    @Test
+    void sendsFramesEndedByExitStatus() throws Exception {
+        String file = program("frames.bcl", "void main() { printf(1); printf(2); }");
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeUTF(directory.toString());
+            out.writeInt(2);
+            out.writeUTF("--no-cache");
+            // Relative to the directory of the client.
+            out.writeUTF(directory.relativize(Path.of(file)).toString());
+            out.flush();
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte tag;
+            while ((tag = in.readByte()) == OUTPUT) {
+                output.write(in.readNBytes(in.readInt()));
+            }
+            assertEquals("1\n2\n", output.toString(StandardCharsets.UTF_8));
+            assertEquals(EXIT, tag);
+            assertEquals(0, in.readInt());
+            assertThrows(EOFException.class, in::readByte);
+        }
+    }
+
+    @Test
+    void sendsErrorFrameBeforeExitStatus() throws Exception {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeUTF(directory.toString());
+            out.writeInt(2);
+            out.writeUTF("--no-cache");
+            out.writeUTF("missing.bcl");
+            out.flush();
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            assertEquals(ERROR, in.readByte());
+            String errors = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+            assertTrue(errors.contains("missing.bcl"), errors);
+            assertEquals(EXIT, in.readByte());
+            assertEquals(1, in.readInt());
+            assertThrows(EOFException.class, in::readByte);
+        }
+    }
+
+    @Test
+    void failsWithoutDaemon() {
+        assertThrows(IOException.class, () -> Daemon.request(directory.resolve("none.sock"), new String[]{"x.bcl"}));
+    }
+}
@@ -0,0 +1,53 @@
+package program;
+
+import lexer.Tokenizer;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class ChannelTest {
+    private static CompiledProgram compile(String source) throws Exception {
+        ProgramAST program = new Parser().parse(new Tokenizer(source.toCharArray()).run());
+        program.semanticsCheck();
+        return new CompiledProgram(program);
+    }
+
+    private static void assertStopped(String source) {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            ExecutionContext context = new ExecutionContext(new Output(new ByteArrayOutputStream(), Output.DEFAULT_SIZE, false), Duration.ofMillis(100));
+            Exception e = assertThrows(Exception.class, () -> compile(source).execute(context));
+            assertEquals("Execution exceeded the time limit of 100 ms!", e.getMessage());
+        });
+    }
+
+    @Test
+    void stopsReceiveFromEmptyChannel() {
+        assertStopped("void main() { chan<int> c = new chan<int>(); int v = c.receive(); }");
+    }
+
+    @Test
+    void stopsLoopOverChannelWhichIsNotClosed() {
+        assertStopped("void main() { chan<int> c = new chan<int>(); for (int v : c) { } }");
+    }
+
+    @Test
+    void stopsTaskSendingToFullChannel() {
+        assertStopped("void fill(chan<int> c) { for (int i = 0; i < 1000; i = i + 1) { c.send(i); } }\n"
+                + "void main() { chan<int> c = new chan<int>(); task<void> t = spawn fill(c); join(t); }");
+    }
+
+    @Test
+    void passesValuesBetweenTasks() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        compile("void produce(chan<int> c, int n) { for (int i = 1; i <= n; i = i + 1) { c.send(i); } c.close(); }\n"
+                + "void main() { chan<int> c = new chan<int>(); spawn produce(c, 1000); int sum = 0; for (int v : c) { sum = sum + v; } printf(sum); }")
+                .execute(new ExecutionContext(new Output(stream, Output.DEFAULT_SIZE, false)));
+        assertEquals("500500", stream.toString().strip());
+    }
+}
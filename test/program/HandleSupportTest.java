@@ -0,0 +1,179 @@
+package program;
+
+import jit.JitCompiler;
+import jit.JitProgram;
+import lexer.Tokenizer;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HandleSupportTest {
+    private static final String SOURCE = """
+            int calls = 0;
+            int score(int a, int b) {
+                calls = calls + 1;
+                return a * b + 1;
+            }
+            double half(double x) {
+                return x / 2;
+            }
+            boolean positive(int n) {
+                if (n > 0) {
+                    return true;
+                }
+                return false;
+            }
+            string greet(string name) {
+                string s = "hello ";
+                return s + name;
+            }
+            int[] range(int n) {
+                int[] a = new int[n];
+                for (int i = 0; i < n; i = i + 1) {
+                    a[i] = i;
+                }
+                return a;
+            }
+            int sum(int[] a) {
+                int s = 0;
+                for (int i = 0; i < a.length; i = i + 1) {
+                    s = s + a[i];
+                }
+                return s;
+            }
+            int count() {
+                return calls;
+            }
+            void reset() {
+                calls = 0;
+            }
+            int missing() {
+                int x = null;
+                return x;
+            }
+            """;
+
+    private static ProgramAST check(String source) throws Exception {
+        ProgramAST program = new Parser().parse(new Tokenizer(source.toCharArray()).run());
+        program.semanticsCheck();
+        return program;
+    }
+
+    private static ExecutionContext context() {
+        return new ExecutionContext(new Output(new StringWriter(), Output.DEFAULT_SIZE, false));
+    }
+
+    private static CompiledProgram initialize(ExecutionContext context) throws Exception {
+        CompiledProgram program = new CompiledProgram(check(SOURCE));
+        program.initialize(context);
+        return program;
+    }
+
+    @Test
+    void typesHandlesBySignature() throws Exception {
+        ExecutionContext context = context();
+        CompiledProgram program = initialize(context);
+        assertEquals(MethodType.methodType(int.class, int.class, int.class), program.handle(context, "score").type());
+        assertEquals(MethodType.methodType(double.class, double.class), program.handle(context, "half").type());
+        assertEquals(MethodType.methodType(boolean.class, int.class), program.handle(context, "positive").type());
+        assertEquals(MethodType.methodType(String.class, String.class), program.handle(context, "greet").type());
+        assertEquals(MethodType.methodType(Object.class, int.class), program.handle(context, "range").type());
+        assertEquals(MethodType.methodType(void.class), program.handle(context, "reset").type());
+    }
+
+    @Test
+    void invokesExactly() throws Throwable {
+        ExecutionContext context = context();
+        CompiledProgram program = initialize(context);
+        assertEquals(13, (int) program.handle(context, "score").invokeExact(3, 4));
+        assertEquals(1.25, (double) program.handle(context, "half").invokeExact(2.5));
+        assertTrue((boolean) program.handle(context, "positive").invokeExact(1));
+        assertFalse((boolean) program.handle(context, "positive").invokeExact(-1));
+        // The concatenation is flattened to a String.
+        assertEquals("hello world", (String) program.handle(context, "greet").invokeExact("world"));
+        Object range = (Object) program.handle(context, "range").invokeExact(4);
+        assertArrayEquals(new int[]{0, 1, 2, 3}, (int[]) range);
+        assertEquals(6, (int) program.handle(context, "sum").invokeExact(range));
+    }
+
+    @Test
+    void sharesGlobalVariablesOfExecution() throws Throwable {
+        ExecutionContext context = context();
+        CompiledProgram program = initialize(context);
+        MethodHandle score = program.handle(context, "score");
+        for (int i = 0; i < 3; i++) {
+            int result = (int) score.invokeExact(i, i);
+        }
+        assertEquals(3, (int) program.handle(context, "count").invokeExact());
+        program.handle(context, "reset").invokeExact();
+        assertEquals(0, program.invoke(context, "count"));
+    }
+
+    @Test
+    void reportsNullResultOfPrimitiveFunction() throws Exception {
+        ExecutionContext context = context();
+        CompiledProgram program = initialize(context);
+        MethodHandle missing = program.handle(context, "missing");
+        NullPointerException e = assertThrows(NullPointerException.class, () -> {
+            int result = (int) missing.invokeExact();
+        });
+        assertEquals("Function 'missing' returned null, which is not a value of type 'int'!", e.getMessage());
+        // The value of the invocation is not unboxed.
+        assertNull(program.invoke(context, "missing"));
+    }
+
+    @Test
+    void rejectsMissingFunction() throws Exception {
+        ExecutionContext context = context();
+        CompiledProgram program = initialize(context);
+        assertThrows(IllegalArgumentException.class, () -> program.handle(context, "none"));
+        assertThrows(IllegalStateException.class, () -> program.handle(context(), "score"));
+    }
+
+    @Test
+    void implementsFunctionalInterfaces() throws Exception {
+        ExecutionContext context = context();
+        CompiledProgram program = initialize(context);
+        assertEquals(13, program.function(context, "score", IntBinaryOperator.class).applyAsInt(3, 4));
+        assertEquals(1.25, program.function(context, "half", DoubleUnaryOperator.class).applyAsDouble(2.5));
+        @SuppressWarnings("unchecked")
+        ToIntFunction<Object> sum = program.function(context, "sum", ToIntFunction.class);
+        assertEquals(3, sum.applyAsInt(new int[]{1, 2}));
+    }
+
+    @Test
+    void rejectsInterfaceWhichDoesNotMatch() throws Exception {
+        ExecutionContext context = context();
+        CompiledProgram program = initialize(context);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> program.function(context, "half", IntBinaryOperator.class));
+        assertEquals("Function 'half' does not match java.util.function.IntBinaryOperator!", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> program.function(context, "score", String.class));
+    }
+
+    @Test
+    void typesJitHandlesAsInterpretedOnes() throws Throwable {
+        ExecutionContext context = context();
+        CompiledProgram program = initialize(context);
+        JitProgram compiled = new JitCompiler().compile(check(SOURCE));
+        compiled.initialize(new Output(new StringWriter(), Output.DEFAULT_SIZE, false));
+        for (String label : new String[]{"score", "half", "positive", "greet", "range", "reset"}) {
+            assertEquals(program.handle(context, label).type(), compiled.handle(label).type(), label);
+        }
+        assertEquals(13, (int) compiled.handle("score").invokeExact(3, 4));
+        assertEquals(13, compiled.function("score", IntBinaryOperator.class).applyAsInt(3, 4));
+    }
+}
@@ -0,0 +1,113 @@
+package program;
+
+import lexer.Tokenizer;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelForTest {
+    private static ProgramAST check(String source) throws Exception {
+        ProgramAST program = new Parser().parse(new Tokenizer(source.toCharArray()).run());
+        program.semanticsCheck();
+        return program;
+    }
+
+    private static String run(String source) throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        check(source).execute(new Output(stream, Output.DEFAULT_SIZE, false));
+        return stream.toString().strip();
+    }
+
+    private static void assertRejected(String source, String message) {
+        Exception e = assertThrows(Exception.class, () -> check(source));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    @Test
+    void rejectsChangeOfOuterArrayThroughLoopVariable() {
+        assertRejected("void main() { int[] a = new int[10]; parfor (int i = 0; i < 10; i = i + 1) { int[] c = a; c[0] = i; } }",
+                "Variable 'c' can only be changed in 'parfor' loop");
+    }
+
+    @Test
+    void rejectsChangeOfOuterStructThroughLoopVariable() {
+        assertRejected("struct S { int v; }\nvoid main() { S s = new S(); parfor (int i = 0; i < 10; i = i + 1) { S t = s; t.v = i; } }",
+                "Variable 't' can only be changed in 'parfor' loop");
+    }
+
+    @Test
+    void rejectsChangeAfterLoopVariableIsReassigned() {
+        assertRejected("void main() { int[] a = new int[10]; parfor (int i = 0; i < 10; i = i + 1) { int[] c = new int[1]; c = a; c[0] = i; } }",
+                "Variable 'c' can only be changed in 'parfor' loop");
+    }
+
+    @Test
+    void rejectsReadOfArrayChangedAtOtherIndex() {
+        assertRejected("void main() { int[] a = new int[10]; parfor (int i = 1; i < 10; i = i + 1) { a[i] = a[i - 1] + 1; } }",
+                "Variable 'a' is changed at the index of the loop variable");
+    }
+
+    @Test
+    void rejectsReadOfChangedArrayByCalledFunction() {
+        assertRejected("int[] g = new int[10];\nint peek(int j) { return g[j]; }\n"
+                        + "void main() { parfor (int i = 1; i < 10; i = i + 1) { g[i] = peek(i - 1); } }",
+                "Function 'peek', which reads variable 'g'");
+    }
+
+    @Test
+    void rejectsReadOfListChangedAtOtherIndex() {
+        assertRejected("void main() { list<int> l = new list<int>(); parfor (int i = 1; i < 10; i = i + 1) { l.set(i, l.get(i - 1)); } }",
+                "Variable 'l' is changed at the index of the loop variable");
+    }
+
+    @Test
+    void rejectsReadOfAliasOfChangedArray() {
+        assertRejected("void main() { int n = 1000; int[] a = new int[n]; int[] b = a; "
+                        + "parfor (int i = 0; i < n; i = i + 1) { a[i] = b[n - 1 - i] + i; } }",
+                "Variable 'b' may refer to the same value as variable 'a'");
+    }
+
+    @Test
+    void rejectsReadOfParameterOfChangedArrayType() {
+        assertRejected("void f(int[] x, int[] y) { parfor (int i = 0; i < x.length; i = i + 1) { x[i] = y[x.length - 1 - i]; } }\n"
+                        + "void main() { int[] a = new int[10]; f(a, a); }",
+                "Variable 'y' may refer to the same value as variable 'x'");
+    }
+
+    @Test
+    void rejectsReadOfChangedArrayThroughLoopVariable() {
+        assertRejected("struct H { int[] v; }\nvoid main() { int[] a = new int[10]; H h = new H(); h.v = a; "
+                        + "parfor (int i = 1; i < 10; i = i + 1) { int[] c = h.v; a[i] = c[i - 1]; } }",
+                "Variable 'c' may refer to the same value as variable 'a'");
+    }
+
+    @Test
+    void rejectsReadOfAliasByCalledFunction() {
+        assertRejected("int[] g = new int[10];\nint peek(int j) { return g[j]; }\n"
+                        + "void main() { int[] a = g; parfor (int i = 1; i < 10; i = i + 1) { a[i] = peek(i - 1); } }",
+                "Function 'peek', which reads variable 'g', which may refer to the same value as variable 'a'");
+    }
+
+    @Test
+    void readsArrayOfOtherTypeAtAnyIndex() throws Exception {
+        assertEquals("9.5", run("void main() { double[] a = new double[10]; int[] b = new int[10]; b[9] = 9; "
+                + "parfor (int i = 0; i < 10; i = i + 1) { int[] c = new int[1]; c[0] = i; a[i] = c[0] * 0 + b[9 - i] + 0.5; } printf(a[0]); }"));
+    }
+
+    @Test
+    void changesValuesCreatedInIteration() throws Exception {
+        assertEquals("18", run("struct S { int v; }\nvoid main() { int[] a = new int[10]; parfor (int i = 0; i < 10; i = i + 1) { "
+                + "S t = new S(); t.v = i; map<int, int> m = new map<int, int>(); m.put(i, i); a[i] = t.v + m.get(i); } printf(a[9]); }"));
+    }
+
+    @Test
+    void readsChangedArrayAtLoopVariable() throws Exception {
+        assertEquals("10", run("void main() { int[] a = new int[10]; int[] b = new int[10]; int sum = 0; "
+                + "parfor (int i = 0; i < 10; i = i + 1) reduce (sum) { b[i] = 1; a[i] = a[i] + b[i]; sum = sum + a[i]; } printf(sum); }"));
+    }
+}
@@ -0,0 +1,119 @@
+package program;
+
+import lexer.Tokenizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProgramCacheTest {
+    private static final byte[] SOURCE = """
+            struct Point { int x; double y; }
+            int[] squares(int n) {
+                int[] a = new int[n];
+                for (int i = 0; i < n; i = i + 1) {
+                    a[i] = i * i;
+                }
+                return a;
+            }
+            void main() {
+                Point p = new Point();
+                p.x = 3;
+                p.y = 0.5;
+                map<string, int> m = new map<string, int>();
+                m.put("a", 1);
+                int[] a = squares(5);
+                string s = "p " + p.x + " " + p.y;
+                printf(s);
+                printf(a[4] + m.get("a"));
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] OTHER_SOURCE = "void main() { printf(1); }".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    private static ProgramAST check(byte[] source) throws Exception {
+        ProgramAST program = new Parser().parse(new Tokenizer(ByteBuffer.wrap(source)).run());
+        program.semanticsCheck();
+        return program;
+    }
+
+    private static String execute(ProgramAST program) throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new CompiledProgram(program).execute(new ExecutionContext(new Output(stream, Output.DEFAULT_SIZE, false)));
+        return stream.toString();
+    }
+
+    private List<Path> files() throws Exception {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    void loadsProgramWhichPrintsAsParsedOne() throws Exception {
+        ProgramCache cache = new ProgramCache(this.directory);
+        ProgramAST program = check(SOURCE);
+        cache.store(SOURCE, program);
+        ProgramAST loaded = cache.load(SOURCE);
+        assertNotNull(loaded);
+        assertEquals(execute(check(SOURCE)), execute(loaded));
+    }
+
+    @Test
+    void returnsNullForProgramWhichIsNotCached() throws Exception {
+        assertNull(new ProgramCache(this.directory).load(SOURCE));
+    }
+
+    @Test
+    void rejectsOtherVersion() throws Exception {
+        ProgramCache cache = new ProgramCache(this.directory);
+        cache.store(SOURCE, check(SOURCE));
+        Path file = files().get(0);
+        byte[] data = Files.readAllBytes(file);
+        // The version follows the magic number.
+        ByteBuffer.wrap(data).putInt(4, ProgramCache.VERSION - 1);
+        Files.write(file, data);
+        assertNull(cache.load(SOURCE));
+    }
+
+    @Test
+    void rejectsProgramOfOtherSource() throws Exception {
+        ProgramCache cache = new ProgramCache(this.directory);
+        cache.store(SOURCE, check(SOURCE));
+        Path file = files().get(0);
+        cache.store(OTHER_SOURCE, check(OTHER_SOURCE));
+        Path other = files().stream().filter(path -> !path.equals(file)).findFirst().orElseThrow();
+        // A file of another source under the name of this one, as if their hashes collided.
+        Files.copy(file, other, StandardCopyOption.REPLACE_EXISTING);
+        assertNull(cache.load(OTHER_SOURCE));
+        assertNotNull(cache.load(SOURCE));
+    }
+
+    @Test
+    void returnsNullForTruncatedFile() throws Exception {
+        ProgramCache cache = new ProgramCache(this.directory);
+        cache.store(SOURCE, check(SOURCE));
+        Path file = files().get(0);
+        byte[] data = Files.readAllBytes(file);
+        for (int length : new int[]{0, 6, SOURCE.length / 2, data.length / 2, data.length - 1}) {
+            Files.write(file, Arrays.copyOf(data, length));
+            assertNull(cache.load(SOURCE), "length " + length);
+        }
+    }
+}
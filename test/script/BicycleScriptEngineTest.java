@@ -0,0 +1,151 @@
+package script;
+
+import org.junit.jupiter.api.Test;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BicycleScriptEngineTest {
+    private static final String SOURCE = """
+            int score(int a, int b) {
+                return a * b + 1;
+            }
+            double half(double x) {
+                return x / 2;
+            }
+            string greet(string name) {
+                string s = "hello ";
+                return s + name;
+            }
+            int divide(int a, int b) {
+                return a / b;
+            }
+            """;
+
+    /**
+     * The interface of {@link #SOURCE}.
+     */
+    public interface Scores {
+        int score(int a, int b);
+
+        double half(double x);
+    }
+
+    public interface Other {
+        int other();
+    }
+
+    private static ScriptEngine engine() {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("bicycle");
+        assertInstanceOf(BicycleScriptEngine.class, engine);
+        return engine;
+    }
+
+    @Test
+    void isFoundByExtension() {
+        assertInstanceOf(BicycleScriptEngine.class, new ScriptEngineManager().getEngineByExtension("bcl"));
+    }
+
+    @Test
+    void printsToWriterOfContext() throws Exception {
+        ScriptEngine engine = engine();
+        StringWriter writer = new StringWriter();
+        engine.getContext().setWriter(writer);
+        assertNull(engine.eval("void main() { printf(\"a\"); printf(1 + 2); }"));
+        assertEquals("a\n3\n", writer.toString());
+        engine.eval(new StringReader("void main() { printf(4); }"));
+        assertEquals("a\n3\n4\n", writer.toString());
+    }
+
+    @Test
+    void invokesFunctionsOfEvaluatedScript() throws Exception {
+        ScriptEngine engine = engine();
+        ((Compilable) engine).compile(SOURCE).eval();
+        Invocable invocable = (Invocable) engine;
+        assertEquals(13, invocable.invokeFunction("score", 3, 4));
+        // Any number is a double, and the int result of a double function is converted.
+        assertEquals(1.5, invocable.invokeFunction("half", 3));
+        assertEquals("hello world", invocable.invokeFunction("greet", "world"));
+    }
+
+    @Test
+    void evaluatesCompiledScriptManyTimes() throws Exception {
+        ScriptEngine engine = engine();
+        CompiledScript script = ((Compilable) engine).compile("int n = 0; void main() { n = n + 1; printf(n); }");
+        StringWriter writer = new StringWriter();
+        engine.getContext().setWriter(writer);
+        script.eval();
+        script.eval();
+        // Every evaluation has its own global variables.
+        assertEquals("1\n1\n", writer.toString());
+    }
+
+    @Test
+    void rejectsMissingFunction() throws Exception {
+        ScriptEngine engine = engine();
+        Invocable invocable = (Invocable) engine;
+        // Nothing is evaluated yet.
+        assertThrows(NoSuchMethodException.class, () -> invocable.invokeFunction("score", 3, 4));
+        engine.eval(SOURCE);
+        NoSuchMethodException e = assertThrows(NoSuchMethodException.class, () -> invocable.invokeFunction("none"));
+        assertEquals("Function 'none' does not exist!", e.getMessage());
+        assertThrows(NullPointerException.class, () -> invocable.invokeFunction(null));
+    }
+
+    @Test
+    void rejectsArgumentsWhichDoNotMatch() throws Exception {
+        ScriptEngine engine = engine();
+        engine.eval(SOURCE);
+        Invocable invocable = (Invocable) engine;
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> invocable.invokeFunction("score", "3", 4));
+        assertEquals("Type mismatch of function 'score', expected int, but found java.lang.String", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> invocable.invokeFunction("score", 3.5, 4));
+        assertThrows(IllegalArgumentException.class, () -> invocable.invokeFunction("score", 3));
+        assertThrows(IllegalArgumentException.class, () -> invocable.invokeMethod(new Object(), "score", 3, 4));
+    }
+
+    @Test
+    void reportsErrorsAsScriptExceptions() throws Exception {
+        ScriptEngine engine = engine();
+        ScriptException e = assertThrows(ScriptException.class, () -> ((Compilable) engine).compile("void main() { printf(x); }"));
+        assertNotNull(e.getCause());
+        engine.eval(SOURCE);
+        assertThrows(ScriptException.class, () -> ((Invocable) engine).invokeFunction("divide", 1, 0));
+    }
+
+    @Test
+    void stopsEvaluationAfterTimeLimit() {
+        ScriptEngine engine = engine();
+        engine.getContext().setAttribute(BicycleScriptEngine.TIME_LIMIT, Duration.ofMillis(100), ScriptContext.ENGINE_SCOPE);
+        ScriptException e = assertThrows(ScriptException.class,
+                () -> engine.eval("void main() { for (int i = 0; i < 1; i = i) { } }"));
+        assertEquals("Execution exceeded the time limit of 100 ms!", e.getCause().getMessage());
+    }
+
+    @Test
+    void implementsInterfaceByFunctions() throws Exception {
+        ScriptEngine engine = engine();
+        Invocable invocable = (Invocable) engine;
+        assertNull(invocable.getInterface(Scores.class));
+        engine.eval(SOURCE);
+        Scores scores = invocable.getInterface(Scores.class);
+        assertEquals(13, scores.score(3, 4));
+        assertEquals(1.25, scores.half(2.5));
+        assertNull(invocable.getInterface(Other.class));
+        assertThrows(IllegalArgumentException.class, () -> invocable.getInterface(String.class));
+    }
+}
@@ -0,0 +1,225 @@
+package vm;
+
+import compiler.Compiler;
+import jit.JitCompiler;
+import lexer.Tokenizer;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import parser.Parser;
+import program.CompiledProgram;
+import program.ExecutionContext;
+import program.Output;
+import program.ProgramAST;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs the examples and programs of the features the compilers specialize on the three engines, the bytecode VM
+ * and the JIT print the same as the tree-walking interpreter.
+ */
+class EnginesTest {
+    private static final String SHORT_CIRCUIT = """
+            int calls = 0;
+            int hit(int value) {
+                calls = calls + 1;
+                printf("hit " + calls);
+                return value;
+            }
+            int main() {
+                if (hit(0) > 0 && hit(1) > 0) {
+                    printf("and");
+                }
+                if (hit(1) > 0 || hit(0) > 0) {
+                    printf("or");
+                }
+                if ((hit(0) > 0 && hit(1) > 0) || (hit(1) > 0 || hit(0) > 0)) {
+                    printf("nested");
+                }
+                int i;
+                for (i = 0; i < 3 && hit(1) > 0; i = i + 1) {
+                }
+                if (hit(0) > 0) {
+                    printf("if");
+                } elseif (hit(1) > 0) {
+                    printf("elseif");
+                } else {
+                    printf("else");
+                }
+                printf(calls);
+                return 0;
+            }
+            """;
+
+    private static final String TAIL_CALLS = """
+            int sum(int n, int acc) {
+                if (n == 0) {
+                    return acc;
+                }
+                return sum(n - 1, acc + n);
+            }
+            boolean isEven(int n) {
+                if (n < 2) {
+                    if (n == 0) {
+                        return true;
+                    }
+                    return false;
+                }
+                return isEven(n - 2);
+            }
+            int fib(int n) {
+                if (n < 2) {
+                    return n;
+                }
+                return fib(n - 1) + fib(n - 2);
+            }
+            int main() {
+                printf(sum(200000, 0));
+                printf(isEven(10001));
+                printf(fib(20));
+                return 0;
+            }
+            """;
+
+    private static final String STRUCTS = """
+            struct Point {
+                int x = 1;
+                double y = x * 2.5;
+                string name = "p";
+                Point next;
+            }
+            int g = 5;
+            void move(Point p, int by = 2) {
+                p.x = p.x + by;
+                g = g + p.x;
+            }
+            int main() {
+                Point p = new Point();
+                printf(p.y);
+                move(p, null);
+                move(p, 4);
+                printf(p.x);
+                printf(g);
+                p.next = new Point();
+                Point q = p.next;
+                q.x = 10;
+                printf(q.x + p.x);
+                if (q.next == null) {
+                    printf("end");
+                }
+                printf(p.name + p.x);
+                return 0;
+            }
+            """;
+
+    private static final String ARRAYS = """
+            int[] squares(int n) {
+                int[] a = new int[n];
+                for (int i = 0; i < n; i = i + 1) {
+                    a[i] = i * i;
+                }
+                return a;
+            }
+            int main() {
+                int[] a = squares(10);
+                int sum = 0;
+                for (int i = 0; i < a.length; i = i + 1) {
+                    sum = sum + a[i];
+                }
+                printf(sum);
+                double[] d = new double[3];
+                d[1] = 1.5;
+                printf(d[0] + d[1]);
+                string[] s = new string[2];
+                s[0] = "x";
+                printf(s[0] + s[1]);
+                printf(a);
+                return 0;
+            }
+            """;
+
+    private static final String STRINGS = """
+            string repeat(string s, int n) {
+                string r = "";
+                for (int i = 0; i < n; i = i + 1) {
+                    r = r + s;
+                }
+                return r;
+            }
+            int main() {
+                string s = "a" + 1 + 2.5 + true;
+                printf(s);
+                printf(repeat("ab", 5));
+                if (repeat("x", 3) == "xxx") {
+                    printf("equal");
+                }
+                int n = 7 / 2;
+                double d = 7 / 2.0;
+                int m = 7 % 3;
+                printf("n=" + n + ", d=" + d + ", m=" + m);
+                string none = null;
+                if (none == null) {
+                    printf("null");
+                }
+                return 0;
+            }
+            """;
+
+    static Stream<Arguments> programs() throws IOException {
+        List<Arguments> programs = new ArrayList<>();
+        try (Stream<Path> examples = Files.list(Path.of("examples"))) {
+            for (Path example : examples.sorted().toList()) {
+                // The tokenizer decodes files with the default charset as well.
+                programs.add(Arguments.of(example.getFileName().toString(), Files.readString(example, Charset.defaultCharset())));
+            }
+        }
+        programs.add(Arguments.of("short-circuit", SHORT_CIRCUIT));
+        programs.add(Arguments.of("tail-calls", TAIL_CALLS));
+        programs.add(Arguments.of("structs", STRUCTS));
+        programs.add(Arguments.of("arrays", ARRAYS));
+        programs.add(Arguments.of("strings", STRINGS));
+        return programs.stream();
+    }
+
+    private static ProgramAST check(String source) throws Exception {
+        ProgramAST program = new Parser().parse(new Tokenizer(source.toCharArray()).run());
+        program.semanticsCheck();
+        return program;
+    }
+
+    private static String interpret(String source) throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new CompiledProgram(check(source)).execute(new ExecutionContext(new Output(stream, Output.DEFAULT_SIZE, false)));
+        return stream.toString();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("programs")
+    void virtualMachinePrintsAsInterpreter(String name, String source) throws Exception {
+        String expected = interpret(source);
+        assertFalse(expected.isEmpty());
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new VirtualMachine().run(new Compiler().compile(check(source)), new Output(stream, Output.DEFAULT_SIZE, false));
+        assertEquals(expected, stream.toString());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("programs")
+    void jitPrintsAsInterpreter(String name, String source) throws Exception {
+        String expected = interpret(source);
+        assertFalse(expected.isEmpty());
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new JitCompiler().compile(check(source)).run(new Output(stream, Output.DEFAULT_SIZE, false));
+        assertEquals(expected, stream.toString());
+    }
+}